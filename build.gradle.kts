@@ -12,6 +12,15 @@ repositories {
     maven("https://jitpack.io")
 }
 
+// Benchmarks of the compiler phases on generated programs, run with `./gradlew jmh`.
+// JMH options are passed with --args, e.g. `./gradlew jmh --args="FrontendBenchmark.parse -p shape=DEEP_NESTING"`.
+val jmh: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output
+    runtimeClasspath += sourceSets.main.get().output
+}
+
+configurations["jmhImplementation"].extendsFrom(configurations.implementation.get())
+
 dependencies {
     implementation("info.picocli:picocli:4.6.2")
     implementation("net.java.dev.jna:jna:4.5.2")
@@ -19,6 +28,8 @@ dependencies {
     testImplementation("org.junit.jupiter:junit-jupiter-api:5.8.2")
     testRuntimeOnly("org.junit.jupiter:junit-jupiter-engine:5.8.2")
     testImplementation("org.mockito:mockito-core:4.2.0")
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:1.35")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.35")
 }
 
 dependencyLocking {
@@ -54,7 +65,27 @@ tasks.getByName<Test>("test") {
     jvmArgs("--enable-preview")
 }
 
+tasks.register<JavaExec>("jmh") {
+    description = "Runs the compiler benchmarks."
+    group = "verification"
+    classpath = jmh.runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+}
+
+// Compiles and runs the programs in src/jmh/resources/runtime at -O0, -O1 and with the FIRM backend.
+tasks.register<JavaExec>("runtimeBenchmark") {
+    description = "Runs the generated code benchmarks."
+    group = "verification"
+    dependsOn("installDist")
+    classpath = jmh.runtimeClasspath
+    mainClass.set("compiler.RuntimeBenchmark")
+}
+
 tasks.withType<JavaExec>() {
     jvmArgs("--enable-preview")
+}
+
+// The exit code of the compiler reports errors in the compiled program, not in the build.
+tasks.named<JavaExec>("run") {
     isIgnoreExitValue = true
 }
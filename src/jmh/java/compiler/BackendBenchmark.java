@@ -0,0 +1,109 @@
+package compiler;
+
+import compiler.codegen.*;
+import compiler.codegen.sir.SirGraph;
+import compiler.semantic.resolution.DefinedMethod;
+import firm.Firm;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scheduling, register allocation and emission of the optimized program.
+ * The program is translated and lowered to LLIR once per trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class BackendBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class LoweredProgram {
+        public FirmToLlir.LoweringResult graphs;
+        public Map<DefinedMethod, ScheduleResult> schedules;
+        // The graphs after register allocation and the peephole optimizer.
+        public Map<DefinedMethod, SirGraph> allocatedGraphs;
+
+        @Setup
+        public void setup(BenchmarkProgram program) {
+            try {
+                var translation = new Translation(program.frontend()).translate(false, true);
+                this.graphs = FirmToLlir.lowerFirm(translation, false, true);
+            } finally {
+                Firm.finish();
+            }
+
+            this.schedules = new HashMap<>();
+            for (var pair : this.graphs.methodLlirGraphs().entrySet()) {
+                this.schedules.put(pair.getKey(), ErshovScheduler.schedule(pair.getValue()));
+            }
+
+            this.allocatedGraphs = this.transformToSir();
+            for (var pair : this.allocatedGraphs.entrySet()) {
+                this.allocate(pair.getKey(), pair.getValue());
+                new PeepholeOptimizer(pair.getValue()).optimize();
+            }
+        }
+
+        public Map<DefinedMethod, SirGraph> transformToSir() {
+            var sirGraphs = new HashMap<DefinedMethod, SirGraph>();
+            for (var pair : this.graphs.methodLlirGraphs().entrySet()) {
+                sirGraphs.put(pair.getKey(), new LlirToSir(pair.getValue(), this.schedules.get(pair.getKey())).transform());
+            }
+            return sirGraphs;
+        }
+
+        public void allocate(DefinedMethod method, SirGraph graph) {
+            new OnTheFlyRegisterAllocator(this.graphs.methodParameters().get(method), graph, method.getLinkerName(), false).allocate();
+        }
+    }
+
+    /**
+     * The register allocator works in place, so every invocation gets fresh SIR graphs.
+     */
+    @State(Scope.Thread)
+    public static class UnallocatedProgram {
+        public Map<DefinedMethod, SirGraph> sirGraphs;
+
+        @Setup(Level.Invocation)
+        public void setup(LoweredProgram program) {
+            this.sirGraphs = program.transformToSir();
+        }
+    }
+
+    @Benchmark
+    public void scheduling(LoweredProgram program, Blackhole blackhole) {
+        for (var graph : program.graphs.methodLlirGraphs().values()) {
+            blackhole.consume(ErshovScheduler.schedule(graph));
+        }
+    }
+
+    @Benchmark
+    public Map<DefinedMethod, SirGraph> registerAllocation(LoweredProgram program, UnallocatedProgram unallocated) {
+        for (var pair : unallocated.sirGraphs.entrySet()) {
+            program.allocate(pair.getKey(), pair.getValue());
+        }
+        return unallocated.sirGraphs;
+    }
+
+    /**
+     * The assembly is written to a channel which discards it, so only the formatting is measured.
+     */
+    @Benchmark
+    public Emitter emit(LoweredProgram program) throws IOException {
+        var emitter = new Emitter(Channels.newChannel(OutputStream.nullOutputStream()));
+        for (var pair : program.allocatedGraphs.entrySet()) {
+            emitter.emitFunction(pair.getKey().getLinkerName(), pair.getValue());
+        }
+        emitter.flush();
+        return emitter;
+    }
+}
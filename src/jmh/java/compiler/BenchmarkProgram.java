@@ -0,0 +1,63 @@
+package compiler;
+
+import compiler.ast.Program;
+import compiler.diagnostics.CompilerMessageReporter;
+import compiler.syntax.Lexer;
+import compiler.syntax.Parser;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.io.Writer;
+
+/**
+ * A generated program shared by all benchmarks. Every benchmark runs for every shape and size.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkProgram {
+
+    @Param({"DEEP_NESTING", "WIDE_CLASSES", "LONG_METHODS", "MANY_LOOPS"})
+    public ProgramGenerator.Shape shape;
+
+    @Param({"2000", "20000"})
+    public int statements;
+
+    public String source;
+    public Program ast;
+
+    private FrontendResult frontend;
+
+    @Setup
+    public void setup() {
+        this.source = ProgramGenerator.generate(this.shape, this.statements);
+        this.ast = this.parse();
+        this.frontend = null;
+    }
+
+    public CompilerMessageReporter reporter() {
+        return new CompilerMessageReporter(new PrintWriter(Writer.nullWriter()), this.source);
+    }
+
+    public Program parse() {
+        var parser = new Parser(new Lexer(this.source), this.reporter());
+        var program = parser.parse();
+        if (!parser.successfulParse) {
+            throw new IllegalStateException("generated program doesn't parse");
+        }
+        return program;
+    }
+
+    /**
+     * @return The checked program, it is only computed once.
+     */
+    public FrontendResult frontend() {
+        if (this.frontend == null) {
+            this.frontend = MainCommand.checkProgram(new File("Benchmark.java"), this.ast, this.reporter())
+                    .orElseThrow(() -> new IllegalStateException("generated program isn't valid"));
+        }
+        return this.frontend;
+    }
+}
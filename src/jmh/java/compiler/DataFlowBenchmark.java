@@ -0,0 +1,83 @@
+package compiler;
+
+import firm.Firm;
+import firm.Graph;
+import firm.bindings.binding_irdom;
+import firm.nodes.Block;
+import firm.nodes.Node;
+import firm.nodes.Phi;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The dataflow analyses on the unoptimized FIRM graphs. The long straight line methods of
+ * {@code -p shape=LONG_METHODS} have thousands of field and array accesses, run with {@code -prof gc} to see the
+ * allocated memory per analysis.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class DataFlowBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class TranslatedProgram {
+        public TranslationResult translation;
+        public Map<Graph, Map<Block, List<Phi>>> blockPhis;
+
+        @Setup
+        public void setup(BenchmarkProgram program) {
+            this.translation = new Translation(program.frontend()).translate(false, false);
+            this.blockPhis = new HashMap<>();
+            for (Graph graph : this.translation.methodGraphs().values()) {
+                // The load-load analysis picks the dominating load.
+                binding_irdom.compute_doms(graph.ptr);
+
+                var phis = new HashMap<Block, List<Phi>>();
+                for (Node n : NodeCollector.run(graph)) {
+                    if (n instanceof Block b) {
+                        phis.putIfAbsent(b, new ArrayList<>());
+                    } else if (n instanceof Phi p) {
+                        phis.computeIfAbsent((Block) p.getBlock(), b -> new ArrayList<>()).add(p);
+                    }
+                }
+                this.blockPhis.put(graph, phis);
+            }
+        }
+
+        @TearDown
+        public void tearDown() {
+            Firm.finish();
+        }
+    }
+
+    @Benchmark
+    public void constantFolding(TranslatedProgram program, Blackhole blackhole) {
+        for (var graph : program.translation.methodGraphs().values()) {
+            blackhole.consume(DataFlow.analyzeConstantFolding(graph, program.blockPhis.get(graph)));
+        }
+    }
+
+    @Benchmark
+    public void loadLoad(TranslatedProgram program, Blackhole blackhole) {
+        var translation = program.translation;
+        for (var graph : translation.methodGraphs().values()) {
+            blackhole.consume(DataFlow.analyzeLoadLoad(graph, translation.nodeAstTypes(), translation.methodReferences()));
+        }
+    }
+
+    @Benchmark
+    public void storeLoad(TranslatedProgram program, Blackhole blackhole) {
+        var translation = program.translation;
+        for (var graph : translation.methodGraphs().values()) {
+            blackhole.consume(DataFlow.analyzeStoreLoad(graph, translation.nodeAstTypes(), translation.methodReferences()));
+        }
+    }
+}
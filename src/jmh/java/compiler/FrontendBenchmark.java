@@ -0,0 +1,77 @@
+package compiler;
+
+import compiler.ast.Program;
+import compiler.semantic.resolution.NameResolution;
+import compiler.syntax.Lexer;
+import compiler.syntax.Parser;
+import compiler.syntax.PipelinedLexer;
+import compiler.syntax.Token;
+import compiler.syntax.TokenStream;
+import compiler.syntax.TokenType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lexing, parsing and the semantic checks. The checks reuse the AST parsed once per trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class FrontendBenchmark {
+
+    @Benchmark
+    public void lex(BenchmarkProgram program, Blackhole blackhole) {
+        var lexer = new Lexer(program.source);
+        Token token;
+        do {
+            token = lexer.nextToken();
+            blackhole.consume(token);
+        } while (token.type != TokenType.EOF);
+    }
+
+    @Benchmark
+    public TokenStream lexTokenStream(BenchmarkProgram program) {
+        return TokenStream.lex(program.source);
+    }
+
+    @Benchmark
+    public Program parse(BenchmarkProgram program) {
+        return program.parse();
+    }
+
+    @Benchmark
+    public Program parseTokenStream(BenchmarkProgram program) {
+        return new Parser(TokenStream.lex(program.source).reader(), program.reporter()).parse();
+    }
+
+    /**
+     * Only faster than parse with a second core for the lexer thread.
+     */
+    @Benchmark
+    public Program parsePipelined(BenchmarkProgram program) {
+        try (var lexer = new PipelinedLexer(program.source)) {
+            return new Parser(lexer, program.reporter()).parse();
+        }
+    }
+
+    @Benchmark
+    public NameResolution.NameResolutionResult nameResolution(BenchmarkProgram program) {
+        return NameResolution.performNameResolution(program.ast, program.reporter());
+    }
+
+    @Benchmark
+    public Optional<FrontendResult> check(BenchmarkProgram program) {
+        return MainCommand.checkProgram(new File("Benchmark.java"), program.ast, program.reporter(), false);
+    }
+
+    @Benchmark
+    public Optional<FrontendResult> checkParallel(BenchmarkProgram program) {
+        return MainCommand.checkProgram(new File("Benchmark.java"), program.ast, program.reporter(), true);
+    }
+}
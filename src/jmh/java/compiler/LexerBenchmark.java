@@ -0,0 +1,82 @@
+package compiler;
+
+import compiler.syntax.Lexer;
+import compiler.syntax.Token;
+import compiler.syntax.TokenType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.CharBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The lexer on inputs of several megabytes, made of generated programs one after the other.
+ * Run with {@code -prof gc} to see the allocated memory per lexed byte.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class LexerBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Input {
+        @Param({"4", "16"})
+        public int megabytes;
+
+        public String source;
+        public char[] chars;
+
+        @Setup
+        public void setup() {
+            var sb = new StringBuilder();
+            var seed = 0;
+            while (sb.length() < this.megabytes * 1024 * 1024) {
+                sb.append(ProgramGenerator.generate(ProgramGenerator.Shape.LONG_METHODS, 20000, seed++));
+            }
+            this.source = sb.toString();
+            this.chars = this.source.toCharArray();
+        }
+    }
+
+    private static void lexAll(Lexer lexer, Blackhole blackhole) {
+        Token token;
+        do {
+            token = lexer.nextToken();
+            blackhole.consume(token);
+        } while (token.type != TokenType.EOF);
+    }
+
+    @Benchmark
+    public void lexString(Input input, Blackhole blackhole) {
+        lexAll(new Lexer(input.source), blackhole);
+    }
+
+    @Benchmark
+    public void lexChars(Input input, Blackhole blackhole) {
+        lexAll(new Lexer(input.chars), blackhole);
+    }
+
+    @Benchmark
+    public void lexCharBuffer(Input input, Blackhole blackhole) {
+        lexAll(new Lexer(CharBuffer.wrap(input.chars)), blackhole);
+    }
+
+    /**
+     * Requests the payload of every identifier and literal, which the parser does for all of them.
+     */
+    @Benchmark
+    public void lexWithContents(Input input, Blackhole blackhole) {
+        var lexer = new Lexer(input.chars);
+        Token token;
+        do {
+            token = lexer.nextToken();
+            switch (token.type) {
+                case Identifier -> blackhole.consume(token.getIdentContent());
+                case IntLiteral -> blackhole.consume(token.getIntLiteralContent());
+                default -> blackhole.consume(token);
+            }
+        } while (token.type != TokenType.EOF);
+    }
+}
@@ -0,0 +1,43 @@
+package compiler;
+
+import firm.Firm;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The translation to FIRM, with and without inlining and the optimizations of an optimization level.
+ * The FIRM state is thrown away after every invocation, like after every compilation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class MiddleEndBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Level {
+        @Param({"1", "2", "3"})
+        public int level;
+    }
+
+    private static void translate(BenchmarkProgram program, OptimizationPipeline pipeline, Blackhole blackhole) {
+        try {
+            blackhole.consume(new Translation(program.frontend()).translate(false, pipeline));
+        } finally {
+            Firm.finish();
+        }
+    }
+
+    @Benchmark
+    public void translation(BenchmarkProgram program, Blackhole blackhole) {
+        translate(program, OptimizationPipeline.O0, blackhole);
+    }
+
+    @Benchmark
+    public void translationAndOptimization(BenchmarkProgram program, Level level, Blackhole blackhole) {
+        translate(program, OptimizationPipeline.forLevel(level.level), blackhole);
+    }
+}
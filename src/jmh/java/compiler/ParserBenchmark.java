@@ -0,0 +1,68 @@
+package compiler;
+
+import compiler.ast.Program;
+import compiler.syntax.Parser;
+import compiler.syntax.TokenStream;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The parser on the valid syntax testcases, repeated until the input has the given size. The tokens are lexed once per
+ * trial, so only the parser is measured. Run with {@code -prof gc} to see the allocated memory per parse.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class ParserBenchmark {
+
+    private static final File SYNTAX_TEST_DIR = new File("src/test/resources/testcases/syntax");
+
+    @State(Scope.Benchmark)
+    public static class Input {
+        @Param({"1", "8"})
+        public int megabytes;
+
+        public TokenStream tokens;
+
+        @Setup
+        public void setup() throws IOException {
+            var files = SYNTAX_TEST_DIR.listFiles();
+            if (files == null) {
+                throw new IllegalStateException("no syntax testcases found in " + SYNTAX_TEST_DIR);
+            }
+            Arrays.sort(files, Comparator.comparing(File::getName));
+
+            var testcases = new StringBuilder();
+            for (var file : files) {
+                var content = Files.readString(file.toPath());
+                if (content.startsWith("/* OK")) {
+                    testcases.append(content).append('\n');
+                }
+            }
+
+            var source = new StringBuilder();
+            while (source.length() < this.megabytes * 1024 * 1024) {
+                source.append(testcases);
+            }
+            this.tokens = TokenStream.lex(source.toString());
+        }
+    }
+
+    @Benchmark
+    public Program parse(Input input) {
+        var parser = new Parser(input.tokens.reader());
+        var program = parser.parse();
+        if (!parser.successfulParse) {
+            throw new IllegalStateException("syntax testcases don't parse");
+        }
+        return program;
+    }
+}
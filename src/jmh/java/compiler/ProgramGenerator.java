@@ -0,0 +1,283 @@
+package compiler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Generates valid MiniJava programs of a given size and shape for the benchmarks.
+ * <p>
+ * The programs pass the semantic checks and terminate quickly: loops have small constant bounds and are nested
+ * at most three times, and every method calls at most one method declared before it, outside of loops.
+ * The same shape, size and seed always produce the same program.
+ */
+public class ProgramGenerator {
+
+    public enum Shape {
+        /**
+         * Few methods with deeply nested ifs and loops.
+         */
+        DEEP_NESTING(new Profile(200, 8, 4, 48, 0.9, 0.3)),
+        /**
+         * Many classes with many fields and short methods.
+         */
+        WIDE_CLASSES(new Profile(15, 25, 40, 2, 0.2, 0.3)),
+        /**
+         * Few methods with thousands of mostly straight line statements.
+         */
+        LONG_METHODS(new Profile(2000, 4, 4, 2, 0.05, 0.3)),
+        /**
+         * Many methods, most statements are loops.
+         */
+        MANY_LOOPS(new Profile(40, 10, 4, 4, 0.5, 0.8));
+
+        private final Profile profile;
+
+        Shape(Profile profile) {
+            this.profile = profile;
+        }
+    }
+
+    /**
+     * @param statementsPerMethod Approximately, nested statements count as well.
+     * @param compoundProbability The probability of a statement being an if or a loop.
+     * @param loopProbability     The probability of a compound statement being a loop.
+     */
+    private record Profile(int statementsPerMethod, int methodsPerClass, int fieldsPerClass, int maxDepth,
+                           double compoundProbability, double loopProbability) {
+    }
+
+    private static final int LOCALS = 6;
+    private static final int ARRAY_SIZE = 16;
+    private static final int MAX_LOOP_NESTING = 3;
+
+    private final Profile profile;
+    private final Random random;
+    private final StringBuilder sb;
+    private int indent;
+
+    // The statements left for the current method and the number of loops in it, to give every loop counter a unique name.
+    private int budget;
+    private int loops;
+    private boolean hasCall;
+
+    private ProgramGenerator(Shape shape, long seed) {
+        this.profile = shape.profile;
+        this.random = new Random(seed);
+        this.sb = new StringBuilder();
+        this.indent = 0;
+    }
+
+    /**
+     * @param statements The approximate number of statements of the program.
+     */
+    public static String generate(Shape shape, int statements, long seed) {
+        return new ProgramGenerator(shape, seed).generateProgram(statements);
+    }
+
+    public static String generate(Shape shape, int statements) {
+        return generate(shape, statements, 0);
+    }
+
+    private String generateProgram(int statements) {
+        var statementsPerMethod = Math.max(1, Math.min(statements, this.profile.statementsPerMethod));
+        var methods = (statements + statementsPerMethod - 1) / statementsPerMethod;
+        var classes = Math.max(1, (methods + this.profile.methodsPerClass - 1) / this.profile.methodsPerClass);
+
+        this.line("class Main {");
+        this.indent += 1;
+        this.line("public static void main(String[] args) {");
+        this.indent += 1;
+        for (int c = 0; c < classes; c++) {
+            this.line("System.out.println(new C%d().m%d(%d, %d));", c, this.methodsOfClass(c, methods) - 1, c, c + 1);
+        }
+        this.indent -= 1;
+        this.line("}");
+        this.indent -= 1;
+        this.line("}");
+
+        for (int c = 0; c < classes; c++) {
+            this.generateClass(c, this.methodsOfClass(c, methods), statementsPerMethod);
+        }
+
+        return this.sb.toString();
+    }
+
+    private int methodsOfClass(int index, int methods) {
+        return Math.max(1, Math.min(this.profile.methodsPerClass, methods - index * this.profile.methodsPerClass));
+    }
+
+    private void generateClass(int index, int methods, int statementsPerMethod) {
+        this.line("");
+        this.line("class C%d {", index);
+        this.indent += 1;
+
+        for (int f = 0; f < this.profile.fieldsPerClass; f++) {
+            this.line("public int f%d;", f);
+        }
+
+        for (int m = 0; m < methods; m++) {
+            this.line("");
+            this.generateMethod(m, statementsPerMethod);
+        }
+
+        this.indent -= 1;
+        this.line("}");
+    }
+
+    private void generateMethod(int index, int statements) {
+        this.budget = statements;
+        this.loops = 0;
+        this.hasCall = false;
+
+        this.line("public int m%d(int a, int b) {", index);
+        this.indent += 1;
+
+        for (int l = 0; l < LOCALS; l++) {
+            this.line("int x%d = %s;", l, l % 2 == 0 ? "a" : "b + " + l);
+        }
+        this.line("int[] data = new int[%d];", ARRAY_SIZE);
+
+        while (this.budget > 0) {
+            this.generateStatement(index, 0, 0);
+        }
+
+        this.line("return x0 + x1 + data[%d];", this.random.nextInt(ARRAY_SIZE));
+        this.indent -= 1;
+        this.line("}");
+    }
+
+    private void generateStatement(int method, int depth, int loopDepth) {
+        this.budget -= 1;
+
+        if (depth < this.profile.maxDepth && this.random.nextDouble() < this.profile.compoundProbability) {
+            if (loopDepth < MAX_LOOP_NESTING && this.random.nextDouble() < this.profile.loopProbability) {
+                this.generateLoop(method, depth, loopDepth);
+            } else {
+                this.generateIf(method, depth, loopDepth);
+            }
+            return;
+        }
+
+        switch (this.random.nextInt(6)) {
+            case 0 -> this.line("this.f%d = %s;", this.field(), this.expression(2));
+            case 1 -> this.line("data[%d] = %s;", this.random.nextInt(ARRAY_SIZE), this.expression(2));
+            case 2 -> {
+                if (method > 0 && loopDepth == 0 && !this.hasCall) {
+                    this.hasCall = true;
+                    this.line("%s = this.m%d(%s, %s);", this.local(), this.random.nextInt(method), this.expression(1), this.expression(1));
+                } else {
+                    this.line("%s = %s;", this.local(), this.expression(3));
+                }
+            }
+            case 3 -> this.line("System.out.println(%s);", this.expression(1));
+            default -> this.line("%s = %s;", this.local(), this.expression(3));
+        }
+    }
+
+    private void generateLoop(int method, int depth, int loopDepth) {
+        var counter = "i" + this.loops++;
+
+        this.line("int %s = 0;", counter);
+        this.line("while (%s < %d) {", counter, 2 + this.random.nextInt(8));
+        this.indent += 1;
+        this.generateBlock(method, depth, loopDepth + 1);
+        this.line("%s = %s + 1;", counter, counter);
+        this.indent -= 1;
+        this.line("}");
+    }
+
+    private void generateIf(int method, int depth, int loopDepth) {
+        this.line("if (%s) {", this.condition());
+        this.indent += 1;
+        this.generateBlock(method, depth, loopDepth);
+        this.indent -= 1;
+
+        if (this.random.nextBoolean()) {
+            this.line("} else {");
+            this.indent += 1;
+            this.generateBlock(method, depth, loopDepth);
+            this.indent -= 1;
+        }
+        this.line("}");
+    }
+
+    private void generateBlock(int method, int depth, int loopDepth) {
+        // Deeper blocks get fewer statements, so that the budget isn't spent at the first nesting level.
+        var statements = 1 + this.random.nextInt(Math.max(1, 4 - depth / 4));
+        for (int i = 0; i < statements && this.budget > 0; i++) {
+            this.generateStatement(method, depth + 1, loopDepth);
+        }
+    }
+
+    private String condition() {
+        var comparison = switch (this.random.nextInt(4)) {
+            case 0 -> "<";
+            case 1 -> "<=";
+            case 2 -> "==";
+            default -> "!=";
+        };
+        var condition = this.expression(1) + " " + comparison + " " + this.expression(1);
+
+        if (this.random.nextInt(4) == 0) {
+            var operator = this.random.nextBoolean() ? "&&" : "||";
+            condition = condition + " " + operator + " " + this.local() + " > " + this.random.nextInt(100);
+        }
+        return condition;
+    }
+
+    private String expression(int depth) {
+        if (depth == 0 || this.random.nextInt(3) == 0) {
+            return switch (this.random.nextInt(5)) {
+                case 0 -> String.valueOf(this.random.nextInt(1000));
+                case 1 -> "this.f" + this.field();
+                case 2 -> "data[" + this.random.nextInt(ARRAY_SIZE) + "]";
+                default -> this.local();
+            };
+        }
+
+        return switch (this.random.nextInt(6)) {
+            case 0 -> "(" + this.expression(depth - 1) + " - " + this.expression(depth - 1) + ")";
+            case 1 -> this.expression(depth - 1) + " * " + this.expression(depth - 1);
+            // Only constant divisors, so that the programs never divide by zero.
+            case 2 -> this.expression(depth - 1) + " / " + (1 + this.random.nextInt(16));
+            case 3 -> this.expression(depth - 1) + " % " + (1 + this.random.nextInt(16));
+            case 4 -> "-(" + this.expression(depth - 1) + ")";
+            default -> this.expression(depth - 1) + " + " + this.expression(depth - 1);
+        };
+    }
+
+    private String local() {
+        return "x" + this.random.nextInt(LOCALS);
+    }
+
+    private int field() {
+        return this.random.nextInt(this.profile.fieldsPerClass);
+    }
+
+    private void line(String format, Object... args) {
+        if (!format.isEmpty()) {
+            this.sb.append("    ".repeat(this.indent)).append(String.format(format, args));
+        }
+        this.sb.append('\n');
+    }
+
+    /**
+     * Writes a program to a file, e.g. to inspect it or to compile it with the command line compiler.
+     * <p>
+     * Usage: {@code ProgramGenerator SHAPE STATEMENTS FILE [SEED]}
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("usage: ProgramGenerator SHAPE STATEMENTS FILE [SEED]");
+            System.exit(1);
+        }
+
+        var shape = Shape.valueOf(args[0]);
+        var statements = Integer.parseInt(args[1]);
+        var seed = args.length > 3 ? Long.parseLong(args[3]) : 0;
+
+        Files.writeString(Path.of(args[2]), generate(shape, statements, seed));
+    }
+}
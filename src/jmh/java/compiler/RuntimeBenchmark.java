@@ -0,0 +1,316 @@
+package compiler;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compiles the compute heavy MiniJava programs in {@code src/jmh/resources/runtime} with every backend configuration,
+ * runs the binaries and reports their runtime, instruction and cycle counts and code size.
+ * <p>
+ * The output of every run is compared with the expected output next to the program ({@code Name.out}).
+ * Instructions and cycles are counted with {@code perf stat}, if it is available.
+ * The code size is the number of instructions in the generated assembly, which isn't written with {@code --emit-object}.
+ * <p>
+ * Usage: {@code RuntimeBenchmark [--compiler PATH] [--programs DIR] [--runs N] [--json FILE] [PROGRAM...]}
+ */
+public class RuntimeBenchmark {
+
+    public record Configuration(String name, List<String> compilerArgs) {
+    }
+
+    private static final List<Configuration> CONFIGURATIONS = List.of(
+            new Configuration("-O0", List.of("--compile", "-O0")),
+            new Configuration("-O1", List.of("--compile", "-O1")),
+            new Configuration("-O3", List.of("--compile", "-O3")),
+            new Configuration("obj", List.of("--compile", "-O1", "--emit-object")),
+            new Configuration("firm", List.of("--compile-firm"))
+    );
+
+    private static final long TIMEOUT_SECONDS = 120;
+
+    public record Result(String program, String configuration, Optional<String> error, List<Long> runNanos,
+                         OptionalLong instructions, OptionalLong cycles, long asmInstructions, long binaryBytes) {
+
+        public long minNanos() {
+            return this.runNanos.stream().mapToLong(Long::longValue).min().orElse(0);
+        }
+
+        public long medianNanos() {
+            var sorted = this.runNanos.stream().sorted().toList();
+            return sorted.isEmpty() ? 0 : sorted.get(sorted.size() / 2);
+        }
+    }
+
+    private final Path compiler;
+    private final int runs;
+    private final boolean perfAvailable;
+
+    public RuntimeBenchmark(Path compiler, int runs) {
+        this.compiler = compiler.toAbsolutePath();
+        this.runs = runs;
+        this.perfAvailable = isPerfAvailable();
+    }
+
+    private static boolean isPerfAvailable() {
+        try {
+            var process = new ProcessBuilder("perf", "stat", "-x", ",", "-e", "instructions", "true")
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            return process.waitFor(10, TimeUnit.SECONDS) && process.exitValue() == 0;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public Result benchmark(Path program, Configuration configuration) throws IOException, InterruptedException {
+        var name = program.getFileName().toString().replaceFirst("\\.java$", "");
+        var expectedOutput = Files.readString(program.resolveSibling(name + ".out"));
+
+        var workDir = Files.createTempDirectory("runtime-benchmark-" + name);
+        var source = workDir.resolve(program.getFileName());
+        Files.copy(program, source);
+
+        var compileCommand = new ArrayList<String>();
+        compileCommand.add(this.compiler.toString());
+        compileCommand.addAll(configuration.compilerArgs());
+        compileCommand.add(source.getFileName().toString());
+
+        var compilerOutput = workDir.resolve("compiler.log");
+        var compilation = new ProcessBuilder(compileCommand)
+                .directory(workDir.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(compilerOutput.toFile())
+                .start();
+        var binary = workDir.resolve("a.out");
+        if (!finished(compilation) || compilation.exitValue() != 0 || !Files.exists(binary)) {
+            return failure(name, configuration, workDir, "compilation failed");
+        }
+
+        var asmInstructions = countInstructions(workDir.resolve(source.getFileName() + ".s"));
+        var binaryBytes = Files.size(binary);
+
+        var runNanos = new ArrayList<Long>();
+        var runOutput = workDir.resolve("output.txt");
+        for (int i = 0; i < this.runs; i++) {
+            var start = System.nanoTime();
+            var run = new ProcessBuilder(binary.toString())
+                    .directory(workDir.toFile())
+                    .redirectOutput(runOutput.toFile())
+                    .redirectError(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            if (!finished(run)) {
+                return failure(name, configuration, workDir, "timeout");
+            }
+            runNanos.add(System.nanoTime() - start);
+            var output = Files.readString(runOutput);
+
+            if (run.exitValue() != 0) {
+                return failure(name, configuration, workDir, "exit code " + run.exitValue());
+            }
+            if (!output.equals(expectedOutput)) {
+                return failure(name, configuration, workDir, "wrong output");
+            }
+        }
+
+        var instructions = OptionalLong.empty();
+        var cycles = OptionalLong.empty();
+        if (this.perfAvailable) {
+            var perfOutput = workDir.resolve("perf.csv");
+            var perf = new ProcessBuilder("perf", "stat", "-x", ",", "-e", "instructions,cycles", "-o", perfOutput.toString(),
+                    binary.toString())
+                    .directory(workDir.toFile())
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .redirectError(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            if (finished(perf) && perf.exitValue() == 0) {
+                var lines = Files.readAllLines(perfOutput);
+                instructions = perfCounter(lines, "instructions");
+                cycles = perfCounter(lines, "cycles");
+            }
+        }
+
+        deleteRecursively(workDir);
+        return new Result(name, configuration.name(), Optional.empty(), runNanos, instructions, cycles, asmInstructions, binaryBytes);
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (var files = Files.walk(dir)) {
+            for (var file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    /**
+     * @return Whether the process exited before the timeout. Otherwise, it is killed.
+     */
+    private static boolean finished(Process process) throws InterruptedException {
+        if (process.waitFor(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            return true;
+        }
+        process.destroyForcibly();
+        return false;
+    }
+
+    /**
+     * The working directory of a failed benchmark is kept, so that the failure can be inspected.
+     */
+    private static Result failure(String program, Configuration configuration, Path workDir, String error) {
+        return new Result(program, configuration.name(), Optional.of(error + ", see " + workDir), List.of(), OptionalLong.empty(), OptionalLong.empty(), 0, 0);
+    }
+
+    /**
+     * Parses a counter from the CSV output of {@code perf stat -x ,}: value, unit, event name, ...
+     * Counters which aren't supported, e.g. in virtual machines, are missing.
+     */
+    private static OptionalLong perfCounter(List<String> lines, String event) {
+        for (var line : lines) {
+            var fields = line.split(",");
+            if (fields.length > 2 && fields[2].startsWith(event)) {
+                try {
+                    return OptionalLong.of(Long.parseLong(fields[0]));
+                } catch (NumberFormatException e) {
+                    return OptionalLong.empty();
+                }
+            }
+        }
+        return OptionalLong.empty();
+    }
+
+    /**
+     * Counts the lines of an assembly file which are neither empty, labels, comments nor directives.
+     */
+    private static long countInstructions(Path asm) throws IOException {
+        if (!Files.exists(asm)) {
+            return 0;
+        }
+        return Files.readAllLines(asm).stream()
+                .map(String::strip)
+                .filter(line -> !line.isEmpty() && !line.endsWith(":") && !line.startsWith(".") && !line.startsWith("#")
+                        && !line.startsWith("/*"))
+                .count();
+    }
+
+    private static String formatCounter(OptionalLong counter) {
+        return counter.isPresent() ? String.valueOf(counter.getAsLong()) : "-";
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.1f", nanos / 1e6);
+    }
+
+    /**
+     * Prints a table of all results. The speedup of a configuration is relative to the median runtime at -O0.
+     */
+    public static void report(List<Result> results) {
+        var format = "%-18s %-6s %10s %10s %8s %14s %14s %10s %10s\n";
+        System.out.format(format, "Program", "Config", "Min ms", "Median ms", "Speedup", "Instructions", "Cycles", "Asm instr", "Bytes");
+
+        for (var result : results) {
+            if (result.error().isPresent()) {
+                System.out.format("%-18s %-6s FAILED: %s\n", result.program(), result.configuration(),
+                        result.error().get().lines().findFirst().orElse(""));
+                continue;
+            }
+
+            var baseline = results.stream()
+                    .filter(r -> r.program().equals(result.program()) && r.configuration().equals("-O0") && r.error().isEmpty())
+                    .findFirst();
+            var speedup = baseline.map(b -> String.format("%.2fx", (double) b.medianNanos() / result.medianNanos())).orElse("-");
+
+            System.out.format(format, result.program(), result.configuration(), millis(result.minNanos()),
+                    millis(result.medianNanos()), speedup, formatCounter(result.instructions()), formatCounter(result.cycles()),
+                    result.asmInstructions(), result.binaryBytes());
+        }
+    }
+
+    /**
+     * Writes all results as JSON, so that they can be compared with a baseline.
+     */
+    public static void writeJson(List<Result> results, PrintWriter out) {
+        out.println("[");
+        for (int i = 0; i < results.size(); i++) {
+            var r = results.get(i);
+            out.format("  {\"program\": \"%s\", \"configuration\": \"%s\", \"ok\": %s, \"min_ns\": %d, \"median_ns\": %d, " +
+                            "\"instructions\": %s, \"cycles\": %s, \"asm_instructions\": %d, \"binary_bytes\": %d}%s\n",
+                    r.program(), r.configuration(), r.error().isEmpty(), r.minNanos(), r.medianNanos(),
+                    r.instructions().isPresent() ? String.valueOf(r.instructions().getAsLong()) : "null",
+                    r.cycles().isPresent() ? String.valueOf(r.cycles().getAsLong()) : "null",
+                    r.asmInstructions(), r.binaryBytes(), i + 1 < results.size() ? "," : "");
+        }
+        out.println("]");
+        out.flush();
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        var compiler = Path.of("target/install/Compiler/bin/Compiler");
+        var programsDir = Path.of("src/jmh/resources/runtime");
+        var runs = 5;
+        File json = null;
+        var selectedPrograms = new ArrayList<String>();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--compiler" -> compiler = Path.of(args[++i]);
+                case "--programs" -> programsDir = Path.of(args[++i]);
+                case "--runs" -> runs = Integer.parseInt(args[++i]);
+                case "--json" -> json = new File(args[++i]);
+                default -> selectedPrograms.add(args[i]);
+            }
+        }
+
+        if (!Files.isExecutable(compiler)) {
+            System.err.format("error: compiler '%s' not found, run `./gradlew installDist` first\n", compiler);
+            System.exit(1);
+        }
+
+        List<Path> programs;
+        try (var files = Files.list(programsDir)) {
+            programs = files
+                    .filter(p -> p.toString().endsWith(".java"))
+                    .filter(p -> selectedPrograms.isEmpty()
+                            || selectedPrograms.contains(p.getFileName().toString().replaceFirst("\\.java$", "")))
+                    .sorted()
+                    .toList();
+        }
+
+        var benchmark = new RuntimeBenchmark(compiler, runs);
+        if (!benchmark.perfAvailable) {
+            System.err.println("perf is not available, instructions and cycles aren't counted");
+        }
+
+        var results = new ArrayList<Result>();
+        for (var program : programs) {
+            for (var configuration : CONFIGURATIONS) {
+                System.err.format("%s %s\n", program.getFileName(), configuration.name());
+                var result = benchmark.benchmark(program, configuration);
+                result.error().ifPresent(error -> System.err.println(error));
+                results.add(result);
+            }
+        }
+
+        report(results);
+
+        if (json != null) {
+            try (var out = new PrintWriter(json)) {
+                writeJson(results, out);
+            }
+        }
+
+        var failed = results.stream().anyMatch(r -> r.error().isPresent());
+        System.exit(failed ? 1 : 0);
+    }
+}
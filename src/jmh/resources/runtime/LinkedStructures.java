@@ -0,0 +1,142 @@
+/* Builds, reverses and traverses linked lists and inserts into an unbalanced binary search tree. */
+
+class Main {
+	public static void main(String[] args) {
+		List list = new List();
+		int i = 0;
+		while (i < 200000) {
+			list.push(i * 7 % 1000);
+			i = i + 1;
+		}
+		int round = 0;
+		while (round < 50) {
+			list.reverse();
+			round = round + 1;
+		}
+		System.out.println(list.sum());
+		System.out.println(list.first.value);
+
+		Tree tree = new Tree();
+		int state = 42;
+		i = 0;
+		while (i < 200000) {
+			state = state * 1103515245 + 12345;
+			tree.insert(state % 1000000);
+			i = i + 1;
+		}
+		System.out.println(tree.size);
+		System.out.println(tree.height(tree.root));
+		if (tree.contains(state % 1000000)) {
+			System.out.println(1);
+		} else {
+			System.out.println(0);
+		}
+	}
+}
+
+class Node {
+	public int value;
+	public Node next;
+}
+
+class List {
+	public Node first;
+
+	public void push(int value) {
+		Node node = new Node();
+		node.value = value;
+		node.next = first;
+		first = node;
+	}
+
+	public void reverse() {
+		Node previous = null;
+		Node current = first;
+		while (current != null) {
+			Node next = current.next;
+			current.next = previous;
+			previous = current;
+			current = next;
+		}
+		first = previous;
+	}
+
+	public int sum() {
+		int sum = 0;
+		Node current = first;
+		while (current != null) {
+			sum = sum + current.value;
+			current = current.next;
+		}
+		return sum;
+	}
+}
+
+class TreeNode {
+	public int key;
+	public TreeNode left;
+	public TreeNode right;
+}
+
+class Tree {
+	public TreeNode root;
+	public int size;
+
+	public void insert(int key) {
+		TreeNode node = new TreeNode();
+		node.key = key;
+		if (root == null) {
+			root = node;
+			size = 1;
+			return;
+		}
+		TreeNode current = root;
+		while (true) {
+			if (key == current.key) {
+				return;
+			}
+			if (key < current.key) {
+				if (current.left == null) {
+					current.left = node;
+					size = size + 1;
+					return;
+				}
+				current = current.left;
+			} else {
+				if (current.right == null) {
+					current.right = node;
+					size = size + 1;
+					return;
+				}
+				current = current.right;
+			}
+		}
+	}
+
+	public boolean contains(int key) {
+		TreeNode current = root;
+		while (current != null) {
+			if (key == current.key) {
+				return true;
+			}
+			if (key < current.key) {
+				current = current.left;
+			} else {
+				current = current.right;
+			}
+		}
+		return false;
+	}
+
+	public int height(TreeNode node) {
+		if (node == null) {
+			return 0;
+		}
+		int left = height(node.left);
+		int right = height(node.right);
+		if (left > right) {
+			return left + 1;
+		}
+		return right + 1;
+	}
+}
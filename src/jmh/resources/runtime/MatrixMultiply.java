@@ -0,0 +1,78 @@
+/* Multiplies two pseudo random 160x160 matrices a few times and prints checksums of the products. */
+
+class Main {
+	public static void main(String[] args) {
+		int n = 160;
+		Matrix a = new Matrix().init(n, 7);
+		Matrix b = new Matrix().init(n, 13);
+		int round = 0;
+		while (round < 4) {
+			Matrix c = a.multiply(b);
+			System.out.println(c.checksum());
+			a = c.reduce(1000);
+			round = round + 1;
+		}
+	}
+}
+
+class Matrix {
+	public int n;
+	public int[] values;
+
+	public Matrix init(int n, int seed) {
+		this.n = n;
+		values = new int[n * n];
+		int state = seed;
+		int i = 0;
+		while (i < n * n) {
+			state = (state * 1103515245 + 12345) % 65536;
+			if (state < 0) {
+				state = -state;
+			}
+			values[i] = state % 100 - 50;
+			i = i + 1;
+		}
+		return this;
+	}
+
+	public Matrix multiply(Matrix other) {
+		Matrix result = new Matrix();
+		result.n = n;
+		result.values = new int[n * n];
+		int i = 0;
+		while (i < n) {
+			int j = 0;
+			while (j < n) {
+				int sum = 0;
+				int k = 0;
+				while (k < n) {
+					sum = sum + values[i * n + k] * other.values[k * n + j];
+					k = k + 1;
+				}
+				result.values[i * n + j] = sum;
+				j = j + 1;
+			}
+			i = i + 1;
+		}
+		return result;
+	}
+
+	public Matrix reduce(int modulus) {
+		int i = 0;
+		while (i < n * n) {
+			values[i] = values[i] % modulus;
+			i = i + 1;
+		}
+		return this;
+	}
+
+	public int checksum() {
+		int sum = 0;
+		int i = 0;
+		while (i < n * n) {
+			sum = sum * 31 + values[i];
+			i = i + 1;
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,38 @@
+/* Naive recursive Fibonacci, Ackermann and Towers of Hanoi. */
+
+class Main {
+	public static void main(String[] args) {
+		Recursion r = new Recursion();
+		System.out.println(r.fib(32));
+		System.out.println(r.ackermann(2, 2000));
+		System.out.println(r.ackermann(3, 7));
+		System.out.println(r.hanoi(22, 1, 3, 2));
+	}
+}
+
+class Recursion {
+	public int fib(int n) {
+		if (n < 2) {
+			return n;
+		}
+		return fib(n - 1) + fib(n - 2);
+	}
+
+	public int ackermann(int m, int n) {
+		if (m == 0) {
+			return n + 1;
+		}
+		if (n == 0) {
+			return ackermann(m - 1, 1);
+		}
+		return ackermann(m - 1, ackermann(m, n - 1));
+	}
+
+	/* Returns the number of moves. */
+	public int hanoi(int disks, int from, int to, int via) {
+		if (disks == 0) {
+			return 0;
+		}
+		return hanoi(disks - 1, from, via, to) + 1 + hanoi(disks - 1, via, to, from);
+	}
+}
@@ -0,0 +1,32 @@
+/* Counts the primes below 2000000 with the sieve of Eratosthenes, several times. */
+
+class Main {
+	public static void main(String[] args) {
+		Sieve sieve = new Sieve();
+		int round = 0;
+		while (round < 5) {
+			System.out.println(sieve.countPrimes(2000000 - round * 1000));
+			round = round + 1;
+		}
+	}
+}
+
+class Sieve {
+	public int countPrimes(int limit) {
+		boolean[] composite = new boolean[limit];
+		int count = 0;
+		int i = 2;
+		while (i < limit) {
+			if (!composite[i]) {
+				count = count + 1;
+				int multiple = i + i;
+				while (multiple < limit) {
+					composite[multiple] = true;
+					multiple = multiple + i;
+				}
+			}
+			i = i + 1;
+		}
+		return count;
+	}
+}
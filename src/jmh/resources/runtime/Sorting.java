@@ -0,0 +1,124 @@
+/* Sorts pseudo random arrays with quicksort, heapsort and insertion sort and checks the results. */
+
+class Main {
+	public static void main(String[] args) {
+		Sorting sorting = new Sorting();
+
+		int[] a = sorting.random(400000, 1);
+		sorting.quicksort(a, 0, 400000 - 1);
+		System.out.println(sorting.checksum(a, 400000));
+
+		int[] b = sorting.random(400000, 2);
+		sorting.heapsort(b, 400000);
+		System.out.println(sorting.checksum(b, 400000));
+
+		int[] c = sorting.random(6000, 3);
+		sorting.insertionSort(c, 6000);
+		System.out.println(sorting.checksum(c, 6000));
+	}
+}
+
+class Sorting {
+	public int[] random(int length, int seed) {
+		int[] array = new int[length];
+		int state = seed;
+		int i = 0;
+		while (i < length) {
+			state = state * 1664525 + 1013904223;
+			array[i] = state % 1000000;
+			i = i + 1;
+		}
+		return array;
+	}
+
+	public void quicksort(int[] array, int low, int high) {
+		while (low < high) {
+			int pivot = array[low + (high - low) / 2];
+			int i = low;
+			int j = high;
+			while (i <= j) {
+				while (array[i] < pivot) {
+					i = i + 1;
+				}
+				while (array[j] > pivot) {
+					j = j - 1;
+				}
+				if (i <= j) {
+					int tmp = array[i];
+					array[i] = array[j];
+					array[j] = tmp;
+					i = i + 1;
+					j = j - 1;
+				}
+			}
+			/* Recurse into the smaller half, so that the recursion depth stays logarithmic. */
+			if (j - low < high - i) {
+				quicksort(array, low, j);
+				low = i;
+			} else {
+				quicksort(array, i, high);
+				high = j;
+			}
+		}
+	}
+
+	public void heapsort(int[] array, int length) {
+		int start = length / 2 - 1;
+		while (start >= 0) {
+			siftDown(array, start, length);
+			start = start - 1;
+		}
+		int end = length - 1;
+		while (end > 0) {
+			int tmp = array[0];
+			array[0] = array[end];
+			array[end] = tmp;
+			siftDown(array, 0, end);
+			end = end - 1;
+		}
+	}
+
+	public void siftDown(int[] array, int root, int length) {
+		while (2 * root + 1 < length) {
+			int child = 2 * root + 1;
+			if (child + 1 < length && array[child] < array[child + 1]) {
+				child = child + 1;
+			}
+			if (array[root] >= array[child]) {
+				return;
+			}
+			int tmp = array[root];
+			array[root] = array[child];
+			array[child] = tmp;
+			root = child;
+		}
+	}
+
+	public void insertionSort(int[] array, int length) {
+		int i = 1;
+		while (i < length) {
+			int value = array[i];
+			int j = i - 1;
+			while (j >= 0 && array[j] > value) {
+				array[j + 1] = array[j];
+				j = j - 1;
+			}
+			array[j + 1] = value;
+			i = i + 1;
+		}
+	}
+
+	/* Returns -1 if the array isn't sorted. */
+	public int checksum(int[] array, int length) {
+		int sum = 0;
+		int i = 0;
+		while (i < length) {
+			if (i > 0 && array[i - 1] > array[i]) {
+				return -1;
+			}
+			sum = sum * 31 + array[i];
+			i = i + 1;
+		}
+		return sum;
+	}
+}
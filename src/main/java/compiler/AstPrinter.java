@@ -3,6 +3,8 @@ package compiler;
 import compiler.ast.Class;
 import compiler.ast.*;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
@@ -81,44 +83,103 @@ public class AstPrinter {
         return fmt("%s %s", p.getType(), p.getIdentifier());
     }
 
-    public static String expressionTopLevel(Expression e) {
-        if (e == null) return error;
-        return switch (e) {
-            case AssignmentExpression a -> fmt("%s = %s", a.getLvalue(), a.getRvalue());
-            case BinaryOpExpression b -> fmt("%s %s %s", b.getLhs(), b.getOperatorRepr(), b.getRhs());
-            case UnaryExpression u -> {
-                String gap = u.getExpression() instanceof IntLiteral i && i.getMinusToken().isPresent() ? " " : "";
-                yield fmt("%s%s%s", u.getOperatorRepr(), gap, u.getExpression());
+    // An expression that still needs to be printed on the work stack of printExpression.
+    private record PendingExpression(Expression expression, boolean topLevel) {
+    }
+
+    private static boolean isAtomic(Expression e) {
+        return e instanceof IntLiteral || e instanceof BoolLiteral || e instanceof NullExpression
+                || e instanceof ThisExpression || e instanceof Reference;
+    }
+
+    // Expressions are printed with an explicit work stack instead of recursion,
+    // because they can be nested arbitrarily deep.
+    // The stack contains Strings which are printed as is and PendingExpressions.
+    private static String printExpression(Expression root, boolean rootTopLevel) {
+        StringBuilder out = new StringBuilder();
+        ArrayDeque<Object> stack = new ArrayDeque<>();
+        stack.push(new PendingExpression(root, rootTopLevel));
+
+        while (!stack.isEmpty()) {
+            var item = stack.pop();
+
+            if (item instanceof String str) {
+                out.append(str);
+                continue;
             }
-            case MethodCallExpression m -> {
-                String targetPrefix = m.getTarget().map(t -> fmt("%s.", t)).orElse("");
-                String args = m.getArguments().stream()
-                        .map(AstPrinter::expressionTopLevel)
-                        .collect(Collectors.joining(", "));
-                yield fmt("%s%s(%s)", targetPrefix, m.getIdentifier(), args);
+
+            var pending = (PendingExpression) item;
+            var e = pending.expression;
+
+            if (e == null) {
+                out.append(error);
+                continue;
             }
-            case FieldAccessExpression f -> fmt("%s.%s", f.getTarget(), f.getIdentifier());
-            case ArrayAccessExpression a -> fmt("%s[%s]", a.getTarget(), expressionTopLevel(a.getIndexExpression()));
-            case BoolLiteral b -> String.valueOf(b.getValue());
-            case IntLiteral i -> print(i.getMinusToken().map(ignored -> "-").orElse("") + i.getValue());
-            case ThisExpression ignored -> "this";
-            case NewObjectExpression n -> fmt("new %s()", n.getType().getIdentifier());
-            case NewArrayExpression n -> {
-                String dimensionBrackets = "[]".repeat(n.getDimensions() - 1);
-                yield fmt("new %s[%s]%s", n.getType(), expressionTopLevel(n.getFirstDimensionSize()), dimensionBrackets);
+
+            if (!pending.topLevel && !isAtomic(e)) {
+                pushAll(stack, "(", new PendingExpression(e, true), ")");
+                continue;
             }
-            case Reference r -> print(r.getIdentifier());
-            case NullExpression ignored -> "null";
-        };
+
+            switch (e) {
+                case AssignmentExpression a -> pushAll(stack,
+                        new PendingExpression(a.getLvalue(), false), " = ", new PendingExpression(a.getRvalue(), false));
+                case BinaryOpExpression b -> pushAll(stack,
+                        new PendingExpression(b.getLhs(), false), fmt(" %s ", b.getOperatorRepr()), new PendingExpression(b.getRhs(), false));
+                case UnaryExpression u -> {
+                    String gap = u.getExpression() instanceof IntLiteral i && i.getMinusToken().isPresent() ? " " : "";
+                    pushAll(stack, print(u.getOperatorRepr()) + gap, new PendingExpression(u.getExpression(), false));
+                }
+                case MethodCallExpression m -> {
+                    List<Object> parts = new ArrayList<>();
+                    m.getTarget().ifPresent(t -> {
+                        parts.add(new PendingExpression(t, false));
+                        parts.add(".");
+                    });
+                    parts.add(fmt("%s(", m.getIdentifier()));
+                    for (int i = 0; i < m.getArguments().size(); i++) {
+                        if (i > 0) {
+                            parts.add(", ");
+                        }
+                        parts.add(new PendingExpression(m.getArguments().get(i), true));
+                    }
+                    parts.add(")");
+                    pushAll(stack, parts.toArray());
+                }
+                case FieldAccessExpression f -> pushAll(stack,
+                        new PendingExpression(f.getTarget(), false), fmt(".%s", f.getIdentifier()));
+                case ArrayAccessExpression a -> pushAll(stack,
+                        new PendingExpression(a.getTarget(), false), "[", new PendingExpression(a.getIndexExpression(), true), "]");
+                case BoolLiteral b -> out.append(b.getValue());
+                case IntLiteral i -> out.append(print(i.getMinusToken().map(ignored -> "-").orElse("") + i.getValue()));
+                case ThisExpression ignored -> out.append("this");
+                case NewObjectExpression n -> out.append(fmt("new %s()", n.getType().getIdentifier()));
+                case NewArrayExpression n -> {
+                    String dimensionBrackets = "[]".repeat(n.getDimensions() - 1);
+                    pushAll(stack, fmt("new %s[", n.getType()), new PendingExpression(n.getFirstDimensionSize(), true), "]" + dimensionBrackets);
+                }
+                case Reference r -> out.append(print(r.getIdentifier()));
+                case NullExpression ignored -> out.append("null");
+            }
+        }
+
+        return out.toString();
     }
 
-    public static String expression(Expression e) {
-        String p = expressionTopLevel(e);
-        if (e instanceof IntLiteral || e instanceof BoolLiteral || e instanceof NullExpression
-                || e instanceof ThisExpression || e instanceof Reference) {
-            return p;
+    // Pushes the items such that they are popped in the given order.
+    private static void pushAll(ArrayDeque<Object> stack, Object... items) {
+        for (int i = items.length - 1; i >= 0; i--) {
+            stack.push(items[i]);
         }
-        return fmt("(%s)", p);
+    }
+
+    public static String expressionTopLevel(Expression e) {
+        return printExpression(e, true);
+    }
+
+    public static String expression(Expression e) {
+        if (e == null) return fmt("(%s)", error);
+        return printExpression(e, false);
     }
 
     private static String subStatement(Statement s) {
@@ -0,0 +1,82 @@
+package compiler;
+
+import compiler.utils.CompilerThreads;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Compiles many files concurrently on a pool of {@link CompilerThreads}.
+ * <p>
+ * Every file is an independent {@link CompilationJob}.
+ * The frontend and the LLIR/SIR backend of the jobs run in parallel, the FIRM part is serialized by the {@link CodeGenerator}.
+ */
+public class BatchCompilation {
+
+    private final List<File> inputFiles;
+    private final File runtimeFile;
+    private final OptimizationPipeline pipeline;
+    private final int parallelism;
+
+    public BatchCompilation(List<File> inputFiles, File runtimeFile, OptimizationPipeline pipeline, int parallelism) {
+        this.inputFiles = inputFiles;
+        this.runtimeFile = runtimeFile;
+        this.pipeline = pipeline;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * @param input Either a directory, which is searched recursively for .java files,
+     *              or a manifest file containing one path per line. Relative paths are resolved against the directory of the manifest.
+     * @return The files to compile in a deterministic order.
+     */
+    public static List<File> collectInputFiles(File input) throws IOException {
+        if (input.isDirectory()) {
+            try (Stream<Path> paths = Files.walk(input.toPath())) {
+                return paths.filter(path -> Files.isRegularFile(path) && path.toString().endsWith(".java"))
+                        .sorted()
+                        .map(Path::toFile)
+                        .collect(Collectors.toList());
+            }
+        }
+
+        var baseDir = input.getAbsoluteFile().getParentFile().toPath();
+        return Files.readAllLines(input.toPath()).stream()
+                .map(String::strip)
+                .filter(line -> !line.isEmpty())
+                .map(line -> baseDir.resolve(line).toFile())
+                .collect(Collectors.toList());
+    }
+
+    private CompilationJob createJob(File file) {
+        // The outputs are placed next to the input file, so that files with the same name in different directories don't collide.
+        var execFilename = file.getPath().endsWith(".java")
+                ? file.getPath().substring(0, file.getPath().length() - ".java".length())
+                : file.getPath() + ".out";
+
+        return CompilationJob.compile(file, this.pipeline, execFilename, this.runtimeFile);
+    }
+
+    /**
+     * Compiles all files and waits until every job has finished.
+     *
+     * @return The results in the order of the input files.
+     */
+    public List<CompilationJob.Result> run() {
+        var pool = CompilerThreads.newPool(this.parallelism, "batch-compilation");
+        try {
+            var jobs = this.inputFiles.stream()
+                    .map(file -> pool.submit(() -> this.createJob(file).run()))
+                    .collect(Collectors.toList());
+
+            return CompilerThreads.joinAll(jobs);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package compiler;
+
+import compiler.codegen.*;
+import compiler.codegen.llir.DumpLlir;
+import compiler.codegen.llir.LlirGraph;
+import compiler.codegen.sir.DumpSir;
+import compiler.codegen.sir.SirGraph;
+import compiler.semantic.resolution.DefinedMethod;
+import compiler.utils.CompilerThreads;
+import firm.Firm;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.URISyntaxException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Generates assembly or an object file for a semantically checked program using the FIRM middle end and our own LLIR/SIR backend.
+ */
+public class CodeGenerator {
+
+    // libFirm keeps all its state in process wide globals.
+    // Only one compilation at a time may translate to and work on FIRM graphs.
+    private static final Object FIRM_LOCK = new Object();
+
+    public static void generateAssembly(FrontendResult frontend, File asmOutputFile, boolean dumpGraphs, boolean optimize) throws IOException {
+        generateAssembly(frontend, asmOutputFile, dumpGraphs, OptimizationPipeline.forLevel(optimize ? 1 : 0), Optional.empty());
+    }
+
+    /**
+     * @param methodCache If present, the assembly of methods whose fingerprint is unchanged is taken from the cache
+     *                    and only the other methods are translated and lowered. Their assembly is stored in the cache afterwards.
+     */
+    public static void generateAssembly(FrontendResult frontend, File asmOutputFile, boolean dumpGraphs,
+                                        OptimizationPipeline pipeline, Optional<CompilationCache> methodCache) throws IOException {
+        generateAssembly(frontend, asmOutputFile, dumpGraphs, pipeline, false, methodCache, PassTimings.DISABLED, PassStatistics.DISABLED);
+    }
+
+    /**
+     * @param parallel   Run the backend of the methods in parallel, see generateFunctions.
+     * @param timings    Measures every phase of the code generation.
+     * @param statistics Counts the changes made by the optimizations.
+     */
+    public static void generateAssembly(FrontendResult frontend, File asmOutputFile, boolean dumpGraphs,
+                                        OptimizationPipeline pipeline, boolean parallel, Optional<CompilationCache> methodCache,
+                                        PassTimings timings, PassStatistics statistics) throws IOException {
+        try (var channel = FileChannel.open(asmOutputFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            generateAssembly(frontend, new Emitter(channel), dumpGraphs, pipeline, parallel, methodCache, timings, statistics);
+        }
+    }
+
+    /**
+     * Every function is written as soon as it is emitted, so the emission overlaps with compiling the later methods.
+     */
+    private static void generateAssembly(FrontendResult frontend, Emitter emitter, boolean dumpGraphs,
+                                         OptimizationPipeline pipeline, boolean parallel, Optional<CompilationCache> methodCache,
+                                         PassTimings timings, PassStatistics statistics) throws IOException {
+        Optional<Set<DefinedMethod>> methodsToCompile = Optional.empty();
+        var methodKeys = new HashMap<DefinedMethod, String>();
+        var cachedAssembly = new HashMap<DefinedMethod, String>();
+        // The methods in declaration order, the cached ones are appended between the compiled ones in this order.
+        var pendingMethods = new ArrayDeque<DefinedMethod>();
+        if (methodCache.isPresent()) {
+            var fingerprints = new MethodFingerprints(frontend, pipeline.inline());
+            var options = List.of(pipeline.name());
+
+            var changedMethods = new HashSet<DefinedMethod>();
+            for (var method : fingerprints.getMethods()) {
+                var key = CompilationCache.computeMethodKey(fingerprints.getFingerprint(method), options);
+                var cached = methodCache.get().lookupMethod(key);
+                if (cached.isPresent()) {
+                    cachedAssembly.put(method, cached.get());
+                } else {
+                    changedMethods.add(method);
+                    methodKeys.put(method, key);
+                }
+                pendingMethods.add(method);
+            }
+
+            methodsToCompile = Optional.of(changedMethods);
+        }
+
+        generateFunctions(frontend, methodsToCompile, dumpGraphs, pipeline, parallel, timings, statistics, (method, name, sirGraph) -> {
+            // The compiled methods are emitted in declaration order as well.
+            while (!pendingMethods.isEmpty() && pendingMethods.peek() != method) {
+                emitter.appendFunction(cachedAssembly.get(pendingMethods.remove()));
+            }
+            pendingMethods.poll();
+
+            emitter.emitFunction(name, sirGraph);
+
+            if (methodCache.isPresent()) {
+                methodCache.get().storeMethod(methodKeys.get(method), emitter.getFunctionAssembly());
+            }
+        });
+
+        for (var method : pendingMethods) {
+            emitter.appendFunction(cachedAssembly.get(method));
+        }
+
+        var writeTimer = timings.start("write");
+        emitter.flush();
+        writeTimer.stop();
+    }
+
+    /**
+     * Like generateAssembly, but encodes the machine code directly into an ELF object file, which is linked without
+     * running the assembler.
+     */
+    public static void generateObject(FrontendResult frontend, File objectOutputFile, boolean dumpGraphs,
+                                      OptimizationPipeline pipeline, boolean parallel, PassTimings timings,
+                                      PassStatistics statistics) throws IOException {
+        var emitter = new ObjectEmitter();
+
+        generateFunctions(frontend, Optional.empty(), dumpGraphs, pipeline, parallel, timings, statistics,
+                (method, name, sirGraph) -> emitter.emitFunction(name, sirGraph));
+
+        var writeTimer = timings.start("write");
+        emitter.write(objectOutputFile);
+        writeTimer.stop();
+    }
+
+    private interface FunctionEmitter {
+        /**
+         * @param name The symbol of the function, the main method is renamed for the runtime.
+         */
+        void emit(DefinedMethod method, String name, SirGraph sirGraph) throws IOException;
+    }
+
+    /**
+     * Translates and lowers the methods and passes each of them to the emitter after register allocation.
+     * <p>
+     * libFirm keeps its state in process wide globals (the current graph of its walkers, the tables of target values
+     * and identifiers), so the translation, the optimizations and the lowering to LLIR are done by a single thread for
+     * all methods. The backend only works on the LLIR and SIR graph of a single method. With parallel, the backend of
+     * a method starts on the workers as soon as the method has been lowered, so it overlaps with lowering the
+     * remaining methods. The methods are still emitted in declaration order, so that the output is identical to a
+     * sequential run.
+     *
+     * @param methodsToCompile If present, only these methods are compiled.
+     */
+    private static void generateFunctions(FrontendResult frontend, Optional<Set<DefinedMethod>> methodsToCompile,
+                                          boolean dumpGraphs, OptimizationPipeline pipeline, boolean parallel,
+                                          PassTimings timings, PassStatistics statistics,
+                                          FunctionEmitter emitter) throws IOException {
+        var optimize = pipeline.optimizesBackend();
+        // The lowered methods in declaration order, with their backend.
+        var methods = new ArrayList<DefinedMethod>();
+        var backends = new ArrayList<Supplier<SirGraph>>();
+        var tasks = new ArrayList<Future<SirGraph>>();
+
+        synchronized (FIRM_LOCK) {
+            try {
+                var translation = new Translation(frontend, timings, statistics);
+                var translationResult = methodsToCompile.isPresent()
+                        ? translation.translateMethods(methodsToCompile.get(), dumpGraphs, pipeline)
+                        : translation.translate(dumpGraphs, pipeline);
+
+                // In declaration order, so that the output doesn't depend on the identity hashes of the methods.
+                var order = frontend.definedMethods().stream()
+                        .filter(translationResult.methodGraphs()::containsKey)
+                        .toList();
+
+                FirmToLlir.lowerFirm(translationResult, order, dumpGraphs, optimize, timings, (method, llirGraph, parameters) -> {
+                    Supplier<SirGraph> backend = () -> lowerToSir(method, llirGraph, parameters, dumpGraphs, optimize,
+                            timings, statistics);
+                    methods.add(method);
+                    if (parallel) {
+                        tasks.add(CompilerThreads.submit(backend::get));
+                    } else {
+                        backends.add(backend);
+                    }
+                });
+            } catch (Throwable e) {
+                // The compilation fails anyway, so the methods that haven't been lowered yet don't need to be.
+                tasks.forEach(task -> task.cancel(true));
+                throw e;
+            } finally {
+                // The LLIR graphs don't reference FIRM, so the FIRM state can be thrown away
+                // before the next compilation initializes it again.
+                Firm.finish();
+            }
+        }
+
+        try {
+            for (int i = 0; i < methods.size(); i++) {
+                var sirGraph = parallel ? CompilerThreads.join(tasks.get(i)) : backends.get(i).get();
+                emit(frontend, methods.get(i), sirGraph, timings, emitter);
+            }
+        } catch (Throwable e) {
+            tasks.forEach(task -> task.cancel(true));
+            throw e;
+        }
+    }
+
+    /**
+     * Schedules the LLIR graph of the method, transforms it to SIR and allocates registers.
+     * Only the graphs of this method are touched, so the methods can be lowered concurrently.
+     */
+    private static SirGraph lowerToSir(DefinedMethod method, LlirGraph llirGraph, List<VirtualRegister> parameters,
+                                       boolean dumpGraphs, boolean optimize, PassTimings timings,
+                                       PassStatistics statistics) {
+        var name = method.getLinkerName();
+
+        if (dumpGraphs) {
+            try {
+                new DumpLlir(new PrintWriter(new File(String.format("llir-before-schedule_%s.dot", name)))).dump(llirGraph);
+            } catch (FileNotFoundException e) {
+                e.printStackTrace();
+            }
+        }
+
+        //var scheduleResult = NaiveScheduler.schedule(llirGraph);
+        var scheduleTimer = timings.start("scheduling", name, llirGraph::countNodes);
+        var scheduleResult = ErshovScheduler.schedule(llirGraph);
+        scheduleTimer.stop(llirGraph::countNodes);
+
+        if (dumpGraphs) {
+            try {
+                new DumpLlir(new PrintWriter(new File(String.format("llir-after-schedule_%s.dot", name))))
+                        .withSchedule(scheduleResult)
+                        .dump(llirGraph);
+            } catch (FileNotFoundException e) {
+                e.printStackTrace();
+            }
+        }
+
+        var sirTimer = timings.start("llir-to-sir", name, llirGraph::countNodes);
+        var sirGraph = new LlirToSir(llirGraph, scheduleResult).transform();
+        sirTimer.stop(sirGraph::countInstructions);
+
+        if (dumpGraphs) {
+            try {
+                new DumpSir(new PrintWriter(new File(String.format("sir-before-reg-alloc_%s.dot", name))), sirGraph).dump();
+            } catch (FileNotFoundException e) {
+                e.printStackTrace();
+            }
+        }
+
+        var allocationTimer = timings.start("register-allocation", name, sirGraph::countInstructions);
+        if (optimize) {
+            var allocator = new OnTheFlyRegisterAllocator(parameters, sirGraph, name, dumpGraphs);
+            allocator.allocate();
+            allocationTimer.stop(sirGraph::countInstructions);
+            statistics.count(PassStatistics.SPILLS, name, allocator.getSpillCount());
+            statistics.count(PassStatistics.RELOADS, name, allocator.getReloadCount());
+
+            var peepholeTimer = timings.start("peephole", name, sirGraph::countInstructions);
+            var peephole = new PeepholeOptimizer(sirGraph);
+            peephole.optimize();
+            peepholeTimer.stop(sirGraph::countInstructions);
+            statistics.count(PassStatistics.PEEPHOLE_SUBSTITUTIONS, name, peephole.getSubstitutionCount());
+        } else {
+            new NaiveRegisterAllocator(parameters, sirGraph).allocate();
+            allocationTimer.stop(sirGraph::countInstructions);
+        }
+
+        if (dumpGraphs) {
+            try {
+                new DumpSir(new PrintWriter(new File(String.format("sir-after-reg-alloc_%s.dot", name))), sirGraph).withBlockSchedule(true).dump();
+            } catch (FileNotFoundException e) {
+                e.printStackTrace();
+            }
+        }
+
+        return sirGraph;
+    }
+
+    private static void emit(FrontendResult frontend, DefinedMethod method, SirGraph sirGraph, PassTimings timings,
+                             FunctionEmitter emitter) throws IOException {
+        var name = method.getLinkerName();
+        if (frontend.mainMethod().getLinkerName().equals(name)) {
+            name = "__MiniJava_Main__";
+        }
+
+        var emitTimer = timings.start("emit", method.getLinkerName(), sirGraph::countInstructions);
+        emitter.emit(method, name, sirGraph);
+        emitTimer.stop();
+    }
+
+    /**
+     * @return The c runtime, which is shipped next to the compiler.
+     */
+    public static File findRuntimeFile() throws URISyntaxException {
+        var jarFile = new File(MainCommand.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        var baseDir = jarFile.getParentFile().getParentFile();
+        return new File(baseDir, "libruntime.c");
+    }
+
+    /**
+     * @param outputFile The assembly or object file of the program.
+     * @return A gcc invocation, which assembles (for an assembly file) and links the output file with the runtime.
+     */
+    public static ProcessBuilder linkCommand(File outputFile, File runtimeFile, String execFilename) {
+        return new ProcessBuilder("gcc", "-o", execFilename, outputFile.getAbsolutePath(), runtimeFile.getAbsolutePath());
+    }
+}
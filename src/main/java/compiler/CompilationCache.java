@@ -0,0 +1,330 @@
+package compiler;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * An on-disk cache of compilation results, addressed by the hash of everything the result depends on.
+ * <p>
+ * The key of an entry is a SHA-256 hash over the source, the compiler itself, the options and the runtime.
+ * Every entry consists of the emitted assembly and optionally the linked binary.
+ * Additionally the assembly of single methods can be cached for incremental compilation, see {@link MethodFingerprints}.
+ * The cache is bounded in size. When it grows too large the least recently used entries are evicted,
+ * the modification time of the files is used as the time of the last use.
+ * <p>
+ * Hits and misses are counted persistently in the cache directory, so they accumulate over many compiler runs.
+ * Multiple processes may use the same cache directory: entries are written atomically and the statistics are updated under a file lock.
+ */
+public class CompilationCache {
+
+    private static final String ASSEMBLY_SUFFIX = ".s";
+    private static final String BINARY_SUFFIX = ".bin";
+    private static final String METHOD_SUFFIX = ".method.s";
+    private static final String STATISTICS_FILE = "statistics";
+
+    private static String compilerVersion;
+
+    // Guards the statistics file against concurrent updates from the same process, which file locks don't cover.
+    private static final Object STATISTICS_LOCK = new Object();
+
+    private final Path directory;
+    private final long maxSizeBytes;
+
+    public record Entry(Path assembly, Optional<Path> binary) {
+    }
+
+    public record Statistics(long hits, long misses) {
+        public double hitRate() {
+            var total = this.hits + this.misses;
+            return total == 0 ? 0 : (double) this.hits / total;
+        }
+    }
+
+    public CompilationCache(Path directory, long maxSizeBytes) throws IOException {
+        this.directory = directory;
+        this.maxSizeBytes = maxSizeBytes;
+        Files.createDirectories(directory);
+    }
+
+    /**
+     * Hashes all inputs of a compilation. Every part is prefixed with its length, so that different splits of the same bytes produce different keys.
+     */
+    public static String computeKey(byte[] source, byte[] runtime, List<String> options) {
+        var parts = new ArrayList<byte[]>();
+        parts.add(source);
+        parts.add(runtime);
+        parts.add(compilerVersion().getBytes(StandardCharsets.UTF_8));
+        for (var option : options) {
+            parts.add(option.getBytes(StandardCharsets.UTF_8));
+        }
+
+        return hash(parts);
+    }
+
+    /**
+     * Computes the key of the assembly of a single method.
+     *
+     * @param fingerprint The fingerprint of the method, which covers everything the code of the method depends on.
+     */
+    public static String computeMethodKey(String fingerprint, List<String> options) {
+        var parts = new ArrayList<byte[]>();
+        parts.add(fingerprint.getBytes(StandardCharsets.UTF_8));
+        parts.add(compilerVersion().getBytes(StandardCharsets.UTF_8));
+        for (var option : options) {
+            parts.add(option.getBytes(StandardCharsets.UTF_8));
+        }
+
+        return hash(parts);
+    }
+
+    /**
+     * @return The hex encoded SHA-256 hash of the length prefixed parts.
+     */
+    static String hash(List<byte[]> parts) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError("SHA-256 is supported by every JVM", e);
+        }
+
+        for (var part : parts) {
+            digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(part.length).array());
+            digest.update(part);
+        }
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * The version of the compiler, which is part of every key. The hash of the jar or, when running from a build
+     * directory, of all class files is used, so that every rebuild of the compiler invalidates the cache.
+     */
+    private static synchronized String compilerVersion() {
+        if (compilerVersion != null) {
+            return compilerVersion;
+        }
+
+        compilerVersion = MainCommand.VERSION;
+        try {
+            var location = Path.of(MainCommand.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+            if (Files.isRegularFile(location)) {
+                compilerVersion = hash(List.of(Files.readAllBytes(location)));
+            } else if (Files.isDirectory(location)) {
+                compilerVersion = hashClassFiles(location);
+            }
+        } catch (Exception e) {
+            // Keep the declared version.
+        }
+        return compilerVersion;
+    }
+
+    /**
+     * @return The hash of the names and contents of all class files in the directory, in a fixed order.
+     */
+    static String hashClassFiles(Path directory) throws IOException {
+        List<Path> classFiles;
+        try (Stream<Path> paths = Files.walk(directory)) {
+            classFiles = paths.filter(path -> Files.isRegularFile(path) && path.toString().endsWith(".class"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+
+        var parts = new ArrayList<byte[]>();
+        for (var classFile : classFiles) {
+            parts.add(directory.relativize(classFile).toString().getBytes(StandardCharsets.UTF_8));
+            parts.add(Files.readAllBytes(classFile));
+        }
+        return hash(parts);
+    }
+
+    private Path assemblyPath(String key) {
+        return this.directory.resolve(key + ASSEMBLY_SUFFIX);
+    }
+
+    private Path binaryPath(String key) {
+        return this.directory.resolve(key + BINARY_SUFFIX);
+    }
+
+    private Path methodPath(String key) {
+        return this.directory.resolve(key + METHOD_SUFFIX);
+    }
+
+    /**
+     * Looks up an entry and records a hit or miss.
+     */
+    public Optional<Entry> lookup(String key) throws IOException {
+        var assembly = this.assemblyPath(key);
+        if (!Files.exists(assembly)) {
+            this.recordLookup(false);
+            return Optional.empty();
+        }
+
+        var now = FileTime.fromMillis(System.currentTimeMillis());
+        var binary = this.binaryPath(key);
+        try {
+            Files.setLastModifiedTime(assembly, now);
+            if (Files.exists(binary)) {
+                Files.setLastModifiedTime(binary, now);
+            }
+        } catch (IOException e) {
+            // The entry was evicted concurrently.
+            this.recordLookup(false);
+            return Optional.empty();
+        }
+
+        this.recordLookup(true);
+        return Optional.of(new Entry(assembly, Files.exists(binary) ? Optional.of(binary) : Optional.empty()));
+    }
+
+    /**
+     * Looks up the assembly of a single method. Method lookups are not part of the statistics.
+     */
+    public Optional<String> lookupMethod(String key) throws IOException {
+        var path = this.methodPath(key);
+        try {
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+            return Optional.of(Files.readString(path));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+    }
+
+    public void storeMethod(String key, String assembly) throws IOException {
+        var temporary = Files.createTempFile(this.directory, "method", ".tmp");
+        try {
+            Files.writeString(temporary, assembly);
+            this.store(temporary, this.methodPath(key));
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    public void storeAssembly(String key, Path assembly) throws IOException {
+        this.store(assembly, this.assemblyPath(key));
+    }
+
+    public void storeBinary(String key, Path binary) throws IOException {
+        this.store(binary, this.binaryPath(key));
+    }
+
+    private void store(Path source, Path target) throws IOException {
+        // Copy to a temporary file first, so that other processes never see partially written entries.
+        var temporary = Files.createTempFile(this.directory, "entry", ".tmp");
+        try {
+            Files.copy(source, temporary, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+
+        this.evict();
+    }
+
+    private boolean isEntry(Path path) {
+        var name = path.getFileName().toString();
+        return name.endsWith(ASSEMBLY_SUFFIX) || name.endsWith(BINARY_SUFFIX);
+    }
+
+    private record CachedFile(Path path, long size, FileTime lastUse) {
+    }
+
+    /**
+     * Deletes the least recently used files, until the cache is smaller than its maximum size.
+     */
+    private void evict() throws IOException {
+        List<CachedFile> files = new ArrayList<>();
+        try (Stream<Path> paths = Files.list(this.directory)) {
+            for (var path : paths.filter(this::isEntry).collect(Collectors.toList())) {
+                try {
+                    files.add(new CachedFile(path, Files.size(path), Files.getLastModifiedTime(path)));
+                } catch (IOException e) {
+                    // Already evicted by another process.
+                }
+            }
+        }
+
+        long totalSize = files.stream().mapToLong(CachedFile::size).sum();
+        if (totalSize <= this.maxSizeBytes) {
+            return;
+        }
+
+        files.sort(Comparator.comparing(CachedFile::lastUse));
+        for (var file : files) {
+            if (totalSize <= this.maxSizeBytes) {
+                break;
+            }
+            Files.deleteIfExists(file.path);
+            totalSize -= file.size;
+        }
+    }
+
+    private void recordLookup(boolean hit) throws IOException {
+        synchronized (STATISTICS_LOCK) {
+            this.updateStatistics(hit);
+        }
+    }
+
+    private void updateStatistics(boolean hit) throws IOException {
+        try (var channel = FileChannel.open(this.directory.resolve(STATISTICS_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+             var ignored = channel.lock()) {
+            var statistics = readStatistics(channel);
+            statistics = hit
+                    ? new Statistics(statistics.hits + 1, statistics.misses)
+                    : new Statistics(statistics.hits, statistics.misses + 1);
+
+            var bytes = String.format("%d %d\n", statistics.hits, statistics.misses).getBytes(StandardCharsets.UTF_8);
+            channel.truncate(0);
+            channel.write(ByteBuffer.wrap(bytes), 0);
+        }
+    }
+
+    private static Statistics readStatistics(FileChannel channel) throws IOException {
+        var buffer = ByteBuffer.allocate((int) channel.size());
+        channel.read(buffer, 0);
+        var content = new String(buffer.array(), StandardCharsets.UTF_8).strip();
+        if (content.isEmpty()) {
+            return new Statistics(0, 0);
+        }
+
+        var parts = content.split(" ");
+        try {
+            return new Statistics(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            // Start over, if the file is corrupted.
+            return new Statistics(0, 0);
+        }
+    }
+
+    public Statistics getStatistics() throws IOException {
+        var path = this.directory.resolve(STATISTICS_FILE);
+        if (!Files.exists(path)) {
+            return new Statistics(0, 0);
+        }
+
+        synchronized (STATISTICS_LOCK) {
+            try (var channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                 var ignored = channel.lock()) {
+                return readStatistics(channel);
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package compiler;
+
+import compiler.diagnostics.CompilerMessageReporter;
+import compiler.syntax.Lexer;
+import compiler.syntax.Parser;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.Optional;
+
+/**
+ * Compiles a single file independently of all other jobs running in the same process.
+ * <p>
+ * All messages of the job are buffered and returned as part of the result,
+ * so that the messages of concurrent jobs don't interleave.
+ */
+public class CompilationJob {
+
+    private final File inputFile;
+    private final boolean checkOnly;
+    private final OptimizationPipeline pipeline;
+    private final String execFilename;
+    private final File runtimeFile;
+
+    public record Result(File inputFile, boolean successful, String messages) {
+    }
+
+    private CompilationJob(File inputFile, boolean checkOnly, OptimizationPipeline pipeline, String execFilename, File runtimeFile) {
+        this.inputFile = inputFile;
+        this.checkOnly = checkOnly;
+        this.pipeline = pipeline;
+        this.execFilename = execFilename;
+        this.runtimeFile = runtimeFile;
+    }
+
+    /**
+     * Creates a job, which only performs the semantic analysis.
+     */
+    public static CompilationJob check(File inputFile) {
+        return new CompilationJob(inputFile, true, null, null, null);
+    }
+
+    /**
+     * Creates a job, which compiles the input to an executable. The assembly is written next to the executable.
+     */
+    public static CompilationJob compile(File inputFile, OptimizationPipeline pipeline, String execFilename, File runtimeFile) {
+        return new CompilationJob(inputFile, false, pipeline, execFilename, runtimeFile);
+    }
+
+    public Result run() {
+        var messages = new StringWriter();
+        var output = new PrintWriter(messages);
+
+        String content;
+        try {
+            content = Files.readString(this.inputFile.toPath());
+        } catch (IOException e) {
+            output.format("error: Can not read file: '%s'\n", this.inputFile.getPath());
+            output.flush();
+            return new Result(this.inputFile, false, messages.toString());
+        }
+
+        boolean successful;
+        try {
+            var reporter = new CompilerMessageReporter(output, content);
+            successful = this.compile(content, reporter, output);
+            reporter.finish();
+        } catch (RuntimeException | AssertionError e) {
+            // A crash while compiling one file must not abort the other jobs.
+            e.printStackTrace(output);
+            successful = false;
+        }
+
+        output.flush();
+        return new Result(this.inputFile, successful, messages.toString());
+    }
+
+    private boolean compile(String content, CompilerMessageReporter reporter, PrintWriter output) {
+        var parser = new Parser(new Lexer(content), reporter);
+        var ast = parser.parse();
+        if (!parser.successfulParse) {
+            return false;
+        }
+
+        var frontend = MainCommand.checkProgram(this.inputFile, ast, reporter);
+        if (frontend.isEmpty()) {
+            return false;
+        }
+
+        if (this.checkOnly) {
+            return true;
+        }
+
+        var asmOutputFile = new File(this.execFilename + ".s");
+        try {
+            CodeGenerator.generateAssembly(frontend.get(), asmOutputFile, false, this.pipeline, Optional.empty());
+        } catch (IOException e) {
+            output.format("error: Can not write assembly to '%s': %s\n", asmOutputFile.getPath(), e.getMessage());
+            return false;
+        }
+
+        try {
+            var linker = CodeGenerator.linkCommand(asmOutputFile, this.runtimeFile, this.execFilename)
+                    .redirectErrorStream(true)
+                    .start();
+            output.print(new String(linker.getInputStream().readAllBytes()));
+
+            if (linker.waitFor() != 0) {
+                output.format("error: Linking '%s' failed\n", this.execFilename);
+                return false;
+            }
+        } catch (IOException e) {
+            output.format("error: Can not start gcc to link '%s': %s\n", this.execFilename, e.getMessage());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+
+        return true;
+    }
+}
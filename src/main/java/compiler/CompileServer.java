@@ -0,0 +1,208 @@
+package compiler;
+
+import compiler.utils.CompilerThreads;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the compiler resident and answers compile requests on a Unix domain socket.
+ * <p>
+ * Every connection carries exactly one request. A request consists of {@code key=value} lines terminated by an empty line:
+ * <pre>
+ * command=compile      (compile, check, ping or shutdown; defaults to compile)
+ * source=/abs/Foo.java (required for compile and check)
+ * output=/abs/Foo      (executable to write, the assembly is written to output.s; required for compile)
+ * optimization=1       (optimization level from 0 to 3; defaults to 1)
+ * </pre>
+ * The server answers with the messages of the compilation followed by a last line {@code exit <code>}
+ * and closes the connection. Relative paths are resolved against the working directory of the server.
+ * A ping does nothing and answers {@code exit 0} once the server accepts requests.
+ * <p>
+ * Only the user running the server may connect to the socket, since the requests read and write arbitrary files.
+ */
+public class CompileServer {
+
+    private static final Set<PosixFilePermission> OWNER_ONLY_DIRECTORY = PosixFilePermissions.fromString("rwx------");
+    private static final Set<PosixFilePermission> OWNER_ONLY_SOCKET = PosixFilePermissions.fromString("rw-------");
+    // The file type bits of st_mode.
+    private static final int S_IFMT = 0170000;
+    private static final int S_IFSOCK = 0140000;
+
+    private final Path socketPath;
+    private final File runtimeFile;
+    private final ExecutorService workers;
+    private volatile boolean running;
+
+    public CompileServer(Path socketPath, File runtimeFile, int parallelism) {
+        this.socketPath = socketPath;
+        this.runtimeFile = runtimeFile;
+        this.workers = CompilerThreads.newPool(parallelism, "compile-server-worker");
+    }
+
+    /**
+     * Accepts requests until a shutdown request is received.
+     */
+    public void serve() throws IOException {
+        // A server, which didn't shut down, leaves its socket behind. Any other file at the path is not ours to delete.
+        if (Files.exists(this.socketPath, LinkOption.NOFOLLOW_LINKS)) {
+            if (!isSocket(this.socketPath)) {
+                throw new IOException(String.format("'%s' exists and is not a socket", this.socketPath));
+            }
+            Files.delete(this.socketPath);
+        }
+
+        try (var server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            this.bindOwnerOnly(server);
+            this.running = true;
+
+            while (this.running) {
+                var client = server.accept();
+                if (!this.running) {
+                    client.close();
+                    break;
+                }
+                this.workers.submit(() -> this.handle(client));
+            }
+        } finally {
+            // The workers are daemon threads, the requests still being compiled are finished before returning.
+            this.workers.shutdown();
+            try {
+                this.workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (Files.exists(this.socketPath, LinkOption.NOFOLLOW_LINKS) && isSocket(this.socketPath)) {
+                Files.delete(this.socketPath);
+            }
+        }
+    }
+
+    private static boolean isSocket(Path path) throws IOException {
+        var mode = (int) Files.getAttribute(path, "unix:mode", LinkOption.NOFOLLOW_LINKS);
+        return (mode & S_IFMT) == S_IFSOCK;
+    }
+
+    /**
+     * The socket file is created with the permissions of the umask. So it is bound in a directory only the owner can
+     * enter and moved to its place after restricting its permissions, to leave no moment in which others can connect.
+     */
+    private void bindOwnerOnly(ServerSocketChannel server) throws IOException {
+        var privateDir = Files.createTempDirectory(this.socketPath.toAbsolutePath().getParent(), ".compile-server",
+                PosixFilePermissions.asFileAttribute(OWNER_ONLY_DIRECTORY));
+        try {
+            var boundPath = privateDir.resolve("socket");
+            server.bind(UnixDomainSocketAddress.of(boundPath));
+            Files.setPosixFilePermissions(boundPath, OWNER_ONLY_SOCKET);
+            Files.move(boundPath, this.socketPath, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(privateDir.resolve("socket"));
+            Files.delete(privateDir);
+        }
+    }
+
+    private void handle(SocketChannel client) {
+        try (client) {
+            var reader = new BufferedReader(new InputStreamReader(Channels.newInputStream(client), StandardCharsets.UTF_8));
+            var writer = new PrintWriter(Channels.newWriter(client, StandardCharsets.UTF_8));
+
+            int exitCode;
+            try {
+                exitCode = this.execute(readRequest(reader), writer);
+            } catch (IllegalArgumentException e) {
+                writer.format("error: Invalid request: %s\n", e.getMessage());
+                exitCode = 1;
+            } catch (Exception | Error e) {
+                // The client waits for an answer, so every failure is reported to it instead of ending the worker silently.
+                writer.format("error: Request failed: %s\n", e);
+                e.printStackTrace(writer);
+                exitCode = 1;
+            }
+
+            writer.format("exit %d\n", exitCode);
+            writer.flush();
+        } catch (IOException e) {
+            // The client went away, there is nobody to report to.
+        }
+    }
+
+    private static Map<String, String> readRequest(BufferedReader reader) throws IOException {
+        var request = new HashMap<String, String>();
+
+        String line;
+        while ((line = reader.readLine()) != null && !line.isEmpty()) {
+            var separator = line.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException(String.format("expected 'key=value', got '%s'", line));
+            }
+            request.put(line.substring(0, separator).strip(), line.substring(separator + 1).strip());
+        }
+
+        return request;
+    }
+
+    private static String getRequired(Map<String, String> request, String key) {
+        var value = request.get(key);
+        if (value == null) {
+            throw new IllegalArgumentException(String.format("missing '%s'", key));
+        }
+        return value;
+    }
+
+    private int execute(Map<String, String> request, PrintWriter writer) throws IOException {
+        var command = request.getOrDefault("command", "compile");
+
+        if (command.equals("ping")) {
+            return 0;
+        }
+
+        if (command.equals("shutdown")) {
+            this.running = false;
+            // Wake up the accepting thread, so that it notices the shutdown.
+            SocketChannel.open(UnixDomainSocketAddress.of(this.socketPath)).close();
+            return 0;
+        }
+
+        CompilationJob job = switch (command) {
+            case "compile" -> {
+                var pipeline = OptimizationPipeline.forLevel(parseOptimizationLevel(request.getOrDefault("optimization", "1")));
+                var output = new File(getRequired(request, "output")).getAbsolutePath();
+                yield CompilationJob.compile(new File(getRequired(request, "source")), pipeline, output, this.runtimeFile);
+            }
+            case "check" -> CompilationJob.check(new File(getRequired(request, "source")));
+            default -> throw new IllegalArgumentException(String.format("unknown command '%s'", command));
+        };
+
+        var result = job.run();
+        writer.print(result.messages());
+        return result.successful() ? 0 : 1;
+    }
+
+    private static int parseOptimizationLevel(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format("invalid optimization level '%s'", value));
+        }
+    }
+}
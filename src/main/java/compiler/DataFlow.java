@@ -13,7 +13,6 @@ import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 public class DataFlow {
 
@@ -63,7 +62,7 @@ public class DataFlow {
         }
         @Override
         public boolean equals(Object obj) {
-            return obj instanceof Constant v && value == v.value;
+            return obj instanceof Constant v && value.equals(v.value);
         }
         @Override
         public String toString() {
@@ -71,19 +70,15 @@ public class DataFlow {
         }
     }
 
-    public record ConstantFolder(
-            Map<Node, ConstantValue> values,
-            Map<Block, Node> controlFlowNode,
-            Map<Node, ControlFlowEdge> controlFlowTarget,
-            Set<ControlFlowEdge> isExecutable) implements MiniJavaNodeVisitor {
+    public record ConstantFolder(SparseDataFlow.Values<ConstantValue> values, ConstantPropagation propagation) implements MiniJavaNodeVisitor {
 
         private void partialEval(Function<List<ConstantValue>, ConstantValue> eval, Node parent, Node... children) {
             if (Arrays.stream(children).anyMatch(n -> values.get(n) instanceof Unknown)) {
-                values.put(parent, Unknown.value);
+                values.set(parent, Unknown.value);
                 return;
             }
             List<ConstantValue> args = Arrays.stream(children).map(values::get).collect(Collectors.toList());
-            values.put(parent, eval.apply(args));
+            values.set(parent, eval.apply(args));
         }
 
         private void evalAux(Function<List<TargetValue>, ConstantValue> eval, Node parent, Node... children) {
@@ -139,7 +134,7 @@ public class DataFlow {
 
         // `block` ensures that this node will not get optimized away.
         private void block(Node n) {
-            values.put(n, Variable.value);
+            values.set(n, Variable.value);
         }
 
         @Override
@@ -174,7 +169,7 @@ public class DataFlow {
 
         @Override
         public void visit(Const aConst) {
-            values.put(aConst, new Constant(aConst.getTarval()));
+            values.set(aConst, new Constant(aConst.getTarval()));
         }
 
         @Override
@@ -186,7 +181,7 @@ public class DataFlow {
             // folding.
             if (conv.getOp() instanceof Size s) {
                 TargetValue sizeValue = new TargetValue(s.getType().getSize(), s.getMode());
-                values.put(conv, new Constant(sizeValue.convertTo(conv.getMode())));
+                values.set(conv, new Constant(sizeValue.convertTo(conv.getMode())));
             } else {
                 unaryEval(tv -> tv.convertTo(conv.getMode()), conv, conv.getOp());
             }
@@ -262,12 +257,12 @@ public class DataFlow {
             ConstantValue result = Unknown.value;
             var block = (Block) phi.getBlock();
             for (int i = 0; i < phi.getPredCount(); i++) {
-                if (isExecutable.contains(new ControlFlowEdge(block, i))) {
+                if (propagation.isExecutable(block, i)) {
                     var pred = phi.getPred(i);
                     result = result.sup(values.get(pred));
                 }
             }
-            values.put(phi, result);
+            values.set(phi, result);
         }
 
         @Override
@@ -308,111 +303,169 @@ public class DataFlow {
         }
     }
 
-    public record ControlFlowEdge(Block target, int predIdx){}
-    public record ConstantPropagation(Map<Node, ConstantValue> values, Set<ControlFlowEdge> executableEdges, Map<Node, ControlFlowEdge> controlFlowTarget) {}
-    public static ConstantPropagation analyzeConstantFolding(Graph g, Map<Block, List<Phi>> blockPhis) {
-        BackEdges.enable(g);
-
-        Map<Block, Node> controlFlowNode = new HashMap<>();
-        Map<Node, ControlFlowEdge> controlFlowTarget = new HashMap<>();
-        g.walkBlocks(block -> {
-            for (int i = 0; i < block.getPredCount(); i++) {
-                var cfNode = block.getPred(i);
-                var predBlock = (Block) cfNode.getBlock();
-                assert cfNode.getMode().equals(Mode.getX());
-
-                if (cfNode instanceof Proj cfProj) {
-                    controlFlowNode.put(predBlock, cfProj.getPred());
-                } else {
-                    controlFlowNode.put(predBlock, cfNode);
+    /**
+     * The constant value of every node and the executable control flow edges. Nodes in unreachable blocks have no value.
+     * <p>
+     * The control flow edges are numbered densely by the number of the first edge of their target block and the index
+     * of the predecessor in the block.
+     */
+    public static final class ConstantPropagation {
+        private final SparseDataFlow nodes;
+        private final SparseDataFlow.Values<ConstantValue> values;
+        // The first edge of every block, by position.
+        private final int[] firstEdges;
+        // The edge of every Jmp, Return and control flow Proj, by position.
+        private final int[] controlFlowEdges;
+        // The position of the target block, by edge.
+        private final int[] edgeTargets;
+        private final BitSet executableEdges;
+        // By position.
+        private final BitSet reachableBlocks;
+
+        private ConstantPropagation(Graph g) {
+            this.nodes = new SparseDataFlow(g, NodeCollector.run(g));
+            this.values = new SparseDataFlow.Values<>(this.nodes);
+            this.firstEdges = new int[this.nodes.size()];
+            this.controlFlowEdges = new int[this.nodes.size()];
+            Arrays.fill(this.controlFlowEdges, -1);
+
+            var edges = 0;
+            for (int position = 0; position < this.nodes.size(); position++) {
+                if (this.nodes.node(position) instanceof Block block) {
+                    this.firstEdges[position] = edges;
+                    edges += block.getPredCount();
                 }
-
-                controlFlowTarget.put(cfNode, new ControlFlowEdge(block, i));
             }
-        });
-
-        ArrayDeque<Node> valueWorklist = new ArrayDeque<>(FirmUtils.blockContent(g.getStartBlock()));
-        ArrayDeque<ControlFlowEdge> edgeWorklist = new ArrayDeque<>();
-        var startBlockJmp = controlFlowNode.get(g.getStartBlock());
-        if (startBlockJmp instanceof Jmp || startBlockJmp instanceof Return) {
-            edgeWorklist.addLast(controlFlowTarget.get(startBlockJmp));
-        }
-        Set<ControlFlowEdge> isExecutable = new HashSet<>();
-
-        Map<Node, ConstantValue> values = new HashMap<>();
-        FirmUtils.blockContent(g.getStartBlock()).forEach(node -> values.put(node, Unknown.value));
-        ConstantFolder f = new ConstantFolder(values, controlFlowNode, controlFlowTarget, isExecutable);
-        while (!valueWorklist.isEmpty() || !edgeWorklist.isEmpty()) {
-
-            while (!valueWorklist.isEmpty()) {
-                Node n = valueWorklist.removeFirst();
-                ConstantValue oldValue = values.get(n);
-                if (oldValue == null) {
-                    // This node wasn't picked up by our traversal at the start and is hence dead.
-                    continue;
-                }
-
-                var nodeBlock = (Block) n.getBlock();
-                var nodesInReacheableBlock = IntStream.range(0, nodeBlock.getPredCount()).anyMatch(idx -> isExecutable.contains(new ControlFlowEdge(nodeBlock, idx)))
-                        || nodeBlock.equals(g.getStartBlock());
-
-                if (nodesInReacheableBlock) {
-                    n.accept(f);
-
-                    if (n instanceof Cond cond) {
-                        var condition = values.get(cond.getSelector());
-
-                        var executableControlFlow = new ArrayList<Node>();
-                        switch (condition) {
-                            case Constant c && c.value.equals(TargetValue.getBTrue()) -> executableControlFlow.add(FirmUtils.getCondTrueProj(cond));
-                            case Constant c -> {
-                                assert c.value.equals(TargetValue.getBFalse());
-                                executableControlFlow.add(FirmUtils.getCondFalseProj(cond));
-                            }
-                            case Variable ignored -> {
-                                executableControlFlow.add(FirmUtils.getCondTrueProj(cond));
-                                executableControlFlow.add(FirmUtils.getCondFalseProj(cond));
-                            }
-                            case Unknown ignored -> {}
+            this.edgeTargets = new int[edges];
+            for (int position = 0; position < this.nodes.size(); position++) {
+                if (this.nodes.node(position) instanceof Block block) {
+                    for (int i = 0; i < block.getPredCount(); i++) {
+                        var edge = this.firstEdges[position] + i;
+                        this.edgeTargets[edge] = position;
+                        var controlFlow = this.nodes.position(block.getPred(i));
+                        if (controlFlow >= 0) {
+                            this.controlFlowEdges[controlFlow] = edge;
                         }
-
-                        executableControlFlow.stream().map(controlFlowTarget::get).forEach(edgeWorklist::addLast);
                     }
                 }
-
-                if (!oldValue.equals(values.get(n))) {
-                    for (BackEdges.Edge e : BackEdges.getOuts(n)) {
-                        if (!(e.node instanceof Block)) {
-                            valueWorklist.addLast(e.node);
-                        }
-                    }
+            }
+            this.executableEdges = new BitSet(edges);
+            this.reachableBlocks = new BitSet(this.nodes.size());
+        }
+
+        /**
+         * @return The value of the node, or null if its block isn't reachable.
+         */
+        public ConstantValue value(Node n) {
+            return this.values.get(n);
+        }
+
+        /**
+         * @return The nodes in reachable blocks, in topological order.
+         */
+        public List<Node> reachableNodes() {
+            var result = new ArrayList<Node>();
+            for (int position = 0; position < this.nodes.size(); position++) {
+                var n = this.nodes.node(position);
+                if (this.values.get(n) != null) {
+                    result.add(n);
                 }
             }
+            return result;
+        }
 
-            while (!edgeWorklist.isEmpty()) {
-                ControlFlowEdge edge = edgeWorklist.removeFirst();
+        public boolean isExecutable(Block target, int predIdx) {
+            var position = this.nodes.position(target);
+            return position >= 0 && this.executableEdges.get(this.firstEdges[position] + predIdx);
+        }
 
-                if (!isExecutable.contains(edge)) {
-                    var hasBlockBecomeReacheable = IntStream.range(0, edge.target.getPredCount()).noneMatch(idx -> isExecutable.contains(new ControlFlowEdge(edge.target, idx)));
-                    isExecutable.add(edge);
+        /**
+         * @return Whether the edge of the Jmp, Return or control flow Proj is executable.
+         */
+        public boolean isExecutable(Node controlFlow) {
+            var edge = this.edgeOf(controlFlow);
+            return edge >= 0 && this.executableEdges.get(edge);
+        }
 
-                    if (hasBlockBecomeReacheable) {
-                        var blockContent = FirmUtils.blockContent(edge.target);
-                        valueWorklist.addAll(blockContent);
-                        blockContent.forEach(node -> values.put(node, Unknown.value));
-                    } else {
-                        valueWorklist.addAll(blockPhis.get(edge.target));
-                    }
+        private int edgeOf(Node controlFlow) {
+            var position = this.nodes.position(controlFlow);
+            return position >= 0 ? this.controlFlowEdges[position] : -1;
+        }
+
+        /**
+         * @return Whether the block has become reachable.
+         */
+        private boolean markReachable(Block block) {
+            var position = this.nodes.position(block);
+            if (this.reachableBlocks.get(position)) {
+                return false;
+            }
+            this.reachableBlocks.set(position);
+            for (var node : FirmUtils.blockContent(block)) {
+                this.values.set(node, Unknown.value);
+                this.nodes.schedule(node);
+            }
+            return true;
+        }
 
-                    var controlFlow = controlFlowNode.get(edge.target);
-                    if (controlFlow instanceof Jmp || controlFlow instanceof Return) {
-                        edgeWorklist.add(controlFlowTarget.get(controlFlow));
+        private void markExecutable(Node controlFlow, Map<Block, List<Phi>> blockPhis) {
+            var edge = this.edgeOf(controlFlow);
+            if (edge < 0 || this.executableEdges.get(edge)) {
+                return;
+            }
+
+            this.executableEdges.set(edge);
+            var block = (Block) this.nodes.node(this.edgeTargets[edge]);
+            if (!this.markReachable(block)) {
+                blockPhis.get(block).forEach(this.nodes::schedule);
+            }
+        }
+    }
+
+    /**
+     * Sparse conditional constant propagation: the values of the nodes are only propagated along executable control
+     * flow edges, starting with the start block.
+     */
+    public static ConstantPropagation analyzeConstantFolding(Graph g, Map<Block, List<Phi>> blockPhis) {
+        BackEdges.enable(g);
+
+        var propagation = new ConstantPropagation(g);
+        var values = propagation.values;
+        var folder = new ConstantFolder(values, propagation);
+
+        propagation.markReachable(g.getStartBlock());
+        propagation.nodes.solve(n -> {
+            ConstantValue oldValue = values.get(n);
+            if (oldValue == null) {
+                // The block of this node isn't reachable (yet).
+                return false;
+            }
+
+            n.accept(folder);
+
+            if (n instanceof Cond cond) {
+                var condition = values.get(cond.getSelector());
+                switch (condition) {
+                    case Constant c && c.value.equals(TargetValue.getBTrue()) -> propagation.markExecutable(FirmUtils.getCondTrueProj(cond), blockPhis);
+                    case Constant c -> {
+                        assert c.value.equals(TargetValue.getBFalse());
+                        propagation.markExecutable(FirmUtils.getCondFalseProj(cond), blockPhis);
                     }
+                    case Variable ignored -> {
+                        propagation.markExecutable(FirmUtils.getCondTrueProj(cond), blockPhis);
+                        propagation.markExecutable(FirmUtils.getCondFalseProj(cond), blockPhis);
+                    }
+                    case Unknown ignored -> {}
                 }
+            } else if (n instanceof Jmp || n instanceof Return) {
+                propagation.markExecutable(n, blockPhis);
             }
-        }
+
+            return !oldValue.equals(values.get(n));
+        });
+
         BackEdges.disable(g);
-        return new ConstantPropagation(values, isExecutable, controlFlowTarget);
+        return propagation;
     }
 
     private static boolean isMemNode(Node n) {
@@ -422,129 +475,259 @@ public class DataFlow {
                 || n instanceof Div || n instanceof Mod;
     }
 
-    private static <T> Set<T> intersect(List<Set<T>> sets) {
-        assert sets.size() > 0;
-        Set<T> primary = new HashSet<>(sets.get(0));
-        for (Set<T> set : sets) {
-            primary.retainAll(set);
-        }
-        return primary;
-    }
-
     public record LoadLoad(Load firstLoad, Load secondLoad) {}
     public record StoreLoad(Store store, Load load) {}
 
+    /**
+     * @param candidates In the order of the memory nodes.
+     * @return The first candidate in the block, which dominates the blocks of the others. The memory nodes of a block
+     * form a chain, so it is the load that all other candidates of its block come after.
+     */
     private static Load selectBestLoad(List<Load> candidates) {
-        Map<Block, List<Load>> loadsByBlock = candidates.stream().collect(Collectors.groupingBy(c -> (Block) c.getBlock()));
         Block bestBlock = null;
-        List<Load> loadsOfBestBlock = null;
-        for (var e : loadsByBlock.entrySet()) {
-            Block block = e.getKey();
-            List<Load> loads = e.getValue();
-            if (bestBlock == null) {
+        Load bestLoad = null;
+        for (var candidate : candidates) {
+            var block = (Block) candidate.getBlock();
+            if (bestBlock == null
+                    || !block.equals(bestBlock) && binding_irdom.block_dominates(block.ptr, bestBlock.ptr) != 0) {
                 bestBlock = block;
-                loadsOfBestBlock = loads;
-                continue;
+                bestLoad = candidate;
             }
-            if (binding_irdom.block_dominates(block.ptr, bestBlock.ptr) != 0) {
-                bestBlock = block;
-                loadsOfBestBlock = loads;
-            }
-        }
-        assert loadsOfBestBlock != null;
-        assert loadsOfBestBlock.size() > 0;
-        Load bestLoad = loadsOfBestBlock.remove(loadsOfBestBlock.size() - 1);
-        Set<Load> loads = new HashSet<>(loadsOfBestBlock);
-        Node currentMemNode = bestLoad;
-        while (currentMemNode.getBlock().equals(bestBlock)
-                && !(currentMemNode instanceof Phi)
-                && !(currentMemNode instanceof Start)) {
-            if (currentMemNode instanceof Load l && loads.contains(l)) {
-                bestLoad = l;
-            }
-            currentMemNode = switch (currentMemNode) {
-                case Proj p -> p.getPred();
-                case Store s -> s.getMem();
-                case Load l -> l.getMem();
-                case Call c -> c.getMem();
-                case Div d -> d.getMem();
-                case Mod m -> m.getMem();
-                default -> throw new AssertionError("got unexpected mem node");
-            };
         }
+        assert bestLoad != null;
         return bestLoad;
     }
 
+    /**
+     * A set of loads or stores for every memory node, stored as one row of bits per memory node in a single array.
+     * The loads or stores are numbered densely, so a row has one bit per element. The last row is scratch space for
+     * transfer functions.
+     */
+    private static final class MemorySets {
+        private final int words;
+        private final long[] bits;
+        private final int scratch;
+
+        MemorySets(int memNodes, int elements) {
+            this.words = (elements + 63) >>> 6;
+            this.bits = new long[(memNodes + 1) * this.words];
+            this.scratch = memNodes;
+        }
+
+        void fill(int row, int elements) {
+            var start = row * this.words;
+            Arrays.fill(this.bits, start, start + this.words, -1L);
+            if ((elements & 63) != 0) {
+                this.bits[start + this.words - 1] = (1L << (elements & 63)) - 1;
+            }
+        }
+
+        void clear(int row) {
+            Arrays.fill(this.bits, row * this.words, (row + 1) * this.words, 0);
+        }
+
+        void copy(int from, int to) {
+            System.arraycopy(this.bits, from * this.words, this.bits, to * this.words, this.words);
+        }
+
+        void intersect(int row, int other) {
+            var start = row * this.words;
+            var otherStart = other * this.words;
+            for (int i = 0; i < this.words; i++) {
+                this.bits[start + i] &= this.bits[otherStart + i];
+            }
+        }
+
+        boolean get(int row, int element) {
+            return (this.bits[row * this.words + (element >>> 6)] & (1L << element)) != 0;
+        }
+
+        void set(int row, int element) {
+            this.bits[row * this.words + (element >>> 6)] |= 1L << element;
+        }
+
+        void remove(int row, int element) {
+            this.bits[row * this.words + (element >>> 6)] &= ~(1L << element);
+        }
+
+        /**
+         * @return The next element in the row starting at the given element, or -1.
+         */
+        int next(int row, int element) {
+            var start = row * this.words;
+            var word = element >>> 6;
+            if (word >= this.words) {
+                return -1;
+            }
+            var bits = this.bits[start + word] & (-1L << element);
+            while (true) {
+                if (bits != 0) {
+                    return (word << 6) + Long.numberOfTrailingZeros(bits);
+                }
+                if (++word == this.words) {
+                    return -1;
+                }
+                bits = this.bits[start + word];
+            }
+        }
+
+        /**
+         * Replaces the row with the scratch row.
+         *
+         * @return Whether the row changed.
+         */
+        boolean update(int row) {
+            var start = row * this.words;
+            var scratchStart = this.scratch * this.words;
+            if (Arrays.equals(this.bits, start, start + this.words, this.bits, scratchStart, scratchStart + this.words)) {
+                return false;
+            }
+            System.arraycopy(this.bits, scratchStart, this.bits, start, this.words);
+            return true;
+        }
+    }
+
+    /**
+     * @return The memory nodes of the graph and the start, which provides the initial memory, in topological order.
+     */
+    private static SparseDataFlow memoryNodes(Graph g) {
+        var memNodes = new ArrayList<Node>();
+        for (var n : NodeCollector.run(g)) {
+            if (n instanceof Start || isMemNode(n)) {
+                memNodes.add(n);
+            }
+        }
+        return new SparseDataFlow(g, memNodes);
+    }
+
+    /**
+     * Computes a set of loads or stores for every memory node along the memory edges. The set is empty at the start,
+     * the sets of the predecessors of a Phi are intersected. The given transfer function computes the scratch row of
+     * the loads, stores and calls.
+     * <p>
+     * Optimistically, every other set starts out full.
+     */
+    private static MemorySets solveMemorySets(SparseDataFlow memory, int elements, BiConsumer<Node, MemorySets> transfer) {
+        var sets = new MemorySets(memory.size(), elements);
+        for (int row = 0; row < memory.size(); row++) {
+            if (!(memory.node(row) instanceof Start)) {
+                sets.fill(row, elements);
+            }
+        }
+
+        var scratch = sets.scratch;
+        memory.scheduleAll();
+        memory.solve(n -> {
+            switch (n) {
+                case Start ignored -> {
+                    return false;
+                }
+                case Proj p -> sets.copy(memory.position(p.getPred()), scratch);
+                case Div d -> sets.copy(memory.position(d.getMem()), scratch);
+                case Mod m -> sets.copy(memory.position(m.getMem()), scratch);
+                case Phi phi -> {
+                    sets.copy(memory.position(phi.getPred(0)), scratch);
+                    for (int i = 1; i < phi.getPredCount(); i++) {
+                        sets.intersect(scratch, memory.position(phi.getPred(i)));
+                    }
+                }
+                default -> transfer.accept(n, sets);
+            }
+            return sets.update(memory.position(n));
+        });
+        return sets;
+    }
+
+    /**
+     * Computes the loads available at every memory node and pairs every load with an earlier load of the same pointer,
+     * which is still available.
+     */
     public static List<LoadLoad> analyzeLoadLoad(Graph g, Map<Node, Ty> nodeAstTypes, Map<Call, MethodDefinition> methodReferences) {
+        return pairLoads(availableLoadsOfSamePointer(g, nodeAstTypes, methodReferences));
+    }
+
+    /**
+     * @return Every load of the graph in the order of the memory nodes, with the other loads of the same pointer,
+     * which are available before it, also in the order of the memory nodes.
+     */
+    static Map<Load, List<Load>> availableLoadsOfSamePointer(Graph g, Map<Node, Ty> nodeAstTypes,
+                                                             Map<Call, MethodDefinition> methodReferences) {
         AliasAnalysis aa = new AliasAnalysis(nodeAstTypes);
-        ArrayDeque<Node> memNodes = new ArrayDeque<>();
-        NodeCollector.run(g).stream().filter(DataFlow::isMemNode).forEach(memNodes::add);
-        Set<Load> allLoads = memNodes.stream()
-                .filter(n -> n instanceof Load)
-                .map(n -> (Load) n)
-                .collect(Collectors.toSet());
-        Map<Load, Node> ptrCache = allLoads.stream().collect(Collectors.toMap(l -> l, Load::getPtr));
-        Map<Node, Set<Load>> availableLoads = memNodes.stream()
-                .collect(Collectors.toMap(n -> n, n -> new HashSet<>(allLoads)));
-        availableLoads.put(g.getStart(), new HashSet<>());
-        BiConsumer<Node, Node> forward = (from, to) ->
-                availableLoads.put(to, availableLoads.get(from).stream().collect(Collectors.toUnmodifiableSet()));
+        var memory = memoryNodes(g);
+
+        var loads = new ArrayList<Load>();
+        var loadNumbers = new int[memory.size()];
+        for (int position = 0; position < memory.size(); position++) {
+            if (memory.node(position) instanceof Load l) {
+                loadNumbers[position] = loads.size();
+                loads.add(l);
+            }
+        }
+
+        var loadPtrs = new Node[loads.size()];
+        var loadsByPtr = new HashMap<Node, List<Integer>>();
+        for (int i = 0; i < loads.size(); i++) {
+            loadPtrs[i] = loads.get(i).getPtr();
+            loadsByPtr.computeIfAbsent(loadPtrs[i], ptr -> new ArrayList<>()).add(i);
+        }
+
         BackEdges.enable(g);
-        ArrayDeque<Node> worklist = FirmUtils.backEdgeTargets(g.getStart()).stream()
-                .filter(availableLoads::containsKey)
-                .collect(Collectors.toCollection(ArrayDeque::new));
-        HashSet<Node> visited = new HashSet<>();
-        while (!worklist.isEmpty()) {
-            Node n = worklist.removeFirst();
-            Set<Load> previousAvailableLoads = availableLoads.get(n);
+        var available = solveMemorySets(memory, loads.size(), (n, sets) -> {
+            var scratch = sets.scratch;
             switch (n) {
-                case Proj p ->
-                        forward.accept(p.getPred(), p);
-                case Div d ->
-                        forward.accept(d.getMem(), d);
-                case Mod m ->
-                        forward.accept(m.getMem(), m);
-                case Phi phi -> {
-                    Set<Load> availableLoadsAfterPhi = intersect(FirmUtils.preds(phi).stream()
-                            .map(availableLoads::get)
-                            .collect(Collectors.toList()));
-                    availableLoads.put(phi, availableLoadsAfterPhi);
-                }
                 case Store s -> {
                     Node sPtr = s.getPtr();
-                    Set<Load> availableLoadsAfterStore = availableLoads.get(s.getMem()).stream()
-                            .filter(load -> aa.guaranteedNotAliased(ptrCache.get(load), sPtr))
-                            .collect(Collectors.toSet());
-                    availableLoads.put(s, availableLoadsAfterStore);
+                    sets.copy(memory.position(s.getMem()), scratch);
+                    for (int load = sets.next(scratch, 0); load >= 0; load = sets.next(scratch, load + 1)) {
+                        if (!aa.guaranteedNotAliased(loadPtrs[load], sPtr)) {
+                            sets.remove(scratch, load);
+                        }
+                    }
                 }
                 case Load l -> {
-                    Set<Load> previous = new HashSet<>(availableLoads.get(l.getMem()));
                     // A previous available load that wasn't killed yet is better than l if they have the same pointer.
-                    previous.add(l);
-                    availableLoads.put(l, previous);
+                    sets.copy(memory.position(l.getMem()), scratch);
+                    sets.set(scratch, loadNumbers[memory.position(l)]);
                 }
                 case Call c -> {
                     if (methodReferences.get(c) instanceof DefinedMethod) {
                         // We don't know anything about our loads or stores after a method call.
-                        availableLoads.put(c, new HashSet<>());
+                        sets.clear(scratch);
                     } else {
                         // This is an alloc or an internal call - these don't touch any memory locations.
-                        forward.accept(c.getMem(), c);
+                        sets.copy(memory.position(c.getMem()), scratch);
                     }
                 }
                 default -> throw new AssertionError("Ran into non-memory-node case on nodes that are only memory nodes");
             }
-            if (!previousAvailableLoads.equals(availableLoads.get(n)) || !visited.contains(n)) {
-                List<Node> changed = FirmUtils.backEdgeTargets(n).stream()
-                        .filter(availableLoads::containsKey)
-                        .collect(Collectors.toList());
-                worklist.addAll(changed);
-                visited.add(n);
+        });
+
+        BackEdges.disable(g);
+
+        var candidates = new LinkedHashMap<Load, List<Load>>();
+        for (int index = 0; index < loads.size(); index++) {
+            var row = memory.position(loads.get(index));
+            List<Load> loadLoadCandidates = new ArrayList<>();
+            for (var candidate : loadsByPtr.get(loadPtrs[index])) {
+                if (candidate != index && available.get(row, candidate)) {
+                    loadLoadCandidates.add(loads.get(candidate));
+                }
             }
+            candidates.put(loads.get(index), loadLoadCandidates);
         }
+        return candidates;
+    }
+
+    /**
+     * Pairs every load, which has candidates, with the best of them. All candidates of a load are replaced by the
+     * same load, which needs the dominators of the graph. The loads and their candidates have to be in the order of
+     * the memory nodes, like {@link #availableLoadsOfSamePointer} returns them.
+     */
+    static List<LoadLoad> pairLoads(Map<Load, List<Load>> candidates) {
         List<LoadLoad> loadLoadPairs = new ArrayList<>();
         Map<Load, Load> bestLoadCache = new HashMap<>();
-        for (var l : allLoads) {
+        for (var entry : candidates.entrySet()) {
+            var l = entry.getKey();
             if (bestLoadCache.containsKey(l)) {
                 Load bestLoad = bestLoadCache.get(l);
                 if (!bestLoad.equals(l)) {
@@ -552,10 +735,7 @@ public class DataFlow {
                 }
                 continue;
             }
-            Set<Load> loads = availableLoads.get(l);
-            List<Load> loadLoadCandidates = loads.stream()
-                    .filter(aLoad -> !l.equals(aLoad) && ptrCache.get(l).equals(ptrCache.get(aLoad)))
-                    .collect(Collectors.toList());
+            List<Load> loadLoadCandidates = entry.getValue();
             if (loadLoadCandidates.size() == 0) {
                 continue;
             }
@@ -565,86 +745,69 @@ public class DataFlow {
             }
             loadLoadPairs.add(new LoadLoad(bestLoad, l));
         }
-        BackEdges.disable(g);
         return loadLoadPairs;
     }
 
+    /**
+     * Computes the stores available at every memory node and pairs every load with the available store to its pointer.
+     */
     public static List<StoreLoad> analyzeStoreLoad(Graph g, Map<Node, Ty> nodeAstTypes, Map<Call, MethodDefinition> methodReferences) {
         AliasAnalysis aa = new AliasAnalysis(nodeAstTypes);
-        ArrayDeque<Node> memNodes = new ArrayDeque<>();
-        NodeCollector.run(g).stream().filter(DataFlow::isMemNode).forEach(memNodes::add);
-        Set<Store> allStores = memNodes.stream()
-                .filter(n -> n instanceof Store)
-                .map(n -> (Store) n)
-                .collect(Collectors.toSet());
-        Map<Store, Node> ptrCache = allStores.stream().collect(Collectors.toMap(s -> s, Store::getPtr));
-        Map<Node, Set<Store>> availableStores = memNodes.stream()
-                .collect(Collectors.toMap(n -> n, n -> new HashSet<>(allStores)));
-        availableStores.put(g.getStart(), new HashSet<>());
-        BiConsumer<Node, Node> forward = (from, to) ->
-                availableStores.put(to, new HashSet<>(availableStores.get(from)));
+        var memory = memoryNodes(g);
+
+        var storeNumbers = new int[memory.size()];
+        var storePtrs = new ArrayList<Node>();
+        var storesByPtr = new HashMap<Node, List<Integer>>();
+        var stores = new ArrayList<Store>();
+        for (int position = 0; position < memory.size(); position++) {
+            if (memory.node(position) instanceof Store s) {
+                storeNumbers[position] = stores.size();
+                storePtrs.add(s.getPtr());
+                storesByPtr.computeIfAbsent(s.getPtr(), ptr -> new ArrayList<>()).add(stores.size());
+                stores.add(s);
+            }
+        }
+
         BackEdges.enable(g);
-        ArrayDeque<Node> worklist = FirmUtils.backEdgeTargets(g.getStart()).stream()
-                .filter(availableStores::containsKey)
-                .collect(Collectors.toCollection(ArrayDeque::new));
-        HashSet<Node> visited = new HashSet<>();
-        while (!worklist.isEmpty()) {
-            Node n = worklist.removeFirst();
-            Set<Store> previousAvailableStores = availableStores.get(n);
+        var available = solveMemorySets(memory, stores.size(), (n, sets) -> {
+            var scratch = sets.scratch;
             switch (n) {
-                case Proj p ->
-                        forward.accept(p.getPred(), p);
-                case Div d ->
-                        forward.accept(d.getMem(), d);
-                case Mod m ->
-                        forward.accept(m.getMem(), m);
-                case Phi phi -> {
-                    Set<Store> availableStoresAfterPhi = intersect(FirmUtils.preds(phi).stream()
-                            .map(availableStores::get)
-                            .collect(Collectors.toList()));
-                    availableStores.put(phi, availableStoresAfterPhi);
-                }
                 case Store s -> {
-                    Node sPtr = ptrCache.get(s);
-                    Set<Store> availableStoresAfterStore = availableStores.get(s.getMem()).stream()
-                            .filter(store -> aa.guaranteedNotAliased(ptrCache.get(store), sPtr))
-                            .collect(Collectors.toSet());
-                    availableStoresAfterStore.add(s);
-                    availableStores.put(s, availableStoresAfterStore);
+                    Node sPtr = storePtrs.get(storeNumbers[memory.position(s)]);
+                    sets.copy(memory.position(s.getMem()), scratch);
+                    for (int store = sets.next(scratch, 0); store >= 0; store = sets.next(scratch, store + 1)) {
+                        if (!aa.guaranteedNotAliased(storePtrs.get(store), sPtr)) {
+                            sets.remove(scratch, store);
+                        }
+                    }
+                    sets.set(scratch, storeNumbers[memory.position(s)]);
                 }
-                case Load l ->
-                        forward.accept(l.getMem(), l);
+                case Load l -> sets.copy(memory.position(l.getMem()), scratch);
                 case Call c -> {
                     if (methodReferences.get(c) instanceof DefinedMethod) {
                         // We don't know anything about our stores after a method call.
-                        availableStores.put(c, new HashSet<>());
+                        sets.clear(scratch);
                     } else {
                         // This is an alloc or an internal call - these don't touch any memory locations.
-                        forward.accept(c.getMem(), c);
+                        sets.copy(memory.position(c.getMem()), scratch);
                     }
                 }
                 default -> throw new AssertionError("Ran into non-memory-node case on nodes that are only memory nodes");
             }
-            if (!previousAvailableStores.equals(availableStores.get(n)) || !visited.contains(n)) {
-                List<Node> changed = FirmUtils.backEdgeTargets(n).stream()
-                        .filter(availableStores::containsKey)
-                        .collect(Collectors.toList());
-                worklist.addAll(changed);
-                visited.add(n);
-            }
-        }
+        });
+
         List<StoreLoad> storeLoadPairs = new ArrayList<>();
-        for (var n : availableStores.keySet()) {
-            Set<Store> stores = availableStores.get(n);
-            if (!(n instanceof Load l)) {
+        for (int position = 0; position < memory.size(); position++) {
+            if (!(memory.node(position) instanceof Load l)) {
                 continue;
             }
-            Node lPtr = l.getPtr();
-            Optional<Store> maybeStoreLoad = stores.stream()
-                    .filter(aStore -> lPtr.equals(ptrCache.get(aStore)))
-                    .findFirst();
-            if (maybeStoreLoad.isPresent()) {
-                storeLoadPairs.add(new StoreLoad(maybeStoreLoad.get(), l));
+            // A store kills all other stores to the same pointer, so at most one of them is available.
+            var candidates = storesByPtr.getOrDefault(l.getPtr(), List.of());
+            for (var store : candidates) {
+                if (available.get(position, store)) {
+                    storeLoadPairs.add(new StoreLoad(stores.get(store), l));
+                    break;
+                }
             }
         }
         BackEdges.disable(g);
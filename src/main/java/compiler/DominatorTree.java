@@ -0,0 +1,105 @@
+package compiler;
+
+import firm.Graph;
+import firm.bindings.binding_irdom;
+import firm.bindings.binding_irgraph;
+import firm.bindings.binding_irnode;
+import firm.nodes.Block;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The dominator tree of a graph with its blocks numbered in preorder.
+ * <p>
+ * The blocks dominated by a block form its subtree, whose preorder numbers are an interval starting at the number
+ * of the block. So dominance is decided in constant time without calling into libFirm.
+ * <p>
+ * The dominators have to be computed with {@code binding_irdom.compute_doms} before. Blocks, which aren't reachable
+ * from the start block, are not part of the tree: they neither dominate nor are dominated by any block.
+ */
+public final class DominatorTree {
+
+    // The preorder number of every block by its index in the graph, -1 if the block isn't part of the tree.
+    private final int[] preorder;
+    // The highest preorder number in the subtree of every block by its index in the graph.
+    private final int[] subtreeEnd;
+    private final List<Block> blocks;
+
+    public DominatorTree(Graph graph) {
+        var size = binding_irgraph.get_irg_last_idx(graph.ptr);
+        this.preorder = new int[size];
+        this.subtreeEnd = new int[size];
+        Arrays.fill(this.preorder, -1);
+
+        // The parent and the children of every block by its index, the children in the order of the block walk.
+        var parents = new int[size];
+        var children = new ArrayList<List<Block>>(Collections.nCopies(size, null));
+        graph.walkBlocks(block -> {
+            var idom = binding_irdom.get_Block_idom(block.ptr);
+            if (idom != null) {
+                var parent = binding_irnode.get_irn_idx(idom);
+                parents[SparseDataFlow.index(block)] = parent;
+                if (children.get(parent) == null) {
+                    children.set(parent, new ArrayList<>());
+                }
+                children.get(parent).add(block);
+            }
+        });
+
+        this.blocks = new ArrayList<>();
+        var stack = new ArrayDeque<Block>();
+        stack.push(graph.getStartBlock());
+        while (!stack.isEmpty()) {
+            var block = stack.pop();
+            var index = SparseDataFlow.index(block);
+            this.preorder[index] = this.blocks.size();
+            this.blocks.add(block);
+
+            var blockChildren = children.get(index);
+            if (blockChildren != null) {
+                // Pushed in reverse, so that the children are numbered in the order of the block walk.
+                for (int i = blockChildren.size() - 1; i >= 0; i--) {
+                    stack.push(blockChildren.get(i));
+                }
+            }
+        }
+
+        // The children are numbered after their parent, so the subtrees are complete when visited backwards.
+        for (var block : this.blocks) {
+            this.subtreeEnd[SparseDataFlow.index(block)] = this.preorder[SparseDataFlow.index(block)];
+        }
+        for (int i = this.blocks.size() - 1; i > 0; i--) {
+            var index = SparseDataFlow.index(this.blocks.get(i));
+            this.subtreeEnd[parents[index]] = Math.max(this.subtreeEnd[parents[index]], this.subtreeEnd[index]);
+        }
+    }
+
+    /**
+     * @return The blocks of the tree in preorder, every block comes after all blocks dominating it.
+     */
+    public List<Block> preorder() {
+        return Collections.unmodifiableList(this.blocks);
+    }
+
+    /**
+     * @return The preorder number of the block, or -1 if it isn't part of the tree.
+     */
+    public int preorderNumber(Block block) {
+        var index = SparseDataFlow.index(block);
+        // Blocks created after the numbering aren't part of the tree either.
+        return index < this.preorder.length ? this.preorder[index] : -1;
+    }
+
+    /**
+     * @return Whether a dominates b, every block dominates itself.
+     */
+    public boolean dominates(Block a, Block b) {
+        var first = this.preorderNumber(a);
+        var second = this.preorderNumber(b);
+        return first >= 0 && second >= 0 && first <= second && second <= this.subtreeEnd[SparseDataFlow.index(a)];
+    }
+}
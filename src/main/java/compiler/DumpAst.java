@@ -9,6 +9,7 @@ import compiler.semantic.resolution.IntrinsicMethod;
 import compiler.types.DefinedClassTy;
 
 import java.io.PrintWriter;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -99,11 +100,14 @@ public class DumpAst {
     private final DotWriter out;
     private final Definitions definitions;
     private final List<Attribute> attributes;
+    // The children of the node being dumped, in the order they are dumped.
+    private final List<AstNode> children;
 
     public DumpAst(PrintWriter out, Definitions definitions) {
         this.attributes = new ArrayList<>();
         this.out = new DotWriter(out, attributes);
         this.definitions = definitions;
+        this.children = new ArrayList<>();
     }
 
     public DumpAst addNodeAttribute(String attrName, AstData<?> data) {
@@ -112,10 +116,27 @@ public class DumpAst {
     }
 
     public void dump(AstNode ast) {
-        this.dumpAst(ast);
+        // An explicit stack instead of recursion, so that deeply nested programs don't overflow the call stack.
+        var stack = new ArrayDeque<AstNode>();
+        stack.push(ast);
+        while (!stack.isEmpty()) {
+            this.dumpAst(stack.pop());
+
+            for (int i = this.children.size() - 1; i >= 0; i--) {
+                stack.push(this.children.get(i));
+            }
+            this.children.clear();
+        }
         this.out.finish();
     }
 
+    /**
+     * The child is dumped after the current node, before the following siblings of the current node.
+     */
+    private void dumpChild(AstNode child) {
+        this.children.add(child);
+    }
+
     private void dumpAst(AstNode ast) {
         switch (ast) {
             case Program prog -> {
@@ -123,7 +144,7 @@ public class DumpAst {
 
                 for (Class klass : prog.getClasses()) {
                     this.out.addEdge(prog, klass);
-                    this.dumpAst(klass);
+                    this.dumpChild(klass);
                 }
             }
             case Class klass -> {
@@ -131,39 +152,39 @@ public class DumpAst {
 
                 for (Field f : klass.getFields()) {
                     this.out.addEdge(klass, f);
-                    this.dumpAst(f);
+                    this.dumpChild(f);
                 }
 
                 for (Method m : klass.getMethods()) {
                     this.out.addEdge(klass, m);
-                    this.dumpAst(m);
+                    this.dumpChild(m);
                 }
             }
             case Method method -> {
                 this.out.addNode(method, String.format("Method '%s'", method.getIdentifier()));
 
                 this.out.addEdge(method, method.getReturnType(), "returnType");
-                this.dumpAst(method.getReturnType());
+                this.dumpChild(method.getReturnType());
 
                 for (Parameter param : method.getParameters()) {
                     this.out.addEdge(method, param);
-                    this.dumpAst(param);
+                    this.dumpChild(param);
                 }
 
                 this.out.addEdge(method, method.getBody(), "body");
-                this.dumpAst(method.getBody());
+                this.dumpChild(method.getBody());
             }
             case Field field -> {
                 this.out.addNode(field, String.format("Field '%s'", field.getIdentifier()));
 
                 this.out.addEdge(field, field.getType(), "type");
-                this.dumpAst(field.getType());
+                this.dumpChild(field.getType());
             }
             case Parameter param -> {
                 this.out.addNode(param, String.format("Param '%s'", param.getIdentifier()));
 
                 this.out.addEdge(param, param.getType(), "type");
-                this.dumpAst(param.getType());
+                this.dumpChild(param.getType());
             }
             case Type ty -> this.dumpType(ty);
             case Statement stmt -> this.dumpStatement(stmt);
@@ -181,7 +202,7 @@ public class DumpAst {
                 int childIdx = 0;
                 for (var child : block.getStatements()) {
                     this.out.addEdge(block, child, "" + childIdx);
-                    this.dumpAst(child);
+                    this.dumpChild(child);
 
                     childIdx += 1;
                 }
@@ -191,31 +212,31 @@ public class DumpAst {
                 this.out.addNode(ifStmt, "If-Else");
 
                 this.out.addEdge(ifStmt, ifStmt.getCondition(), "condition");
-                this.dumpAst(ifStmt.getCondition());
+                this.dumpChild(ifStmt.getCondition());
 
                 this.out.addEdge(ifStmt, ifStmt.getThenBody(), "then");
-                this.dumpAst(ifStmt.getThenBody());
+                this.dumpChild(ifStmt.getThenBody());
 
                 var elseBody = ifStmt.getElseBody();
                 if (elseBody.isPresent()) {
                     this.out.addEdge(ifStmt, elseBody.get(), "else");
-                    this.dumpAst(elseBody.get());
+                    this.dumpChild(elseBody.get());
                 }
             }
             case ExpressionStatement exprStmt -> {
                 this.out.addNode(exprStmt, "ExpressionStatement");
 
                 this.out.addEdge(exprStmt, exprStmt.getExpression());
-                this.dumpAst(exprStmt.getExpression());
+                this.dumpChild(exprStmt.getExpression());
             }
             case WhileStatement whileStmt -> {
                 this.out.addNode(whileStmt, "While");
 
                 this.out.addEdge(whileStmt, whileStmt.getCondition(), "condition");
-                this.dumpAst(whileStmt.getCondition());
+                this.dumpChild(whileStmt.getCondition());
 
                 this.out.addEdge(whileStmt, whileStmt.getBody(), "body");
-                this.dumpAst(whileStmt.getBody());
+                this.dumpChild(whileStmt.getBody());
             }
             case ReturnStatement retStmt -> {
                 this.out.addNode(retStmt, "Return");
@@ -223,19 +244,19 @@ public class DumpAst {
                 var expr = retStmt.getExpression();
                 if (expr.isPresent()) {
                     this.out.addEdge(retStmt, expr.get());
-                    this.dumpAst(expr.get());
+                    this.dumpChild(expr.get());
                 }
             }
             case LocalVariableDeclarationStatement declStmt -> {
                 this.out.addNode(declStmt, String.format("Decl '%s'", declStmt.getIdentifier()));
 
                 this.out.addEdge(declStmt, declStmt.getType(), "type");
-                this.dumpAst(declStmt.getType());
+                this.dumpChild(declStmt.getType());
 
                 var init = declStmt.getInitializer();
                 if (init.isPresent()) {
                     this.out.addEdge(declStmt, init.get(), "init");
-                    this.dumpAst(init.get());
+                    this.dumpChild(init.get());
                 }
             }
         }
@@ -247,9 +268,9 @@ public class DumpAst {
                 this.out.addNode(assign, "Assign");
 
                 this.out.addEdge(assign, assign.getLvalue());
-                this.dumpAst(assign.getLvalue());
+                this.dumpChild(assign.getLvalue());
                 this.out.addEdge(assign, assign.getRvalue());
-                this.dumpAst(assign.getRvalue());
+                this.dumpChild(assign.getRvalue());
             }
             case BinaryOpExpression binaryOp -> {
                 var op = binaryOp.getOperator();
@@ -257,10 +278,10 @@ public class DumpAst {
                 this.out.addNode(binaryOp, "" + op);
 
                 this.out.addEdge(binaryOp, binaryOp.getLhs());
-                this.dumpAst(binaryOp.getLhs());
+                this.dumpChild(binaryOp.getLhs());
 
                 this.out.addEdge(binaryOp, binaryOp.getRhs());
-                this.dumpAst(binaryOp.getRhs());
+                this.dumpChild(binaryOp.getRhs());
             }
             case UnaryExpression unaryOp -> {
                 var op = unaryOp.getOperator();
@@ -268,7 +289,7 @@ public class DumpAst {
                 this.out.addNode(unaryOp, "" + op);
 
                 this.out.addEdge(unaryOp, unaryOp.getExpression());
-                this.dumpAst(unaryOp.getExpression());
+                this.dumpChild(unaryOp.getExpression());
             }
             case MethodCallExpression methodCall -> {
                 var node = new DotWriter.Node(methodCall, String.format("Call '%s'", methodCall.getIdentifier()));
@@ -288,12 +309,12 @@ public class DumpAst {
                 var target = methodCall.getTarget();
                 if (target.isPresent()) {
                     this.out.addEdge(methodCall, target.get(), "target");
-                    this.dumpAst(target.get());
+                    this.dumpChild(target.get());
                 }
 
                 for (var arg : methodCall.getArguments()) {
                     this.out.addEdge(methodCall, arg);
-                    this.dumpAst(arg);
+                    this.dumpChild(arg);
                 }
             }
             case FieldAccessExpression fieldAccess -> {
@@ -304,16 +325,16 @@ public class DumpAst {
 
                 var target = fieldAccess.getTarget();
                 this.out.addEdge(fieldAccess, target, "target");
-                this.dumpAst(target);
+                this.dumpChild(target);
             }
             case ArrayAccessExpression arrayAccess -> {
                 this.out.addNode(arrayAccess, "ArrayAccess");
 
                 this.out.addEdge(arrayAccess, arrayAccess.getTarget(), "target");
-                this.dumpAst(arrayAccess.getTarget());
+                this.dumpChild(arrayAccess.getTarget());
 
                 this.out.addEdge(arrayAccess, arrayAccess.getIndexExpression());
-                this.dumpAst(arrayAccess.getIndexExpression());
+                this.dumpChild(arrayAccess.getIndexExpression());
             }
             case NewArrayExpression newArray -> {
                 this.out.addNode(newArray, String.format("New Array [%s]", newArray.getDimensions()));
@@ -322,7 +343,7 @@ public class DumpAst {
                 this.dumpType(newArray.getType());
 
                 this.out.addEdge(newArray, newArray.getFirstDimensionSize(), "dim");
-                this.dumpAst(newArray.getFirstDimensionSize());
+                this.dumpChild(newArray.getFirstDimensionSize());
             }
             case Reference ref -> {
                 var def = this.definitions.getReference(ref);
@@ -337,7 +358,7 @@ public class DumpAst {
                 this.out.addNode(newObject, "New Object");
 
                 this.out.addEdge(newObject, newObject.getType(), "type");
-                this.dumpAst(newObject.getType());
+                this.dumpChild(newObject.getType());
             }
         }
     }
@@ -347,7 +368,7 @@ public class DumpAst {
             case ArrayType arrayTy -> {
                 this.out.addNode(arrayTy, "Array");
                 this.out.addEdge(arrayTy, arrayTy.getChildType());
-                this.dumpAst(arrayTy.getChildType());
+                this.dumpChild(arrayTy.getChildType());
             }
             case IntType intTy -> this.out.addNode(intTy, "int");
             case BoolType boolTy -> this.out.addNode(boolTy, "boolean");
@@ -38,9 +38,11 @@ public class FirmBackend {
 
             ProcessBuilder pb = new ProcessBuilder("gcc", "-o", execFilename, this.asmOutputFile.getAbsolutePath(), this.runtimeFile.getAbsolutePath());
             pb.inheritIO();
-            pb.start();
+            pb.start().waitFor();
         } catch (IOException e) {
             e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
 
     }
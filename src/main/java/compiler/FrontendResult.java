@@ -2,6 +2,8 @@ package compiler;
 
 import compiler.ast.Program;
 import compiler.semantic.AstData;
+import compiler.semantic.BooleanAstData;
+import compiler.semantic.IntAstData;
 import compiler.semantic.resolution.DefinedMethod;
 import compiler.semantic.resolution.Definitions;
 import compiler.types.DefinedClassTy;
@@ -17,8 +19,20 @@ public record FrontendResult(
         AstData<TyResult> expressionTypes,
         AstData<TyResult> bindingTypes,
         List<DefinedClassTy> classes,
-        AstData<Integer> constants,
-        AstData<Integer> variableCounts,
-        AstData<Boolean> isDeadStatement,
+        IntAstData constants,
+        IntAstData variableCounts,
+        BooleanAstData isDeadStatement,
         DefinedMethod mainMethod
-) {}
+) {
+
+    /**
+     * @return All methods of the program in declaration order, class by class.
+     */
+    public List<DefinedMethod> definedMethods() {
+        return this.classes.stream()
+                .flatMap(classTy -> classTy.getMethods().values().stream())
+                .filter(method -> method instanceof DefinedMethod)
+                .map(method -> (DefinedMethod) method)
+                .toList();
+    }
+}
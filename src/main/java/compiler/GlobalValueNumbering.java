@@ -0,0 +1,184 @@
+package compiler;
+
+import firm.Graph;
+import firm.Mode;
+import firm.Relation;
+import firm.bindings.binding_irgraph;
+import firm.nodes.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Finds congruent nodes, which always compute the same value, and picks a leader for every class of congruent nodes,
+ * which dominates all other nodes of the class.
+ * <p>
+ * The blocks are visited in the preorder of the dominator tree and the nodes of every block in topological order,
+ * so the operands of a node have their value number before the node itself, except for the operands of Phis on back edges.
+ * A node is looked up in a hash table by its operation, its attributes and the leaders of its operands, the operands
+ * of commutative operations in a canonical order. Phis are congruent, if they are in the same block and their operands
+ * are congruent. A Phi, whose operands are all congruent to a single value or the Phi itself, is congruent to that value.
+ * <p>
+ * If the leader found in the table doesn't dominate the node, it never will dominate any node visited later,
+ * because its whole subtree of the dominator tree has been visited already. So the node replaces it as the leader.
+ * <p>
+ * The dominators have to be computed before, the analysis doesn't change the graph.
+ */
+public final class GlobalValueNumbering {
+
+    /**
+     * The value number of a node: its operation, its mode, the attributes of the operation and the leaders of its operands.
+     */
+    private record Expression(Class<? extends Node> operation, Mode mode, Object attribute, List<Node> operands) {
+    }
+
+    // The leader of every node by its index in the graph, null if the node is its own leader.
+    private final Node[] leaders;
+    private int congruentNodes;
+
+    /**
+     * @param nodes All nodes of the graph in topological order, e.g. the ones of {@link NodeCollector}.
+     */
+    public GlobalValueNumbering(Graph graph, Collection<? extends Node> nodes) {
+        this.leaders = new Node[binding_irgraph.get_irg_last_idx(graph.ptr)];
+        this.congruentNodes = 0;
+
+        var tree = new DominatorTree(graph);
+        var blockNodes = new ArrayList<List<Node>>();
+        for (int i = 0; i < tree.preorder().size(); i++) {
+            blockNodes.add(new ArrayList<>());
+        }
+        for (var node : nodes) {
+            if (!(node instanceof Block)) {
+                var number = tree.preorderNumber((Block) node.getBlock());
+                // Nodes in unreachable blocks are dead, they keep their own number.
+                if (number >= 0) {
+                    blockNodes.get(number).add(node);
+                }
+            }
+        }
+
+        var table = new HashMap<Expression, Node>();
+        for (var block : blockNodes) {
+            for (var node : block) {
+                if (node instanceof Phi phi && this.singleValue(phi) != null) {
+                    this.setLeader(phi, this.singleValue(phi));
+                    continue;
+                }
+
+                var expression = this.expression(node);
+                if (expression == null) {
+                    continue;
+                }
+
+                var leader = table.get(expression);
+                if (leader != null && tree.dominates((Block) leader.getBlock(), (Block) node.getBlock())) {
+                    this.setLeader(node, leader);
+                } else {
+                    table.put(expression, node);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The node all nodes congruent to the given one are replaced with, the node itself if it has no other leader.
+     */
+    public Node leader(Node node) {
+        var index = SparseDataFlow.index(node);
+        // Nodes created after the numbering are their own leader.
+        var leader = index < this.leaders.length ? this.leaders[index] : null;
+        return leader != null ? leader : node;
+    }
+
+    /**
+     * @return The number of nodes, which have a leader other than themselves.
+     */
+    public int congruentNodeCount() {
+        return this.congruentNodes;
+    }
+
+    private void setLeader(Node node, Node leader) {
+        this.leaders[SparseDataFlow.index(node)] = leader;
+        this.congruentNodes += 1;
+    }
+
+    /**
+     * @return The leader all operands of the Phi except the Phi itself are congruent to, or null if they aren't congruent.
+     * The value dominates all predecessors of the block of the Phi, which don't come from a loop through the Phi,
+     * and thus the Phi itself.
+     */
+    private Node singleValue(Phi phi) {
+        Node value = null;
+        for (var pred : phi.getPreds()) {
+            var leader = this.leader(pred);
+            if (leader.equals(phi)) {
+                continue;
+            }
+            if (value != null && !value.equals(leader)) {
+                return null;
+            }
+            value = leader;
+        }
+        return value;
+    }
+
+    private List<Node> operands(Node node) {
+        var operands = new ArrayList<Node>(node.getPredCount());
+        for (var pred : node.getPreds()) {
+            operands.add(this.leader(pred));
+        }
+        return operands;
+    }
+
+    /**
+     * @return The operands of a commutative operation, ordered by their index in the graph.
+     */
+    private List<Node> commutativeOperands(Node node) {
+        var operands = this.operands(node);
+        if (SparseDataFlow.index(operands.get(0)) > SparseDataFlow.index(operands.get(1))) {
+            return List.of(operands.get(1), operands.get(0));
+        }
+        return operands;
+    }
+
+    /**
+     * @return The value number of the node, or null if the node has side effects or determines the control flow.
+     */
+    private Expression expression(Node node) {
+        return switch (node) {
+            case Add add -> new Expression(Add.class, add.getMode(), null, this.commutativeOperands(add));
+            case Mul mul -> new Expression(Mul.class, mul.getMode(), null, this.commutativeOperands(mul));
+            case And and -> new Expression(And.class, and.getMode(), null, this.commutativeOperands(and));
+            case Or or -> new Expression(Or.class, or.getMode(), null, this.commutativeOperands(or));
+            case Eor eor -> new Expression(Eor.class, eor.getMode(), null, this.commutativeOperands(eor));
+            case Sub sub -> new Expression(Sub.class, sub.getMode(), null, this.operands(sub));
+            case Shl shl -> new Expression(Shl.class, shl.getMode(), null, this.operands(shl));
+            case Shr shr -> new Expression(Shr.class, shr.getMode(), null, this.operands(shr));
+            case Shrs shrs -> new Expression(Shrs.class, shrs.getMode(), null, this.operands(shrs));
+            case Minus minus -> new Expression(Minus.class, minus.getMode(), null, this.operands(minus));
+            case Not not -> new Expression(Not.class, not.getMode(), null, this.operands(not));
+            case Conv conv -> new Expression(Conv.class, conv.getMode(), null, this.operands(conv));
+            // Only (in)equality is symmetric, the other relations would have to be inverted when swapping the operands.
+            case Cmp cmp -> new Expression(Cmp.class, cmp.getMode(), cmp.getRelation(),
+                    cmp.getRelation() == Relation.Equal || cmp.getRelation() == Relation.LessGreater
+                            ? this.commutativeOperands(cmp)
+                            : this.operands(cmp));
+            case Const c -> c.getMode().isInt()
+                    ? new Expression(Const.class, c.getMode(), c.getTarval().asLong(), List.of())
+                    : null;
+            case Address address -> new Expression(Address.class, address.getMode(), address.getEntity(), List.of());
+            case Member member -> new Expression(Member.class, member.getMode(), member.getEntity(), this.operands(member));
+            case Size size -> new Expression(Size.class, size.getMode(), size.getType(), List.of());
+            // Control flow must not be merged.
+            case Proj proj -> proj.getMode().equals(Mode.getX())
+                    ? null
+                    : new Expression(Proj.class, proj.getMode(), proj.getNum(), this.operands(proj));
+            // Phis in different blocks merge different control flow.
+            case Phi phi -> new Expression(Phi.class, phi.getMode(), phi.getBlock(), this.operands(phi));
+            default -> null;
+        };
+    }
+}
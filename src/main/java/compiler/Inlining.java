@@ -26,11 +26,17 @@ public class Inlining {
     private final HashMap<DefinedMethod, List<Call>> calls;
 
     private final boolean dumpGraphs;
+    private final PassStatistics statistics;
 
     public Inlining(FrontendResult frontend, TranslationResult translation, boolean dumpGraphs) {
+        this(frontend, translation, dumpGraphs, PassStatistics.DISABLED);
+    }
+
+    public Inlining(FrontendResult frontend, TranslationResult translation, boolean dumpGraphs, PassStatistics statistics) {
         this.frontend = frontend;
         this.translation = translation;
         this.dumpGraphs = dumpGraphs;
+        this.statistics = statistics;
 
         this.functionComplexity = new HashMap<>();
         this.calls = new HashMap<>();
@@ -79,6 +85,14 @@ public class Inlining {
     }
 
     public void inline() {
+        this.inline(Set.of(this.frontend.mainMethod()));
+    }
+
+    /**
+     * Inlines into the given methods and everything they call.
+     * Afterwards only the graphs of methods reachable from the roots are left in the translation result.
+     */
+    public void inline(Set<DefinedMethod> roots) {
         // transitive closure over the call graph for recursion detection purposes.
         Map<DefinedMethod, Set<DefinedMethod>> callGraph = new HashMap<>();
 
@@ -106,14 +120,21 @@ public class Inlining {
         }
 
         var isRecursive = new HashSet<DefinedMethod>();
-        this.traverseCallGraphForCycles(callGraph, new Stack<>(), new HashSet<>(), frontend.mainMethod(), isRecursive);
+        var visited = new HashSet<DefinedMethod>();
+        for (var root : roots) {
+            this.traverseCallGraphForCycles(callGraph, new Stack<>(), visited, root, isRecursive);
+        }
 
         var isInlined = new HashSet<DefinedMethod>();
-        this.inlineRecursive(isRecursive, this.frontend.mainMethod(), isInlined);
+        for (var root : roots) {
+            this.inlineRecursive(isRecursive, root, isInlined);
+        }
 
         // Remove unreacheable functions from translation result.
         var reacheable = new HashSet<DefinedMethod>();
-        this.traverseIsReachable(reacheable, frontend.mainMethod());
+        for (var root : roots) {
+            this.traverseIsReachable(reacheable, root);
+        }
         var reacheableMap = new HashMap<DefinedMethod, Graph>();
         this.translation.methodGraphs().entrySet().stream().filter(pair -> reacheable.contains(pair.getKey())).forEach(pair -> reacheableMap.put(pair.getKey(), pair.getValue()));
         this.translation.methodGraphs().clear();
@@ -153,6 +174,7 @@ public class Inlining {
                 var inlinedComplexity = selectedMethod.get().y;
 
                 var newInlinedCalls = this.inlineCall(callToInline);
+                this.statistics.count(PassStatistics.CALLS_INLINED, method.getLinkerName());
                 var newInlineableCalls = newInlinedCalls.stream().filter(call -> translation.methodReferences().get(call) instanceof DefinedMethod).toList();
                 this.calls.get(method).remove(callToInline);
                 this.calls.get(method).addAll(newInlineableCalls);
@@ -1,11 +1,6 @@
 package compiler;
 
 import compiler.ast.Program;
-import compiler.codegen.*;
-import compiler.codegen.llir.DumpLlir;
-import compiler.codegen.llir.LlirGraph;
-import compiler.codegen.sir.DumpSir;
-import compiler.codegen.sir.SirGraph;
 import compiler.diagnostics.CompilerMessageReporter;
 import compiler.semantic.ConstantFolding;
 import compiler.semantic.WellFormed;
@@ -13,7 +8,10 @@ import compiler.semantic.resolution.DefinedMethod;
 import compiler.semantic.resolution.NameResolution;
 import compiler.syntax.Lexer;
 import compiler.syntax.Parser;
+import compiler.syntax.PipelinedLexer;
 import compiler.syntax.Token;
+import compiler.syntax.TokenSource;
+import compiler.syntax.TokenStream;
 import compiler.types.VoidTy;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
@@ -30,20 +28,52 @@ import java.io.PrintWriter;
 import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.Callable;
 import java.util.function.Function;
 
-@Command(name = "compiler", mixinStandardHelpOptions = true, version = "compiler 0.1.0",
+@Command(name = "compiler", mixinStandardHelpOptions = true, version = MainCommand.VERSION,
         description = "MiniJava to x86 compiler")
 public class MainCommand implements Callable<Integer> {
 
+    static final String VERSION = "compiler 0.1.0";
+
     @Parameters(paramLabel = "FILE", scope = CommandLine.ScopeType.INHERIT, description = "The file to operate on.")
     File file;
 
+    @Option(names = "--pipelined-lexer", scope = CommandLine.ScopeType.INHERIT,
+            description = "Lex the input on a separate thread while parsing.")
+    boolean pipelinedLexer;
+
+    @Option(names = "--parallel-check", scope = CommandLine.ScopeType.INHERIT,
+            description = "Resolve, fold and check the method bodies in parallel.")
+    boolean parallelCheck;
+
+    @Option(names = "--parallel-backend", scope = CommandLine.ScopeType.INHERIT,
+            description = "Schedule and allocate registers for the methods in parallel. The FIRM optimizations stay sequential.")
+    boolean parallelBackend;
+
+    @Option(names = "--time-passes", scope = CommandLine.ScopeType.INHERIT,
+            description = "Print the wall time, CPU time, allocated memory and IR size of every compiler phase.")
+    boolean timePasses;
+
+    @Option(names = "--time-passes-json", paramLabel = "JSON", scope = CommandLine.ScopeType.INHERIT,
+            description = "Write the measurements of every compiler phase and method as JSON to this file.")
+    File timePassesJson;
+
+    private PassTimings timings = PassTimings.DISABLED;
+
+    @Option(names = "--stats", scope = CommandLine.ScopeType.INHERIT,
+            description = "Print how many nodes were folded, loads eliminated, calls inlined, registers spilled etc. per method and program.")
+    boolean stats;
+
+    private PassStatistics statistics = PassStatistics.DISABLED;
+
     @Unmatched
     String[] unmatchedArgs = new String[0];
 
@@ -105,21 +135,66 @@ public class MainCommand implements Callable<Integer> {
         boolean run(CompilerMessageReporter r, Parser p, Program prog);
     }
 
-    private static Integer callWithParsed(File file, PostParseOperation op) {
+    private TokenSource createTokenSource(String content) {
+        return this.pipelinedLexer ? new PipelinedLexer(content) : new Lexer(content);
+    }
+
+    private Integer callWithParsed(File file, PostParseOperation op) {
         return callWithFileContent(file, content -> {
+            this.timings = this.timePasses || this.timePassesJson != null ? new PassTimings() : PassTimings.DISABLED;
+            this.statistics = this.stats ? new PassStatistics() : PassStatistics.DISABLED;
+
             var reporter = new CompilerMessageReporter(new PrintWriter(System.err), content);
-            var parser = new Parser(new Lexer(content), reporter);
+
+            TokenSource tokens;
+            if (this.timings.isEnabled() && !this.pipelinedLexer) {
+                // Lex the whole input first, so that lexing and parsing are measured separately.
+                var lexTimer = this.timings.start("lex");
+                var stream = TokenStream.lex(content);
+                lexTimer.stop(stream::size);
+                tokens = stream.reader();
+            } else {
+                tokens = createTokenSource(content);
+            }
+
+            var parseTimer = this.timings.start("parse");
+            var parser = new Parser(tokens, reporter);
             var ast = parser.parse();
+            parseTimer.stop(ast::getIdBound);
+
+            if (tokens instanceof PipelinedLexer pipelined) {
+                pipelined.close();
+            }
             if (!parser.successfulParse) {
                 reporter.finish();
+                this.reportMeasurements();
                 return true;
             }
             boolean error = op.run(reporter, parser, ast);
             reporter.finish();
+            this.reportMeasurements();
             return error;
         });
     }
 
+    private void reportMeasurements() {
+        if (this.stats) {
+            this.statistics.report(System.err);
+        }
+
+        if (this.timePasses) {
+            this.timings.report(System.err);
+        }
+
+        if (this.timePassesJson != null) {
+            try (var out = new PrintWriter(this.timePassesJson)) {
+                this.timings.writeJson(out);
+            } catch (FileNotFoundException e) {
+                System.err.format("error: Can not write timings to '%s'\n", this.timePassesJson.getPath());
+            }
+        }
+    }
+
     @SuppressWarnings("unused")
     @Command(name = "--parsetest", description = "Checks whether the input file parses.")
     public Integer callParseTest() {
@@ -161,35 +236,66 @@ public class MainCommand implements Callable<Integer> {
         boolean run(CompilerMessageReporter r, FrontendResult result);
     }
 
-    private static Integer callWithChecked(File file, PostCheckOperation op) {
+    private Integer callWithChecked(File file, PostCheckOperation op) {
         return callWithParsed(file, (reporter, parser, ast) -> {
-            var nameResolutionResult = NameResolution.performNameResolution(ast, reporter);
-
-            var constantFolding = ConstantFolding.performConstantFolding(ast, Optional.of(reporter));
+            var result = checkProgram(file, ast, reporter, this.parallelCheck, this.timings);
 
-            var wellFormed = WellFormed.checkWellFormdness(ast, nameResolutionResult, Optional.of(reporter));
-
-            var result = new FrontendResult(
-                    file,
-                    ast,
-                    nameResolutionResult.definitions(),
-                    nameResolutionResult.expressionTypes(),
-                    nameResolutionResult.bindingTypes(),
-                    nameResolutionResult.classes(),
-                    constantFolding.constants(),
-                    wellFormed.variableCounts(),
-                    wellFormed.isDeadStatement(),
-                    wellFormed.mainMethod()
-            );
-
-            if (nameResolutionResult.successful() && wellFormed.correct() && constantFolding.successful()) {
-                return op.run(reporter, result);
+            if (result.isPresent()) {
+                return op.run(reporter, result.get());
             } else {
                 return true;
             }
         });
     }
 
+    /**
+     * Performs the semantic analysis of a parsed program.
+     *
+     * @return The result of the frontend, if the program is semantically correct.
+     */
+    static Optional<FrontendResult> checkProgram(File file, Program ast, CompilerMessageReporter reporter) {
+        return checkProgram(file, ast, reporter, false);
+    }
+
+    /**
+     * @param parallel Analyse the method bodies in parallel. The reported messages are the same as in a sequential analysis.
+     */
+    static Optional<FrontendResult> checkProgram(File file, Program ast, CompilerMessageReporter reporter, boolean parallel) {
+        return checkProgram(file, ast, reporter, parallel, PassTimings.DISABLED);
+    }
+
+    static Optional<FrontendResult> checkProgram(File file, Program ast, CompilerMessageReporter reporter, boolean parallel,
+                                                 PassTimings timings) {
+        var timer = timings.start("name-resolution", ast::getIdBound);
+        var nameResolutionResult = NameResolution.performNameResolution(ast, reporter, parallel);
+        timer.stop(ast::getIdBound);
+
+        timer = timings.start("constant-folding", ast::getIdBound);
+        var constantFolding = ConstantFolding.performConstantFolding(ast, Optional.of(reporter), parallel);
+        timer.stop(ast::getIdBound);
+
+        timer = timings.start("well-formed", ast::getIdBound);
+        var wellFormed = WellFormed.checkWellFormdness(ast, nameResolutionResult, Optional.of(reporter), parallel);
+        timer.stop(ast::getIdBound);
+
+        if (!(nameResolutionResult.successful() && wellFormed.correct() && constantFolding.successful())) {
+            return Optional.empty();
+        }
+
+        return Optional.of(new FrontendResult(
+                file,
+                ast,
+                nameResolutionResult.definitions(),
+                nameResolutionResult.expressionTypes(),
+                nameResolutionResult.bindingTypes(),
+                nameResolutionResult.classes(),
+                constantFolding.constants(),
+                wellFormed.variableCounts(),
+                wellFormed.isDeadStatement(),
+                wellFormed.mainMethod()
+        ));
+    }
+
     @SuppressWarnings("unused")
     @Command(name = "--check", description = "Performs semantic analysis of the input.")
     public Integer check() {
@@ -209,9 +315,7 @@ public class MainCommand implements Callable<Integer> {
         return callWithChecked(file, (reporter, frontend) -> {
             File runtimePath = null;
             try {
-                var jarFile = new File(MainCommand.class.getProtectionDomain().getCodeSource().getLocation().toURI());
-                var baseDir = jarFile.getParentFile().getParentFile();
-                runtimePath = new File(baseDir, "libruntime.c");
+                runtimePath = CodeGenerator.findRuntimeFile();
             } catch (URISyntaxException e) {
                 e.printStackTrace();
                 return true;
@@ -229,102 +333,225 @@ public class MainCommand implements Callable<Integer> {
     @Command(name = "--compile", description = "Compile to binary.")
     public Integer compile(
             @Option(names = "--dump", description = "Dump the resulting FIRM graphs.") boolean dumpGraphs,
-            @Option(names = "-O", description = "Set optimization level", defaultValue = "1") int optimizationLevel) {
-        return callWithChecked(file, (reporter, frontend) -> {
-
-            var optimize = optimizationLevel > 0;
+            @Option(names = "-O", description = "Set optimization level from 0 to 3", defaultValue = "1") int optimizationLevel,
+            @Option(names = "--passes", description = "Run these comma separated passes until they are stable instead of an optimization level, " +
+                    "'inline' enables inlining.") String passes,
+            @Option(names = "--cache-dir", description = "Reuse and store compilation results in this directory.") File cacheDir,
+            @Option(names = "--cache-size", description = "Maximum size of the cache directory in MiB.", defaultValue = "256") long cacheSizeMib,
+            @Option(names = "--incremental", description = "Reuse the assembly of unchanged methods from the cache directory.") boolean incremental,
+            @Option(names = "--emit-object", description = "Encode the machine code directly into an object file instead of running the assembler.") boolean emitObject) {
+        var asmOutputFile = new File(file.getName() + ".s");
+        var objectOutputFile = new File(file.getName() + ".o");
+        var execFilename = "a.out";
+
+        if (incremental && cacheDir == null) {
+            System.err.println("error: --incremental requires --cache-dir");
+            return 1;
+        }
 
-            var translationResult = new Translation(frontend).translate(dumpGraphs, optimize);
+        if (emitObject && cacheDir != null) {
+            System.err.println("error: --emit-object can not be combined with --cache-dir, the cache stores assembly");
+            return 1;
+        }
 
-            var graphs = FirmToLlir.lowerFirm(translationResult, dumpGraphs, optimize);
-            var schedules = new HashMap<LlirGraph, SirGraph>();
+        OptimizationPipeline pipeline;
+        try {
+            pipeline = passes != null ? OptimizationPipeline.parse(passes) : OptimizationPipeline.forLevel(optimizationLevel);
+        } catch (IllegalArgumentException e) {
+            System.err.format("error: --passes: %s\n", e.getMessage());
+            return 1;
+        }
 
-            Emitter emitter = new Emitter();
+        if (cacheDir != null && !dumpGraphs) {
+            return compileCached(cacheDir, cacheSizeMib, pipeline, incremental, asmOutputFile, execFilename);
+        }
 
-            for (var pair : graphs.methodLlirGraphs().entrySet()) {
-                var name = pair.getKey().getLinkerName();
+        return callWithChecked(file, (reporter, frontend) -> {
 
-                if (dumpGraphs) {
-                    try {
-                        new DumpLlir(new PrintWriter(new File(String.format("llir-before-schedule_%s.dot", name)))).dump(pair.getValue());
-                    } catch (FileNotFoundException e) {
-                        e.printStackTrace();
-                    }
+            try {
+                if (emitObject) {
+                    CodeGenerator.generateObject(frontend, objectOutputFile, dumpGraphs, pipeline, this.parallelBackend, this.timings,
+                            this.statistics);
+                } else {
+                    CodeGenerator.generateAssembly(frontend, asmOutputFile, dumpGraphs, pipeline, this.parallelBackend,
+                            Optional.empty(), this.timings, this.statistics);
                 }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
 
-                //var scheduleResult = NaiveScheduler.schedule(pair.getValue());
-                var scheduleResult = ErshovScheduler.schedule(pair.getValue());
-
-                if (dumpGraphs) {
-                    try {
-                        new DumpLlir(new PrintWriter(new File(String.format("llir-after-schedule_%s.dot", name))))
-                                .withSchedule(scheduleResult)
-                                .dump(pair.getValue());
-                    } catch (FileNotFoundException e) {
-                        e.printStackTrace();
-                    }
+            try {
+                var outputFile = emitObject ? objectOutputFile : asmOutputFile;
+                ProcessBuilder pb = CodeGenerator.linkCommand(outputFile, CodeGenerator.findRuntimeFile(), execFilename);
+                pb.inheritIO();
+                // Wait for the linker, so that the binary exists when the compiler exits.
+                if (pb.start().waitFor() != 0) {
+                    return true;
                 }
+            } catch (IOException | URISyntaxException e) {
+                e.printStackTrace();
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return true;
+            }
 
-                var sirGraph = new LlirToSir(pair.getValue(), scheduleResult).transform();
-                schedules.put(pair.getValue(), sirGraph);
+            return false;
+        });
+    }
 
-                if (dumpGraphs) {
-                    try {
-                        new DumpSir(new PrintWriter(new File(String.format("sir-before-reg-alloc_%s.dot", name))), sirGraph).dump();
-                    } catch (FileNotFoundException e) {
-                        e.printStackTrace();
-                    }
-                }
+    /**
+     * Compiles the file, but reuses the assembly and binary of an earlier compilation with the same inputs.
+     * Only successful compilations are cached. On a hit, no messages are reported again.
+     * If the compilation is incremental, a miss still reuses the assembly of all unchanged methods.
+     */
+    private Integer compileCached(File cacheDir, long cacheSizeMib, OptimizationPipeline pipeline, boolean incremental,
+                                  File asmOutputFile, String execFilename) {
+        try {
+            var cache = new CompilationCache(cacheDir.toPath(), cacheSizeMib * 1024 * 1024);
+            var runtimeFile = CodeGenerator.findRuntimeFile();
 
-                if (optimize) {
-                    new OnTheFlyRegisterAllocator(graphs.methodParameters().get(pair.getKey()), sirGraph, name, dumpGraphs).allocate();
-                    new PeepholeOptimizer(sirGraph).optimize();
-                } else {
-                    new NaiveRegisterAllocator(graphs.methodParameters().get(pair.getKey()), sirGraph).allocate();
+            byte[] source;
+            try {
+                source = Files.readAllBytes(file.toPath());
+            } catch (NoSuchFileException e) {
+                System.err.format("error: Can not find file: '%s'\n", file.getName());
+                return 1;
+            }
+            byte[] runtime = Files.exists(runtimeFile.toPath()) ? Files.readAllBytes(runtimeFile.toPath()) : new byte[0];
+            var key = CompilationCache.computeKey(source, runtime, List.of(pipeline.name()));
+
+            var entry = cache.lookup(key);
+            var restored = false;
+            if (entry.isPresent()) {
+                try {
+                    Files.copy(entry.get().assembly(), asmOutputFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+                    if (entry.get().binary().isPresent()) {
+                        Files.copy(entry.get().binary().get(), Path.of(execFilename), StandardCopyOption.REPLACE_EXISTING);
+                        // The permissions are not part of the cache entry.
+                        return new File(execFilename).setExecutable(true) ? 0 : 1;
+                    }
+                    restored = true;
+                } catch (NoSuchFileException e) {
+                    // Another compiler evicted the entry after the lookup, compile as on a miss.
                 }
+            }
 
-                if (dumpGraphs) {
+            if (!restored) {
+                int exitCode = callWithChecked(file, (reporter, frontend) -> {
                     try {
-                        new DumpSir(new PrintWriter(new File(String.format("sir-after-reg-alloc_%s.dot", name))), sirGraph).withBlockSchedule(true).dump();
-                    } catch (FileNotFoundException e) {
+                        CodeGenerator.generateAssembly(frontend, asmOutputFile, false, pipeline, this.parallelBackend,
+                                incremental ? Optional.of(cache) : Optional.empty(), this.timings, this.statistics);
+                        return false;
+                    } catch (IOException e) {
                         e.printStackTrace();
+                        return true;
                     }
-                }
+                });
 
-                if (frontend.mainMethod().getLinkerName().equals(name)) {
-                    name = "__MiniJava_Main__";
+                if (exitCode != 0) {
+                    return exitCode;
                 }
 
-                emitter.emitFunction(name, sirGraph);
+                cache.storeAssembly(key, asmOutputFile.toPath());
             }
 
-            var asmOutputFile = new File(frontend.inputFile().getName() + ".s");
-
-            try {
-                emitter.write(asmOutputFile);
-            } catch (IOException e) {
-                e.printStackTrace();
+            var pb = CodeGenerator.linkCommand(asmOutputFile, runtimeFile, execFilename);
+            pb.inheritIO();
+            if (pb.start().waitFor() != 0) {
+                return 1;
             }
 
-            var execFilename = "a.out";
+            cache.storeBinary(key, Path.of(execFilename));
+            return 0;
+        } catch (IOException | URISyntaxException e) {
+            e.printStackTrace();
+            return 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 1;
+        }
+    }
 
-            try {
-                var jarFile = new File(MainCommand.class.getProtectionDomain().getCodeSource().getLocation().toURI());
-                var baseDir = jarFile.getParentFile().getParentFile();
-                var runtimeFile = new File(baseDir, "libruntime.c");
+    @SuppressWarnings("unused")
+    @Command(name = "--cache-stats", description = "Print hit and miss statistics of the compilation cache in the directory FILE.")
+    public Integer cacheStats() {
+        try {
+            var statistics = new CompilationCache(file.toPath(), Long.MAX_VALUE).getStatistics();
+            System.out.format("hits: %d, misses: %d, hit rate: %.1f%%\n",
+                    statistics.hits(), statistics.misses(), statistics.hitRate() * 100);
+            return 0;
+        } catch (IOException e) {
+            System.err.format("error: Can not read cache statistics: %s\n", e.getMessage());
+            return 1;
+        }
+    }
 
-                ProcessBuilder pb = new ProcessBuilder("gcc", "-o", execFilename, asmOutputFile.getAbsolutePath(), runtimeFile.getAbsolutePath());
-                pb.inheritIO();
-                pb.start();
-            } catch (IOException | URISyntaxException e) {
-                e.printStackTrace();
-                return true;
+    @SuppressWarnings("unused")
+    @Command(name = "--compile-batch", description = "Compile many files concurrently. " +
+            "FILE is a directory, whose .java files are compiled, or a manifest listing one file per line.")
+    public Integer compileBatch(
+            @Option(names = "-O", description = "Set optimization level from 0 to 3", defaultValue = "1") int optimizationLevel,
+            @Option(names = {"-j", "--jobs"}, description = "Number of files compiled in parallel, 0 uses the number of processors.", defaultValue = "0") int jobs) {
+        List<File> inputFiles;
+        try {
+            inputFiles = BatchCompilation.collectInputFiles(file);
+        } catch (IOException e) {
+            System.err.format("error: Can not read batch input: '%s'\n", file.getName());
+            return 1;
+        }
+
+        File runtimeFile;
+        try {
+            runtimeFile = CodeGenerator.findRuntimeFile();
+        } catch (URISyntaxException e) {
+            e.printStackTrace();
+            return 1;
+        }
+
+        var parallelism = jobs > 0 ? jobs : Runtime.getRuntime().availableProcessors();
+        var batch = new BatchCompilation(inputFiles, runtimeFile, OptimizationPipeline.forLevel(optimizationLevel), parallelism);
+        var results = batch.run();
+
+        int failed = 0;
+        for (var result : results) {
+            System.err.print(result.messages());
+            if (!result.successful()) {
+                System.err.format("error: Compilation of '%s' failed\n", result.inputFile().getPath());
+                failed += 1;
             }
+        }
+        System.err.format("%d of %d files compiled successfully\n", results.size() - failed, results.size());
 
-            return false;
-        });
+        return failed == 0 ? 0 : 1;
     }
 
+    @SuppressWarnings("unused")
+    @Command(name = "--server", description = "Keep the compiler resident and serve compile requests on the Unix domain socket FILE.")
+    public Integer server(
+            @Option(names = {"-j", "--jobs"}, description = "Number of requests handled in parallel, 0 uses the number of processors.", defaultValue = "0") int jobs) {
+        File runtimeFile;
+        try {
+            runtimeFile = CodeGenerator.findRuntimeFile();
+        } catch (URISyntaxException e) {
+            e.printStackTrace();
+            return 1;
+        }
+
+        var parallelism = jobs > 0 ? jobs : Runtime.getRuntime().availableProcessors();
+        var server = new CompileServer(file.toPath(), runtimeFile, parallelism);
+
+        try {
+            System.err.format("Listening on '%s'\n", file.getPath());
+            server.serve();
+        } catch (IOException e) {
+            System.err.format("error: Can not listen on socket '%s': %s\n", file.getPath(), e.getMessage());
+            return 1;
+        }
+
+        return 0;
+    }
 
     @Override
     public Integer call() {
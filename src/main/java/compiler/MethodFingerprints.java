@@ -0,0 +1,147 @@
+package compiler;
+
+import compiler.ast.*;
+import compiler.semantic.resolution.DefinedMethod;
+import compiler.utils.ExpressionWalker;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Fingerprints every method of a program, so that the assembly of unchanged methods can be reused.
+ * <p>
+ * The fingerprint of a method covers its own syntax tree, the declarations of all classes (field layout and method signatures)
+ * and the name it is emitted under. Optimized methods may contain inlined copies of the methods they call,
+ * so their fingerprint also covers the syntax trees of all transitively called methods.
+ */
+public class MethodFingerprints {
+
+    private final FrontendResult frontend;
+    private final boolean optimize;
+
+    private final Map<DefinedMethod, String> syntaxHashes;
+    private final Map<DefinedMethod, Set<DefinedMethod>> callees;
+    private final String declarationsHash;
+
+    public MethodFingerprints(FrontendResult frontend, boolean optimize) {
+        this.frontend = frontend;
+        this.optimize = optimize;
+        this.syntaxHashes = new LinkedHashMap<>();
+        this.callees = new HashMap<>();
+
+        var declarations = new ArrayList<byte[]>();
+        for (var classTy : frontend.classes()) {
+            declarations.add(bytes("class " + classTy.getName()));
+            for (var field : classTy.getFields().values()) {
+                declarations.add(bytes(AstPrinter.field(field)));
+            }
+
+            for (var methodDef : classTy.getMethods().values()) {
+                if (methodDef instanceof DefinedMethod method) {
+                    declarations.add(bytes(signature(method)));
+
+                    this.syntaxHashes.put(method, CompilationCache.hash(List.of(bytes(AstPrinter.method(method.getAstMethod())))));
+                    this.callees.put(method, this.collectCallees(method.getAstMethod().getBody()));
+                }
+            }
+        }
+
+        this.declarationsHash = CompilationCache.hash(declarations);
+    }
+
+    private static byte[] bytes(String string) {
+        return string.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String signature(DefinedMethod method) {
+        var ast = method.getAstMethod();
+        var parameters = ast.getParameters().stream().map(AstPrinter::parameter).toList();
+        return String.format("%s%s %s(%s)", ast.isStatic() ? "static " : "",
+                AstPrinter.print(ast.getReturnType()), method.getLinkerName(), String.join(", ", parameters));
+    }
+
+    /**
+     * @return The methods in declaration order.
+     */
+    public Set<DefinedMethod> getMethods() {
+        return this.syntaxHashes.keySet();
+    }
+
+    /**
+     * @return The name of the method in the assembly.
+     */
+    public String getEmittedName(DefinedMethod method) {
+        return method == this.frontend.mainMethod() ? "__MiniJava_Main__" : method.getLinkerName();
+    }
+
+    public String getFingerprint(DefinedMethod method) {
+        var parts = new ArrayList<byte[]>();
+        parts.add(bytes(this.declarationsHash));
+        parts.add(bytes(this.getEmittedName(method)));
+        parts.add(bytes(this.syntaxHashes.get(method)));
+
+        if (this.optimize) {
+            // Sorted, so that the fingerprint doesn't depend on the iteration order of hash sets.
+            var called = new ArrayList<>(this.transitiveCallees(method));
+            called.sort(Comparator.comparing(DefinedMethod::getLinkerName));
+            for (var callee : called) {
+                parts.add(bytes(callee.getLinkerName()));
+                parts.add(bytes(this.syntaxHashes.get(callee)));
+            }
+        }
+
+        return CompilationCache.hash(parts);
+    }
+
+    private Set<DefinedMethod> transitiveCallees(DefinedMethod method) {
+        var visited = new HashSet<DefinedMethod>();
+        var worklist = new ArrayDeque<>(this.callees.get(method));
+        while (!worklist.isEmpty()) {
+            var callee = worklist.remove();
+            if (visited.add(callee)) {
+                worklist.addAll(this.callees.get(callee));
+            }
+        }
+        return visited;
+    }
+
+    private Set<DefinedMethod> collectCallees(Statement body) {
+        var result = new HashSet<DefinedMethod>();
+
+        var statements = new ArrayDeque<Statement>();
+        statements.push(body);
+        while (!statements.isEmpty()) {
+            switch (statements.pop()) {
+                case Block block -> block.getStatements().forEach(statements::push);
+                case EmptyStatement ignored -> {
+                }
+                case IfStatement ifStmt -> {
+                    this.collectCallees(ifStmt.getCondition(), result);
+                    statements.push(ifStmt.getThenBody());
+                    ifStmt.getElseBody().ifPresent(statements::push);
+                }
+                case ExpressionStatement expr -> this.collectCallees(expr.getExpression(), result);
+                case WhileStatement whileStmt -> {
+                    this.collectCallees(whileStmt.getCondition(), result);
+                    statements.push(whileStmt.getBody());
+                }
+                case ReturnStatement returnStmt -> returnStmt.getExpression().ifPresent(e -> this.collectCallees(e, result));
+                case LocalVariableDeclarationStatement decl -> decl.getInitializer().ifPresent(e -> this.collectCallees(e, result));
+            }
+        }
+
+        return result;
+    }
+
+    private void collectCallees(Expression expression, Set<DefinedMethod> result) {
+        ExpressionWalker.walk(expression, new ExpressionWalker.Visitor() {
+            @Override
+            public void exit(Expression expression) {
+                if (expression instanceof MethodCallExpression methodCall
+                        && frontend.definitions().getMethod(methodCall).orElse(null) instanceof DefinedMethod callee) {
+                    result.add(callee);
+                }
+            }
+        });
+    }
+}
@@ -24,10 +24,48 @@ public class Optimization {
 
     private Map<Block, List<Phi>> blockPhis;
 
+    private final boolean dumpGraphs;
+    private final PassTimings timings;
+    private final PassStatistics statistics;
+    private final String methodName;
+
+    // Whether the current pass changed the graph, set by the passes whenever they modify it.
+    private boolean changed;
+
+    /**
+     * The passes, which can be part of an {@link OptimizationPipeline}, by their name.
+     */
+    private static final Map<String, Consumer<Optimization>> PASSES = new LinkedHashMap<>();
+
+    static {
+        PASSES.put("const", Optimization::constantFolding);
+        PASSES.put("redundant-sideeffect", Optimization::eliminateRedundantSideEffects);
+        PASSES.put("arithmetic", Optimization::simplifyArithmeticExpressions);
+        PASSES.put("divopt", Optimization::simplifyDiv);
+        PASSES.put("loop-invariance", Optimization::loopInvariantCodeMotion);
+        PASSES.put("gvn", Optimization::globalValueNumbering);
+        PASSES.put("redundant-phis", Optimization::eliminateRedundantPhis);
+        PASSES.put("singleton", Optimization::eliminateSingletonBlocks);
+        PASSES.put("trivial-conds", Optimization::eliminateTrivialConds);
+        PASSES.put("inline-trivial-blocks", Optimization::inlineTrivialBlocks);
+        PASSES.put("load-load", Optimization::loadLoad);
+        PASSES.put("store-load", Optimization::storeLoad);
+        PASSES.put("unused-allocs", Optimization::eliminateUnusedAllocs);
+    }
+
     public Optimization(Graph g, Map<Node, Ty> nodeAstTypes, Map<Call, MethodDefinition> methodReferences) {
+        this(g, nodeAstTypes, methodReferences, false, PassTimings.DISABLED, PassStatistics.DISABLED, "");
+    }
+
+    private Optimization(Graph g, Map<Node, Ty> nodeAstTypes, Map<Call, MethodDefinition> methodReferences,
+                         boolean dumpGraphs, PassTimings timings, PassStatistics statistics, String methodName) {
         this.g = g;
         this.nodeAstTypes = nodeAstTypes;
         this.methodReferences = methodReferences;
+        this.dumpGraphs = dumpGraphs;
+        this.timings = timings;
+        this.statistics = statistics;
+        this.methodName = methodName;
     }
 
     private void updateBlockPhis() {
@@ -53,76 +91,77 @@ public class Optimization {
         }
     }
 
-    public static void optimizeMinimal(Graph g, Map<Node, Ty> nodeAstTypes, Map<Call, MethodDefinition> methodReferences, boolean dumpGraphs) {
-        Optimization o = new Optimization(g, nodeAstTypes, methodReferences);
-        o.constantFolding();
-        dumpIfFlag(dumpGraphs,g, "after-const");
+    /**
+     * Runs a single pass, measures it and dumps the graph afterwards, if requested.
+     *
+     * @return Whether the pass changed the graph.
+     */
+    private boolean runPass(String name, Runnable pass) {
+        this.changed = false;
+        var timer = this.timings.start(name, this.methodName, () -> FirmUtils.countNodes(this.g));
+        pass.run();
+        timer.stop(() -> FirmUtils.countNodes(this.g));
+
+        dumpIfFlag(this.dumpGraphs, this.g, "after-" + name);
+        return this.changed;
+    }
+
+    /**
+     * Runs the pass with the name on the graph.
+     *
+     * @return Whether the pass changed the graph.
+     */
+    boolean runPass(String name) {
+        return this.runPass(name, () -> PASSES.get(name).accept(this));
+    }
+
+    private void count(String counter, long n) {
+        this.statistics.count(counter, this.methodName, n);
     }
 
-    public static void optimizeAlmostFull(Graph g, Map<Node, Ty> nodeAstTypes, Map<Call, MethodDefinition> methodReferences, boolean dumpGraphs) {
-        Optimization o = new Optimization(g, nodeAstTypes, methodReferences);
-        o.constantFolding();
-        dumpIfFlag(dumpGraphs,g, "after-const");
-        o.eliminateRedundantSideEffects();
-        dumpIfFlag(dumpGraphs,g, "after-redundant-sideeffect");
-        o.simplifyArithmeticExpressions();
-        dumpIfFlag(dumpGraphs,g, "after-arithmetic");
-        o.loopInvariantCodeMotion();
-        dumpIfFlag(dumpGraphs,g, "after-loop-invariance");
-        o.commonSubexpressionElimination();
-        dumpIfFlag(dumpGraphs,g, "after-cse");
-        o.eliminateRedundantPhis();
-        dumpIfFlag(dumpGraphs,g, "after-redundant-phis");
-        o.eliminateSingletonBlocks();
-        dumpIfFlag(dumpGraphs,g, "after-singleton");
-        o.eliminateTrivialConds();
-        dumpIfFlag(dumpGraphs,g, "after-trivial-conds");
-        o.inlineTrivialBlocks();
-        dumpIfFlag(dumpGraphs,g, "after-inline-trivial-blocks");
-        //o.testAliasingAnalysis();
-        //o.testLoadStore();
-        o.loadLoad();
-        dumpIfFlag(dumpGraphs, g, "after-load-load");
-        o.storeLoad();
-        dumpIfFlag(dumpGraphs, g, "after-store-load");
-        o.eliminateRedundantPhis();
-        dumpIfFlag(dumpGraphs,g, "after-redundant-phis");
-        o.eliminateUnusedAllocs();
-        dumpIfFlag(dumpGraphs,g, "after-unused-allocs");
+    /**
+     * @return The names of all passes, which can be part of a pipeline.
+     */
+    static Set<String> passNames() {
+        return Collections.unmodifiableSet(PASSES.keySet());
     }
 
-    public static void optimizeFull(Graph g, Map<Node, Ty> nodeAstTypes, Map<Call, MethodDefinition> methodReferences, boolean dumpGraphs) {
-        Optimization o = new Optimization(g, nodeAstTypes, methodReferences);
-        o.constantFolding();
-        dumpIfFlag(dumpGraphs,g, "after-const");
-        o.eliminateRedundantSideEffects();
-        dumpIfFlag(dumpGraphs,g, "after-redundant-sideeffect");
-        o.simplifyArithmeticExpressions();
-        dumpIfFlag(dumpGraphs,g, "after-arithmetic");
-        o.simplifyDiv();
-        dumpIfFlag(dumpGraphs,g, "after-divopt");
-        o.loopInvariantCodeMotion();
-        dumpIfFlag(dumpGraphs,g, "after-loop-invariance");
-        o.commonSubexpressionElimination();
-        dumpIfFlag(dumpGraphs,g, "after-cse");
-        o.eliminateRedundantPhis();
-        dumpIfFlag(dumpGraphs,g, "after-redundant-phis");
-        o.eliminateSingletonBlocks();
-        dumpIfFlag(dumpGraphs,g, "after-singleton");
-        o.eliminateTrivialConds();
-        dumpIfFlag(dumpGraphs,g, "after-trivial-conds");
-        o.inlineTrivialBlocks();
-        dumpIfFlag(dumpGraphs,g, "after-inline-trivial-blocks");
-        //o.testAliasingAnalysis();
-        //o.testLoadStore();
-        o.loadLoad();
-        dumpIfFlag(dumpGraphs, g, "after-load-load");
-        o.storeLoad();
-        dumpIfFlag(dumpGraphs, g, "after-store-load");
-        o.eliminateRedundantPhis();
-        dumpIfFlag(dumpGraphs,g, "after-redundant-phis");
-        o.eliminateUnusedAllocs();
-        dumpIfFlag(dumpGraphs,g, "after-unused-allocs");
+    /**
+     * Runs the stages of the pipeline on the graph. The passes of a stage are repeated until a round of them doesn't
+     * change the graph or the rounds of the stage are used up.
+     * <p>
+     * A pass is skipped if the graph hasn't changed since it last ran without changing anything,
+     * it would see the same graph again and find nothing to do.
+     */
+    public static void optimize(Graph g, Map<Node, Ty> nodeAstTypes, Map<Call, MethodDefinition> methodReferences,
+                                OptimizationPipeline pipeline, boolean dumpGraphs, PassTimings timings,
+                                PassStatistics statistics, String methodName) {
+        Optimization o = new Optimization(g, nodeAstTypes, methodReferences, dumpGraphs, timings, statistics, methodName);
+
+        // Counts the changes to the graph, every pass remembers the generation it last saw.
+        int generation = 0;
+        var lastRuns = new HashMap<String, Integer>();
+        for (var stage : pipeline.stages()) {
+            for (int round = 0; round < stage.maxRounds(); round++) {
+                var roundStart = generation;
+                for (var name : stage.passes()) {
+                    if (lastRuns.containsKey(name) && lastRuns.get(name) == generation) {
+                        o.count(PassStatistics.PASSES_SKIPPED, 1);
+                        continue;
+                    }
+
+                    lastRuns.put(name, generation);
+                    if (o.runPass(name)) {
+                        generation++;
+                    }
+                }
+                o.count(PassStatistics.OPTIMIZATION_ROUNDS, 1);
+
+                if (generation == roundStart) {
+                    break;
+                }
+            }
+        }
     }
 
     public void constantFolding() {
@@ -130,13 +169,12 @@ public class Optimization {
         var constantPropResult = DataFlow.analyzeConstantFolding(g, blockPhis);
 
         // Replace nodes determined to be constant with const nodes.
-        var values = constantPropResult.values();
         record Change(Node node, int predIdx, Node folded) { }
         List<Change> changes = new ArrayList<>();
-        for (Node n : values.keySet()) {
+        for (Node n : constantPropResult.reachableNodes()) {
             for (int i = 0; i < n.getPredCount(); i++) {
                 Node pred = n.getPred(i);
-                DataFlow.ConstantValue v = values.get(pred);
+                DataFlow.ConstantValue v = constantPropResult.value(pred);
                 if (v == null) {
                     continue;
                 }
@@ -150,9 +188,19 @@ public class Optimization {
                 }
             }
         }
+        this.count(PassStatistics.NODES_FOLDED, changes.stream()
+                .map(c -> c.node.getPred(c.predIdx))
+                .filter(pred -> !(pred instanceof Const) && constantPropResult.value(pred) instanceof DataFlow.Constant)
+                .distinct()
+                .count());
+
         // This warning is wrong, likely due to an IntelliJ bug.
         // changes is *not* empty.
         for (Change c : changes) {
+            // Constants are folded to themselves, they don't count as a change.
+            if (!(c.node.getPred(c.predIdx) instanceof Const) && !c.node.getPred(c.predIdx).equals(c.folded)) {
+                this.changed = true;
+            }
             c.node.setPred(c.predIdx, c.folded);
         }
 
@@ -172,22 +220,22 @@ public class Optimization {
 
         // Remove dead control flow.
         BackEdges.enable(g);
-        var executableControlFlow = constantPropResult.executableEdges();
-        var controlFlowTarget = constantPropResult.controlFlowTarget();
-        for (var liveEdge : executableControlFlow) {
-            var pred = liveEdge.target().getPred(liveEdge.predIdx());
+        for (var target : this.blockPhis.keySet()) {
+            for (int predIdx = 0; predIdx < target.getPredCount(); predIdx++) {
+                if (!constantPropResult.isExecutable(target, predIdx)
+                        || !(target.getPred(predIdx) instanceof Proj proj)) {
+                    continue;
+                }
 
-            if (pred instanceof Proj proj) {
                 // The live edge comes from a branch.
                 // If the other edge of this branch is not live we can convert it a simple jmp.
                 var otherProj = FirmUtils.getOtherCondProj(proj);
                 assert proj.getBlock().equals(otherProj.getBlock());
 
-                var otherEdge = controlFlowTarget.get(otherProj);
-
-                if (!executableControlFlow.contains(otherEdge)) {
+                if (!constantPropResult.isExecutable(otherProj)) {
                     var jmp = g.newJmp(proj.getBlock());
-                    liveEdge.target().setPred(liveEdge.predIdx(), jmp);
+                    target.setPred(predIdx, jmp);
+                    this.changed = true;
 
                     if (loopHeadTails.contains(proj.getBlock())) {
                         g.keepAlive(proj.getBlock());
@@ -203,7 +251,10 @@ public class Optimization {
             var block = pair.getKey();
             var phis = pair.getValue();
 
-            var livePredIndices = IntStream.range(0, block.getPredCount()).filter(i -> executableControlFlow.contains(new DataFlow.ControlFlowEdge(block, i))).toArray();
+            var livePredIndices = IntStream.range(0, block.getPredCount()).filter(i -> constantPropResult.isExecutable(block, i)).toArray();
+            if (livePredIndices.length != block.getPredCount()) {
+                this.changed = true;
+            }
             var newBlockPreds = Arrays.stream(livePredIndices)
                     .mapToObj(block::getPred)
                     .toList();
@@ -252,6 +303,7 @@ public class Optimization {
                     continue;
                 }
                 n.setPred(i, d.mem);
+                this.changed = true;
             }
         }
         BackEdges.disable(g);
@@ -279,12 +331,14 @@ public class Optimization {
                     invalidKeepAliveNodes.add(pred);
                 }else {
                     n.setPred(i, first);
+                    this.changed = true;
                 }
             }
 
             if (n instanceof End) {
                 for (var pred : invalidKeepAliveNodes) {
                     binding_irnode.remove_End_keepalive(g.getEnd().ptr, pred.ptr);
+                    this.changed = true;
                 }
             }
         }
@@ -330,6 +384,7 @@ public class Optimization {
                 FirmUtils.setPreds(p, phiPreds);
             }
             binding_irnode.remove_End_keepalive(g.getEnd().ptr, block.ptr);
+            this.changed = true;
         });
         BackEdges.disable(g);
         // We changed the control structure, so better be careful ...
@@ -375,6 +430,7 @@ public class Optimization {
                 pPreds.remove(blockEdgeB.pos);
                 FirmUtils.setPreds(p, pPreds);
             }
+            this.changed = true;
         }
         BackEdges.disable(g);
         // We changed the control structure, so better be careful ...
@@ -399,6 +455,7 @@ public class Optimization {
             }
             FirmUtils.setPreds(block, new ArrayList<>());
             binding_irnode.remove_End_keepalive(g.getEnd().ptr, block.ptr);
+            this.changed = true;
         });
         BackEdges.disable(g);
         // We changed the control structure, so better be careful ...
@@ -501,6 +558,7 @@ public class Optimization {
                     e.node.setPred(e.pos, n);
                     worklist.addLast(e.node);
                 }
+                this.changed = true;
             }
         }
         BackEdges.disable(g);
@@ -573,6 +631,7 @@ public class Optimization {
             }
 
             if (newNode != null) {
+                this.changed = true;
                 for (BackEdges.Edge directEdge : parents) {
                     // Div/mod nodes are always accesed through projs
                     assert directEdge.node instanceof Proj;
@@ -597,159 +656,22 @@ public class Optimization {
         BackEdges.disable(g);
     }
 
-    public record ExpressionNode(Node n) {
-        private static HashMap<Node, Integer> hashCache = new HashMap<>();
-
-        private static void cache(Node n, int hash) {
-            hashCache.put(n, hash);
-        }
-
-        private static boolean equalAsNodes(Node a, Node b) {
-            return a.getMode().equals(b.getMode());
-        }
-
-        @SafeVarargs
-        private <T extends Node> boolean compare(T a, T b, Function<? super T, ? extends Node>... childGetters) {
-            if (!equalAsNodes(a, b)) {
-                return false;
-            }
-            for (var getter : childGetters) {
-                Node aChild = getter.apply(a);
-                Node bChild = getter.apply(b);
-                if (!new ExpressionNode(aChild).equals(new ExpressionNode(bChild))) {
-                    return false;
-                }
-            }
-            return true;
-        }
-
-        @Override
-        public boolean equals(Object other) {
-            if (this == other) {
-                return true;
-            }
-            if (!(other instanceof ExpressionNode e)) {
-                return false;
-            }
-            Node o = e.n;
-            return switch (n) {
-                case Add a1 -> o instanceof Add a2
-                        && compare(a1, a2, Add::getLeft, Add::getRight);
-                case Cmp c1 -> o instanceof Cmp c2 && c1.getRelation().equals(c2.getRelation())
-                        && compare(c1, c2, Cmp::getLeft, Cmp::getRight);
-                case Const c1 -> o instanceof Const c2 && equalAsNodes(c1, c2)
-                        && c1.getTarval().compare(c2.getTarval()).equals(Relation.Equal);
-                case Conv c1 -> o instanceof Conv c2
-                        && compare(c1, c2, Conv::getOp);
-                case Eor e1 -> o instanceof Eor e2
-                        && compare(e1, e2, Eor::getLeft, Eor::getRight);
-                case Member m1 -> o instanceof Member m2 && m1.getEntity().equals(m2.getEntity())
-                        && compare(m1, m2, Member::getPtr);
-                case Minus m1 -> o instanceof Minus m2
-                        && compare(m1, m2, Minus::getOp);
-                case Mul m1 -> o instanceof Mul m2
-                        && compare(m1, m2, Mul::getLeft, Mul::getRight);
-                case Not n1 -> o instanceof Not n2
-                        && compare(n1, n2, Not::getOp);
-                case Proj p1 -> o instanceof Proj p2 && p1.getNum() == p2.getNum()
-                        && compare(p1, p2, Proj::getPred);
-                case Size s1 -> o instanceof Size s2 && equalAsNodes(s1, s2)
-                        && s1.getType().equals(s2.getType());
-                default -> n.equals(o);
-            };
-        }
-
-        private int hashAsNode() {
-            return n.getMode().hashCode();
-        }
-
-        private int hash(Node... children) {
-            return Objects.hash(hashAsNode(), Arrays.hashCode(Arrays.stream(children).map(ExpressionNode::new).toArray()));
-        }
-
-        @Override
-        public int hashCode() {
-            if (hashCache.containsKey(n)) {
-                return hashCache.get(n);
-            }
-            int hash = switch (n) {
-                case Add a    -> hash(a.getLeft(), a.getRight());
-                case Cmp c    -> Objects.hash(c.getRelation(), hash(c.getLeft(), c.getRight()));
-                case Const c  -> Objects.hash(c.getTarval().asInt(), hash());
-                case Conv c   -> hash(c.getOp());
-                case Eor e    -> hash(e.getLeft(), e.getRight());
-                case Minus m  -> hash(m.getOp());
-                case Member m -> Objects.hash(m.getEntity(), hash(m.getPtr()));
-                case Mul m    -> hash(m.getLeft(), m.getRight());
-                case Not n    -> hash(n.getOp());
-                case Proj p   -> Objects.hash(p.getNum(), hash(p.getPred()));
-                case Size s   -> Objects.hash(s.getType(), hash());
-                default       -> n.hashCode();
-            };
-            cache(n, hash);
-            return hash;
-        }
-    }
-
-    public void commonSubexpressionElimination() {
-        ExpressionNode.hashCache.clear();
+    public void globalValueNumbering() {
         binding_irdom.compute_doms(g.ptr);
-        BackEdges.enable(g);
         ArrayDeque<Node> nodes = NodeCollector.run(g);
-        HashMap<ExpressionNode, List<Node>> exprNodes = new HashMap<>();
+        var numbering = new GlobalValueNumbering(g, nodes);
+        this.count(PassStatistics.SUBEXPRESSIONS_ELIMINATED, numbering.congruentNodeCount());
+
+        // Every use of a node is redirected to its leader, the other nodes of a class become dead.
         for (Node n : nodes) {
-            ExpressionNode e = new ExpressionNode(n);
-            if (!exprNodes.containsKey(e)) {
-                List<Node> syntacticallyEqualNodes = new ArrayList<>();
-                syntacticallyEqualNodes.add(e.n);
-                exprNodes.put(e, syntacticallyEqualNodes);
-                continue;
-            }
-            List<Node> syntacticallyEqualNodes = exprNodes.get(e);
-            Optional<Node> maybeDominator = syntacticallyEqualNodes.stream()
-                    .filter(equalNode -> binding_irdom.block_dominates(equalNode.getBlock().ptr, n.getBlock().ptr) != 0)
-                    .findFirst();
-            // n is always only dominated by the block of at max a single node syntacticallyEqualNodes.
-            // There cannot be more dominators; a second dominator of the block of n will never get added to the list
-            // because those two dominators would necessarily dominate one another, in which case we ensure that
-            // only one of them remains.
-            if (maybeDominator.isPresent()) {
-                Node dominator = maybeDominator.get();
-                List<BackEdges.Edge> edges = FirmUtils.backEdges(n);
-                for (var edge : edges) {
-                    edge.node.setPred(edge.pos, dominator);
-                }
-                continue;
-            }
-            // syntacticallyEqualNodes contains no node in a block that dominates the block of n.
-            // But maybe the block of n dominates a block of a node in syntacticallyEqualNodes!
-            // In this case, n is a better candidate for CSE than that other node.
-            // It also means that we can reuse n for the node in syntacticallyEqualNodes.
-            boolean foundDominated = false;
-            for (int i = 0; i < syntacticallyEqualNodes.size(); i++) {
-                Node dominated = syntacticallyEqualNodes.get(i);
-                if (binding_irdom.block_dominates(n.getBlock().ptr, dominated.getBlock().ptr) == 0) {
-                    continue;
-                }
-                foundDominated = true;
-                List<BackEdges.Edge> edges = FirmUtils.backEdges(dominated);
-                for (var edge : edges) {
-                    edge.node.setPred(edge.pos, n);
+            for (int i = 0; i < n.getPredCount(); i++) {
+                Node leader = numbering.leader(n.getPred(i));
+                if (!leader.equals(n.getPred(i))) {
+                    n.setPred(i, leader);
+                    this.changed = true;
                 }
-                syntacticallyEqualNodes.set(i, n);
-                // There cannot be other dominated blocks because the dominated blocks
-                // would also dominate one another in some direction and we ensure that
-                // the node with a dominated block is removed.
-                break;
-            }
-            if (!foundDominated) {
-                // This is an entirely new node in a new block that cannot be related to the blocks
-                // of other nodes in syntacticallyEqualNodes.
-                syntacticallyEqualNodes.add(n);
             }
-            exprNodes.put(e, syntacticallyEqualNodes);
         }
-        BackEdges.disable(g);
     }
 
     public void testAliasingAnalysis() {
@@ -788,6 +710,8 @@ public class Optimization {
     public void loadLoad() {
         binding_irdom.compute_doms(g.ptr);
         List<DataFlow.LoadLoad> r = DataFlow.analyzeLoadLoad(g, nodeAstTypes, methodReferences);
+        this.count(PassStatistics.LOADS_ELIMINATED, r.size());
+        this.changed |= !r.isEmpty();
         BackEdges.enable(g);
         for (DataFlow.LoadLoad ll : r) {
             Load dominator = ll.firstLoad();
@@ -826,6 +750,8 @@ public class Optimization {
 
     public void storeLoad() {
         List<DataFlow.StoreLoad> r = DataFlow.analyzeStoreLoad(g, nodeAstTypes, methodReferences);
+        this.count(PassStatistics.LOADS_ELIMINATED, r.size());
+        this.changed |= !r.isEmpty();
         BackEdges.enable(g);
         for (DataFlow.StoreLoad sl : r) {
             Store dominator = sl.store();
@@ -941,6 +867,8 @@ public class Optimization {
         var newLoad = g.newLoad(target, memPhiLoop.getPred(memPhiIdx), load.getPtr(), load.getLoadMode(), load.getType(), binding_ircons.ir_cons_flags.cons_none);
         var newProj = g.newProj(newLoad, Mode.getM(), 0);
         memPhiLoop.setPred(memPhiIdx, newProj);
+        this.count(PassStatistics.LOADS_HOISTED, 1);
+        this.changed = true;
     }
 
     private void moveNodeOutsideLoop(Node n, Block target, Map<Node, Integer> movable) {
@@ -951,6 +879,8 @@ public class Optimization {
             }
         }
         n.setBlock(target);
+        this.count(PassStatistics.NODES_HOISTED, 1);
+        this.changed = true;
     }
 
     public void loopInvariantCodeMotion() {
@@ -1001,7 +931,10 @@ public class Optimization {
                 }
             }
 
-            if (!movableNodes.isEmpty()) {
+            // Only nodes with a weight of at least two are moved. Without them, we would create an empty block in front
+            // of the loop, which the singleton elimination removes again, and the pipeline would never become stable.
+            var worthMoving = movableNodes.values().stream().anyMatch(weight -> weight >= 2) || !movableLoads.isEmpty();
+            if (!movableNodes.isEmpty() && worthMoving) {
                 // Find or create block to move nodes into.
                 // This block needs to dominate and be postdominated by the loop head in order to avoid unnecessary calculation
                 // of the moved nodes.
@@ -1030,6 +963,7 @@ public class Optimization {
                     targetBlock = (Block) this.g.newBlock(new Node[]{loopHeadPredecessor});
                     var jmp = this.g.newJmp(targetBlock);
                     loop.head.setPred(headPredsIndices.get(0), jmp);
+                    this.changed = true;
                 } else {
                     targetBlock = (Block) loopHeadPredecessor.getBlock();
                 }
@@ -1076,6 +1010,8 @@ public class Optimization {
             var bad = g.newBad(Mode.getM());
             binding_irgmod.exchange(node.ptr, bad.ptr);
             binding_irgmod.exchange(bad.ptr, mem.ptr);
+            this.count(PassStatistics.ALLOCATIONS_ELIMINATED, 1);
+            this.changed = true;
             this.traverseMemoryPath(mem, visited);
         } else {
             switch (node) {
@@ -0,0 +1,108 @@
+package compiler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The optimizations of the middle end, selected with {@code -O<level>} or a custom list of passes with {@code --passes}.
+ * <p>
+ * A pipeline consists of stages, which are run one after the other on every graph. The passes of a stage are repeated
+ * until a round of them doesn't change the graph or the rounds of the stage are used up, see {@link Optimization#optimize}.
+ *
+ * @param name   Identifies the pipeline, e.g. in the keys of the compilation cache.
+ * @param inline Whether calls are inlined before the passes run.
+ */
+public record OptimizationPipeline(String name, boolean inline, List<Stage> stages) {
+
+    public record Stage(List<String> passes, int maxRounds) {
+    }
+
+    /**
+     * The pseudo pass of a custom pipeline, which enables inlining.
+     */
+    public static final String INLINE = "inline";
+
+    /**
+     * The rounds of a custom pipeline.
+     */
+    public static final int CUSTOM_ROUNDS = 4;
+
+    private static final List<String> ALMOST_FULL = List.of("const", "redundant-sideeffect", "arithmetic", "loop-invariance",
+            "gvn", "redundant-phis", "singleton", "trivial-conds", "inline-trivial-blocks", "load-load", "store-load",
+            "redundant-phis", "unused-allocs");
+
+    // The division is only strength reduced at the end, the other passes can't see through the shifts.
+    private static final List<String> FULL = List.of("const", "redundant-sideeffect", "arithmetic", "divopt",
+            "loop-invariance", "gvn", "redundant-phis", "singleton", "trivial-conds", "inline-trivial-blocks", "load-load",
+            "store-load", "redundant-phis", "unused-allocs");
+
+    public static final OptimizationPipeline O0 = new OptimizationPipeline("-O0", false,
+            List.of(new Stage(List.of("const"), 1)));
+
+    public static final OptimizationPipeline O1 = new OptimizationPipeline("-O1", true,
+            List.of(new Stage(ALMOST_FULL, 2), new Stage(FULL, 1)));
+
+    public static final OptimizationPipeline O2 = new OptimizationPipeline("-O2", true,
+            List.of(new Stage(ALMOST_FULL, 4), new Stage(FULL, 2)));
+
+    public static final OptimizationPipeline O3 = new OptimizationPipeline("-O3", true,
+            List.of(new Stage(ALMOST_FULL, 8), new Stage(FULL, 4)));
+
+    /**
+     * @return The pipeline of the level, levels above 3 are the same as 3 and levels below 0 the same as 0.
+     */
+    public static OptimizationPipeline forLevel(int level) {
+        if (level <= 0) {
+            return O0;
+        }
+        return switch (level) {
+            case 1 -> O1;
+            case 2 -> O2;
+            default -> O3;
+        };
+    }
+
+    /**
+     * Parses a comma separated list of pass names into a pipeline with a single stage. Passes may appear more than once.
+     * The name {@value INLINE} enables inlining wherever it appears.
+     *
+     * @throws IllegalArgumentException If the list is empty or contains an unknown pass.
+     */
+    public static OptimizationPipeline parse(String passList) {
+        var passes = new ArrayList<String>();
+        var inline = false;
+        for (var token : passList.split(",")) {
+            var pass = token.strip();
+            if (pass.isEmpty()) {
+                continue;
+            }
+            if (pass.equals(INLINE)) {
+                inline = true;
+            } else if (Optimization.passNames().contains(pass)) {
+                passes.add(pass);
+            } else {
+                throw new IllegalArgumentException(String.format("unknown pass '%s', known passes are %s, %s", pass,
+                        INLINE, String.join(", ", Optimization.passNames())));
+            }
+        }
+
+        if (passes.isEmpty() && !inline) {
+            throw new IllegalArgumentException("no passes given");
+        }
+
+        var names = new ArrayList<String>();
+        if (inline) {
+            names.add(INLINE);
+        }
+        names.addAll(passes);
+        var name = "--passes=" + String.join(",", names);
+        return new OptimizationPipeline(name, inline, List.of(new Stage(List.copyOf(passes), CUSTOM_ROUNDS)));
+    }
+
+    /**
+     * @return Whether the lowering and the backend optimize as well, which is the case for every pipeline except {@code -O0}.
+     */
+    public boolean optimizesBackend() {
+        return !this.equals(O0);
+    }
+}
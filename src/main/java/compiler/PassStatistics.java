@@ -0,0 +1,106 @@
+package compiler;
+
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Counts what the optimizations did for {@code --stats}, e.g. how many nodes were folded or how many calls were inlined.
+ * <p>
+ * Every counter is kept per method and summed up for the whole program. The counters may be incremented from multiple threads.
+ */
+public class PassStatistics {
+
+    /**
+     * Counts nothing.
+     */
+    public static final PassStatistics DISABLED = new PassStatistics(false);
+
+    public static final String NODES_FOLDED = "nodes-folded";
+    public static final String SUBEXPRESSIONS_ELIMINATED = "subexpressions-eliminated";
+    public static final String LOADS_ELIMINATED = "loads-eliminated";
+    public static final String NODES_HOISTED = "nodes-hoisted";
+    public static final String LOADS_HOISTED = "loads-hoisted";
+    public static final String ALLOCATIONS_ELIMINATED = "allocations-eliminated";
+    public static final String CALLS_INLINED = "calls-inlined";
+    public static final String OPTIMIZATION_ROUNDS = "optimization-rounds";
+    public static final String PASSES_SKIPPED = "passes-skipped";
+    public static final String SPILLS = "spills";
+    public static final String RELOADS = "reloads";
+    public static final String PEEPHOLE_SUBSTITUTIONS = "peephole-substitutions";
+
+    private final boolean enabled;
+    // The counters of every method in the order they were first incremented.
+    private final Map<String, Map<String, Long>> methodCounters;
+
+    public PassStatistics() {
+        this(true);
+    }
+
+    private PassStatistics(boolean enabled) {
+        this.enabled = enabled;
+        this.methodCounters = new LinkedHashMap<>();
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * @param method The linker name of the method the counted changes were made in.
+     */
+    public void count(String counter, String method, long n) {
+        if (!this.enabled || n == 0) {
+            return;
+        }
+
+        synchronized (this.methodCounters) {
+            this.methodCounters.computeIfAbsent(method, m -> new LinkedHashMap<>()).merge(counter, n, Long::sum);
+        }
+    }
+
+    public void count(String counter, String method) {
+        this.count(counter, method, 1);
+    }
+
+    /**
+     * @return The counters of the given method. Counters which were never incremented are missing.
+     */
+    public Map<String, Long> methodTotals(String method) {
+        synchronized (this.methodCounters) {
+            return new LinkedHashMap<>(this.methodCounters.getOrDefault(method, Map.of()));
+        }
+    }
+
+    /**
+     * @return The counters summed over all methods. Counters which were never incremented are missing.
+     */
+    public Map<String, Long> programTotals() {
+        var totals = new LinkedHashMap<String, Long>();
+        synchronized (this.methodCounters) {
+            for (var counters : this.methodCounters.values()) {
+                counters.forEach((counter, n) -> totals.merge(counter, n, Long::sum));
+            }
+        }
+        return totals;
+    }
+
+    public long programTotal(String counter) {
+        return this.programTotals().getOrDefault(counter, 0L);
+    }
+
+    public void report(PrintStream out) {
+        var format = "  %-28s %10d\n";
+
+        out.println("Program");
+        this.programTotals().forEach((counter, n) -> out.format(format, counter, n));
+
+        synchronized (this.methodCounters) {
+            for (var method : this.methodCounters.entrySet()) {
+                out.println();
+                out.println(method.getKey());
+                method.getValue().forEach((counter, n) -> out.format(format, counter, n));
+            }
+        }
+    }
+}
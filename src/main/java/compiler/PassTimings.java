@@ -0,0 +1,275 @@
+package compiler;
+
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+/**
+ * Measures the wall time, CPU time and allocated bytes of the phases of a compilation for {@code --time-passes}.
+ * <p>
+ * Phases working on single methods are measured per method. Additionally, the size of the IR is recorded
+ * before and after every phase. The unit depends on the IR: tokens, AST nodes, FIRM nodes, LLIR nodes or SIR instructions.
+ * Only phases that don't contain other measured phases are measured, so the measurements of a compilation add up.
+ * <p>
+ * CPU time and allocations are measured for the current thread, so a timer has to be stopped on the thread it was started on.
+ * Timers may be stopped on multiple threads concurrently. The wall times of phases running in parallel add up to more
+ * than the wall time of the compilation.
+ */
+public class PassTimings {
+
+    /**
+     * Records nothing. IR sizes are never computed.
+     */
+    public static final PassTimings DISABLED = new PassTimings(false);
+
+    public static final long UNKNOWN_SIZE = -1;
+
+    private static final Timer DISABLED_TIMER = new Timer(null, "", Optional.empty(), UNKNOWN_SIZE);
+
+    public record Measurement(String phase, Optional<String> method, long wallNanos, long cpuNanos, long allocatedBytes,
+                              long sizeBefore, long sizeAfter) {
+    }
+
+    private final boolean enabled;
+    private final List<Measurement> measurements;
+    private final ThreadMXBean threads;
+
+    public PassTimings() {
+        this(true);
+    }
+
+    private PassTimings(boolean enabled) {
+        this.enabled = enabled;
+        this.measurements = new ArrayList<>();
+        this.threads = ManagementFactory.getThreadMXBean();
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    public List<Measurement> getMeasurements() {
+        return this.measurements;
+    }
+
+    public Timer start(String phase) {
+        return this.start(phase, Optional.empty(), () -> UNKNOWN_SIZE);
+    }
+
+    /**
+     * @param sizeBefore Computes the size of the IR. It is only called, if the timings are enabled.
+     */
+    public Timer start(String phase, LongSupplier sizeBefore) {
+        return this.start(phase, Optional.empty(), sizeBefore);
+    }
+
+    /**
+     * @param method The name of the method the phase works on.
+     */
+    public Timer start(String phase, String method) {
+        return this.start(phase, Optional.of(method), () -> UNKNOWN_SIZE);
+    }
+
+    /**
+     * @param method     The name of the method the phase works on.
+     * @param sizeBefore Computes the size of the IR. It is only called, if the timings are enabled.
+     */
+    public Timer start(String phase, String method, LongSupplier sizeBefore) {
+        return this.start(phase, Optional.of(method), sizeBefore);
+    }
+
+    private Timer start(String phase, Optional<String> method, LongSupplier sizeBefore) {
+        if (!this.enabled) {
+            return DISABLED_TIMER;
+        }
+
+        return new Timer(this, phase, method, sizeBefore.getAsLong());
+    }
+
+    private long cpuTime() {
+        return this.threads.isCurrentThreadCpuTimeSupported() ? this.threads.getCurrentThreadCpuTime() : 0;
+    }
+
+    private long allocatedBytes() {
+        if (this.threads instanceof com.sun.management.ThreadMXBean allocations && allocations.isThreadAllocatedMemorySupported()) {
+            return allocations.getCurrentThreadAllocatedBytes();
+        }
+        return 0;
+    }
+
+    public static final class Timer {
+        private final PassTimings timings;
+        private final String phase;
+        private final Optional<String> method;
+        private final long sizeBefore;
+
+        private final long startWall;
+        private final long startCpu;
+        private final long startAllocated;
+
+        private Timer(PassTimings timings, String phase, Optional<String> method, long sizeBefore) {
+            this.timings = timings;
+            this.phase = phase;
+            this.method = method;
+            this.sizeBefore = sizeBefore;
+
+            // Read the clocks last, so that computing the size isn't measured.
+            this.startAllocated = timings == null ? 0 : timings.allocatedBytes();
+            this.startCpu = timings == null ? 0 : timings.cpuTime();
+            this.startWall = System.nanoTime();
+        }
+
+        public void stop() {
+            this.stop(() -> UNKNOWN_SIZE);
+        }
+
+        /**
+         * @param sizeAfter Computes the size of the IR. It is only called, if the timings are enabled.
+         */
+        public void stop(LongSupplier sizeAfter) {
+            if (this.timings == null) {
+                return;
+            }
+
+            var wall = System.nanoTime() - this.startWall;
+            var cpu = this.timings.cpuTime() - this.startCpu;
+            var allocated = this.timings.allocatedBytes() - this.startAllocated;
+
+            var measurement = new Measurement(this.phase, this.method, wall, cpu, allocated, this.sizeBefore, sizeAfter.getAsLong());
+            synchronized (this.timings.measurements) {
+                this.timings.measurements.add(measurement);
+            }
+        }
+    }
+
+    /**
+     * Sums the measurements of all methods for every phase, in the order the phases were first measured.
+     * Phases, which run multiple times on the same method, are counted every time, including their IR sizes.
+     */
+    public List<Measurement> phaseTotals() {
+        var totals = new LinkedHashMap<String, Measurement>();
+        for (var m : this.measurements) {
+            totals.merge(m.phase(), new Measurement(m.phase(), Optional.empty(), m.wallNanos(), m.cpuNanos(), m.allocatedBytes(),
+                    m.sizeBefore(), m.sizeAfter()), PassTimings::add);
+        }
+        return new ArrayList<>(totals.values());
+    }
+
+    /**
+     * Sums the measurements of all phases for every method, the slowest method first.
+     */
+    public List<Measurement> methodTotals() {
+        var totals = new LinkedHashMap<String, Measurement>();
+        for (var m : this.measurements) {
+            m.method().ifPresent(method -> totals.merge(method, new Measurement("", m.method(), m.wallNanos(), m.cpuNanos(),
+                    m.allocatedBytes(), UNKNOWN_SIZE, UNKNOWN_SIZE), PassTimings::add));
+        }
+
+        var result = new ArrayList<>(totals.values());
+        result.sort(Comparator.comparingLong(Measurement::wallNanos).reversed());
+        return result;
+    }
+
+    private static Measurement add(Measurement a, Measurement b) {
+        return new Measurement(a.phase(), a.method(), a.wallNanos() + b.wallNanos(), a.cpuNanos() + b.cpuNanos(),
+                a.allocatedBytes() + b.allocatedBytes(), addSizes(a.sizeBefore(), b.sizeBefore()), addSizes(a.sizeAfter(), b.sizeAfter()));
+    }
+
+    private static long addSizes(long a, long b) {
+        return a == UNKNOWN_SIZE || b == UNKNOWN_SIZE ? UNKNOWN_SIZE : a + b;
+    }
+
+    private static String formatSize(long size) {
+        return size == UNKNOWN_SIZE ? "-" : String.valueOf(size);
+    }
+
+    public void report(PrintStream out) {
+        var format = "%-28s %10s %10s %11s %11s %11s\n";
+        out.format(format, "Phase", "Wall ms", "CPU ms", "Alloc MiB", "IR before", "IR after");
+
+        long wall = 0;
+        long cpu = 0;
+        long allocated = 0;
+        for (var phase : this.phaseTotals()) {
+            out.format(format, phase.phase(), millis(phase.wallNanos()), millis(phase.cpuNanos()), mebibytes(phase.allocatedBytes()),
+                    formatSize(phase.sizeBefore()), formatSize(phase.sizeAfter()));
+            wall += phase.wallNanos();
+            cpu += phase.cpuNanos();
+            allocated += phase.allocatedBytes();
+        }
+        out.format(format, "total", millis(wall), millis(cpu), mebibytes(allocated), "", "");
+
+        var methods = this.methodTotals();
+        if (!methods.isEmpty()) {
+            out.println();
+            out.format(format, "Method", "Wall ms", "CPU ms", "Alloc MiB", "", "");
+            for (var method : methods) {
+                out.format(format, method.method().orElseThrow(), millis(method.wallNanos()), millis(method.cpuNanos()),
+                        mebibytes(method.allocatedBytes()), "", "");
+            }
+        }
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.2f", nanos / 1e6);
+    }
+
+    private static String mebibytes(long bytes) {
+        return String.format("%.2f", bytes / (1024.0 * 1024.0));
+    }
+
+    /**
+     * Writes all measurements and the totals per phase as JSON, so that they can be tracked over time.
+     */
+    public void writeJson(PrintWriter out) {
+        out.println("{");
+        out.println("  \"phases\": [");
+        writeJsonMeasurements(out, this.phaseTotals());
+        out.println("  ],");
+        out.println("  \"measurements\": [");
+        writeJsonMeasurements(out, this.measurements);
+        out.println("  ]");
+        out.println("}");
+        out.flush();
+    }
+
+    private static void writeJsonMeasurements(PrintWriter out, List<Measurement> measurements) {
+        for (int i = 0; i < measurements.size(); i++) {
+            var m = measurements.get(i);
+            out.format("    {\"phase\": %s, \"method\": %s, \"wall_ns\": %d, \"cpu_ns\": %d, \"allocated_bytes\": %d, \"ir_size_before\": %s, \"ir_size_after\": %s}%s\n",
+                    jsonString(m.phase()), m.method().map(PassTimings::jsonString).orElse("null"),
+                    m.wallNanos(), m.cpuNanos(), m.allocatedBytes(), jsonSize(m.sizeBefore()), jsonSize(m.sizeAfter()),
+                    i + 1 < measurements.size() ? "," : "");
+        }
+    }
+
+    private static String jsonSize(long size) {
+        return size == UNKNOWN_SIZE ? "null" : String.valueOf(size);
+    }
+
+    private static String jsonString(String s) {
+        var sb = new StringBuilder("\"");
+        for (char c : s.toCharArray()) {
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -0,0 +1,156 @@
+package compiler;
+
+import firm.BackEdges;
+import firm.Graph;
+import firm.bindings.binding_irgraph;
+import firm.bindings.binding_irnode;
+import firm.nodes.Node;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * A worklist solver for sparse dataflow analyses over some of the nodes of a graph.
+ * <p>
+ * The nodes of the analysis are numbered densely by their position in the given order. The position is looked up
+ * through the index of the node in its graph, so that analyses can keep their lattice values in arrays instead of
+ * hash maps, see {@link Values}.
+ * <p>
+ * The order should be topological, e.g. the one of {@link NodeCollector}. The solver always continues with the
+ * earliest pending node: straight line code is finished after a single visit of every node and a loop is iterated
+ * until it is stable before the nodes after it are visited.
+ */
+public final class SparseDataFlow {
+
+    /**
+     * Computes the value of a node from the values of its predecessors.
+     */
+    @FunctionalInterface
+    public interface TransferFunction {
+        /**
+         * @return Whether the value of the node changed, its users are visited again if so.
+         */
+        boolean apply(Node node);
+    }
+
+    private final Node[] nodes;
+    // The position of every node by its index in the graph, -1 if the node isn't part of the analysis.
+    private final int[] positions;
+    private final BitSet pending;
+    // There is no pending position before this one.
+    private int lowest;
+
+    public SparseDataFlow(Graph graph, Collection<? extends Node> order) {
+        this.nodes = order.toArray(Node[]::new);
+        this.positions = new int[binding_irgraph.get_irg_last_idx(graph.ptr)];
+        Arrays.fill(this.positions, -1);
+        for (int i = 0; i < this.nodes.length; i++) {
+            this.positions[index(this.nodes[i])] = i;
+        }
+        this.pending = new BitSet(this.nodes.length);
+        this.lowest = 0;
+    }
+
+    /**
+     * @return The index of the node in its graph, the indices of a graph are dense.
+     */
+    public static int index(Node node) {
+        return binding_irnode.get_irn_idx(node.ptr);
+    }
+
+    public int size() {
+        return this.nodes.length;
+    }
+
+    public Node node(int position) {
+        return this.nodes[position];
+    }
+
+    /**
+     * @return The position of the node in the order, or -1 if it isn't part of the analysis.
+     */
+    public int position(Node node) {
+        var index = index(node);
+        // Nodes created after the numbering aren't part of the analysis either.
+        return index < this.positions.length ? this.positions[index] : -1;
+    }
+
+    public boolean contains(Node node) {
+        return this.position(node) >= 0;
+    }
+
+    /**
+     * Visits the node again, nodes which aren't part of the analysis are ignored.
+     */
+    public void schedule(Node node) {
+        var position = this.position(node);
+        if (position >= 0) {
+            this.pending.set(position);
+            this.lowest = Math.min(this.lowest, position);
+        }
+    }
+
+    public void scheduleAll() {
+        this.pending.set(0, this.nodes.length);
+        this.lowest = 0;
+    }
+
+    /**
+     * Applies the transfer function to the scheduled nodes until none is left.
+     * The users of a changed node are found through its back edges, which have to be enabled.
+     */
+    public void solve(TransferFunction transfer) {
+        var position = this.pending.nextSetBit(this.lowest);
+        while (position >= 0) {
+            this.pending.clear(position);
+            this.lowest = position + 1;
+
+            var node = this.nodes[position];
+            if (transfer.apply(node)) {
+                for (var edge : BackEdges.getOuts(node)) {
+                    this.schedule(edge.node);
+                }
+            }
+
+            position = this.pending.nextSetBit(this.lowest);
+        }
+    }
+
+    /**
+     * A lattice value for every node of an analysis, stored in an array by the position of the node.
+     */
+    public static final class Values<V> {
+        private final SparseDataFlow flow;
+        private final Object[] values;
+
+        public Values(SparseDataFlow flow) {
+            this.flow = flow;
+            this.values = new Object[flow.size()];
+        }
+
+        /**
+         * @return The value of the node, or null if it has none or isn't part of the analysis.
+         */
+        @SuppressWarnings("unchecked")
+        public V get(Node node) {
+            var position = this.flow.position(node);
+            return position >= 0 ? (V) this.values[position] : null;
+        }
+
+        /**
+         * Sets the value of the node, nodes which aren't part of the analysis are ignored.
+         *
+         * @return Whether the value changed.
+         */
+        public boolean set(Node node, V value) {
+            var position = this.flow.position(node);
+            if (position < 0 || Objects.equals(this.values[position], value)) {
+                return false;
+            }
+            this.values[position] = value;
+            return true;
+        }
+    }
+}
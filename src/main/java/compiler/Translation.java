@@ -2,11 +2,15 @@ package compiler;
 
 import compiler.ast.*;
 import compiler.semantic.AstData;
+import compiler.semantic.IntAstData;
 import compiler.semantic.SparseAstData;
 import compiler.semantic.resolution.DefinedMethod;
 import compiler.semantic.resolution.IntrinsicMethod;
 import compiler.semantic.resolution.MethodDefinition;
 import compiler.types.*;
+import compiler.utils.ExpressionWalker;
+import compiler.utils.FirmUtils;
+import compiler.utils.GenericNodeWalker;
 import firm.Type;
 import firm.*;
 import firm.bindings.binding_ircons;
@@ -33,7 +37,7 @@ public class Translation {
     private final Map<Ty, Type> firmTypes;
     private final List<StructType> allCreatedStructFirmTypes;
 
-    private final AstData<Integer> variableId; // maps variable definitions to their firm variable ids.
+    private final IntAstData variableId; // maps variable definitions to their firm variable ids.
     private final AstData<Entity> entities; // maps method and fields to their respective entity.
     private final Map<IntrinsicMethod, Entity> intrinsicEntities;
     private final Entity allocFunctionEntity;
@@ -45,12 +49,21 @@ public class Translation {
 
     private Construction construction;
 
+    private final PassTimings timings;
+    private final PassStatistics statistics;
+
     static {
         Firm.VERSION = Firm.FirmVersion.DEBUG;
     }
 
     public Translation(FrontendResult frontend) {
+        this(frontend, PassTimings.DISABLED, PassStatistics.DISABLED);
+    }
+
+    public Translation(FrontendResult frontend, PassTimings timings, PassStatistics statistics) {
         this.frontend = frontend;
+        this.timings = timings;
+        this.statistics = statistics;
 
         this.methodReferences = new HashMap<>();
         this.methodGraphs = new HashMap<>();
@@ -61,7 +74,7 @@ public class Translation {
         Firm.init("x86_64-linux-gnu", new String[]{"pic=1"});
         this.firmTypes = new HashMap<>();
         this.allCreatedStructFirmTypes = new ArrayList<>();
-        this.variableId = new SparseAstData<>();
+        this.variableId = new IntAstData(frontend.ast().getIdBound());
         this.entities = new SparseAstData<>();
         this.intrinsicEntities = new HashMap<>();
         this.returns = new ArrayList<>();
@@ -163,7 +176,7 @@ public class Translation {
         return switch (literal) {
             case BoolLiteral lit -> construction.newConst(lit.getValue() ? 1 : 0, Mode.getBu());
             case IntLiteral lit -> {
-                var value = frontend.constants().get(lit).orElseThrow();
+                var value = frontend.constants().getInt(lit);
                 yield construction.newConst(value, Mode.getIs());
             }
             default -> throw new AssertionError("translateLiteral called with " + literal);
@@ -213,9 +226,7 @@ public class Translation {
         return resPhi;
     }
 
-    private Node translateArithBinOp(BinaryOpExpression expr) {
-        Node lhs = translateExpr(expr.getLhs());
-        Node rhs = translateExpr(expr.getRhs());
+    private Node translateArithBinOp(BinaryOpExpression expr, Node lhs, Node rhs) {
         return switch (expr.getOperator()) {
             case Addition -> construction.newAdd(lhs, rhs);
             case Subtraction -> construction.newAdd(lhs, construction.newMinus(rhs));
@@ -248,11 +259,16 @@ public class Translation {
         };
     }
 
-    private Node translateBinOpExpr(BinaryOpExpression expr) {
+    private static boolean isShortcircuitBinOp(BinaryOpExpression expr) {
+        return expr.getOperator() == BinaryOpExpression.BinaryOp.And || expr.getOperator() == BinaryOpExpression.BinaryOp.Or;
+    }
+
+    /* lhs and rhs are the already translated operands, for && and || they are null */
+    private Node translateBinOpExpr(BinaryOpExpression expr, Node lhs, Node rhs) {
         return switch (expr.getOperator()) {
-            case Addition, Subtraction, Multiplication, Division, Modulo -> translateArithBinOp(expr);
+            case Addition, Subtraction, Multiplication, Division, Modulo -> translateArithBinOp(expr, lhs, rhs);
             case Equal, NotEqual, Less, LessEqual, Greater, GreaterEqual -> {
-                var node = createCompareBinOpNode(expr);
+                var node = createCompareBinOpNode(expr.getOperator(), lhs, rhs);
                 yield translateCondBoolToByteBool(node);
             }
             case And, Or -> {
@@ -300,32 +316,6 @@ public class Translation {
         translateCondBoolCmp(cmpNode, trueBlock, falseBlock);
     }
 
-    private void translateBinOpWithShortcircuit(BinaryOpExpression expr, Block trueBlock, Block falseBlock) {
-        switch (expr.getOperator()) {
-            case And -> {
-                Block rightBlock = construction.newBlock();
-                translateExprWithShortcircuit(expr.getLhs(), rightBlock, falseBlock);
-                rightBlock.mature();
-                construction.setCurrentBlock(rightBlock);
-                translateExprWithShortcircuit(expr.getRhs(), trueBlock, falseBlock);
-            }
-            case Or -> {
-                Block rightBlock = construction.newBlock();
-                translateExprWithShortcircuit(expr.getLhs(), trueBlock, rightBlock);
-                rightBlock.mature();
-                construction.setCurrentBlock(rightBlock);
-                translateExprWithShortcircuit(expr.getRhs(), trueBlock, falseBlock);
-            }
-            case Equal -> translateCompareWithShortcircuit(expr, trueBlock, falseBlock);
-            case NotEqual -> translateCompareWithShortcircuit(expr, trueBlock, falseBlock);
-            case Less -> translateCompareWithShortcircuit(expr, trueBlock, falseBlock);
-            case LessEqual -> translateCompareWithShortcircuit(expr, trueBlock, falseBlock);
-            case Greater -> translateCompareWithShortcircuit(expr, trueBlock, falseBlock);
-            case GreaterEqual -> translateCompareWithShortcircuit(expr, trueBlock, falseBlock);
-            default -> throw new AssertionError("untranslatable op");
-        }
-    }
-
     private Node translateCondBoolToByteBool(Node node) {
         assert node.getMode().equals(Mode.getb());
 
@@ -357,43 +347,76 @@ public class Translation {
         falseBlock.addPred(falseProj);
     }
 
+    // A condition waiting to be translated. If entryBlock isn't null, it is matured and made the current block first.
+    private record ShortcircuitTask(Expression expression, Block trueBlock, Block falseBlock, Block entryBlock) {
+    }
+
     private void translateExprWithShortcircuit(Expression root, Block trueBlock, Block falseBlock) {
-        switch (root) {
-            case BinaryOpExpression expr -> translateBinOpWithShortcircuit(expr, trueBlock, falseBlock);
-            case UnaryExpression expr -> {
-                assert expr.getOperator() == UnaryExpression.UnaryOp.LogicalNot;
-                translateExprWithShortcircuit(expr.getExpression(), falseBlock, trueBlock);
-            }
-            case Reference expr -> {
-                Node n = translateExpr(expr);
-                translateByteBoolToShortcircuit(n, trueBlock, falseBlock);
-            }
-            case BoolLiteral expr -> {
-                Node n = translateExpr(expr);
-                translateByteBoolToShortcircuit(n, trueBlock, falseBlock);
-            }
-            case AssignmentExpression expr -> {
-                Node n = translateExpr(expr);
-                translateByteBoolToShortcircuit(n, trueBlock, falseBlock);
-            }
-            case FieldAccessExpression expr -> {
-                Node n = translateExpr(expr);
-                translateByteBoolToShortcircuit(n, trueBlock, falseBlock);
-            }
-            case ArrayAccessExpression expr -> {
-                Node n = translateExpr(expr);
-                translateByteBoolToShortcircuit(n, trueBlock, falseBlock);
+        // && and || chains can be arbitrarily long in the source, so their operands are kept on an explicit stack
+        // instead of translating them recursively. The right operand is pushed first, so the left one and all of its
+        // operands are translated before it.
+        var tasks = new ArrayDeque<ShortcircuitTask>();
+        tasks.push(new ShortcircuitTask(root, trueBlock, falseBlock, null));
+
+        while (!tasks.isEmpty()) {
+            var task = tasks.pop();
+            if (task.entryBlock != null) {
+                task.entryBlock.mature();
+                construction.setCurrentBlock(task.entryBlock);
             }
-            case MethodCallExpression expr -> {
-                Node n = translateExpr(expr);
-                translateByteBoolToShortcircuit(n, trueBlock, falseBlock);
+
+            switch (task.expression) {
+                case BinaryOpExpression expr -> {
+                    switch (expr.getOperator()) {
+                        case And -> {
+                            Block rightBlock = construction.newBlock();
+                            tasks.push(new ShortcircuitTask(expr.getRhs(), task.trueBlock, task.falseBlock, rightBlock));
+                            tasks.push(new ShortcircuitTask(expr.getLhs(), rightBlock, task.falseBlock, null));
+                        }
+                        case Or -> {
+                            Block rightBlock = construction.newBlock();
+                            tasks.push(new ShortcircuitTask(expr.getRhs(), task.trueBlock, task.falseBlock, rightBlock));
+                            tasks.push(new ShortcircuitTask(expr.getLhs(), task.trueBlock, rightBlock, null));
+                        }
+                        case Equal, NotEqual, Less, LessEqual, Greater, GreaterEqual ->
+                                translateCompareWithShortcircuit(expr, task.trueBlock, task.falseBlock);
+                        default -> throw new AssertionError("untranslatable op");
+                    }
+                }
+                case UnaryExpression expr -> {
+                    assert expr.getOperator() == UnaryExpression.UnaryOp.LogicalNot;
+                    tasks.push(new ShortcircuitTask(expr.getExpression(), task.falseBlock, task.trueBlock, null));
+                }
+                case Reference expr -> {
+                    Node n = translateExpr(expr);
+                    translateByteBoolToShortcircuit(n, task.trueBlock, task.falseBlock);
+                }
+                case BoolLiteral expr -> {
+                    Node n = translateExpr(expr);
+                    translateByteBoolToShortcircuit(n, task.trueBlock, task.falseBlock);
+                }
+                case AssignmentExpression expr -> {
+                    Node n = translateExpr(expr);
+                    translateByteBoolToShortcircuit(n, task.trueBlock, task.falseBlock);
+                }
+                case FieldAccessExpression expr -> {
+                    Node n = translateExpr(expr);
+                    translateByteBoolToShortcircuit(n, task.trueBlock, task.falseBlock);
+                }
+                case ArrayAccessExpression expr -> {
+                    Node n = translateExpr(expr);
+                    translateByteBoolToShortcircuit(n, task.trueBlock, task.falseBlock);
+                }
+                case MethodCallExpression expr -> {
+                    Node n = translateExpr(expr);
+                    translateByteBoolToShortcircuit(n, task.trueBlock, task.falseBlock);
+                }
+                default -> throw new AssertionError("translateCond with non-cond expr");
             }
-            default -> throw new AssertionError("translateCond with non-cond expr");
         }
     }
 
-    private Node translateUnaryOp(UnaryExpression expr) {
-        Node rhs = translateExpr(expr.getExpression());
+    private Node translateUnaryOp(UnaryExpression expr, Node rhs) {
         return switch (expr.getOperator()) {
             case LogicalNot -> {
                 Node oneConst = construction.newConst(1, Mode.getBu());
@@ -424,7 +447,7 @@ public class Translation {
         var fieldPtr = translateFieldExprToLValue(targetNode, expr);
 
         var mem = construction.getCurrentMem();
-        var exprTy = (Ty)frontend.expressionTypes().get(expr).orElseThrow();
+        var exprTy = (Ty)frontend.expressionTypes().getOrThrow(expr);
         var exprFirmType = getFirmType(exprTy);
 
         var load = construction.newLoad(mem, fieldPtr, exprFirmType.getMode());
@@ -453,7 +476,7 @@ public class Translation {
         var indexNode = translateExpr(expr.getIndexExpression());
         var extendedIndexNode = construction.newConv(indexNode, Mode.getLs());
 
-        var exprTy = (ArrayTy)frontend.expressionTypes().get(expr.getTarget()).orElseThrow();
+        var exprTy = (ArrayTy)frontend.expressionTypes().getOrThrow(expr.getTarget());
         var childTy = exprTy.getChildTy();
         var childFirmType = getFirmType(childTy);
 
@@ -513,9 +536,54 @@ public class Translation {
         }
     }
 
+    /**
+     * Whether the operands of the expression are translated by translateExpr before the expression itself.
+     * These are the operators, which can be chained arbitrarily long in the source.
+     */
+    private static boolean hasStackTranslatedOperands(Expression expr) {
+        return expr instanceof UnaryExpression || expr instanceof BinaryOpExpression binOp && !isShortcircuitBinOp(binOp);
+    }
+
     private Node translateExpr(Expression root) {
-        var firmNode = switch (root) {
-            case BinaryOpExpression expr -> translateBinOpExpr(expr);
+        // Operands of arithmetic, comparison and unary operators are translated using an explicit stack,
+        // so that long operator chains don't overflow the Java stack.
+        // All other expressions translate their sub-expressions themselves.
+        var values = new ArrayDeque<Node>();
+
+        ExpressionWalker.walk(root, new ExpressionWalker.Visitor() {
+            @Override
+            public List<Expression> enter(Expression expression) {
+                return hasStackTranslatedOperands(expression) ? ExpressionWalker.children(expression) : List.of();
+            }
+
+            @Override
+            public void exit(Expression expression) {
+                Node firmNode;
+                if (expression instanceof UnaryExpression expr) {
+                    firmNode = translateUnaryOp(expr, values.pop());
+                } else if (expression instanceof BinaryOpExpression expr && hasStackTranslatedOperands(expr)) {
+                    var rhs = values.pop();
+                    var lhs = values.pop();
+                    firmNode = translateBinOpExpr(expr, lhs, rhs);
+                } else {
+                    firmNode = translateSingleExpr(expression);
+                }
+
+                var astTyResult = frontend.expressionTypes().getOrThrow(expression);
+                if (astTyResult instanceof Ty ty) {
+                    nodeAstTypes.put(firmNode, ty);
+                }
+                values.push(firmNode);
+            }
+        });
+
+        assert values.size() == 1;
+        return values.pop();
+    }
+
+    private Node translateSingleExpr(Expression root) {
+        return switch (root) {
+            case BinaryOpExpression expr -> translateBinOpExpr(expr, null, null);
             case FieldAccessExpression expr -> {
                 var targetNode = translateExpr(expr.getTarget());
                 yield translateFieldAccessExpr(targetNode, expr);
@@ -527,7 +595,7 @@ public class Translation {
                         var definition = frontend.definitions().getReference(var).orElseThrow();
 
                         if (definition instanceof LocalVariableDeclarationStatement || definition instanceof Parameter) {
-                            var firmVarId = variableId.get((AstNode) definition).orElseThrow();
+                            var firmVarId = variableId.getInt((AstNode) definition);
                             construction.setVariable(firmVarId, rhs);
                         } else {
                             assert definition instanceof Field;
@@ -563,7 +631,7 @@ public class Translation {
             case ArrayAccessExpression expr -> {
                 var arrayFieldPtr = translateArrayAccessExprLValue(expr);
 
-                var childFirmType = getFirmType((Ty)frontend.expressionTypes().get(expr).orElseThrow());
+                var childFirmType = getFirmType((Ty)frontend.expressionTypes().getOrThrow(expr));
 
                 var mem = construction.getCurrentMem();
                 var loadNode = construction.newLoad(mem, arrayFieldPtr, childFirmType.getMode());
@@ -579,7 +647,7 @@ public class Translation {
                 yield node.orElseThrow(() -> new AssertionError("MethodCallExpression of void methods can only be directly after ExpressionStatements."));
             }
             case NewArrayExpression expr -> {
-                var exprTy = (Ty)frontend.expressionTypes().get(expr).orElseThrow();
+                var exprTy = (Ty)frontend.expressionTypes().getOrThrow(expr);
                 var firmTy = getFirmType(exprTy);
                 assert firmTy.getMode().equals(Mode.getP());
                 var childType = ((PointerType) firmTy).getPointsTo();
@@ -599,7 +667,7 @@ public class Translation {
                 yield construction.newProj(returnValuesProj, Mode.getP(), 0);
             }
             case NewObjectExpression expr -> {
-                var exprTy = (Ty)frontend.expressionTypes().get(expr).orElseThrow();
+                var exprTy = (Ty)frontend.expressionTypes().getOrThrow(expr);
                 var firmTy = getFirmType(exprTy);
                 assert firmTy.getMode().equals(Mode.getP());
                 var classType = ((PointerType) firmTy).getPointsTo();
@@ -620,16 +688,16 @@ public class Translation {
             }
             case NullExpression ignored -> construction.newConst(0, Mode.getP());
             case ThisExpression ignored -> construction.getVariable(this.thisVariableId, Mode.getP());
-            case UnaryExpression expr -> translateUnaryOp(expr);
+            case UnaryExpression expr -> throw new AssertionError("Unary expressions are translated by translateExpr");
             case Reference expr -> {
                 var definition = frontend.definitions().getReference(expr).orElseThrow();
 
                 if (definition instanceof LocalVariableDeclarationStatement || definition instanceof Parameter) {
-                    var defType = (Ty) frontend.expressionTypes().get(expr).orElseThrow();
+                    var defType = (Ty) frontend.expressionTypes().getOrThrow(expr);
                     var firmType = this.getFirmType(defType);
                     var mode = firmType.getMode();
 
-                    yield construction.getVariable(variableId.get((AstNode) definition).orElseThrow(), mode);
+                    yield construction.getVariable(variableId.getInt((AstNode) definition), mode);
                 } else {
                     assert definition instanceof Field;
                     var thisNode = construction.getVariable(this.thisVariableId, Mode.getP());
@@ -639,12 +707,6 @@ public class Translation {
             case BoolLiteral expr -> translateLiteral(expr);
             case IntLiteral expr -> translateLiteral(expr);
         };
-
-        var astTyResult = frontend.expressionTypes().get(root).orElseThrow();
-        if (astTyResult instanceof Ty ty) {
-            this.nodeAstTypes.put(firmNode, ty);
-        }
-        return firmNode;
     }
 
     private void translateStatement(Statement statement) {
@@ -714,13 +776,13 @@ public class Translation {
             }
             case LocalVariableDeclarationStatement stmt -> {
                 var statementId = this.newVariableId();
-                variableId.set(stmt, statementId);
+                variableId.setInt(stmt, statementId);
 
                 if (stmt.getInitializer().isPresent()) {
                     var node = translateExpr(stmt.getInitializer().get());
                     construction.setVariable(statementId, node);
                 } else {
-                    var ty = (Ty)frontend.bindingTypes().get(stmt).orElseThrow();
+                    var ty = (Ty)frontend.bindingTypes().getOrThrow(stmt);
                     var firmType = getFirmType(ty);
                     var defaultValue = construction.newConst(0, firmType.getMode());
                     construction.setVariable(statementId, defaultValue);
@@ -775,7 +837,7 @@ public class Translation {
             }
             case compiler.ast.Block block -> {
                 for (var stmt : block.getStatements()) {
-                    if (!frontend.isDeadStatement().get(stmt).orElse(false)) {
+                    if (!frontend.isDeadStatement().getBoolean(stmt)) {
                         translateStatement(stmt);
                     }
                 }
@@ -793,7 +855,7 @@ public class Translation {
 
         var isMainMethod = methodDef == frontend.mainMethod();
 
-        var numberLocalVars = frontend.variableCounts().get(methodDef.getAstMethod()).orElseThrow();
+        var numberLocalVars = frontend.variableCounts().getInt(methodDef.getAstMethod());
         var numberParameters = methodDef.getParameterTy().size();
         var numberFirmVars = numberLocalVars + numberParameters + (isMainMethod ? 0 : 1); // +1 is implicit this argument
         Graph graph = new Graph(methodEnt, numberFirmVars);
@@ -814,7 +876,7 @@ public class Translation {
         Node arg;
         int index = 1;
         for (var param : method.getParameters()) {
-            var ty = (Ty) frontend.bindingTypes().get(param).orElseThrow();
+            var ty = (Ty) frontend.bindingTypes().getOrThrow(param);
 
             Mode mode = switch (ty) {
                 case IntTy ignored -> Mode.getIs();
@@ -827,7 +889,7 @@ public class Translation {
             arg = construction.newProj(argsProj, mode, index);
             this.nodeAstTypes.put(arg, ty);
             var paramVariableId = this.newVariableId();
-            variableId.set(param, paramVariableId);
+            variableId.setInt(param, paramVariableId);
             construction.setVariable(paramVariableId, arg);
             index++;
         }
@@ -852,12 +914,12 @@ public class Translation {
         return graph;
     }
 
-    public TranslationResult translate(boolean dumpGraphs, boolean optimize) {
+    private void createEntities() {
         for (var classTy : frontend.classes()) {
             CompoundType classType = (CompoundType) ((PointerType) getFirmType(classTy)).getPointsTo();
 
             for (var field : classTy.getFields().values()) {
-                Type fieldType = getFirmType((Ty) frontend.bindingTypes().get(field).orElseThrow());
+                Type fieldType = getFirmType((Ty) frontend.bindingTypes().getOrThrow(field));
                 Entity fieldEnt = new Entity(classType, field.getIdentifier().toString(), fieldType);
                 this.entities.set(field, fieldEnt);
             }
@@ -876,13 +938,23 @@ public class Translation {
             var entity = new Entity(globalType, intrinsicMethod.getLinkerName(), methodType);
             this.intrinsicEntities.put(intrinsicMethod, entity);
         }
+    }
+
+    public TranslationResult translate(boolean dumpGraphs, boolean optimize) {
+        return this.translate(dumpGraphs, OptimizationPipeline.forLevel(optimize ? 1 : 0));
+    }
+
+    public TranslationResult translate(boolean dumpGraphs, OptimizationPipeline pipeline) {
+        this.createEntities();
 
         for (var classTy : frontend.classes()) {
             for (var methodDef : classTy.getMethods().values()) {
                 // We don't generate code for intrinsic methods.
                 if (methodDef instanceof DefinedMethod definedMethod) {
 
+                    var timer = this.timings.start("translation", definedMethod.getLinkerName());
                     Graph graph = genGraphForMethod(definedMethod);
+                    timer.stop(() -> FirmUtils.countNodes(graph));
 
                     this.methodGraphs.put(definedMethod, graph);
                     if (dumpGraphs) {
@@ -894,29 +966,77 @@ public class Translation {
 
         var translation = new TranslationResult(this.methodReferences, this.methodGraphs, this.nodeAstTypes);
 
-        if (optimize) {
-            new Inlining(frontend, translation, dumpGraphs).inline();
+        if (pipeline.inline()) {
+            var timer = this.timings.start("inlining", () -> countNodes(translation));
+            new Inlining(frontend, translation, dumpGraphs, this.statistics).inline();
+            timer.stop(() -> countNodes(translation));
+        }
 
-            for (var graph : translation.methodGraphs().values()) {
-                if (dumpGraphs) {
-                    Dump.dumpGraph(graph, "after-inline");
-                }
+        this.optimize(translation, dumpGraphs, pipeline);
+        return translation;
+    }
 
-                Optimization.optimizeAlmostFull(graph, translation.nodeAstTypes(), translation.methodReferences(), dumpGraphs);
-                Optimization.optimizeAlmostFull(graph, translation.nodeAstTypes(), translation.methodReferences(), dumpGraphs);
-                Optimization.optimizeFull(graph, translation.nodeAstTypes(), translation.methodReferences(), dumpGraphs);
+    /**
+     * Translates only the given methods. If the pipeline inlines, methods may inline the methods they call,
+     * so their callees are translated as well, but only the graphs of the given methods are part of the result.
+     */
+    public TranslationResult translateMethods(Set<DefinedMethod> methods, boolean dumpGraphs, OptimizationPipeline pipeline) {
+        this.createEntities();
+
+        var worklist = new ArrayDeque<>(methods);
+        while (!worklist.isEmpty()) {
+            var method = worklist.remove();
+            if (this.methodGraphs.containsKey(method)) {
+                continue;
+            }
 
-                if (dumpGraphs) {
-                    Dump.dumpGraph(graph, "after-opt");
-                }
+            var timer = this.timings.start("translation", method.getLinkerName());
+            Graph graph = genGraphForMethod(method);
+            timer.stop(() -> FirmUtils.countNodes(graph));
+
+            this.methodGraphs.put(method, graph);
+            if (dumpGraphs) {
+                Dump.dumpGraph(graph, "from-ast");
             }
-        } else {
-            for (var graph : translation.methodGraphs().values()) {
-                Optimization.optimizeMinimal(graph, translation.nodeAstTypes(), translation.methodReferences(), dumpGraphs);
 
-                if (dumpGraphs) {
-                    Dump.dumpGraph(graph, "after-opt");
-                }
+            if (pipeline.inline()) {
+                GenericNodeWalker.walkNodes(graph, node -> {
+                    if (node instanceof Call call && this.methodReferences.get(call) instanceof DefinedMethod callee) {
+                        worklist.add(callee);
+                    }
+                });
+            }
+        }
+
+        var translation = new TranslationResult(this.methodReferences, this.methodGraphs, this.nodeAstTypes);
+
+        if (pipeline.inline()) {
+            var timer = this.timings.start("inlining", () -> countNodes(translation));
+            new Inlining(frontend, translation, dumpGraphs, this.statistics).inline(methods);
+            translation.methodGraphs().keySet().retainAll(methods);
+            timer.stop(() -> countNodes(translation));
+        }
+
+        this.optimize(translation, dumpGraphs, pipeline);
+        return translation;
+    }
+
+    private static long countNodes(TranslationResult translation) {
+        return translation.methodGraphs().values().stream().mapToLong(FirmUtils::countNodes).sum();
+    }
+
+    private void optimize(TranslationResult translation, boolean dumpGraphs, OptimizationPipeline pipeline) {
+        for (var entry : translation.methodGraphs().entrySet()) {
+            var graph = entry.getValue();
+            if (dumpGraphs && pipeline.inline()) {
+                Dump.dumpGraph(graph, "after-inline");
+            }
+
+            Optimization.optimize(graph, translation.nodeAstTypes(), translation.methodReferences(), pipeline, dumpGraphs,
+                    this.timings, this.statistics, entry.getKey().getLinkerName());
+
+            if (dumpGraphs) {
+                Dump.dumpGraph(graph, "after-opt");
             }
         }
 
@@ -934,7 +1054,5 @@ public class Translation {
                 st.finishLayout();
             }
         }
-
-        return translation;
     }
 }
@@ -0,0 +1,39 @@
+package compiler.ast;
+
+/**
+ * Hands out the ids of AST nodes.
+ * <p>
+ * Every parse numbers its nodes with a fresh allocator starting at zero, so that side tables indexed by id
+ * are as small as the program, no matter how many programs the process has parsed before.
+ * The allocator is bound to the parsing thread, because nodes are created all over the parser
+ * and concurrent parses on other threads must not share it.
+ */
+public final class AstIdAllocator {
+
+    private static final ThreadLocal<AstIdAllocator> CURRENT = ThreadLocal.withInitial(AstIdAllocator::new);
+
+    private int nextId;
+
+    private AstIdAllocator() {
+        this.nextId = 0;
+    }
+
+    /**
+     * Makes the nodes created by the current thread from now on start again at id zero.
+     */
+    public static void begin() {
+        CURRENT.set(new AstIdAllocator());
+    }
+
+    static int allocate() {
+        var allocator = CURRENT.get();
+        return allocator.nextId++;
+    }
+
+    /**
+     * @return An upper bound of the ids of all nodes created by the current thread since the last begin.
+     */
+    static int currentIdBound() {
+        return CURRENT.get().nextId;
+    }
+}
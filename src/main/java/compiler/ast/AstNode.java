@@ -12,11 +12,8 @@ public abstract sealed class AstNode implements HasSpan
     protected boolean isError;
     private final int id;
 
-    private static int next_id = 1;
-
     protected AstNode() {
-        this.id = next_id;
-        next_id += 1;
+        this.id = AstIdAllocator.allocate();
     }
 
     public int getID() {
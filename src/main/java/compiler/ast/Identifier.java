@@ -5,6 +5,8 @@ import compiler.syntax.TokenType;
 
 public final class Identifier extends AstNode {
     private final String content;
+    // The id of the name in the identifier pool of the lexer or -1, if the name isn't pooled.
+    private final int nameId;
 
     public Identifier(Token identifier) {
         super();
@@ -13,8 +15,10 @@ public final class Identifier extends AstNode {
             setSpan(identifier);
             assert identifier.type == TokenType.Identifier;
             this.content = identifier.getIdentContent();
+            this.nameId = identifier.getIdentId();
         } else {
             this.content = null;
+            this.nameId = -1;
         }
     }
 
@@ -22,6 +26,14 @@ public final class Identifier extends AstNode {
         return content;
     }
 
+    /**
+     * @return The id of the name in the identifier pool of the lexer. Identifiers with the same name have the same id,
+     * if they were lexed by the same lexer.
+     */
+    public int getNameId() {
+        return nameId;
+    }
+
     @Override
     public boolean syntacticEq(AstNode otherAst) {
         return otherAst instanceof Identifier otherIdent && otherIdent.content.equals(this.content);
@@ -23,6 +23,6 @@ public final class NewObjectExpression extends Expression {
         if (!(otherAst instanceof NewObjectExpression other)) {
             return false;
         }
-        return this.typeIdentifier.equals(other.typeIdentifier);
+        return this.typeIdentifier.syntacticEq(other.typeIdentifier);
     }
 }
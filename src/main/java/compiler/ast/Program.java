@@ -10,6 +10,7 @@ import java.util.Objects;
 public final class Program extends AstNode {
 
     private final List<Class> classes;
+    private final int idBound;
 
     public Program(List<Class> classes) {
         super();
@@ -18,12 +19,21 @@ public final class Program extends AstNode {
         setSpan(new ListWrapper(classes));
 
         this.classes = classes;
+        // The program is created after all its nodes.
+        this.idBound = AstIdAllocator.currentIdBound();
     }
 
     public List<Class> getClasses() {
         return classes;
     }
 
+    /**
+     * @return An upper bound of the ids of all nodes in this program, which is used to size side tables.
+     */
+    public int getIdBound() {
+        return this.idBound;
+    }
+
     @Override
     public boolean syntacticEq(AstNode otherAst) {
         if (!(otherAst instanceof Program other)) {
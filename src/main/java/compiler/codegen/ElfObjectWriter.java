@@ -0,0 +1,227 @@
+package compiler.codegen;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Writes an ELF64 relocatable object for x86-64 with a single text section.
+ * <p>
+ * Every function is a global symbol in the text section. Calls are relocated against the called symbol with
+ * R_X86_64_PLT32, called symbols which are not defined in the object, like the runtime, are undefined globals.
+ */
+public class ElfObjectWriter {
+
+    /**
+     * A function defined in the text section.
+     */
+    public record Function(String name, int offset, int size) {
+    }
+
+    /**
+     * The 32 bit displacement of a call at the offset in the text section, which points to the symbol.
+     */
+    public record CallRelocation(int offset, String symbol) {
+    }
+
+    private static final int HEADER_SIZE = 64;
+    private static final int SECTION_HEADER_SIZE = 64;
+    private static final int SYMBOL_SIZE = 24;
+    private static final int RELOCATION_SIZE = 24;
+
+    private static final int SHT_PROGBITS = 1;
+    private static final int SHT_SYMTAB = 2;
+    private static final int SHT_STRTAB = 3;
+    private static final int SHT_RELA = 4;
+
+    private static final int SHF_ALLOC = 0x2;
+    private static final int SHF_EXECINSTR = 0x4;
+    private static final int SHF_INFO_LINK = 0x40;
+
+    private static final int STB_LOCAL = 0;
+    private static final int STB_GLOBAL = 1;
+    private static final int STT_NOTYPE = 0;
+    private static final int STT_FUNC = 2;
+    private static final int STT_SECTION = 3;
+
+    private static final int R_X86_64_PLT32 = 4;
+
+    // The section header indices, 0 is the null section, 2 is .rela.text and 6 is .note.GNU-stack.
+    private static final int TEXT = 1;
+    private static final int SYMTAB = 3;
+    private static final int STRTAB = 4;
+    private static final int SHSTRTAB = 5;
+    private static final int SECTION_COUNT = 7;
+
+    // The null symbol and the section symbol of the text section are the only local symbols.
+    private static final int FIRST_GLOBAL_SYMBOL = 2;
+
+    private final byte[] text;
+    private final List<Function> functions;
+    private final List<CallRelocation> relocations;
+
+    public ElfObjectWriter(byte[] text, List<Function> functions, List<CallRelocation> relocations) {
+        this.text = text;
+        this.functions = functions;
+        this.relocations = relocations;
+    }
+
+    /**
+     * A string table, which starts with the empty string.
+     */
+    private static class StringTable {
+        private final LinkedHashMap<String, Integer> offsets = new LinkedHashMap<>();
+        private int size = 1;
+
+        int add(String string) {
+            var offset = this.offsets.get(string);
+            if (offset == null) {
+                offset = this.size;
+                this.offsets.put(string, offset);
+                this.size += string.getBytes(StandardCharsets.UTF_8).length + 1;
+            }
+            return offset;
+        }
+
+        byte[] toByteArray() {
+            var buffer = ByteBuffer.allocate(this.size);
+            buffer.put((byte) 0);
+            for (var string : this.offsets.keySet()) {
+                buffer.put(string.getBytes(StandardCharsets.UTF_8));
+                buffer.put((byte) 0);
+            }
+            return buffer.array();
+        }
+    }
+
+    private static int align(int offset, int alignment) {
+        return (offset + alignment - 1) & -alignment;
+    }
+
+    public byte[] toByteArray() {
+        var strings = new StringTable();
+        var sectionNames = new StringTable();
+
+        // Defined functions come first, undefined symbols are added in the order of their first call.
+        var symbolIndices = new LinkedHashMap<String, Integer>();
+        for (var function : this.functions) {
+            symbolIndices.put(function.name(), FIRST_GLOBAL_SYMBOL + symbolIndices.size());
+        }
+        var undefinedSymbols = new ArrayList<String>();
+        for (var relocation : this.relocations) {
+            if (!symbolIndices.containsKey(relocation.symbol())) {
+                symbolIndices.put(relocation.symbol(), FIRST_GLOBAL_SYMBOL + symbolIndices.size());
+                undefinedSymbols.add(relocation.symbol());
+            }
+        }
+        var symbolCount = FIRST_GLOBAL_SYMBOL + symbolIndices.size();
+
+        var symbols = ByteBuffer.allocate(symbolCount * SYMBOL_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        putSymbol(symbols, 0, 0, 0, 0, 0);
+        putSymbol(symbols, 0, STT_SECTION | (STB_LOCAL << 4), TEXT, 0, 0);
+        for (var function : this.functions) {
+            putSymbol(symbols, strings.add(function.name()), STT_FUNC | (STB_GLOBAL << 4), TEXT, function.offset(), function.size());
+        }
+        for (var symbol : undefinedSymbols) {
+            putSymbol(symbols, strings.add(symbol), STT_NOTYPE | (STB_GLOBAL << 4), 0, 0, 0);
+        }
+
+        var relocationEntries = ByteBuffer.allocate(this.relocations.size() * RELOCATION_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        for (var relocation : this.relocations) {
+            relocationEntries.putLong(relocation.offset());
+            relocationEntries.putLong(((long) symbolIndices.get(relocation.symbol()) << 32) | R_X86_64_PLT32);
+            // The displacement is relative to the end of the call, 4 bytes after the relocated field.
+            relocationEntries.putLong(-4);
+        }
+
+        var textName = sectionNames.add(".text");
+        var relaTextName = sectionNames.add(".rela.text");
+        var symtabName = sectionNames.add(".symtab");
+        var strtabName = sectionNames.add(".strtab");
+        var shstrtabName = sectionNames.add(".shstrtab");
+        // Marks the stack as not executable.
+        var noteGnuStackName = sectionNames.add(".note.GNU-stack");
+
+        var stringBytes = strings.toByteArray();
+        var sectionNameBytes = sectionNames.toByteArray();
+
+        var textOffset = HEADER_SIZE;
+        var relaTextOffset = align(textOffset + this.text.length, 8);
+        var symtabOffset = relaTextOffset + relocationEntries.capacity();
+        var strtabOffset = symtabOffset + symbols.capacity();
+        var shstrtabOffset = strtabOffset + stringBytes.length;
+        var sectionHeadersOffset = align(shstrtabOffset + sectionNameBytes.length, 8);
+        var fileSize = sectionHeadersOffset + SECTION_COUNT * SECTION_HEADER_SIZE;
+
+        var file = ByteBuffer.allocate(fileSize).order(ByteOrder.LITTLE_ENDIAN);
+
+        // e_ident: magic, 64 bit, little endian, version 1, System V ABI
+        file.put(new byte[]{0x7f, 'E', 'L', 'F', 2, 1, 1, 0, 0, 0, 0, 0, 0, 0, 0, 0});
+        file.putShort((short) 1); // e_type: relocatable
+        file.putShort((short) 62); // e_machine: x86-64
+        file.putInt(1); // e_version
+        file.putLong(0); // e_entry
+        file.putLong(0); // e_phoff
+        file.putLong(sectionHeadersOffset); // e_shoff
+        file.putInt(0); // e_flags
+        file.putShort((short) HEADER_SIZE); // e_ehsize
+        file.putShort((short) 0); // e_phentsize
+        file.putShort((short) 0); // e_phnum
+        file.putShort((short) SECTION_HEADER_SIZE); // e_shentsize
+        file.putShort((short) SECTION_COUNT); // e_shnum
+        file.putShort((short) SHSTRTAB); // e_shstrndx
+
+        file.put(textOffset, this.text);
+        file.put(relaTextOffset, relocationEntries.array());
+        file.put(symtabOffset, symbols.array());
+        file.put(strtabOffset, stringBytes);
+        file.put(shstrtabOffset, sectionNameBytes);
+
+        file.position(sectionHeadersOffset);
+        putSectionHeader(file, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+        putSectionHeader(file, textName, SHT_PROGBITS, SHF_ALLOC | SHF_EXECINSTR, textOffset, this.text.length,
+                0, 0, 16, 0);
+        putSectionHeader(file, relaTextName, SHT_RELA, SHF_INFO_LINK, relaTextOffset, relocationEntries.capacity(),
+                SYMTAB, TEXT, 8, RELOCATION_SIZE);
+        putSectionHeader(file, symtabName, SHT_SYMTAB, 0, symtabOffset, symbols.capacity(),
+                STRTAB, FIRST_GLOBAL_SYMBOL, 8, SYMBOL_SIZE);
+        putSectionHeader(file, strtabName, SHT_STRTAB, 0, strtabOffset, stringBytes.length, 0, 0, 1, 0);
+        putSectionHeader(file, shstrtabName, SHT_STRTAB, 0, shstrtabOffset, sectionNameBytes.length, 0, 0, 1, 0);
+        putSectionHeader(file, noteGnuStackName, SHT_PROGBITS, 0, shstrtabOffset, 0, 0, 0, 1, 0);
+
+        return file.array();
+    }
+
+    public void write(File objectFile) throws IOException {
+        Files.write(objectFile.toPath(), this.toByteArray());
+    }
+
+    private static void putSymbol(ByteBuffer buffer, int name, int info, int section, long value, long size) {
+        buffer.putInt(name);
+        buffer.put((byte) info);
+        buffer.put((byte) 0); // st_other: default visibility
+        buffer.putShort((short) section);
+        buffer.putLong(value);
+        buffer.putLong(size);
+    }
+
+    private static void putSectionHeader(ByteBuffer buffer, int name, int type, long flags, long offset, long size,
+                                         int link, int info, long alignment, long entrySize) {
+        buffer.putInt(name);
+        buffer.putInt(type);
+        buffer.putLong(flags);
+        buffer.putLong(0); // sh_addr
+        buffer.putLong(offset);
+        buffer.putLong(size);
+        buffer.putInt(link);
+        buffer.putInt(info);
+        buffer.putLong(alignment);
+        buffer.putLong(entrySize);
+    }
+}
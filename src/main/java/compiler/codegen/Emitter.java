@@ -4,24 +4,49 @@ import compiler.codegen.sir.BasicBlock;
 import compiler.codegen.sir.SirGraph;
 import compiler.codegen.sir.instructions.*;
 
-import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.util.List;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
+/**
+ * Writes the assembly of each function to the channel as soon as it is emitted, so that only the assembly of a
+ * single function is kept in memory.
+ * <p>
+ * The operands are formatted by hand directly into a byte buffer, which is reused for every function.
+ * Assembly is plain ASCII, so every char is written as one byte.
+ */
 public class Emitter {
 
-    private StringBuilder builder;
-    private String currenFuncName;
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
 
+    private final WritableByteChannel channel;
+    private final ByteBuffer output;
+
+    // The assembly of the current function.
+    private byte[] function;
+    private int functionLength;
+
+    // Room for the digits of Long.MIN_VALUE.
+    private final byte[] digits;
+
+    private String currentFuncName;
     private SirGraph graph;
 
-    public Emitter() {
-        this.builder = new StringBuilder();
+    public Emitter(WritableByteChannel channel) throws IOException {
+        this.channel = channel;
+        this.output = ByteBuffer.allocateDirect(OUTPUT_BUFFER_SIZE);
+        this.function = new byte[OUTPUT_BUFFER_SIZE];
+        this.functionLength = 0;
+        this.digits = new byte[20];
+
         this.append(".text\n\n");
+        this.writeFunction();
     }
 
-    public void emitFunction(String linkerName, SirGraph graph) {
+    public void emitFunction(String linkerName, SirGraph graph) throws IOException {
+        this.functionLength = 0;
         this.graph = graph;
 
         this.beginFunction(linkerName);
@@ -34,154 +59,244 @@ public class Emitter {
                 this.emitInstruction(insn, blockIdx);
             }
         }
+
+        this.writeFunction();
+    }
+
+    /**
+     * @return The assembly of the last emitted function, which can be reused with appendFunction.
+     */
+    public String getFunctionAssembly() {
+        return new String(this.function, 0, this.functionLength, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Appends the assembly of a function, which was emitted by an earlier compilation.
+     */
+    public void appendFunction(String assembly) throws IOException {
+        this.functionLength = 0;
+        this.append(assembly);
+        this.writeFunction();
+    }
+
+    /**
+     * Writes all buffered assembly to the channel.
+     */
+    public void flush() throws IOException {
+        this.output.flip();
+        while (this.output.hasRemaining()) {
+            this.channel.write(this.output);
+        }
+        this.output.clear();
+    }
+
+    private void writeFunction() throws IOException {
+        var offset = 0;
+        while (offset < this.functionLength) {
+            if (!this.output.hasRemaining()) {
+                this.flush();
+            }
+            var length = Math.min(this.functionLength - offset, this.output.remaining());
+            this.output.put(this.function, offset, length);
+            offset += length;
+        }
+    }
+
+    private void append(char c) {
+        if (this.functionLength == this.function.length) {
+            this.function = Arrays.copyOf(this.function, this.function.length * 2);
+        }
+        this.function[this.functionLength++] = (byte) c;
     }
 
     private void append(String string) {
-        this.builder.append(string);
-        this.builder.append("\n");
+        for (int i = 0; i < string.length(); i++) {
+            this.append(string.charAt(i));
+        }
+    }
+
+    private void append(long value) {
+        if (value == Long.MIN_VALUE) {
+            this.append("-9223372036854775808");
+            return;
+        }
+        if (value < 0) {
+            this.append('-');
+            value = -value;
+        }
+
+        var count = 0;
+        do {
+            this.digits[count++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+
+        while (count > 0) {
+            this.append((char) this.digits[--count]);
+        }
+    }
+
+    /**
+     * Formats the operand like {@link Operand#formatATTSyntax()}.
+     */
+    private void append(Operand operand) {
+        switch (operand) {
+            case Register register -> {
+                this.append('%');
+                this.append(register.getName());
+            }
+            case Constant constant -> {
+                this.append('$');
+                this.append(constant.getValue());
+            }
+            case MemoryLocation location -> {
+                var base = location.getBaseRegister();
+                var index = location.getIndex();
+
+                if (index.isEmpty() && base.isEmpty()) {
+                    this.append(location.getConstant());
+                    return;
+                }
+
+                if (location.getConstant() != 0) {
+                    this.append(location.getConstant());
+                }
+                this.append('(');
+                if (base.isPresent()) {
+                    this.append('%');
+                    this.append(base.get().getName());
+                }
+                if (index.isPresent()) {
+                    this.append(",%");
+                    this.append(index.get().getName());
+                }
+                if (location.getScale() > 1) {
+                    this.append(',');
+                    this.append(location.getScale());
+                }
+                this.append(')');
+            }
+        }
+    }
+
+    private void appendLabel(BasicBlock block) {
+        this.append(this.currentFuncName);
+        this.append(block.getLabel());
+    }
+
+    /**
+     * Appends a tab indented instruction: mnemonic operand
+     */
+    private void appendInstruction(String mnemonic, Operand operand) {
+        this.append('\t');
+        this.append(mnemonic);
+        this.append(' ');
+        this.append(operand);
+        this.append('\n');
     }
 
-    private String makeLabel(BasicBlock block) {
-        return currenFuncName + block.getLabel();
+    /**
+     * Appends a tab indented instruction: mnemonic first, second
+     */
+    private void appendInstruction(String mnemonic, Operand first, Operand second) {
+        this.append('\t');
+        this.append(mnemonic);
+        this.append(' ');
+        this.append(first);
+        this.append(", ");
+        this.append(second);
+        this.append('\n');
     }
 
-    public void beginFunction(String name) {
-        this.append(String.format(".globl\t%s", name));
-        this.append(String.format(".type\t%s, @function", name));
-        this.append(name +  ":");
+    private void appendJump(String mnemonic, BasicBlock target) {
+        this.append('\t');
+        this.append(mnemonic);
+        this.append(' ');
+        this.appendLabel(target);
+        this.append('\n');
+    }
+
+    private void beginFunction(String name) {
+        this.append(".globl\t");
+        this.append(name);
+        this.append("\n.type\t");
+        this.append(name);
+        this.append(", @function\n");
+        this.append(name);
+        this.append(":\n");
 
-        this.currenFuncName = name;
+        this.currentFuncName = name;
     }
 
-    public void beginBlock(BasicBlock block) {
-        this.append(makeLabel(block) + ":");
+    private void beginBlock(BasicBlock block) {
+        this.appendLabel(block);
+        this.append(":\n");
     }
 
-    private String movWidthSuffix(Register.Width width) {
+    private static String movMnemonic(Register.Width width) {
         return switch (width) {
-            case BIT8 -> "b";
-            case BIT32 -> "l";
-            case BIT64 -> "q";
+            case BIT8 -> "movb";
+            case BIT32 -> "movl";
+            case BIT64 -> "movq";
         };
     }
 
-    public void emitInstruction(Instruction instruction, int blockIdx) {
-        String asm;
+    private void emitInstruction(Instruction instruction, int blockIdx) {
         switch (instruction) {
-            case AddInstruction insn -> {
-                asm = String.format("\tadd %s, %s",
-                        insn.getRhs().formatATTSyntax(), insn.getLhs().formatATTSyntax());
-            }
-            case AllocCallInstruction insn -> {
-                asm = String.format("\tcall %s", "__builtin_alloc_function__");
-            }
+            // AT&T reverses operands...
+            case AddInstruction insn -> this.appendInstruction("add", insn.getRhs(), insn.getLhs());
+            case AllocCallInstruction insn -> this.append("\tcall __builtin_alloc_function__\n");
             case BranchInstruction insn -> {
-                var nextBlock = this.graph.getBlocks().get(blockIdx + 1);
+                var blocks = this.graph.getBlocks();
+                var nextBlock = blockIdx + 1 < blocks.size() ? blocks.get(blockIdx + 1) : null;
 
-                if (nextBlock != null && nextBlock.equals(insn.getTrueBlock())) {
+                if (insn.getTrueBlock().equals(nextBlock)) {
                     insn.setPredicate(insn.getPredicate().invert());
                     var tmp = insn.getFalseBlock();
                     insn.setFalseBlock(insn.getTrueBlock());
                     insn.setTrueBlock(tmp);
                 }
 
-                asm = String.format("\tj%s %s",
-                        insn.getPredicate().getSuffix(),
-                        makeLabel(insn.getTrueBlock()));
+                this.append("\tj");
+                this.append(insn.getPredicate().getSuffix());
+                this.append(' ');
+                this.appendLabel(insn.getTrueBlock());
+                this.append('\n');
 
-                if (nextBlock == null || !nextBlock.equals(insn.getFalseBlock())) {
-                    asm += String.format("\n\tjmp %s", makeLabel(insn.getFalseBlock()));
+                if (!insn.getFalseBlock().equals(nextBlock)) {
+                    this.appendJump("jmp", insn.getFalseBlock());
                 }
             }
-            case CmpInstruction insn -> {
-                // AT&T reverses operands...
-                asm = String.format("\tcmp %s, %s",
-                        insn.getRhs().formatATTSyntax(),
-                        insn.getLhs().formatATTSyntax());
-            }
-            case DivInstruction insn -> {
-                asm = String.format("\tidiv %s", insn.getDivisor().formatATTSyntax());
-            }
-            case JumpInstruction insn -> {
-                asm = String.format("\tjmp %s",
-                        makeLabel(insn.getTarget()));
-            }
-            case LeaveInstruction insn -> {
-                asm = "\tleave";
-            }
+            case CmpInstruction insn -> this.appendInstruction("cmp", insn.getRhs(), insn.getLhs());
+            case DivInstruction insn -> this.appendInstruction("idiv", insn.getDivisor());
+            case JumpInstruction insn -> this.appendJump("jmp", insn.getTarget());
+            case LeaveInstruction insn -> this.append("\tleave\n");
             case MethodCallInstruction insn -> {
-                asm = String.format("\tcall %s", insn.getMethod().getLinkerName());
-            }
-            case MovInstruction insn -> {
-                asm = String.format("\tmov%s %s, %s",
-                        movWidthSuffix(insn.getWidth()),
-                        insn.getSource().formatATTSyntax(),
-                        insn.getDestination().formatATTSyntax());
-
-            }
-            case MovSignExtendInstruction insn -> {
-                asm = String.format("\tmovsx %s, %s",
-                        insn.getInput().formatATTSyntax(),
-                        insn.getTarget().formatATTSyntax());
-            }
-            case MulInstruction insn -> {
-                // We use mul here as molki always uses 64 bits >:(
-                // For the AssemblyEmitter this should be mull
-                asm = String.format("\timul %s, %s",
-                        insn.getRhs().formatATTSyntax(),
-                        insn.getLhs().formatATTSyntax());
-            }
-            case PopInstruction insn -> {
-                asm = String.format("\tpop %s",
-                        insn.getRegister().formatATTSyntax());
-            }
-            case PushInstruction insn -> {
-                asm = String.format("\tpush %s",
-                        insn.getRegister().formatATTSyntax());
-            }
-            case ReturnInstruction insn -> {
-                asm = "\tret";
-            }
-            case SubInstruction insn -> {
-                asm = String.format("\tsub %s, %s",
-                        insn.getRhs().formatATTSyntax(),
-                        insn.getLhs().formatATTSyntax());
-            }
-            case XorInstruction insn -> {
-                asm = String.format("\txor %s, %s",
-                        insn.getRhs().formatATTSyntax(),
-                        insn.getLhs().formatATTSyntax());
-
-            }
-            case AndInstruction insn -> {
-                asm = String.format("\tand %s, %s",
-                        insn.getRhs().formatATTSyntax(),
-                        insn.getLhs().formatATTSyntax());
+                this.append("\tcall ");
+                this.append(insn.getMethod().getLinkerName());
+                this.append('\n');
             }
+            case MovInstruction insn -> this.appendInstruction(movMnemonic(insn.getWidth()), insn.getSource(), insn.getDestination());
+            case MovSignExtendInstruction insn -> this.appendInstruction("movsx", insn.getInput(), insn.getTarget());
+            // We use mul here as molki always uses 64 bits >:(
+            // For the AssemblyEmitter this should be mull
+            case MulInstruction insn -> this.appendInstruction("imul", insn.getRhs(), insn.getLhs());
+            case PopInstruction insn -> this.appendInstruction("pop", insn.getRegister());
+            case PushInstruction insn -> this.appendInstruction("push", insn.getRegister());
+            case ReturnInstruction insn -> this.append("\tret\n");
+            case SubInstruction insn -> this.appendInstruction("sub", insn.getRhs(), insn.getLhs());
+            case XorInstruction insn -> this.appendInstruction("xor", insn.getRhs(), insn.getLhs());
+            case AndInstruction insn -> this.appendInstruction("and", insn.getRhs(), insn.getLhs());
             case ConvertDoubleToQuadInstruction insn -> {
                 assert insn.getTarget().equals(HardwareRegister.EDX);
                 assert insn.getDoubleWord().equals(HardwareRegister.EAX);
-                asm = "\tcdq";
-            }
-            case LoadEffectiveAddressInstruction lea -> {
-                asm = String.format("\tlea %s, %s", lea.getLoc().formatATTSyntax(), lea.getTarget().formatATTSyntax());
-            }
-            case ShiftLeftInstruction shl -> {
-                asm = String.format("\tshl %s, %s", shl.getRhs().formatATTSyntax(), shl.getLhs().formatATTSyntax());
-            }
-            case ShiftRightInstruction shr -> {
-                asm = String.format("\tshr %s, %s", shr.getRhs().formatATTSyntax(), shr.getLhs().formatATTSyntax());
-            }
-            case ArithmeticShiftRightInstruction sal -> {
-                asm = String.format("\tsar %s, %s", sal.getRhs().formatATTSyntax(), sal.getLhs().formatATTSyntax());
+                this.append("\tcdq\n");
             }
+            case LoadEffectiveAddressInstruction lea -> this.appendInstruction("lea", lea.getLoc(), lea.getTarget());
+            case ShiftLeftInstruction shl -> this.appendInstruction("shl", shl.getRhs(), shl.getLhs());
+            case ShiftRightInstruction shr -> this.appendInstruction("shr", shr.getRhs(), shr.getLhs());
+            case ArithmeticShiftRightInstruction sar -> this.appendInstruction("sar", sar.getRhs(), sar.getLhs());
             default -> throw new IllegalArgumentException("Instruction not emitable: " + instruction);
         }
-
-        this.append(asm);
-    }
-
-    public void write(File asmFile) throws IOException {
-        Files.write(asmFile.toPath(), List.of(builder.toString()));
     }
 }
@@ -1,5 +1,6 @@
 package compiler.codegen;
 
+import compiler.PassTimings;
 import compiler.TranslationResult;
 import compiler.codegen.llir.*;
 import compiler.codegen.llir.nodes.*;
@@ -314,28 +315,53 @@ public class FirmToLlir implements NodeVisitor {
     ){}
 
     public static LoweringResult lowerFirm(TranslationResult translationResult, boolean dump, boolean optimize) {
-        // TODO: replace with own lowering
-        Util.lowerSels();
+        return lowerFirm(translationResult, dump, optimize, PassTimings.DISABLED);
+    }
 
+    public static LoweringResult lowerFirm(TranslationResult translationResult, boolean dump, boolean optimize, PassTimings timings) {
         HashMap<DefinedMethod, LlirGraph> methodLlirGraphs = new HashMap<>();
         HashMap<DefinedMethod, List<VirtualRegister>> methodParameters = new HashMap<>();
 
-        for (var method : translationResult.methodGraphs().keySet()) {
+        lowerFirm(translationResult, translationResult.methodGraphs().keySet(), dump, optimize, timings,
+                (method, llirGraph, parameters) -> {
+                    methodLlirGraphs.put(method, llirGraph);
+                    methodParameters.put(method, parameters);
+                });
+
+        return new LoweringResult(methodLlirGraphs, methodParameters);
+    }
+
+    public interface LoweredMethodConsumer {
+        void accept(DefinedMethod method, LlirGraph llirGraph, List<VirtualRegister> parameters);
+    }
+
+    /**
+     * Lowers the graphs of the methods in the given order and passes each of them to the consumer right after it has
+     * been lowered. The LLIR graph doesn't reference FIRM, so the consumer may hand it to another thread, while this
+     * thread lowers the next method.
+     */
+    public static void lowerFirm(TranslationResult translationResult, Collection<DefinedMethod> methods, boolean dump,
+                                 boolean optimize, PassTimings timings, LoweredMethodConsumer consumer) {
+        // TODO: replace with own lowering
+        var selTimer = timings.start("lower-sels");
+        Util.lowerSels();
+        selTimer.stop();
+
+        for (var method : methods) {
                 var graph = translationResult.methodGraphs().get(method);
 
                 if (dump) {
                     Dump.dumpGraph(graph, "before-lowering-to-llir");
                 }
 
+                var timer = timings.start("lowering", method.getLinkerName(), () -> FirmUtils.countNodes(graph));
                 BackEdges.enable(graph);
                 FirmToLlir f = optimize ? new InstructionSelection(method, graph, translationResult) : new FirmToLlir(method, graph, translationResult);
                 f.lower();
+                timer.stop(f.llirGraph::countNodes);
 
-                methodLlirGraphs.put(method, f.llirGraph);
-                methodParameters.put(method, f.methodParameters);
+                consumer.accept(method, f.llirGraph, f.methodParameters);
         }
-
-        return new LoweringResult(methodLlirGraphs, methodParameters);
     }
 
     protected void registerLlirNode(Node firmNode, LlirNode llirNode, SideEffect sideEffect) {
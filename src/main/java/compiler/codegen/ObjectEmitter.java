@@ -0,0 +1,125 @@
+package compiler.codegen;
+
+import compiler.codegen.sir.BasicBlock;
+import compiler.codegen.sir.SirGraph;
+import compiler.codegen.sir.instructions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Emits the functions as machine code into an ELF relocatable object, so that no assembler is needed.
+ * The object contains the same functions as the assembly of the Emitter and is linked with the runtime in the same way.
+ */
+public class ObjectEmitter {
+
+    private record BlockFixup(int displacementOffset, BasicBlock target) {
+    }
+
+    private final X86Encoder encoder;
+    private final List<ElfObjectWriter.Function> functions;
+    private final List<ElfObjectWriter.CallRelocation> relocations;
+
+    private SirGraph graph;
+    private Map<BasicBlock, Integer> blockOffsets;
+    private List<BlockFixup> blockFixups;
+
+    public ObjectEmitter() {
+        this.encoder = new X86Encoder();
+        this.functions = new ArrayList<>();
+        this.relocations = new ArrayList<>();
+    }
+
+    public void emitFunction(String linkerName, SirGraph graph) {
+        var start = this.encoder.size();
+        this.graph = graph;
+        this.blockOffsets = new HashMap<>();
+        this.blockFixups = new ArrayList<>();
+
+        for (int blockIdx = 0; blockIdx < graph.getBlocks().size(); blockIdx++) {
+            var block = graph.getBlocks().get(blockIdx);
+            this.blockOffsets.put(block, this.encoder.size());
+
+            for (var insn : block.getInstructions()) {
+                this.emitInstruction(insn, blockIdx);
+            }
+        }
+
+        // Jumps only target blocks of the same function, so they are resolved without relocations.
+        for (var fixup : this.blockFixups) {
+            this.encoder.patchRel32(fixup.displacementOffset(), this.blockOffsets.get(fixup.target()));
+        }
+
+        this.functions.add(new ElfObjectWriter.Function(linkerName, start, this.encoder.size() - start));
+    }
+
+    private void jumpTo(int displacementOffset, BasicBlock target) {
+        this.blockFixups.add(new BlockFixup(displacementOffset, target));
+    }
+
+    private void call(String symbol) {
+        this.relocations.add(new ElfObjectWriter.CallRelocation(this.encoder.call(), symbol));
+    }
+
+    public void emitInstruction(Instruction instruction, int blockIdx) {
+        switch (instruction) {
+            case AddInstruction insn -> this.encoder.alu(X86Encoder.AluOperation.ADD, insn.getLhs(), insn.getRhs());
+            case AllocCallInstruction insn -> this.call("__builtin_alloc_function__");
+            case BranchInstruction insn -> {
+                var blocks = this.graph.getBlocks();
+                var nextBlock = blockIdx + 1 < blocks.size() ? blocks.get(blockIdx + 1) : null;
+
+                var predicate = insn.getPredicate();
+                var trueBlock = insn.getTrueBlock();
+                var falseBlock = insn.getFalseBlock();
+                // Fall through to the next block where possible, like the Emitter.
+                if (trueBlock.equals(nextBlock)) {
+                    predicate = predicate.invert();
+                    trueBlock = insn.getFalseBlock();
+                    falseBlock = insn.getTrueBlock();
+                }
+
+                this.jumpTo(this.encoder.jcc(predicate), trueBlock);
+                if (!falseBlock.equals(nextBlock)) {
+                    this.jumpTo(this.encoder.jmp(), falseBlock);
+                }
+            }
+            case CmpInstruction insn -> this.encoder.alu(X86Encoder.AluOperation.CMP, insn.getLhs(), insn.getRhs());
+            case DivInstruction insn -> this.encoder.idiv(insn.getDivisor());
+            case JumpInstruction insn -> this.jumpTo(this.encoder.jmp(), insn.getTarget());
+            case LeaveInstruction insn -> this.encoder.leave();
+            case MethodCallInstruction insn -> this.call(insn.getMethod().getLinkerName());
+            case MovInstruction insn -> this.encoder.mov(insn.getWidth(), insn.getDestination(), insn.getSource());
+            case MovSignExtendInstruction insn -> this.encoder.movsx(insn.getTarget(), insn.getInput());
+            case MulInstruction insn -> this.encoder.imul(insn.getLhs(), insn.getRhs());
+            case PopInstruction insn -> this.encoder.pop(insn.getRegister());
+            case PushInstruction insn -> this.encoder.push(insn.getRegister());
+            case ReturnInstruction insn -> this.encoder.ret();
+            case SubInstruction insn -> this.encoder.alu(X86Encoder.AluOperation.SUB, insn.getLhs(), insn.getRhs());
+            case XorInstruction insn -> this.encoder.alu(X86Encoder.AluOperation.XOR, insn.getLhs(), insn.getRhs());
+            case AndInstruction insn -> this.encoder.alu(X86Encoder.AluOperation.AND, insn.getLhs(), insn.getRhs());
+            case ConvertDoubleToQuadInstruction insn -> {
+                assert insn.getTarget().equals(HardwareRegister.EDX);
+                assert insn.getDoubleWord().equals(HardwareRegister.EAX);
+                this.encoder.cdq();
+            }
+            case LoadEffectiveAddressInstruction lea -> this.encoder.lea(lea.getTarget(), lea.getLoc());
+            case ShiftLeftInstruction shl -> this.encoder.shift(X86Encoder.ShiftOperation.SHL, shl.getLhs(), shl.getRhs());
+            case ShiftRightInstruction shr -> this.encoder.shift(X86Encoder.ShiftOperation.SHR, shr.getLhs(), shr.getRhs());
+            case ArithmeticShiftRightInstruction sar -> this.encoder.shift(X86Encoder.ShiftOperation.SAR, sar.getLhs(), sar.getRhs());
+            default -> throw new IllegalArgumentException("Instruction not emitable: " + instruction);
+        }
+    }
+
+    public byte[] toByteArray() {
+        return new ElfObjectWriter(this.encoder.toByteArray(), this.functions, this.relocations).toByteArray();
+    }
+
+    public void write(File objectFile) throws IOException {
+        new ElfObjectWriter(this.encoder.toByteArray(), this.functions, this.relocations).write(objectFile);
+    }
+}
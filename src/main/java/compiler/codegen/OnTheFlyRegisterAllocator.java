@@ -70,6 +70,10 @@ public class OnTheFlyRegisterAllocator {
     private final String name;
     private final boolean dumpGraphs;
 
+    // The number of values written to and read from their stack slots, for --stats.
+    private int spillCount;
+    private int reloadCount;
+
     /**
      * Hints in which hardware register(s) the virtual register will be needed.
      */
@@ -92,6 +96,17 @@ public class OnTheFlyRegisterAllocator {
 
         this.name = name;
         this.dumpGraphs = dumpGraphs;
+
+        this.spillCount = 0;
+        this.reloadCount = 0;
+    }
+
+    public int getSpillCount() {
+        return this.spillCount;
+    }
+
+    public int getReloadCount() {
+        return this.reloadCount;
     }
 
     /**
@@ -328,6 +343,7 @@ public class OnTheFlyRegisterAllocator {
             // It needs to be loaded from memory.
             var offset = this.stackSlots.get(register);
             newList.add(new MovInstruction(register.getWidth(), targetRegister, new MemoryLocation(HardwareRegister.RBP, offset)));
+            this.reloadCount += 1;
             // This value is loaded from the stack.
             // If it needs to be free'd, don't write it back again to the stack.
             this.dirty.put(register, false);
@@ -342,6 +358,7 @@ public class OnTheFlyRegisterAllocator {
         if (this.dirty.get(virtReg)) {
             var offset = this.stackSlots.get(virtReg);
             newList.add(new MovInstruction(virtReg.getWidth(), new MemoryLocation(HardwareRegister.RBP, offset), value));
+            this.spillCount += 1;
         }
         this.dirty.remove(virtReg);
     }
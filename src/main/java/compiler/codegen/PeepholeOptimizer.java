@@ -11,9 +11,15 @@ import java.util.Optional;
 
 public class PeepholeOptimizer {
     private final SirGraph graph;
+    private int substitutionCount;
 
     public PeepholeOptimizer(SirGraph graph) {
         this.graph = graph;
+        this.substitutionCount = 0;
+    }
+
+    public int getSubstitutionCount() {
+        return this.substitutionCount;
     }
 
     public void optimize() {
@@ -29,6 +35,7 @@ public class PeepholeOptimizer {
                 } else {
                     assert substitution.get().removedInstruction > 0;
                     newList.addAll(substitution.get().replacement);
+                    this.substitutionCount += 1;
                 }
 
                 i += substitution.map(value -> value.removedInstruction).orElse(1);
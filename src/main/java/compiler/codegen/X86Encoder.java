@@ -0,0 +1,428 @@
+package compiler.codegen;
+
+import java.util.Arrays;
+
+/**
+ * Encodes the x86-64 instructions used by the backend into machine code.
+ * Only hardware registers can be encoded, so the encoder runs after register allocation.
+ * <p>
+ * Operands are given in the order of the SIR: the destination, which is also the left operand, comes first.
+ * Jumps and calls are emitted with a 32 bit displacement, which is patched or relocated afterwards.
+ */
+public class X86Encoder {
+
+    public enum AluOperation {
+        ADD(0, 0x01), AND(4, 0x21), SUB(5, 0x29), XOR(6, 0x31), CMP(7, 0x39);
+
+        // The opcode extension of the immediate form (0x81 /n).
+        private final int extension;
+        // The opcode of the `op r/m, reg` form, `op reg, r/m` is the next opcode.
+        private final int opcode;
+
+        AluOperation(int extension, int opcode) {
+            this.extension = extension;
+            this.opcode = opcode;
+        }
+    }
+
+    public enum ShiftOperation {
+        SHL(4), SHR(5), SAR(7);
+
+        private final int extension;
+
+        ShiftOperation(int extension) {
+            this.extension = extension;
+        }
+    }
+
+    private static final int REX = 0x40;
+    private static final int REX_W = 0x08;
+    private static final int REX_R = 0x04;
+    private static final int REX_X = 0x02;
+    private static final int REX_B = 0x01;
+
+    private byte[] code;
+    private int size;
+
+    public X86Encoder() {
+        this.code = new byte[4096];
+        this.size = 0;
+    }
+
+    /**
+     * @return The offset of the next instruction.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(this.code, this.size);
+    }
+
+    private void ensureCapacity(int bytes) {
+        if (this.size + bytes > this.code.length) {
+            this.code = Arrays.copyOf(this.code, Math.max(this.code.length * 2, this.size + bytes));
+        }
+    }
+
+    private void emit8(int value) {
+        this.ensureCapacity(1);
+        this.code[this.size++] = (byte) value;
+    }
+
+    private void emit32(int value) {
+        this.ensureCapacity(4);
+        this.put32(this.size, value);
+        this.size += 4;
+    }
+
+    private void emit64(long value) {
+        this.emit32((int) value);
+        this.emit32((int) (value >>> 32));
+    }
+
+    private void put32(int offset, int value) {
+        this.code[offset] = (byte) value;
+        this.code[offset + 1] = (byte) (value >>> 8);
+        this.code[offset + 2] = (byte) (value >>> 16);
+        this.code[offset + 3] = (byte) (value >>> 24);
+    }
+
+    /**
+     * Lets the 32 bit displacement of a jump or call at the given offset point to the target offset.
+     */
+    public void patchRel32(int displacementOffset, int target) {
+        this.put32(displacementOffset, target - (displacementOffset + 4));
+    }
+
+    private static HardwareRegister hardwareRegister(Register register) {
+        if (register instanceof HardwareRegister hardwareRegister) {
+            return hardwareRegister;
+        }
+        throw new IllegalArgumentException("Only hardware registers can be encoded: " + register);
+    }
+
+    /**
+     * @return The number of the register in the ModR/M, SIB and REX encoding.
+     */
+    private static int number(Register register) {
+        return switch (hardwareRegister(register).getGroup()) {
+            case A -> 0;
+            case C -> 1;
+            case D -> 2;
+            case B -> 3;
+            case RSP -> 4;
+            case RBP -> 5;
+            case SI -> 6;
+            case DI -> 7;
+            case R8 -> 8;
+            case R9 -> 9;
+            case R10 -> 10;
+            case R11 -> 11;
+            case R12 -> 12;
+            case R13 -> 13;
+            case R14 -> 14;
+            case R15 -> 15;
+        };
+    }
+
+    /**
+     * Without a REX prefix the numbers of sil and dil encode ah and bh.
+     */
+    private static boolean requiresRex(Register register) {
+        var group = hardwareRegister(register).getGroup();
+        return register.getWidth() == Register.Width.BIT8 && (group == HardwareRegister.Group.SI || group == HardwareRegister.Group.DI);
+    }
+
+    private static boolean isByte(long value) {
+        return value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE;
+    }
+
+    /**
+     * @return The immediate of an instruction with the given width, which the cpu sign extends to 64 bit.
+     */
+    private static int immediate32(Register.Width width, Constant constant) {
+        var value = constant.getValue();
+        if (width == Register.Width.BIT64 && (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE)) {
+            throw new IllegalArgumentException("Immediate does not fit into 32 bit: " + value);
+        }
+        return (int) value;
+    }
+
+    private void emitOpcode(int opcode) {
+        if (opcode > 0xff) {
+            this.emit8(opcode >>> 8);
+        }
+        this.emit8(opcode & 0xff);
+    }
+
+    /**
+     * Emits the REX prefix, the opcode and the ModR/M, SIB and displacement bytes of an instruction.
+     *
+     * @param width  The operand size, 64 bit operands set REX.W.
+     * @param opcode The opcode, two byte opcodes start with 0x0f.
+     * @param reg    The register or the opcode extension in the reg field.
+     * @param rm     The register or memory location in the r/m field.
+     */
+    private void emitModRm(Register.Width width, int opcode, int reg, boolean byteRegister, Operand rm) {
+        var rex = (width == Register.Width.BIT64 ? REX_W : 0) | ((reg & 8) != 0 ? REX_R : 0);
+        var forceRex = byteRegister;
+
+        switch (rm) {
+            case Register register -> {
+                var number = number(register);
+                rex |= (number & 8) != 0 ? REX_B : 0;
+                forceRex |= requiresRex(register);
+
+                this.emitRex(rex, forceRex);
+                this.emitOpcode(opcode);
+                this.emit8(0xc0 | ((reg & 7) << 3) | (number & 7));
+            }
+            case MemoryLocation location -> {
+                var base = location.getBaseRegister().map(X86Encoder::number);
+                var index = location.getIndex().map(X86Encoder::number);
+                var displacement = location.getConstant();
+                var scale = Integer.numberOfTrailingZeros(location.getScale());
+
+                if (index.isPresent() && index.get() == 4) {
+                    throw new IllegalArgumentException("rsp can not be used as index: " + location.formatATTSyntax());
+                }
+
+                rex |= base.isPresent() && (base.get() & 8) != 0 ? REX_B : 0;
+                rex |= index.isPresent() && (index.get() & 8) != 0 ? REX_X : 0;
+                this.emitRex(rex, forceRex);
+                this.emitOpcode(opcode);
+
+                if (base.isEmpty()) {
+                    // Absolute or only indexed: mod 00 with SIB base 101 has a 32 bit displacement and no base.
+                    this.emit8(((reg & 7) << 3) | 4);
+                    this.emit8((scale << 6) | ((index.orElse(4) & 7) << 3) | 5);
+                    this.emit32(displacement);
+                    return;
+                }
+
+                // rbp and r13 as base always need a displacement, mod 00 means rip relative or no base.
+                int mod;
+                if (displacement == 0 && (base.get() & 7) != 5) {
+                    mod = 0;
+                } else if (isByte(displacement)) {
+                    mod = 1;
+                } else {
+                    mod = 2;
+                }
+
+                // rsp and r12 as base always need a SIB byte.
+                if (index.isPresent() || (base.get() & 7) == 4) {
+                    this.emit8((mod << 6) | ((reg & 7) << 3) | 4);
+                    this.emit8((scale << 6) | ((index.orElse(4) & 7) << 3) | (base.get() & 7));
+                } else {
+                    this.emit8((mod << 6) | ((reg & 7) << 3) | (base.get() & 7));
+                }
+
+                if (mod == 1) {
+                    this.emit8(displacement);
+                } else if (mod == 2) {
+                    this.emit32(displacement);
+                }
+            }
+            case Constant constant -> throw new IllegalArgumentException("Constant is not a register or memory operand: " + constant);
+        }
+    }
+
+    private void emitModRm(Register.Width width, int opcode, Register reg, Operand rm) {
+        this.emitModRm(width, opcode, number(reg), requiresRex(reg), rm);
+    }
+
+    private void emitRex(int rex, boolean forceRex) {
+        if (rex != 0 || forceRex) {
+            this.emit8(REX | rex);
+        }
+    }
+
+    /**
+     * lhs = lhs op rhs, or only the flags for cmp.
+     */
+    public void alu(AluOperation operation, Register lhs, Operand rhs) {
+        var width = lhs.getWidth();
+        var byteOperation = width == Register.Width.BIT8 ? 1 : 0;
+
+        switch (rhs) {
+            case Register register -> this.emitModRm(width, operation.opcode - byteOperation, register, lhs);
+            case MemoryLocation location -> this.emitModRm(width, operation.opcode + 2 - byteOperation, lhs, location);
+            case Constant constant -> {
+                var value = immediate32(width, constant);
+                if (width == Register.Width.BIT8) {
+                    this.emitModRm(width, 0x80, operation.extension, requiresRex(lhs), lhs);
+                    this.emit8(value);
+                } else if (isByte(value)) {
+                    this.emitModRm(width, 0x83, operation.extension, false, lhs);
+                    this.emit8(value);
+                } else {
+                    this.emitModRm(width, 0x81, operation.extension, false, lhs);
+                    this.emit32(value);
+                }
+            }
+        }
+    }
+
+    /**
+     * lhs = lhs * rhs (signed)
+     */
+    public void imul(Register lhs, Operand rhs) {
+        var width = lhs.getWidth();
+
+        if (rhs instanceof Constant constant) {
+            var value = immediate32(width, constant);
+            if (isByte(value)) {
+                this.emitModRm(width, 0x6b, lhs, lhs);
+                this.emit8(value);
+            } else {
+                this.emitModRm(width, 0x69, lhs, lhs);
+                this.emit32(value);
+            }
+        } else {
+            this.emitModRm(width, 0x0faf, lhs, rhs);
+        }
+    }
+
+    /**
+     * Signed division of edx:eax (or rdx:rax) by the divisor.
+     */
+    public void idiv(Register divisor) {
+        var width = divisor.getWidth();
+        this.emitModRm(width, width == Register.Width.BIT8 ? 0xf6 : 0xf7, 7, false, divisor);
+    }
+
+    public void mov(Register.Width width, Operand destination, Operand source) {
+        var byteOperation = width == Register.Width.BIT8 ? 1 : 0;
+
+        if (source instanceof Register register) {
+            this.emitModRm(width, 0x89 - byteOperation, register, destination);
+        } else if (source instanceof MemoryLocation location && destination instanceof Register register) {
+            this.emitModRm(width, 0x8b - byteOperation, register, location);
+        } else if (source instanceof Constant constant && destination instanceof Register register) {
+            var number = number(register);
+            var rex = (number & 8) != 0 ? REX_B : 0;
+
+            if (width == Register.Width.BIT64 && (constant.getValue() < Integer.MIN_VALUE || constant.getValue() > Integer.MAX_VALUE)) {
+                // movabs
+                this.emitRex(rex | REX_W, false);
+                this.emit8(0xb8 + (number & 7));
+                this.emit64(constant.getValue());
+            } else if (width == Register.Width.BIT64) {
+                this.emitModRm(width, 0xc7, 0, false, register);
+                this.emit32((int) constant.getValue());
+            } else if (width == Register.Width.BIT32) {
+                this.emitRex(rex, false);
+                this.emit8(0xb8 + (number & 7));
+                this.emit32((int) constant.getValue());
+            } else {
+                this.emitRex(rex, requiresRex(register));
+                this.emit8(0xb0 + (number & 7));
+                this.emit8((int) constant.getValue());
+            }
+        } else {
+            throw new IllegalArgumentException("Mov can not be encoded: " + source.formatATTSyntax() + ", " + destination.formatATTSyntax());
+        }
+    }
+
+    /**
+     * Moves the input into the wider target with sign extension.
+     */
+    public void movsx(Register target, Register input) {
+        if (input.getWidth() == Register.Width.BIT8) {
+            this.emitModRm(target.getWidth(), 0x0fbe, target, input);
+        } else if (input.getWidth() == Register.Width.BIT32 && target.getWidth() == Register.Width.BIT64) {
+            // movsxd
+            this.emitModRm(Register.Width.BIT64, 0x63, target, input);
+        } else {
+            throw new IllegalArgumentException("Movsx can not be encoded: " + input + " to " + target);
+        }
+    }
+
+    public void lea(Register target, MemoryLocation location) {
+        this.emitModRm(target.getWidth(), 0x8d, target, location);
+    }
+
+    /**
+     * lhs = lhs shift rhs, where rhs is a constant or cl.
+     */
+    public void shift(ShiftOperation operation, Register lhs, Operand rhs) {
+        var width = lhs.getWidth();
+        var byteOperation = width == Register.Width.BIT8 ? 1 : 0;
+
+        if (rhs instanceof Constant constant && constant.getValue() == 1) {
+            this.emitModRm(width, 0xd1 - byteOperation, operation.extension, false, lhs);
+        } else if (rhs instanceof Constant constant) {
+            this.emitModRm(width, 0xc1 - byteOperation, operation.extension, false, lhs);
+            this.emit8((int) constant.getValue());
+        } else if (rhs instanceof HardwareRegister register && register.equals(HardwareRegister.CL)) {
+            this.emitModRm(width, 0xd3 - byteOperation, operation.extension, false, lhs);
+        } else {
+            throw new IllegalArgumentException("Shift amount must be a constant or cl: " + rhs);
+        }
+    }
+
+    public void push(Register register) {
+        var number = number(register);
+        this.emitRex((number & 8) != 0 ? REX_B : 0, false);
+        this.emit8(0x50 + (number & 7));
+    }
+
+    public void pop(Register register) {
+        var number = number(register);
+        this.emitRex((number & 8) != 0 ? REX_B : 0, false);
+        this.emit8(0x58 + (number & 7));
+    }
+
+    public void leave() {
+        this.emit8(0xc9);
+    }
+
+    public void ret() {
+        this.emit8(0xc3);
+    }
+
+    /**
+     * Sign extends eax into edx.
+     */
+    public void cdq() {
+        this.emit8(0x99);
+    }
+
+    /**
+     * @return The offset of the displacement, which is relocated against the called function.
+     */
+    public int call() {
+        this.emit8(0xe8);
+        this.emit32(0);
+        return this.size - 4;
+    }
+
+    /**
+     * @return The offset of the displacement, which has to be patched with the target.
+     */
+    public int jmp() {
+        this.emit8(0xe9);
+        this.emit32(0);
+        return this.size - 4;
+    }
+
+    /**
+     * @return The offset of the displacement, which has to be patched with the target.
+     */
+    public int jcc(Predicate predicate) {
+        this.emit8(0x0f);
+        this.emit8(switch (predicate) {
+            case EQUAL -> 0x84;
+            case NOT_EQUAL -> 0x85;
+            case LESS_THAN -> 0x8c;
+            case GREATER_EQUAL -> 0x8d;
+            case LESS_EQUAL -> 0x8e;
+            case GREATER_THAN -> 0x8f;
+        });
+        this.emit32(0);
+        return this.size - 4;
+    }
+}
@@ -3,13 +3,15 @@ package compiler.codegen.llir;
 import compiler.codegen.VirtualRegister;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class LlirGraph {
     private BasicBlock startBlock;
 
     private VirtualRegister.Generator virtualRegGenerator;
 
-    private static int nextBasicBlockId = 0;
+    // Atomic, because multiple files may be compiled concurrently.
+    private static final AtomicInteger nextBasicBlockId = new AtomicInteger(0);
 
     public LlirGraph(VirtualRegister.Generator generator) {
         this.startBlock = newBasicBlock();
@@ -17,8 +19,7 @@ public class LlirGraph {
     }
 
     public BasicBlock newBasicBlock() {
-        var id = nextBasicBlockId;
-        nextBasicBlockId += 1;
+        var id = nextBasicBlockId.getAndIncrement();
 
         var label = String.format("BB%d", id);
 
@@ -43,6 +44,14 @@ public class LlirGraph {
         return bbs;
     }
 
+    public long countNodes() {
+        long count = 0;
+        for (var bb : this.collectAllBasicBlocks()) {
+            count += bb.getAllNodes().size();
+        }
+        return count;
+    }
+
     public VirtualRegister.Generator getVirtualRegGenerator() {
         return virtualRegGenerator;
     }
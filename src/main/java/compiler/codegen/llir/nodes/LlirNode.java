@@ -5,10 +5,12 @@ import compiler.codegen.llir.BasicBlock;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Stream;
 
 public abstract sealed class LlirNode permits CmpFromMemInstruction, CmpInstruction, ControlFlowNode, MemoryInputNode, MovStoreInstruction, RegisterNode {
-    private static long nextId = 1;
+    // Atomic, because multiple files may be compiled concurrently.
+    private static final AtomicLong nextId = new AtomicLong(1);
 
     private final long id;
 
@@ -22,8 +24,7 @@ public abstract sealed class LlirNode permits CmpFromMemInstruction, CmpInstruct
     private final List<LlirNode> scheduleDependencies;
 
     public LlirNode(BasicBlock bb) {
-        this.id = nextId;
-        nextId += 1;
+        this.id = nextId.getAndIncrement();
 
         this.scheduleDependencies = new ArrayList<>();
 
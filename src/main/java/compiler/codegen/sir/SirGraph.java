@@ -53,4 +53,12 @@ public class SirGraph {
         return this.blocks;
     }
 
+    public long countInstructions() {
+        long count = 0;
+        for (var bb : this.blocks) {
+            count += bb.getInstructions().size();
+        }
+        return count;
+    }
+
 }
@@ -1,6 +1,8 @@
 package compiler.diagnostics;
 
 import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
 
 public class CompilerMessageReporter {
     private final Source source;
@@ -12,6 +14,10 @@ public class CompilerMessageReporter {
 
     private final Colors colors;
 
+    // Set for deferred reporters, which collect messages until they are committed to their parent.
+    private final CompilerMessageReporter parent;
+    private final List<CompilerMessage> deferredMessages;
+
     public enum Colors {
         ON, AUTO, OFF
     }
@@ -24,9 +30,45 @@ public class CompilerMessageReporter {
         this.output = output;
         this.source = new Source(source);
         this.colors = colors;
+        this.parent = null;
+        this.deferredMessages = null;
+    }
+
+    private CompilerMessageReporter(CompilerMessageReporter parent) {
+        this.output = parent.output;
+        this.source = parent.source;
+        this.colors = parent.colors;
+        this.parent = parent;
+        this.deferredMessages = new ArrayList<>();
+    }
+
+    /**
+     * Creates a reporter, which only collects the messages until they are committed to this reporter.
+     * Analyses running in parallel report to deferred reporters, which are committed in a fixed order,
+     * so that the order of the messages doesn't depend on the scheduling.
+     */
+    public CompilerMessageReporter defer() {
+        return new CompilerMessageReporter(this);
+    }
+
+    /**
+     * Reports all messages collected by this deferred reporter to its parent.
+     */
+    public void commit() {
+        assert this.parent != null : "only deferred reporters can be committed";
+
+        for (var message : this.deferredMessages) {
+            this.parent.reportMessage(message);
+        }
+        this.deferredMessages.clear();
     }
 
     public void reportMessage(CompilerMessage message) {
+        if (this.deferredMessages != null) {
+            this.deferredMessages.add(message);
+            return;
+        }
+
         switch (message) {
             case CompilerError ignored -> this.errorsReported += 1;
             case CompilerWarning ignored -> this.warningsReported += 1;
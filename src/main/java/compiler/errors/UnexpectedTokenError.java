@@ -29,10 +29,7 @@ public class UnexpectedTokenError extends CompilerError {
 
         this.addPrimaryAnnotation(unexpectedToken.getSpan());
 
-        TokenSet expectedTokens = TokenSet.empty();
-        for (var e : expected) {
-            e.addToTokenSet(expectedTokens);
-        }
+        TokenSet expectedTokens = TokenSet.of(expected);
         this.addNote("Expected the following token(s): " + expectedTokens.stream().map(tty -> tty.repr).collect(Collectors.joining(", ")));
     }
 }
@@ -8,4 +8,11 @@ public abstract class AstData<T> {
     public abstract Optional<T> get(AstNode a);
 
     public abstract void set(AstNode a, T t);
+
+    /**
+     * @throws java.util.NoSuchElementException If there is no data for the node.
+     */
+    public T getOrThrow(AstNode a) {
+        return this.get(a).orElseThrow();
+    }
 }
@@ -0,0 +1,64 @@
+package compiler.semantic;
+
+import compiler.ast.AstNode;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Stores a flag per node in a byte array indexed by the node id.
+ * <p>
+ * Unlike the words of a bitset, the flags of different nodes don't share memory, so they can be set concurrently,
+ * if the array is presized with {@link compiler.ast.Program#getIdBound()}.
+ */
+public class BooleanAstData extends AstData<Boolean> {
+    private static final byte ABSENT = 0;
+    private static final byte FALSE = 1;
+    private static final byte TRUE = 2;
+
+    private byte[] values;
+
+    public BooleanAstData() {
+        this(64);
+    }
+
+    /**
+     * @param idBound The expected upper bound of the node ids, so that the array doesn't have to grow.
+     */
+    public BooleanAstData(int idBound) {
+        this.values = new byte[Math.max(idBound, 1)];
+    }
+
+    private byte getValue(AstNode a) {
+        var id = a.getID();
+        return id < this.values.length ? this.values[id] : ABSENT;
+    }
+
+    /**
+     * @return The flag of the node or false, if it was never set.
+     */
+    public boolean getBoolean(AstNode a) {
+        return this.getValue(a) == TRUE;
+    }
+
+    public void setBoolean(AstNode a, boolean value) {
+        var id = a.getID();
+
+        if (id >= this.values.length) {
+            this.values = Arrays.copyOf(this.values, Math.max(id + 1, this.values.length * 2));
+        }
+
+        this.values[id] = value ? TRUE : FALSE;
+    }
+
+    @Override
+    public Optional<Boolean> get(AstNode a) {
+        var value = this.getValue(a);
+        return value == ABSENT ? Optional.empty() : Optional.of(value == TRUE);
+    }
+
+    @Override
+    public void set(AstNode a, Boolean value) {
+        this.setBoolean(a, value);
+    }
+}
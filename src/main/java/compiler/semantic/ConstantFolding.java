@@ -6,21 +6,23 @@ import compiler.diagnostics.CompilerError;
 import compiler.diagnostics.CompilerMessageReporter;
 import compiler.diagnostics.CompilerWarning;
 import compiler.errors.ConstantError;
+import compiler.utils.CompilerThreads;
+import compiler.utils.ExpressionWalker;
 
 import java.util.Optional;
 
 @SuppressWarnings("OptionalUsedAsFieldOrParameterType")
 public class ConstantFolding {
 
-    private final AstData<Integer> constants;
+    private final IntAstData constants;
 
     private final Optional<CompilerMessageReporter> reporter;
 
     private boolean successful;
 
-    public ConstantFolding(Optional<CompilerMessageReporter> reporter) {
+    public ConstantFolding(Optional<CompilerMessageReporter> reporter, int idBound) {
         this.reporter = reporter;
-        this.constants = new SparseAstData<>();
+        this.constants = new IntAstData(idBound);
         this.successful = true;
     }
 
@@ -33,14 +35,41 @@ public class ConstantFolding {
         this.reporter.ifPresent(compilerMessageReporter -> compilerMessageReporter.reportMessage(msg));
     }
 
-    public record ConstantFoldingResult(boolean successful, AstData<Integer> constants) {
+    public record ConstantFoldingResult(boolean successful, IntAstData constants) {
+    }
+
+    private ConstantFolding(Optional<CompilerMessageReporter> reporter, IntAstData constants) {
+        this.reporter = reporter;
+        this.constants = constants;
+        this.successful = true;
     }
 
     public static ConstantFoldingResult performConstantFolding(Program program, Optional<CompilerMessageReporter> reporter) {
-        ConstantFolding folder = new ConstantFolding(reporter);
+        return performConstantFolding(program, reporter, false);
+    }
 
-        for (Class klass : program.getClasses()) {
-            for (Method method : klass.getMethods()) {
+    /**
+     * @param parallel Fold the method bodies in parallel.
+     */
+    public static ConstantFoldingResult performConstantFolding(Program program, Optional<CompilerMessageReporter> reporter, boolean parallel) {
+        ConstantFolding folder = new ConstantFolding(reporter, program.getIdBound());
+
+        var methods = program.getClasses().stream().flatMap(klass -> klass.getMethods().stream()).toList();
+
+        if (parallel) {
+            var workers = CompilerThreads.mapInParallel(methods, method -> {
+                var worker = new ConstantFolding(reporter.map(CompilerMessageReporter::defer), folder.constants);
+                worker.contantFoldStatement(method.getBody());
+                return worker;
+            });
+
+            // Report in program order, so that the messages are the same as when folding sequentially.
+            for (var worker : workers) {
+                worker.reporter.ifPresent(CompilerMessageReporter::commit);
+                folder.successful &= worker.successful;
+            }
+        } else {
+            for (Method method : methods) {
                 folder.contantFoldStatement(method.getBody());
             }
         }
@@ -68,23 +97,25 @@ public class ConstantFolding {
         }
     }
 
-    @SuppressWarnings("DuplicateBranchesInSwitch")
     public void constantFoldExpression(Expression expression) {
+        // Sub-expressions are folded before their parents.
+        ExpressionWalker.walk(expression, new ExpressionWalker.Visitor() {
+            @Override
+            public void exit(Expression expression) {
+                constantFoldSingleExpression(expression);
+            }
+        });
+    }
+
+    @SuppressWarnings("DuplicateBranchesInSwitch")
+    private void constantFoldSingleExpression(Expression expression) {
         switch (expression) {
-            case AssignmentExpression expr -> {
-                constantFoldExpression(expr.getLvalue());
-                constantFoldExpression(expr.getRvalue());
+            case AssignmentExpression ignored -> {
             }
             case BinaryOpExpression binop -> {
-                constantFoldExpression(binop.getLhs());
-                constantFoldExpression(binop.getRhs());
-
-                var lhsConstant = this.constants.get(binop.getLhs());
-                var rhsConstant = this.constants.get(binop.getRhs());
-
-                if (lhsConstant.isPresent() && rhsConstant.isPresent()) {
-                    long lhs = lhsConstant.get();
-                    long rhs = rhsConstant.get();
+                if (this.constants.has(binop.getLhs()) && this.constants.has(binop.getRhs())) {
+                    long lhs = this.constants.getInt(binop.getLhs());
+                    long rhs = this.constants.getInt(binop.getRhs());
 
                     long result = Long.MAX_VALUE;
 
@@ -112,7 +143,7 @@ public class ConstantFolding {
                     if (result != Long.MAX_VALUE) {
                         try {
                             var exactResult = Math.toIntExact(result);
-                            this.constants.set(binop, exactResult);
+                            this.constants.setInt(binop, exactResult);
                         } catch (ArithmeticException e) {
                             reportWarning(new ConstantError.ExpressionTooLarge(binop, result));
                         }
@@ -120,19 +151,16 @@ public class ConstantFolding {
                 }
             }
             case UnaryExpression unary -> {
-                constantFoldExpression(unary.getExpression());
                 switch (unary.getOperator()) {
                     case LogicalNot -> {
                     }
                     case Negate -> {
-                        var childConstant = this.constants.get(unary.getExpression());
-
-                        if (childConstant.isPresent()) {
-                            long result = childConstant.get();
+                        if (this.constants.has(unary.getExpression())) {
+                            long result = this.constants.getInt(unary.getExpression());
                             long signedResult = -result;
                             try {
                                 int exactResult = Math.toIntExact(signedResult);
-                                this.constants.set(unary, exactResult);
+                                this.constants.setInt(unary, exactResult);
                             } catch (ArithmeticException ignored) {
                                 reportWarning(new ConstantError.ExpressionTooLarge(unary, signedResult));
                             }
@@ -140,16 +168,11 @@ public class ConstantFolding {
                     }
                 }
             }
-            case MethodCallExpression methodCall -> {
-                methodCall.getTarget().ifPresent(this::constantFoldExpression);
-                methodCall.getArguments().forEach(this::constantFoldExpression);
+            case MethodCallExpression ignored -> {
             }
-            case FieldAccessExpression fieldAccess -> {
-                constantFoldExpression(fieldAccess.getTarget());
+            case FieldAccessExpression ignored -> {
             }
-            case ArrayAccessExpression arrayAccess -> {
-                constantFoldExpression(arrayAccess.getTarget());
-                constantFoldExpression(arrayAccess.getIndexExpression());
+            case ArrayAccessExpression ignored -> {
             }
             case BoolLiteral ignored -> {
             }
@@ -162,7 +185,7 @@ public class ConstantFolding {
                     }
 
                     int exactValue = Math.toIntExact(value);
-                    this.constants.set(intLit, exactValue);
+                    this.constants.setInt(intLit, exactValue);
                 } catch (NumberFormatException | ArithmeticException ignored) {
                     reportError(new ConstantError.LiteralTooLarge(intLit));
                 }
@@ -171,7 +194,8 @@ public class ConstantFolding {
             }
             case NewObjectExpression ignored -> {
             }
-            case NewArrayExpression newArray -> constantFoldExpression(newArray.getFirstDimensionSize());
+            case NewArrayExpression ignored -> {
+            }
             case Reference ignored -> {
             }
             case NullExpression ignored -> {
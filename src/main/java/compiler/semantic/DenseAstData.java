@@ -2,37 +2,55 @@ package compiler.semantic;
 
 import compiler.ast.AstNode;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 
+/**
+ * Stores the data in an array indexed by the node id.
+ * <p>
+ * If the array is presized with {@link compiler.ast.Program#getIdBound()}, the data of different nodes can be set concurrently.
+ */
 public class DenseAstData<T> extends AstData<T> {
-    private final ArrayList<T> data;
+    private Object[] data;
 
     public DenseAstData() {
-        this.data = new ArrayList<>();
+        this(16);
+    }
+
+    /**
+     * @param idBound The expected upper bound of the node ids, so that the array doesn't have to grow.
+     */
+    public DenseAstData(int idBound) {
+        this.data = new Object[Math.max(idBound, 1)];
     }
 
     public void set(AstNode a, T data) {
         var id = a.getID();
 
-        extendDataList(id + 1);
+        if (id >= this.data.length) {
+            this.data = Arrays.copyOf(this.data, Math.max(id + 1, this.data.length * 2));
+        }
 
-        this.data.set(id, data);
+        this.data[id] = data;
     }
 
-    public Optional<T> get(AstNode a) {
+    @SuppressWarnings("unchecked")
+    private T getOrNull(AstNode a) {
         var id = a.getID();
+        return id < this.data.length ? (T) this.data[id] : null;
+    }
 
-        if (id < data.size()) {
-            return Optional.ofNullable(this.data.get(id));
-        } else {
-            return Optional.empty();
-        }
+    public Optional<T> get(AstNode a) {
+        return Optional.ofNullable(this.getOrNull(a));
     }
 
-    private void extendDataList(int length) {
-        while (this.data.size() < length) {
-            this.data.add(null);
+    @Override
+    public T getOrThrow(AstNode a) {
+        var value = this.getOrNull(a);
+        if (value == null) {
+            throw new NoSuchElementException(String.format("No data for node %d", a.getID()));
         }
+        return value;
     }
 }
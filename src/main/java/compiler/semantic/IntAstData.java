@@ -0,0 +1,73 @@
+package compiler.semantic;
+
+import compiler.ast.AstNode;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+/**
+ * Stores an int per node in an array indexed by the node id, without boxing.
+ * <p>
+ * If the arrays are presized with {@link compiler.ast.Program#getIdBound()}, the data of different nodes can be set concurrently.
+ */
+public class IntAstData extends AstData<Integer> {
+    private int[] data;
+    private boolean[] present;
+
+    public IntAstData() {
+        this(16);
+    }
+
+    /**
+     * @param idBound The expected upper bound of the node ids, so that the array doesn't have to grow.
+     */
+    public IntAstData(int idBound) {
+        this.data = new int[Math.max(idBound, 1)];
+        this.present = new boolean[this.data.length];
+    }
+
+    public boolean has(AstNode a) {
+        var id = a.getID();
+        return id < this.present.length && this.present[id];
+    }
+
+    /**
+     * @throws NoSuchElementException If there is no data for the node.
+     */
+    public int getInt(AstNode a) {
+        var id = a.getID();
+        if (!this.has(a)) {
+            throw new NoSuchElementException(String.format("No data for node %d", id));
+        }
+        return this.data[id];
+    }
+
+    public void setInt(AstNode a, int value) {
+        var id = a.getID();
+
+        if (id >= this.data.length) {
+            var length = Math.max(id + 1, this.data.length * 2);
+            this.data = Arrays.copyOf(this.data, length);
+            this.present = Arrays.copyOf(this.present, length);
+        }
+
+        this.data[id] = value;
+        this.present[id] = true;
+    }
+
+    @Override
+    public Optional<Integer> get(AstNode a) {
+        return this.has(a) ? Optional.of(this.data[a.getID()]) : Optional.empty();
+    }
+
+    @Override
+    public void set(AstNode a, Integer value) {
+        this.setInt(a, value);
+    }
+
+    @Override
+    public Integer getOrThrow(AstNode a) {
+        return this.getInt(a);
+    }
+}
@@ -8,10 +8,13 @@ import compiler.semantic.resolution.DefinedMethod;
 import compiler.semantic.resolution.NameResolution;
 import compiler.types.ClassTy;
 import compiler.types.IntrinsicClassTy;
+import compiler.utils.CompilerThreads;
+import compiler.utils.ExpressionWalker;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -24,24 +27,39 @@ public class WellFormed {
 
     private final NameResolution.NameResolutionResult nameResolution;
 
-    private AstData<Integer> countedLocalVariables; // Maps method definitions to the number of local variables they contain.
-    private AstData<Boolean> isDeadStatement;
+    private final IntAstData countedLocalVariables; // Maps method definitions to the number of local variables they contain.
+    private final BooleanAstData isDeadStatement;
     boolean correct;
 
     private final Optional<CompilerMessageReporter> reporter;
 
-    private WellFormed(Optional<CompilerMessageReporter> reporter, NameResolution.NameResolutionResult nameResolution) {
+    private WellFormed(Optional<CompilerMessageReporter> reporter, NameResolution.NameResolutionResult nameResolution, int idBound) {
         this.nameResolution = nameResolution;
 
         this.inMainMethod = false;
         this.correct = true;
-        this.countedLocalVariables = new SparseAstData<>();
-        this.isDeadStatement = new SparseAstData<>();
+        this.countedLocalVariables = new IntAstData(idBound);
+        this.isDeadStatement = new BooleanAstData(idBound);
 
         this.reporter = reporter;
         mainMethod = Optional.empty();
     }
 
+    /**
+     * Creates an analysis for single methods, which shares all results with the given analysis.
+     */
+    private WellFormed(WellFormed shared, Optional<CompilerMessageReporter> reporter) {
+        this.nameResolution = shared.nameResolution;
+
+        this.inMainMethod = false;
+        this.correct = true;
+        this.countedLocalVariables = shared.countedLocalVariables;
+        this.isDeadStatement = shared.isDeadStatement;
+
+        this.reporter = reporter;
+        this.mainMethod = shared.mainMethod;
+    }
+
     private void reportWarning(CompilerMessage msg) {
         this.reporter.ifPresent(compilerMessageReporter -> compilerMessageReporter.reportMessage(msg));
     }
@@ -53,15 +71,27 @@ public class WellFormed {
 
     public record WellFormedResult(
             boolean correct,
-            AstData<Integer> variableCounts,
-            AstData<Boolean> isDeadStatement,
+            IntAstData variableCounts,
+            BooleanAstData isDeadStatement,
             DefinedMethod mainMethod
     ) {}
 
     public static WellFormedResult checkWellFormdness(Program program, NameResolution.NameResolutionResult nameResolution, Optional<CompilerMessageReporter> reporter) {
-        var analysis = new WellFormed(reporter, nameResolution);
+        return checkWellFormdness(program, nameResolution, reporter, false);
+    }
 
-        analysis.checkProgram(program);
+    /**
+     * @param parallel Check the methods in parallel.
+     */
+    public static WellFormedResult checkWellFormdness(Program program, NameResolution.NameResolutionResult nameResolution,
+                                                      Optional<CompilerMessageReporter> reporter, boolean parallel) {
+        var analysis = new WellFormed(reporter, nameResolution, program.getIdBound());
+
+        if (parallel) {
+            analysis.checkProgramInParallel();
+        } else {
+            analysis.checkProgram(program);
+        }
 
         var mainMethod = analysis.mainMethod.orElse(null);
 
@@ -88,26 +118,65 @@ public class WellFormed {
                     continue;
                 }
 
-                inMainMethod = mainMethod.map(main -> method == main).orElse(false);
-                countedLocalVariablesInCurrentMethod = 0;
+                checkMethodBody(method);
+            }
+        }
 
-                checkStatement(method.getAstMethod().getBody());
+        return correct;
+    }
 
-                this.countedLocalVariables.set(method.getAstMethod(), countedLocalVariablesInCurrentMethod);
-                inMainMethod = false;
-            }
+    private boolean checkProgramInParallel() {
+        var methods = this.nameResolution.classes().stream()
+                .flatMap(klass -> klass.getMethods().values().stream())
+                .filter(method -> method instanceof DefinedMethod)
+                .map(method -> (DefinedMethod) method)
+                .toList();
+
+        // The first main method in program order is the main method, exactly like in the sequential check.
+        this.mainMethod = methods.stream().filter(method -> isMainMethod(method.getAstMethod())).findFirst();
+
+        this.forEachMethodInParallel(methods, WellFormed::checkMethod);
+
+        if (mainMethod.isEmpty()) {
+            reportError(new MainMethodProblems.MainMethodMissing());
         }
 
+        this.forEachMethodInParallel(methods, WellFormed::checkMethodBody);
+
         return correct;
     }
 
+    private void forEachMethodInParallel(List<DefinedMethod> methods, BiConsumer<WellFormed, DefinedMethod> check) {
+        var workers = CompilerThreads.mapInParallel(methods, method -> {
+            var worker = new WellFormed(this, this.reporter.map(CompilerMessageReporter::defer));
+            check.accept(worker, method);
+            return worker;
+        });
+
+        // Report in program order, so that the messages are the same as in a sequential check.
+        for (var worker : workers) {
+            worker.reporter.ifPresent(CompilerMessageReporter::commit);
+            this.correct &= worker.correct;
+        }
+    }
+
+    private void checkMethodBody(DefinedMethod method) {
+        inMainMethod = mainMethod.map(main -> method == main).orElse(false);
+        countedLocalVariablesInCurrentMethod = 0;
+
+        checkStatement(method.getAstMethod().getBody());
+
+        this.countedLocalVariables.setInt(method.getAstMethod(), countedLocalVariablesInCurrentMethod);
+        inMainMethod = false;
+    }
+
     private void checkMethod(DefinedMethod method) {
         var astMethod = method.getAstMethod();
         if (isMainMethod(method.getAstMethod())) {
             if (mainMethod.isEmpty()) {
                 mainMethod = Optional.of(method);
                 inMainMethod = true;
-            } else {
+            } else if (mainMethod.get() != method) {
                 reportError(new MainMethodProblems.MultipleMainMethods(mainMethod.get().getAstMethod(), astMethod));
             }
         } else if (astMethod.isStatic()) {
@@ -130,7 +199,7 @@ public class WellFormed {
         for (Statement statement : statements) {
             if (!hasReturn.isEmpty()) {
                 deadCode.add(statement);
-                isDeadStatement.set(statement, true);
+                isDeadStatement.setBoolean(statement, true);
 
             } else {
                 switch (statement) {
@@ -173,9 +242,21 @@ public class WellFormed {
             reportError(new MainMethodProblems.UsingArgs(reference));
     }
 
-    @SuppressWarnings("DuplicateBranchesInSwitch")
     private void checkExpression(Expression expression) {
-        switch (expression) {
+        ExpressionWalker.walk(expression, new ExpressionWalker.Visitor() {
+            @Override
+            public List<Expression> enter(Expression expression) {
+                return checkSingleExpression(expression);
+            }
+        });
+    }
+
+    /**
+     * @return The sub-expressions, which need to be checked.
+     */
+    @SuppressWarnings("DuplicateBranchesInSwitch")
+    private List<Expression> checkSingleExpression(Expression expression) {
+        return switch (expression) {
             case MethodCallExpression methodCallExpression -> {
                 //Checks if the main Method is called.
                 var methodDef = nameResolution.definitions()
@@ -190,50 +271,41 @@ public class WellFormed {
                     reportError(new ImplicitThis.ImplicitThisMethodCall(methodCallExpression));
                 }
 
-                for (Expression expr : methodCallExpression.getArguments()) {
-                    checkExpression(expr);
-                }
-
-                methodCallExpression.getTarget().ifPresent(this::checkExpression);
+                var children = new ArrayList<>(methodCallExpression.getArguments());
+                methodCallExpression.getTarget().ifPresent(children::add);
+                yield children;
             }
             case AssignmentExpression assignmentExpression -> {
                 Expression temp = assignmentExpression.getLvalue();
                 if (temp instanceof Reference || temp instanceof ArrayAccessExpression || temp instanceof FieldAccessExpression) {
-                    checkExpression(assignmentExpression.getLvalue());
-                    checkExpression(assignmentExpression.getRvalue());
+                    yield List.of(assignmentExpression.getLvalue(), assignmentExpression.getRvalue());
                 } else {
                     reportError(new AssignmentExpressionLeft(assignmentExpression));
+                    yield List.of();
                 }
             }
             case ThisExpression thisExpression -> {
                 if (inMainMethod) {
                     reportError(new MainMethodProblems.ReferenceUsingStatic(thisExpression));
                 }
+                yield List.of();
             }
-            case BinaryOpExpression binaryOpExpression -> {
-                checkExpression(binaryOpExpression.getLhs());
-                checkExpression(binaryOpExpression.getRhs());
-            }
-            case UnaryExpression unaryExpression -> checkExpression(unaryExpression.getExpression());
-            case FieldAccessExpression fieldAccessExpression -> checkExpression(fieldAccessExpression.getTarget());
-            case ArrayAccessExpression arrayAccessExpression -> {
-                checkExpression(arrayAccessExpression.getIndexExpression());
-                checkExpression(arrayAccessExpression.getTarget());
-            }
-            case BoolLiteral ignored -> {
-            }
-            case IntLiteral ignored -> {
-            }
+            case BinaryOpExpression binaryOpExpression -> List.of(binaryOpExpression.getLhs(), binaryOpExpression.getRhs());
+            case UnaryExpression unaryExpression -> List.of(unaryExpression.getExpression());
+            case FieldAccessExpression fieldAccessExpression -> List.of(fieldAccessExpression.getTarget());
+            case ArrayAccessExpression arrayAccessExpression -> List.of(arrayAccessExpression.getIndexExpression(), arrayAccessExpression.getTarget());
+            case BoolLiteral ignored -> List.of();
+            case IntLiteral ignored -> List.of();
             case NewObjectExpression newObjectExpression -> {
                 var type = nameResolution.expressionTypes().get(newObjectExpression);
 
                 if (type.isPresent() && type.get() instanceof ClassTy classTy && classTy instanceof IntrinsicClassTy) {
                     reportError(new NewObjectStringUse(newObjectExpression));
                 }
+                yield List.of();
             }
-            case NewArrayExpression newArray -> checkExpression(newArray.getFirstDimensionSize());
-            case NullExpression ignored -> {
-            }
+            case NewArrayExpression newArray -> List.of(newArray.getFirstDimensionSize());
+            case NullExpression ignored -> List.of();
             case Reference reference -> {
                 if (inMainMethod) {
                     Optional<VariableDefinition> tempField = nameResolution.definitions().getReference(reference);
@@ -243,8 +315,9 @@ public class WellFormed {
 
                     checkIfMainMethodParameter(reference);
                 }
+                yield List.of();
             }
-        }
+        };
     }
 
 
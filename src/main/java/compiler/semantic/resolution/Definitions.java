@@ -10,8 +10,8 @@ import java.util.Optional;
 public class Definitions {
     private final AstData<Object> inner;
 
-    public Definitions() {
-        this.inner = new DenseAstData<>();
+    public Definitions(int idBound) {
+        this.inner = new DenseAstData<>(idBound);
     }
 
     public AstData<Object> getInner() {
@@ -8,6 +8,8 @@ import compiler.errors.*;
 import compiler.semantic.AstData;
 import compiler.semantic.DenseAstData;
 import compiler.types.*;
+import compiler.utils.CompilerThreads;
+import compiler.utils.ExpressionWalker;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -23,6 +25,7 @@ public class NameResolution {
     private final AstData<TyResult> expressionTypes; // Types of all expressions
 
     // Identifier -> (Class, ClassTy)
+    // In declaration order, so that the classes of the result are too.
     private final Map<String, ClassTy> classInfo;
 
     private final AstData<TyResult> bindingTypes; // Field type, Method return type, Parameter types or Local var declarations
@@ -33,23 +36,41 @@ public class NameResolution {
 
     @SuppressWarnings("unused")
     public NameResolution() {
-        this(Optional.empty());
+        this(Optional.empty(), 0);
     }
 
-    public NameResolution(CompilerMessageReporter reporter) {
-        this(Optional.of(reporter));
+    public NameResolution(CompilerMessageReporter reporter, int idBound) {
+        this(Optional.of(reporter), idBound);
     }
 
-    private NameResolution(Optional<CompilerMessageReporter> reporter) {
+    private NameResolution(Optional<CompilerMessageReporter> reporter, int idBound) {
         this.symbols = null;
         this.currentClass = null;
         this.currentMethod = null;
 
-        this.definitions = new Definitions();
-        this.expressionTypes = new DenseAstData<>();
-        this.bindingTypes = new DenseAstData<>();
+        this.definitions = new Definitions(idBound);
+        this.expressionTypes = new DenseAstData<>(idBound);
+        this.bindingTypes = new DenseAstData<>(idBound);
 
-        this.classInfo = new HashMap<>();
+        this.classInfo = new LinkedHashMap<>();
+
+        this.reporter = reporter;
+
+        this.successful = true;
+    }
+
+    /**
+     * Creates a resolution for method bodies, which shares all results with the given resolution.
+     */
+    private NameResolution(NameResolution shared, Optional<CompilerMessageReporter> reporter) {
+        this.symbols = null;
+        this.currentClass = null;
+        this.currentMethod = null;
+
+        this.definitions = shared.definitions;
+        this.expressionTypes = shared.expressionTypes;
+        this.bindingTypes = shared.bindingTypes;
+        this.classInfo = shared.classInfo;
 
         this.reporter = reporter;
 
@@ -64,17 +85,28 @@ public class NameResolution {
     }
 
     public static NameResolutionResult performNameResolution(Program program, CompilerMessageReporter reporter) {
-        var resolution = new NameResolution(reporter);
+        return performNameResolution(program, reporter, false);
+    }
+
+    /**
+     * @param parallel Resolve the method bodies in parallel. They are independent after the global name resolution.
+     */
+    public static NameResolutionResult performNameResolution(Program program, CompilerMessageReporter reporter, boolean parallel) {
+        var resolution = new NameResolution(reporter, program.getIdBound());
 
         resolution.addIntrinsicClasses();
 
         resolution.globalNameResolution(program);
 
-        for (Class klass : program.getClasses()) {
-            resolution.currentClass = klass;
+        if (parallel) {
+            resolution.resolveMethodsInParallel(program);
+        } else {
+            for (Class klass : program.getClasses()) {
+                resolution.currentClass = klass;
 
-            for (Method m : klass.getMethods()) {
-                resolution.resolveMethod(m);
+                for (Method m : klass.getMethods()) {
+                    resolution.resolveMethod(m);
+                }
             }
         }
 
@@ -93,6 +125,28 @@ public class NameResolution {
         );
     }
 
+    private void resolveMethodsInParallel(Program program) {
+        record MethodInClass(Class klass, Method method) {
+        }
+
+        var methods = program.getClasses().stream()
+                .flatMap(klass -> klass.getMethods().stream().map(method -> new MethodInClass(klass, method)))
+                .toList();
+
+        var workers = CompilerThreads.mapInParallel(methods, m -> {
+            var worker = new NameResolution(this, this.reporter.map(CompilerMessageReporter::defer));
+            worker.currentClass = m.klass();
+            worker.resolveMethod(m.method());
+            return worker;
+        });
+
+        // Report in program order, so that the messages are the same as in a sequential resolution.
+        for (var worker : workers) {
+            worker.reporter.ifPresent(CompilerMessageReporter::commit);
+            this.successful &= worker.successful;
+        }
+    }
+
     private void reportError(CompilerMessage msg) {
         this.reporter.ifPresent(compilerMessageReporter -> compilerMessageReporter.reportMessage(msg));
         this.successful = false;
@@ -200,19 +254,19 @@ public class NameResolution {
         resolveType(method.getReturnType());
 
         for (Field f : this.currentClass.getFields()) {
-            symbols.insert(f.getIdentifier().getContent(), f);
+            symbols.insert(f.getIdentifier().getNameId(), f);
         }
 
         symbols.enterScope();
 
         for (var param : method.getParameters()) {
 
-            var maybeAlreadyExists = symbols.lookupDefinition(param.getIdentifier().getContent());
+            var maybeAlreadyExists = symbols.lookupDefinition(param.getIdentifier().getNameId());
             if (maybeAlreadyExists.isPresent() && maybeAlreadyExists.get() instanceof Parameter firstParam) {
                 reportError(new DuplicateParameterName(firstParam, param));
             }
 
-            symbols.insert(param.getIdentifier().getContent(), param);
+            symbols.insert(param.getIdentifier().getNameId(), param);
         }
 
         this.currentMethod = method;
@@ -239,7 +293,7 @@ public class NameResolution {
                 var elseBody = ifStmt.getElseBody();
                 elseBody.ifPresent(this::resolveStatement);
 
-                var conditionTy = this.expressionTypes.get(ifStmt.getCondition()).get();
+                var conditionTy = this.expressionTypes.getOrThrow(ifStmt.getCondition());
                 if (!(conditionTy instanceof BoolTy || conditionTy instanceof UnresolveableTy)) {
                     reportError(new IfConditionTypeMismatch(ifStmt, conditionTy));
                 }
@@ -249,7 +303,7 @@ public class NameResolution {
                 resolveExpression(whileStmt.getCondition());
                 resolveStatement(whileStmt.getBody());
 
-                var conditionTy = this.expressionTypes.get(whileStmt.getCondition()).get();
+                var conditionTy = this.expressionTypes.getOrThrow(whileStmt.getCondition());
                 if (!(conditionTy instanceof BoolTy || conditionTy instanceof UnresolveableTy)) {
                     reportError(new WhileConditionTypeMismatch(whileStmt, conditionTy));
                 }
@@ -257,13 +311,13 @@ public class NameResolution {
             case ReturnStatement retStmt -> {
                 retStmt.getExpression().ifPresent(this::resolveExpression);
 
-                var returnType = this.bindingTypes.get(this.currentMethod).get();
+                var returnType = this.bindingTypes.getOrThrow(this.currentMethod);
 
                 switch (returnType) {
                     case Ty expectedReturnTy -> {
                         if (retStmt.getExpression().isPresent()) {
                             var retExpr = retStmt.getExpression().get();
-                            var retExprTyRes = this.expressionTypes.get(retExpr).get();
+                            var retExprTyRes = this.expressionTypes.getOrThrow(retExpr);
 
                             if (retExprTyRes instanceof Ty retExprTy) {
                                 if (!(retExprTy.comparable(expectedReturnTy))) {
@@ -287,7 +341,7 @@ public class NameResolution {
                 }
             }
             case LocalVariableDeclarationStatement declStmt -> {
-                var localName = declStmt.getIdentifier().getContent();
+                var localName = declStmt.getIdentifier().getNameId();
 
                 resolveType(declStmt.getType());
 
@@ -306,7 +360,7 @@ public class NameResolution {
                 switch (bindingTy) {
                     case Ty ty -> {
                         if (declStmt.getInitializer().isPresent()) {
-                            var initTyRes = this.expressionTypes.get(declStmt.getInitializer().get()).get();
+                            var initTyRes = this.expressionTypes.getOrThrow(declStmt.getInitializer().get());
 
                             if (initTyRes instanceof VoidTy) {
                                 reportError(new LocalDeclarationErrors.TypeMismatch(declStmt, ty, initTyRes));
@@ -355,8 +409,8 @@ public class NameResolution {
     }
 
     private void typecheckBinaryExpression(BinaryOpExpression binaryOp) {
-        var lhsTyRes = this.expressionTypes.get(binaryOp.getLhs()).orElseThrow();
-        var rhsTyRes = this.expressionTypes.get(binaryOp.getRhs()).orElseThrow();
+        var lhsTyRes = this.expressionTypes.getOrThrow(binaryOp.getLhs());
+        var rhsTyRes = this.expressionTypes.getOrThrow(binaryOp.getRhs());
 
         if (lhsTyRes instanceof UnresolveableTy || rhsTyRes instanceof UnresolveableTy) {
 
@@ -389,16 +443,55 @@ public class NameResolution {
     }
 
     private void resolveExpression(Expression expression) {
+        ExpressionWalker.walk(expression, new ExpressionWalker.Visitor() {
+            @Override
+            public List<Expression> enter(Expression expression) {
+                return enterExpression(expression);
+            }
+
+            @Override
+            public void exit(Expression expression) {
+                exitExpression(expression);
+            }
+        });
+    }
+
+    /**
+     * Resolves the parts of an expression, which need to be resolved before its sub-expressions.
+     *
+     * @return The sub-expressions, which need to be resolved.
+     */
+    private List<Expression> enterExpression(Expression expression) {
+        switch (expression) {
+            case MethodCallExpression methodCall -> {
+                var maybeIntrinsic = isIntrinsicMethodCall(methodCall);
+                if (maybeIntrinsic.isPresent()) {
+                    this.definitions.setMethod(methodCall, maybeIntrinsic.get());
+                    this.expressionTypes.set(methodCall, maybeIntrinsic.get().getReturnTy());
+
+                    // The target of an intrinsic method call isn't resolved.
+                    return methodCall.getArguments();
+                }
+            }
+            case NewArrayExpression newArray -> resolveType(newArray.getType());
+            case NewObjectExpression newObject -> resolveClassType(newObject.getType());
+            default -> {
+            }
+        }
+        return ExpressionWalker.children(expression);
+    }
+
+    /**
+     * Resolves and type checks an expression, after all its sub-expressions have been resolved.
+     */
+    private void exitExpression(Expression expression) {
         switch (expression) {
             case AssignmentExpression assign -> {
                 var lval = assign.getLvalue();
                 var rval = assign.getRvalue();
 
-                resolveExpression(lval);
-                resolveExpression(rval);
-
-                var lvalTyRes = this.expressionTypes.get(lval).orElseThrow();
-                var rvalTyRes = this.expressionTypes.get(rval).orElseThrow();
+                var lvalTyRes = this.expressionTypes.getOrThrow(lval);
+                var rvalTyRes = this.expressionTypes.getOrThrow(rval);
 
                 if (lvalTyRes instanceof Ty lvalTy && rvalTyRes instanceof Ty rvalTy) {
                     if (lvalTy.comparable(rvalTy)) {
@@ -415,21 +508,14 @@ public class NameResolution {
                 }
 
             }
-            case BinaryOpExpression binaryOp -> {
-                resolveExpression(binaryOp.getLhs());
-                resolveExpression(binaryOp.getRhs());
-
-                typecheckBinaryExpression(binaryOp);
-            }
+            case BinaryOpExpression binaryOp -> typecheckBinaryExpression(binaryOp);
             case UnaryExpression unaryOp -> {
-                resolveExpression(unaryOp.getExpression());
-
                 Ty expectedTy = switch (unaryOp.getOperator()) {
                     case LogicalNot -> new BoolTy();
                     case Negate -> new IntTy();
                 };
 
-                var actualTy = this.expressionTypes.get(unaryOp.getExpression()).get();
+                var actualTy = this.expressionTypes.getOrThrow(unaryOp.getExpression());
 
                 if (!expectedTy.equals(actualTy)) {
                     if (!(actualTy instanceof UnresolveableTy)) {
@@ -440,18 +526,14 @@ public class NameResolution {
                 this.expressionTypes.set(unaryOp, expectedTy);
             }
             case MethodCallExpression methodCall -> {
-                var maybeIntrinsic = isIntrinsicMethodCall(methodCall);
-                if (maybeIntrinsic.isPresent()) {
-                    this.definitions.setMethod(methodCall, maybeIntrinsic.get());
-                    this.expressionTypes.set(methodCall, maybeIntrinsic.get().getReturnTy());
-                } else {
+                // Intrinsic method calls are already resolved in enterExpression.
+                var isIntrinsic = this.definitions.getMethod(methodCall).map(m -> m instanceof IntrinsicMethod).orElse(false);
+                if (!isIntrinsic) {
 
                     var target = methodCall.getTarget();
 
                     if (target.isPresent()) {
-                        resolveExpression(target.get());
-
-                        var targetType = this.expressionTypes.get(target.get()).get();
+                        var targetType = this.expressionTypes.getOrThrow(target.get());
 
                         // If the target expression doesn't have a type an error was reported during resolve of this expression.
                         resolveMethodCallWithTarget(methodCall, targetType);
@@ -462,16 +544,12 @@ public class NameResolution {
                     }
                 }
 
-                for (var arg : methodCall.getArguments()) {
-                    resolveExpression(arg);
-                }
-
                 // Method arguments type checking
                 var maybeMethod = this.definitions.getMethod(methodCall);
                 if (maybeMethod.isPresent()) {
                     var methodDef = maybeMethod.get();
 
-                    var argumentTypes = methodCall.getArguments().stream().map(arg -> this.expressionTypes.get(arg).get()).collect(Collectors.toList());
+                    var argumentTypes = methodCall.getArguments().stream().map(arg -> this.expressionTypes.getOrThrow(arg)).collect(Collectors.toList());
                     var paramTypes = methodDef.getParameterTy();
 
                     if (argumentTypes.size() != paramTypes.size()) {
@@ -492,9 +570,8 @@ public class NameResolution {
             }
             case FieldAccessExpression fieldAccess -> {
                 var target = fieldAccess.getTarget();
-                resolveExpression(target);
 
-                var targetType = this.expressionTypes.get(target).get();
+                var targetType = this.expressionTypes.getOrThrow(target);
 
                 // If the target expression doesn't have a type an error was reported during resolve of this expression.
                 if (targetType instanceof DefinedClassTy classTy) {
@@ -519,9 +596,7 @@ public class NameResolution {
                 }
             }
             case ArrayAccessExpression arrayAccess -> {
-                resolveExpression(arrayAccess.getTarget());
-
-                var targetType = this.expressionTypes.get(arrayAccess.getTarget()).get();
+                var targetType = this.expressionTypes.getOrThrow(arrayAccess.getTarget());
 
                 if (targetType instanceof ArrayTy arrayTy) {
                     this.expressionTypes.set(arrayAccess, arrayTy.getChildTy());
@@ -530,16 +605,12 @@ public class NameResolution {
                     this.expressionTypes.set(arrayAccess, new UnresolveableTy());
                 }
 
-                resolveExpression(arrayAccess.getIndexExpression());
-
-                var indexTyRes = this.expressionTypes.get(arrayAccess.getIndexExpression()).get();
+                var indexTyRes = this.expressionTypes.getOrThrow(arrayAccess.getIndexExpression());
                 if (!(indexTyRes instanceof IntTy || indexTyRes instanceof UnresolveableTy)) {
                     reportError(new GenericTypeMismatch(arrayAccess.getIndexExpression(), new IntTy(), indexTyRes));
                 }
             }
             case NewArrayExpression newArray -> {
-                resolveType(newArray.getType());
-
                 var childType = this.fromAstType(newArray.getType());
                 if (childType instanceof Ty childTy) {
                     this.expressionTypes.set(newArray, new ArrayTy(childTy, newArray.getDimensions()));
@@ -548,19 +619,17 @@ public class NameResolution {
                     this.expressionTypes.set(newArray, new UnresolveableTy());
                 }
 
-                resolveExpression(newArray.getFirstDimensionSize());
-
-                var dimensionTyRes = this.expressionTypes.get(newArray.getFirstDimensionSize()).get();
+                var dimensionTyRes = this.expressionTypes.getOrThrow(newArray.getFirstDimensionSize());
                 if (!(dimensionTyRes instanceof IntTy || dimensionTyRes instanceof UnresolveableTy)) {
                     reportError(new GenericTypeMismatch(newArray.getFirstDimensionSize(), new IntTy(), dimensionTyRes));
                 }
             }
             case Reference ref -> {
-                var def = this.symbols.lookupDefinition(ref.getIdentifier().getContent());
-                if (def.isPresent()) {
-                    this.definitions.setReference(ref, def.get());
+                var def = this.symbols.getDefinition(ref.getIdentifier().getNameId());
+                if (def != null) {
+                    this.definitions.setReference(ref, def);
 
-                    var type = def.get().getType();
+                    var type = def.getType();
 
                     var ty = this.fromAstType(type);
                     // If the type is not valid, an error was emitted when resolving the definition.
@@ -577,11 +646,7 @@ public class NameResolution {
                 this.expressionTypes.set(thisExpr, this.getCurrentClassTy());
             }
             case NewObjectExpression newObject -> {
-                var classType = newObject.getType();
-
-                resolveClassType(classType);
-
-                var classTyRes = this.fromAstType(classType);
+                var classTyRes = this.fromAstType(newObject.getType());
 
                 // If its not Ty, then resolveClassType reported an error.
                 if (classTyRes instanceof Ty classTy) {
@@ -616,7 +681,7 @@ public class NameResolution {
                 var fieldTarget = fa.getTarget();
 
                 if (fieldTarget instanceof Reference r && r.getIdentifier().getContent().equals("System")) {
-                    var systemSymbol = this.symbols.lookupDefinition("System");
+                    var systemSymbol = this.symbols.lookupDefinition(r.getIdentifier().getNameId());
 
                     var systemClass = Optional.ofNullable(this.classInfo.get("System"));
 
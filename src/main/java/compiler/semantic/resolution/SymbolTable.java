@@ -1,52 +1,85 @@
 package compiler.semantic.resolution;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 import java.util.Optional;
-import java.util.Stack;
 
+/**
+ * Maps identifiers to their definitions in nested scopes.
+ * <p>
+ * Identifiers are given by their id in the identifier pool of the lexer, see {@link compiler.ast.Identifier#getNameId()}.
+ * The current definition of every identifier is stored in an array indexed by that id.
+ * Inserting a definition records the shadowed definition in an undo log, leaving a scope restores the definitions
+ * from the log. Apart from growing the arrays nothing is allocated.
+ */
 public class SymbolTable<T> {
-    private record StackEntry<T>(String name, T def, Optional<T> prev) {
-    }
+    private static final int INITIAL_CAPACITY = 64;
+
+    // The current definition of every identifier or null.
+    private Object[] definitions;
 
-    private final Stack<StackEntry<T>> stack;
-    private final Stack<Integer> scopes;
+    // The undo log of all insertions: the identifier and the definition it shadowed.
+    private int[] logIds;
+    private Object[] logShadowed;
+    private int logSize;
 
-    private final Map<String, T> cache;
+    // The size of the undo log at the start of every open scope.
+    private int[] scopes;
+    private int scopeCount;
 
     public SymbolTable() {
-        this.stack = new Stack<>();
-        this.scopes = new Stack<>();
-        this.cache = new HashMap<>();
+        this.definitions = new Object[INITIAL_CAPACITY];
+        this.logIds = new int[INITIAL_CAPACITY];
+        this.logShadowed = new Object[INITIAL_CAPACITY];
+        this.logSize = 0;
+        this.scopes = new int[16];
+        this.scopeCount = 0;
     }
 
     public void enterScope() {
-        this.scopes.add(this.stack.size());
+        if (this.scopeCount == this.scopes.length) {
+            this.scopes = Arrays.copyOf(this.scopes, this.scopes.length * 2);
+        }
+        this.scopes[this.scopeCount++] = this.logSize;
     }
 
     public void leaveScope() {
-        var scopeStart = this.scopes.isEmpty() ? 0 : this.scopes.pop();
+        var scopeStart = this.scopeCount == 0 ? 0 : this.scopes[--this.scopeCount];
 
-        while (this.stack.size() > scopeStart) {
-            var oldEntry = this.stack.pop();
+        while (this.logSize > scopeStart) {
+            this.logSize -= 1;
+            this.definitions[this.logIds[this.logSize]] = this.logShadowed[this.logSize];
+            this.logShadowed[this.logSize] = null;
+        }
+    }
 
-            if (oldEntry.prev.isPresent()) {
-                var oldDef = oldEntry.prev.get();
-                this.cache.put(oldEntry.name, oldDef);
-            } else {
-                this.cache.remove(oldEntry.name);
-            }
+    public void insert(int id, T def) {
+        assert id >= 0 : "identifier is not pooled";
+
+        if (id >= this.definitions.length) {
+            this.definitions = Arrays.copyOf(this.definitions, Math.max(id + 1, this.definitions.length * 2));
+        }
+        if (this.logSize == this.logIds.length) {
+            this.logIds = Arrays.copyOf(this.logIds, this.logIds.length * 2);
+            this.logShadowed = Arrays.copyOf(this.logShadowed, this.logShadowed.length * 2);
         }
+
+        this.logIds[this.logSize] = id;
+        this.logShadowed[this.logSize] = this.definitions[id];
+        this.logSize += 1;
+
+        this.definitions[id] = def;
     }
 
-    public void insert(String s, T def) {
-        var old = this.lookupDefinition(s);
-        this.stack.add(new StackEntry<>(s, def, old));
-        this.cache.put(s, def);
+    /**
+     * @return The current definition of the identifier or null, if there is none.
+     */
+    @SuppressWarnings("unchecked")
+    public T getDefinition(int id) {
+        return id >= 0 && id < this.definitions.length ? (T) this.definitions[id] : null;
     }
 
-    public Optional<T> lookupDefinition(String s) {
-        return Optional.ofNullable(this.cache.get(s));
+    public Optional<T> lookupDefinition(int id) {
+        return Optional.ofNullable(this.getDefinition(id));
     }
 
     @Override
@@ -54,8 +87,10 @@ public class SymbolTable<T> {
         StringBuilder sb = new StringBuilder();
         sb.append("SymbolTable[\n");
 
-        for (var x : this.cache.entrySet()) {
-            sb.append(String.format("\t%s -> %s\n", x.getKey(), x.getValue()));
+        for (int id = 0; id < this.definitions.length; id++) {
+            if (this.definitions[id] != null) {
+                sb.append(String.format("\t%d -> %s\n", id, this.definitions[id]));
+            }
         }
 
         sb.append("]");
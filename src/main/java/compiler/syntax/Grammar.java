@@ -47,25 +47,33 @@ public class Grammar {
 
         @SuppressWarnings("unused")
         public TokenSet first() {
-            return FIRST.get(this);
+            return FIRST_BY_ORDINAL[this.ordinal()];
         }
 
         @SuppressWarnings("unused")
         public TokenSet follow() {
-            return FOLLOW.get(this);
+            return FOLLOW_BY_ORDINAL[this.ordinal()];
         }
 
         @SuppressWarnings("unused")
         public boolean firstContains(TokenType type) {
-            return FIRST.get(this).contains(type);
+            return FIRST_BY_ORDINAL[this.ordinal()].contains(type);
         }
 
         @SuppressWarnings("unused")
         public boolean followContains(TokenType type) {
-            return FOLLOW.get(this).contains(type);
+            return FOLLOW_BY_ORDINAL[this.ordinal()].contains(type);
         }
     }
 
+    private static TokenSet[] indexByOrdinal(Map<NonT, TokenSet> sets) {
+        var result = new TokenSet[NonT.values().length];
+        for (var entry : sets.entrySet()) {
+            result[entry.getKey().ordinal()] = entry.getValue();
+        }
+        return result;
+    }
+
     public static final Map<NonT, TokenSet> FIRST = Map.ofEntries(
             
             Map.entry(NonT.AdditiveExpression, TokenSet.of(
@@ -948,5 +956,8 @@ public class Grammar {
             ))
             
     );
-}
 
+    // FIRST and FOLLOW indexed by the ordinal of the non-terminal, so lookups don't need to hash.
+    private static final TokenSet[] FIRST_BY_ORDINAL = indexByOrdinal(FIRST);
+    private static final TokenSet[] FOLLOW_BY_ORDINAL = indexByOrdinal(FOLLOW);
+}
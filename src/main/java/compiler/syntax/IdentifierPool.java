@@ -0,0 +1,114 @@
+package compiler.syntax;
+
+import java.util.Arrays;
+
+/**
+ * Interns identifier names found in the source text.
+ * <p>
+ * Names are looked up directly from a slice of the input buffer, so looking up an already known identifier
+ * doesn't allocate. Every distinct name is assigned a dense id, starting at zero in insertion order.
+ */
+public class IdentifierPool {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    // Open addressing hash table mapping a name to (id + 1), 0 marks an empty slot.
+    private int[] table;
+    private String[] names;
+    private int[] hashes;
+    private int size;
+
+    public IdentifierPool() {
+        this.table = new int[INITIAL_CAPACITY];
+        this.names = new String[INITIAL_CAPACITY / 2];
+        this.hashes = new int[INITIAL_CAPACITY / 2];
+        this.size = 0;
+    }
+
+    private static int hash(char[] buf, int offset, int length) {
+        int h = 0;
+        for (int i = offset; i < offset + length; i++) {
+            h = 31 * h + buf[i];
+        }
+        return h;
+    }
+
+    private static boolean sliceEquals(String name, char[] buf, int offset, int length) {
+        if (name.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (name.charAt(i) != buf[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int mix(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Interns the name given by the slice {@code buf[offset..offset+length)}.
+     *
+     * @return The id of the name.
+     */
+    public int intern(char[] buf, int offset, int length) {
+        int h = hash(buf, offset, length);
+        int mask = this.table.length - 1;
+        int slot = mix(h) & mask;
+
+        while (this.table[slot] != 0) {
+            int id = this.table[slot] - 1;
+            if (this.hashes[id] == h && sliceEquals(this.names[id], buf, offset, length)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        int id = this.size++;
+        if (id == this.names.length) {
+            this.names = Arrays.copyOf(this.names, this.names.length * 2);
+            this.hashes = Arrays.copyOf(this.hashes, this.hashes.length * 2);
+        }
+        this.names[id] = new String(buf, offset, length);
+        this.hashes[id] = h;
+        this.table[slot] = id + 1;
+
+        // Keep the load factor below 1/2.
+        if (2 * this.size > this.table.length) {
+            this.rehash();
+        }
+
+        return id;
+    }
+
+    public int intern(String name) {
+        return this.intern(name.toCharArray(), 0, name.length());
+    }
+
+    private void rehash() {
+        this.table = new int[this.table.length * 2];
+        int mask = this.table.length - 1;
+        for (int id = 0; id < this.size; id++) {
+            int slot = mix(this.hashes[id]) & mask;
+            while (this.table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            this.table[slot] = id + 1;
+        }
+    }
+
+    /**
+     * @return The canonical String instance of the name with the given id.
+     */
+    public String get(int id) {
+        assert 0 <= id && id < this.size;
+        return this.names[id];
+    }
+
+    public int size() {
+        return this.size;
+    }
+}
@@ -1,44 +1,56 @@
 package compiler.syntax;
 
-import java.util.*;
-import java.util.function.BooleanSupplier;
-import java.util.stream.Collectors;
+import java.nio.CharBuffer;
+import java.util.ArrayDeque;
+import java.util.Optional;
 
-public class Lexer {
+public class Lexer implements TokenSource {
 
-    private static final Map<String, TokenType> KEYWORDS_BY_REPR =
-            TokenType.KEYWORDS.stream().collect(Collectors.toMap(k -> k.repr, k -> k));
+    // The parser may sometimes want to add "synthetic" tokens to the lex stream for ease of use.
+    private final ArrayDeque<Token> syntheticTokens = new ArrayDeque<>();
+    private final char[] input;
+    private final int length;
+    private final IdentifierPool identifiers;
+    private int currentPos = 0;
 
-    // Indexes all operators in two ways:
-    // First by length, and then for each length by the concrete string repr.
-    // This index allows for quickly matching the longest operator.
-    private static final List<Map<String, TokenType>> INDEXED_OPERATORS;
+    // The token returned by the last call to peekToken() and the position after it.
+    // This avoids lexing every token twice.
+    private Token peekedToken = null;
+    private int peekedEndPos = 0;
 
-    static {
-        Map<Integer, Map<String, TokenType>> operatorsByLength = TokenType.OPERATORS.stream()
-                .collect(Collectors.groupingBy(o -> o.repr.length(),
-                        Collectors.toMap(o -> o.repr, o -> o)));
-        int maxOperatorLength = operatorsByLength.keySet().stream().max(Integer::compareTo).orElseThrow(AssertionError::new);
-        INDEXED_OPERATORS = new ArrayList<>();
-        for (int i = 0; i <= maxOperatorLength; i++) {
-            Map<String, TokenType> ops = operatorsByLength.containsKey(i)
-                    ? operatorsByLength.get(i)
-                    : new HashMap<>();
-            INDEXED_OPERATORS.add(ops);
-        }
+    public Lexer(char[] input, int length) {
+        this.input = input;
+        this.length = length;
+        this.identifiers = new IdentifierPool();
     }
 
-    // The parser may sometimes want to add "synthetic" tokens to the lex stream for ease of use.
-    private final ArrayDeque<Token> syntheticTokens = new ArrayDeque<>();
-    private final String fileContent;
-    private int currentPos = 0;
+    public Lexer(char[] input) {
+        this(input, input.length);
+    }
+
+    public Lexer(CharBuffer input) {
+        this(charsOf(input), input.remaining());
+    }
 
     public Lexer(String fileContent) {
-        this.fileContent = fileContent;
+        this(fileContent.toCharArray());
+    }
+
+    private static char[] charsOf(CharBuffer buffer) {
+        if (buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.position() == 0) {
+            return buffer.array();
+        }
+        char[] chars = new char[buffer.remaining()];
+        buffer.duplicate().get(chars);
+        return chars;
+    }
+
+    public IdentifierPool getIdentifierPool() {
+        return this.identifiers;
     }
 
     private boolean isEOFAt(int pos) {
-        return pos >= fileContent.length();
+        return pos >= this.length;
     }
 
     private boolean isEOF() {
@@ -46,24 +58,13 @@ public class Lexer {
     }
 
     private char peekAt(int i) {
-        return fileContent.charAt(i);
+        return this.input[i];
     }
 
     private char peek() {
         return peekAt(currentPos);
     }
 
-    private String lookahead(int n) {
-        StringBuilder result = new StringBuilder();
-        for (int i = currentPos; i < currentPos + n; i++) {
-            if (isEOFAt(i)) {
-                return result.toString();
-            }
-            result.append(peekAt(i));
-        }
-        return result.toString();
-    }
-
     private void next(int n) {
         currentPos += n;
     }
@@ -72,23 +73,8 @@ public class Lexer {
         next(1);
     }
 
-    @SuppressWarnings("BooleanMethodIsAlwaysInverted")
-    private boolean expected(String expected) {
-        String actual = lookahead(expected.length());
-        return actual.equals(expected);
-    }
-
-    private record ConsumedString(String text, Span span) {
-    }
-
-    private ConsumedString consumeWhile(BooleanSupplier predicate) {
-        int startPos = currentPos;
-        StringBuilder wordBuilder = new StringBuilder();
-        while (!isEOF() && predicate.getAsBoolean()) {
-            wordBuilder.append(peek());
-            next();
-        }
-        return new ConsumedString(wordBuilder.toString(), new Span(startPos, currentPos - startPos));
+    private boolean expected(char first, char second) {
+        return !isEOFAt(currentPos + 1) && peekAt(currentPos) == first && peekAt(currentPos + 1) == second;
     }
 
     private static boolean isWhitespace(char c) {
@@ -96,16 +82,20 @@ public class Lexer {
     }
 
     private void consumeWhitespace() {
-        consumeWhile(() -> isWhitespace(peek()));
+        while (!isEOF() && isWhitespace(peek())) {
+            next();
+        }
     }
 
     private Optional<Span> consumeComment() {
         int startPos = currentPos;
-        if (!expected("/*")) {
+        if (!expected('/', '*')) {
             return Optional.empty();
         }
         next(2);
-        consumeWhile(() -> !expected("*/"));
+        while (!isEOF() && !expected('*', '/')) {
+            next();
+        }
         // isEOF() = true => no end of comment symbol was found
         if (isEOF()) {
             return Optional.of(new Span(startPos, currentPos - startPos));
@@ -135,36 +125,35 @@ public class Lexer {
         return c >= '0' && c <= '9';
     }
 
-    private Optional<Token> consumeIntLiteral() {
+    private static boolean isIdentifierPart(char c) {
+        return isAsciiAlphabetic(c) || isAsciiNumeric(c) || c == '_';
+    }
+
+    private Token consumeIntLiteral() {
+        int startPos = currentPos;
         // 0x where x is a number [0-9]* is lexed as two literals 0 and x
         if (peek() == '0') {
-            Optional<Token> t = Optional.of(Token.intLiteral(0, new Span(currentPos, 1)));
             next();
-            return t;
+            return Token.intLiteral(this.input, new Span(startPos, 1));
         }
-        ConsumedString cs = consumeWhile(() -> isAsciiNumeric(peek()));
-        String word = cs.text;
-        Span span = cs.span;
-        if (word.length() == 0) {
-            return Optional.empty();
+        while (!isEOF() && isAsciiNumeric(peek())) {
+            next();
         }
-        return Optional.of(Token.intLiteral(word, span));
+        return Token.intLiteral(this.input, new Span(startPos, currentPos - startPos));
     }
 
-    private Optional<Token> consumeKeywordOrIdent() {
-        ConsumedString cs = consumeWhile(() -> {
-            char c = peek();
-            return isAsciiAlphabetic(c) || isAsciiNumeric(c) || c == '_';
-        });
-        String word = cs.text;
-        Span span = cs.span;
-        if (word.length() == 0) {
-            return Optional.empty();
+    private Token consumeKeywordOrIdent() {
+        int startPos = currentPos;
+        while (!isEOF() && isIdentifierPart(peek())) {
+            next();
         }
-        if (KEYWORDS_BY_REPR.containsKey(word)) {
-            return Optional.of(Token.keyword(KEYWORDS_BY_REPR.get(word), span));
+        Span span = new Span(startPos, currentPos - startPos);
+        TokenType keyword = TokenDfa.KEYWORDS.matchExact(this.input, startPos, span.length());
+        if (keyword != null) {
+            return Token.keyword(keyword, span);
         }
-        return Optional.of(Token.identifier(word, span));
+        int id = this.identifiers.intern(this.input, startPos, span.length());
+        return Token.identifier(this.identifiers, id, span);
     }
 
     private Token consumeOperator() {
@@ -177,29 +166,32 @@ public class Lexer {
         // first character.
         // If we were to extend the language with more operators, this part of the lexer
         // might need adjustment.
-        for (int i = INDEXED_OPERATORS.size() - 1; i >= 0; i--) {
-            Map<String, TokenType> ops = INDEXED_OPERATORS.get(i);
-            String code = lookahead(i);
-            if (ops.containsKey(code)) {
-                Token result = Token.operator(ops.get(code), new Span(currentPos, i));
-                next(i);
-                return result;
-            }
+        TokenType operator = TokenDfa.OPERATORS.matchLongest(this.input, currentPos, this.length);
+        if (operator != null) {
+            Token result = Token.operator(operator, new Span(currentPos, operator.repr.length()));
+            next(operator.repr.length());
+            return result;
         }
-        Token err = Token.error(fileContent.substring(currentPos, currentPos + 1), new Span(currentPos, 1));
+        Token err = Token.error(String.valueOf(peek()), new Span(currentPos, 1));
         next();
         return err;
     }
 
-    /**
-     * Advances token stream.
-     *
-     * @return The next token.
-     */
+    @Override
     public Token nextToken() {
         if (!syntheticTokens.isEmpty()) {
             return syntheticTokens.removeFirst();
         }
+        if (peekedToken != null) {
+            Token next = peekedToken;
+            currentPos = peekedEndPos;
+            peekedToken = null;
+            return next;
+        }
+        return lexToken();
+    }
+
+    private Token lexToken() {
         Optional<Span> error = consumeCommentsAndWhitespace();
         if (error.isPresent()) {
             return Token.error("Missing closing `*/` for comment.", error.get());
@@ -207,31 +199,38 @@ public class Lexer {
         if (isEOF()) {
             return Token.eof(new Span(currentPos, 1));
         }
-        return consumeIntLiteral().or(this::consumeKeywordOrIdent).orElseGet(this::consumeOperator);
+        char c = peek();
+        if (isAsciiNumeric(c)) {
+            return consumeIntLiteral();
+        } else if (isIdentifierPart(c)) {
+            return consumeKeywordOrIdent();
+        } else {
+            return consumeOperator();
+        }
     }
 
-    /**
-     * Doesn't advance token stream.
-     *
-     * @return The next token.
-     */
+    @Override
     public Token peekToken() {
         if (!syntheticTokens.isEmpty()) {
             return syntheticTokens.getFirst();
         }
-        int startPos = currentPos;
-        Token next = nextToken();
-        // i wish all side effects allowed for time travel
-        currentPos = startPos;
-        return next;
+        if (peekedToken == null) {
+            int startPos = currentPos;
+            peekedToken = lexToken();
+            peekedEndPos = currentPos;
+            // i wish all side effects allowed for time travel
+            currentPos = startPos;
+        }
+        return peekedToken;
     }
 
+    @Override
     public void addSyntheticToken(Token t) {
         syntheticTokens.add(t);
     }
 
     @SuppressWarnings("unused")
     public String getRemaining() {
-        return this.fileContent.substring(this.currentPos);
+        return new String(this.input, this.currentPos, this.length - this.currentPos);
     }
 }
@@ -27,7 +27,6 @@ import compiler.diagnostics.CompilerMessageReporter;
 import compiler.errors.*;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 import static compiler.syntax.Grammar.NonT.*;
 import static compiler.syntax.TokenType.Boolean;
@@ -38,14 +37,80 @@ import static compiler.syntax.TokenType.*;
 @SuppressWarnings("OptionalUsedAsFieldOrParameterType")
 public class Parser {
 
-    private final Lexer lexer;
+    private static final TokenSet EXPRESSION_TOKEN_FOLLOWED_BY_IDENT = TokenSet.of(
+            BINARY_OPERATORS, LeftParen, LeftSquareBracket, Dot, Expression.follow()
+    );
+
+    private static final TokenSet EXPRESSION_TOKEN_FOLLOWED_BY_IDENT_LEFTSQUAREBRACKET = TokenSet.of(
+            Expression.first()
+    );
+
+    // The tokens expected at positions in a production, which allow more than a single token or FIRST set.
+    private static final TokenSet CLASS_DECLARATION_OR_END = TokenSet.of(ClassDeclaration.first(), ClassDeclaration.follow());
+    private static final TokenSet CLASS_MEMBER_OR_CLOSING_CURLY = TokenSet.of(ClassMember.first(), RightCurlyBracket);
+    private static final TokenSet PARAMETER_OR_CLOSING_PAREN = TokenSet.of(Parameter.first(), RightParen);
+    private static final TokenSet COMMA_OR_CLOSING_PAREN = TokenSet.of(Comma, RightParen);
+    private static final TokenSet ARRAY_TYPE_OR_END = TokenSet.of(LeftSquareBracket, Type.follow());
+    private static final TokenSet BLOCK_STATEMENT_OR_CLOSING_CURLY = TokenSet.of(BlockStatement.first(), RightCurlyBracket);
+    private static final TokenSet BINARY_OPERATOR_OR_END = TokenSet.of(BINARY_OPERATORS, Expression.follow());
+    private static final TokenSet POSTFIX_OPERATOR_OR_END = TokenSet.of(Dot, LeftSquareBracket, PostfixExpression.follow());
+    private static final TokenSet COMMA_OR_ARGUMENTS_END = TokenSet.of(Comma, Arguments.follow());
+    private static final TokenSet NEW_ARRAY_DIMENSION_OR_END = TokenSet.of(LeftSquareBracket, NewArrayExpression.follow());
+    private static final TokenSet PROGRAM_OR_EOF = TokenSet.of(Program.first(), EOF);
+    private static final TokenSet STATIC_OR_TYPE = TokenSet.of(Static, Type.first());
+    private static final TokenSet FIELD_OR_METHOD = TokenSet.of(SemiColon, LeftParen);
+    private static final TokenSet METHOD_REST_OR_BODY = TokenSet.of(MethodRest.first(), Block.first());
+    private static final TokenSet BASIC_TYPES = TokenSet.of(Int, Boolean, Void, Identifier);
+    private static final TokenSet ELSE_OR_END = TokenSet.of(Else, IfStatement.follow());
+    private static final TokenSet EXPRESSION_OR_SEMICOLON = TokenSet.of(Expression.first(), SemiColon);
+    private static final TokenSet ASSIGN_OR_SEMICOLON = TokenSet.of(Assign, SemiColon);
+    private static final TokenSet SECOND_TOKEN_AFTER_IDENT = TokenSet.of(EXPRESSION_TOKEN_FOLLOWED_BY_IDENT, LeftSquareBracket, Identifier);
+    private static final TokenSet THIRD_TOKEN_AFTER_IDENT_LEFTSQUAREBRACKET = TokenSet.of(EXPRESSION_TOKEN_FOLLOWED_BY_IDENT_LEFTSQUAREBRACKET, RightSquareBracket, Identifier);
+    private static final TokenSet ARGUMENTS_OR_CLOSING_PAREN = TokenSet.of(Arguments.first(), RightParen);
+    private static final TokenSet METHOD_CALL_OR_END = TokenSet.of(LeftParen, PrimaryExpression.follow());
+    private static final TokenSet BASIC_TYPE_OR_IDENT = TokenSet.of(BasicType.first(), Identifier);
+    private static final TokenSet NEW_OBJECT_OR_ARRAY = TokenSet.of(LeftParen, LeftSquareBracket);
+    private static final TokenSet CLOSING_SQUARE_OR_EXPRESSION = TokenSet.of(RightSquareBracket, Expression.first());
+    private static final TokenSet STATEMENT_START = TokenSet.of(
+            Block.first(),
+            EmptyStatement.first(),
+            IfStatement.first(),
+            ExpressionStatement.first(),
+            WhileStatement.first(),
+            ReturnStatement.first(),
+            LocalVariableDeclarationStatement.first()
+    );
+
+    // The anchors, which the productions add to the anchors of their caller, for the positions in a production that
+    // add more than a single token or FIRST set. Some positions use one of the sets of expected tokens above.
+    private static final TokenSet CLASS_AFTER_KEYWORD_ANCHORS = TokenSet.of(Identifier, LeftCurlyBracket, ClassDeclaration.first(), RightCurlyBracket);
+    private static final TokenSet CLASS_AFTER_NAME_ANCHORS = TokenSet.of(LeftCurlyBracket, ClassDeclaration.first(), RightCurlyBracket);
+    private static final TokenSet CLASS_BODY_ANCHORS = TokenSet.of(ClassDeclaration.first(), RightCurlyBracket);
+    private static final TokenSet CLASS_MEMBERS_ANCHORS = TokenSet.of(RightCurlyBracket, ClassMember.first());
+    private static final TokenSet CLASS_MEMBER_AFTER_PUBLIC_ANCHORS = TokenSet.of(Type.first(), Identifier, SemiColon, LeftParen);
+    private static final TokenSet CLASS_MEMBER_AFTER_TYPE_ANCHORS = TokenSet.of(Identifier, SemiColon, LeftParen);
+    private static final TokenSet METHOD_NEXT_PARAMETER_ANCHORS = TokenSet.of(Comma, Parameter.first(), RightParen, MethodRest.first(), Block.first());
+    private static final TokenSet METHOD_AFTER_PARAMETER_ANCHORS = TokenSet.of(Parameter.first(), RightParen, MethodRest.first(), Block.first());
+    private static final TokenSet METHOD_AFTER_FIRST_PARAMETER_ANCHORS = TokenSet.of(RightParen, MethodRest.first(), Block.first());
+    private static final TokenSet METHOD_PARAMETER_SEPARATOR_ANCHORS = TokenSet.of(Comma, RightParen, MethodRest.first());
+    private static final TokenSet IF_AFTER_KEYWORD_ANCHORS = TokenSet.of(LeftParen, Expression.first(), RightParen, Statement.first(), Else);
+    private static final TokenSet IF_AFTER_PAREN_ANCHORS = TokenSet.of(Expression.first(), RightParen, Statement.first(), Else);
+    private static final TokenSet IF_AFTER_CONDITION_ANCHORS = TokenSet.of(RightParen, Statement.first(), Else);
+    private static final TokenSet IF_AFTER_CLOSING_PAREN_ANCHORS = TokenSet.of(Statement.first(), Else);
+    private static final TokenSet WHILE_AFTER_KEYWORD_ANCHORS = TokenSet.of(LeftParen, Expression.first(), RightParen, Statement.first());
+    private static final TokenSet WHILE_AFTER_PAREN_ANCHORS = TokenSet.of(Expression.first(), RightParen, Statement.first());
+    private static final TokenSet WHILE_AFTER_CONDITION_ANCHORS = TokenSet.of(RightParen, Statement.first());
+    private static final TokenSet LOCAL_VARIABLE_AFTER_TYPE_ANCHORS = TokenSet.of(Identifier, Assign, SemiColon);
+    private static final TokenSet NEW_ARRAY_AFTER_TYPE_ANCHORS = TokenSet.of(Expression.first(), RightSquareBracket);
+
+    private final TokenSource lexer;
     private Token token;
     private boolean errorMode;
     public boolean successfulParse;
     private int lastErrorPos;
     private final Optional<CompilerMessageReporter> reporter;
 
-    private Parser(Lexer lexer, Optional<CompilerMessageReporter> reporter) {
+    private Parser(TokenSource lexer, Optional<CompilerMessageReporter> reporter) {
         this.lexer = lexer;
         this.token = lexer.peekToken();
         this.errorMode = false;
@@ -54,11 +119,11 @@ public class Parser {
         this.lastErrorPos = -1;
     }
 
-    public Parser(Lexer lexer) {
+    public Parser(TokenSource lexer) {
         this(lexer, Optional.empty());
     }
 
-    public Parser(Lexer lexer, CompilerMessageReporter reporter) {
+    public Parser(TokenSource lexer, CompilerMessageReporter reporter) {
         this(lexer, Optional.of(reporter));
     }
 
@@ -78,8 +143,8 @@ public class Parser {
     private record ExpectResult(Token token, boolean isError) {
     }
 
-    private ExpectResult expect(TokenSet anchors, TokenSetLike... type) {
-        return this.expectInternal(anchors, true, type);
+    private ExpectResult expect(TokenSet anchors, TokenSetLike expected) {
+        return this.expectInternal(anchors, true, expected);
     }
 
     private Token assertExpect(TokenType... type) {
@@ -90,19 +155,19 @@ public class Parser {
         return oldToken;
     }
 
-    private ExpectResult expectNoConsume(TokenSet anchors, TokenSetLike... type) {
-        return this.expectInternal(anchors, false, type);
+    private ExpectResult expectNoConsume(TokenSet anchors, TokenSetLike expected) {
+        return this.expectInternal(anchors, false, expected);
     }
 
-    private ExpectResult expectInternal(TokenSet anchors, boolean consume, TokenSetLike... type) {
-        var expectedTokens = TokenSet.of(type);
+    private ExpectResult expectInternal(TokenSet anchors, boolean consume, TokenSetLike expected) {
         var error = false;
 
+        var expectedTokens = expected.asTokenSet();
         if (!expectedTokens.contains(this.token.type)) {
             this.successfulParse = false;
 
             if (!this.errorMode && this.lastErrorPos < this.token.getSpan().start()) {
-                this.reporter.ifPresent(compilerMessageReporter -> compilerMessageReporter.reportMessage(new UnexpectedTokenError(this.token, type)));
+                this.reporter.ifPresent(compilerMessageReporter -> compilerMessageReporter.reportMessage(new UnexpectedTokenError(this.token, expectedTokens)));
             }
             this.lastErrorPos = this.token.getSpan().start();
 
@@ -131,12 +196,13 @@ public class Parser {
     }
 
     public Program parse() {
+        AstIdAllocator.begin();
         return parseS(TokenSet.empty());
     }
 
     private Program parseS(TokenSet anchors) {
 
-        var expectResult = expectNoConsume(anchors, Program.first(), EOF);
+        var expectResult = expectNoConsume(anchors, PROGRAM_OR_EOF);
 
         Program ast;
 
@@ -155,14 +221,14 @@ public class Parser {
     private Program parseProgram(TokenSet anchors) {
         var classes = new ArrayList<Class>();
 
-        var expectResult = expectNoConsume(anchors, ClassDeclaration.first(), ClassDeclaration.follow());
+        var expectResult = expectNoConsume(anchors, CLASS_DECLARATION_OR_END);
         var error = expectResult.isError;
 
         while (ClassDeclaration.firstContains(token.type)) {
             var ast = parseClassDeclaration(anchors);
             classes.add(ast);
 
-            this.expectNoConsume(anchors, ClassDeclaration.first(), ClassDeclaration.follow());
+            this.expectNoConsume(anchors, CLASS_DECLARATION_OR_END);
         }
 
         return new Program(classes).makeError(error);
@@ -172,30 +238,30 @@ public class Parser {
         var fields = new ArrayList<Field>();
         var methods = new ArrayList<Method>();
 
-        var expectResult = expect(anchors.add(Identifier, LeftCurlyBracket, ClassDeclaration.first(), RightCurlyBracket), Class);
+        var expectResult = expect(anchors.add(CLASS_AFTER_KEYWORD_ANCHORS), Class);
         var classToken = expectResult.token;
         var error = expectResult.isError;
 
-        expectResult = expect(anchors.add(LeftCurlyBracket, ClassDeclaration.first(), RightCurlyBracket), Identifier);
+        expectResult = expect(anchors.add(CLASS_AFTER_NAME_ANCHORS), Identifier);
         var identToken = expectResult.token;
         error |= expectResult.isError;
 
-        expectResult = expect(anchors.add(ClassDeclaration.first(), RightCurlyBracket), LeftCurlyBracket);
+        expectResult = expect(anchors.add(CLASS_BODY_ANCHORS), LeftCurlyBracket);
         var openCurly = expectResult.token;
         error |= expectResult.isError;
 
-        expectResult = expectNoConsume(anchors, ClassMember.first(), RightCurlyBracket);
+        expectResult = expectNoConsume(anchors, CLASS_MEMBER_OR_CLOSING_CURLY);
         error |= expectResult.isError;
 
         while (ClassMember.firstContains(token.type)) {
-            var ast = parseClassMember(anchors.add(RightCurlyBracket, ClassMember.first()));
+            var ast = parseClassMember(anchors.add(CLASS_MEMBERS_ANCHORS));
             switch (ast) {
                 case Field field -> fields.add(field);
                 case Method method -> methods.add(method);
                 case null, default -> error = true; // This should never happen
             }
 
-            expectResult = expectNoConsume(anchors, ClassMember.first(), RightCurlyBracket);
+            expectResult = expectNoConsume(anchors, CLASS_MEMBER_OR_CLOSING_CURLY);
             error |= expectResult.isError;
         }
 
@@ -209,11 +275,11 @@ public class Parser {
     private AstNode parseClassMember(TokenSet anchors) {
         // This parses methods until the left paren, including
 
-        var expectResult = expect(anchors.add(Type.first(), Identifier, SemiColon, LeftParen), TokenType.Public);
+        var expectResult = expect(anchors.add(CLASS_MEMBER_AFTER_PUBLIC_ANCHORS), TokenType.Public);
         var publicToken = expectResult.token;
         var error = expectResult.isError;
 
-        expectResult = expectNoConsume(anchors.add(Type.first(), Identifier, SemiColon, LeftParen), Static, Type.first());
+        expectResult = expectNoConsume(anchors.add(CLASS_MEMBER_AFTER_PUBLIC_ANCHORS), STATIC_OR_TYPE);
         error |= expectResult.isError;
 
         Optional<Token> staticToken = Optional.empty();
@@ -222,10 +288,10 @@ public class Parser {
             staticToken = Optional.ofNullable(tok);
         }
 
-        expectResult = expectNoConsume(anchors.add(Identifier, SemiColon, LeftParen), Type.first());
+        expectResult = expectNoConsume(anchors.add(CLASS_MEMBER_AFTER_TYPE_ANCHORS), Type.first());
         error |= expectResult.isError;
 
-        var parseTypeResult = parseType(anchors.add(Identifier, SemiColon, LeftParen));
+        var parseTypeResult = parseType(anchors.add(CLASS_MEMBER_AFTER_TYPE_ANCHORS));
         error |= parseTypeResult.parentError;
         var type = parseTypeResult.type;
 
@@ -234,11 +300,11 @@ public class Parser {
             error = true;
         }
 
-        expectResult = expect(anchors.add(SemiColon, LeftParen), Identifier);
+        expectResult = expect(anchors.add(FIELD_OR_METHOD), Identifier);
         var identToken = expectResult.token;
         error |= expectResult.isError;
 
-        expectResult = expectNoConsume(anchors, SemiColon, LeftParen);
+        expectResult = expectNoConsume(anchors, FIELD_OR_METHOD);
         error |= expectResult.isError;
 
         switch (token.type) {
@@ -255,7 +321,7 @@ public class Parser {
             case LeftParen -> {
                 var openParamToken = assertExpect(LeftParen);
 
-                expectResult = expectNoConsume(anchors, Parameter.first(), RightParen);
+                expectResult = expectNoConsume(anchors, PARAMETER_OR_CLOSING_PAREN);
                 error |= expectResult.isError();
 
                 var method = parseMethod(anchors, publicToken, type, identToken, staticToken, openParamToken);
@@ -284,39 +350,39 @@ public class Parser {
         if (isStatic.isPresent()) {
             // Handling MainMethod, parse up to the closing paren,
             // rest will be parsed together
-            var parameter = parseParameter(anchors.add(RightParen, MethodRest.first(), Block.first()));
+            var parameter = parseParameter(anchors.add(METHOD_AFTER_FIRST_PARAMETER_ANCHORS));
             parameters.add(parameter);
         } else {
-            var expectResult = expectNoConsume(anchors.add(Comma, RightParen, MethodRest.first()), Parameter.first(), RightParen);
+            var expectResult = expectNoConsume(anchors.add(METHOD_PARAMETER_SEPARATOR_ANCHORS), PARAMETER_OR_CLOSING_PAREN);
             error |= expectResult.isError;
 
             if (Parameter.firstContains(token.type)) {
-                expectResult = expectNoConsume(anchors.add(Comma, Parameter.first(), RightParen, MethodRest.first(), Block.first()), Parameter.first());
+                expectResult = expectNoConsume(anchors.add(METHOD_NEXT_PARAMETER_ANCHORS), Parameter.first());
                 error |= expectResult.isError;
-                var parameter = parseParameter(anchors.add(Comma, Parameter.first(), RightParen, MethodRest.first(), Block.first()));
+                var parameter = parseParameter(anchors.add(METHOD_NEXT_PARAMETER_ANCHORS));
                 parameters.add(parameter);
             }
 
-            expectResult = expectNoConsume(anchors.add(Parameter.first(), RightParen, MethodRest.first(), Block.first()), Comma, RightParen);
+            expectResult = expectNoConsume(anchors.add(METHOD_AFTER_PARAMETER_ANCHORS), COMMA_OR_CLOSING_PAREN);
             error |= expectResult.isError;
 
             while (token.type == Comma || Parameter.firstContains(token.type)) {
-                expectResult = expect(anchors.add(Parameter.first(), RightParen, MethodRest.first(), Block.first()), Comma);
+                expectResult = expect(anchors.add(METHOD_AFTER_PARAMETER_ANCHORS), Comma);
                 error |= expectResult.isError;
 
-                var parameter = parseParameter(anchors.add(Comma, Parameter.first(), RightParen, MethodRest.first(), Block.first()));
+                var parameter = parseParameter(anchors.add(METHOD_NEXT_PARAMETER_ANCHORS));
                 parameters.add(parameter);
 
-                expectResult = expectNoConsume(anchors.add(Parameter.first(), RightParen, MethodRest.first(), Block.first()), Comma, RightParen);
+                expectResult = expectNoConsume(anchors.add(METHOD_AFTER_PARAMETER_ANCHORS), COMMA_OR_CLOSING_PAREN);
                 error |= expectResult.isError;
             }
         }
 
-        var expectResult = expect(anchors.add(MethodRest.first(), Block.first()), RightParen);
+        var expectResult = expect(anchors.add(METHOD_REST_OR_BODY), RightParen);
         var closeParamToken = expectResult.token;
         error |= expectResult.isError;
 
-        expectResult = expectNoConsume(anchors, MethodRest.first(), Block.first());
+        expectResult = expectNoConsume(anchors, METHOD_REST_OR_BODY);
         error |= expectResult.isError;
 
         if (MethodRest.firstContains(token.type)) {
@@ -351,7 +417,7 @@ public class Parser {
     private ParseTypeResult parseType(TokenSet anchors) {
         var type = parseBasicType(anchors.add(LeftSquareBracket));
 
-        var expectResult = expectNoConsume(anchors, LeftSquareBracket, Type.follow());
+        var expectResult = expectNoConsume(anchors, ARRAY_TYPE_OR_END);
         var error = expectResult.isError;
 
         while (token.type == TokenType.LeftSquareBracket) {
@@ -363,7 +429,7 @@ public class Parser {
 
             type = new ArrayType(type, openBracket, closedBracket).makeError(error);
 
-            expectResult = expectNoConsume(anchors, LeftSquareBracket, Type.follow());
+            expectResult = expectNoConsume(anchors, ARRAY_TYPE_OR_END);
             error = expectResult.isError; /* Not |= because we either start parsing a new ArrayType or consume garbage tokens
                                              whose error should be handled by the parent. */
         }
@@ -371,7 +437,7 @@ public class Parser {
     }
 
     private Type parseBasicType(TokenSet anchors) {
-        expectNoConsume(anchors, Int, Boolean, Void, Identifier);
+        expectNoConsume(anchors, BASIC_TYPES);
 
         switch (token.type) {
             case Int -> {
@@ -399,18 +465,18 @@ public class Parser {
     private Block parseBlock(TokenSet anchors) {
         var statements = new ArrayList<Statement>();
 
-        var expectResult = expect(anchors.add(BlockStatement.first(), RightCurlyBracket), LeftCurlyBracket);
+        var expectResult = expect(anchors.add(BLOCK_STATEMENT_OR_CLOSING_CURLY), LeftCurlyBracket);
         var openCurly = expectResult.token;
         var error = expectResult.isError;
 
-        expectResult = expectNoConsume(anchors, BlockStatement.first(), RightCurlyBracket);
+        expectResult = expectNoConsume(anchors, BLOCK_STATEMENT_OR_CLOSING_CURLY);
         error |= expectResult.isError;
 
         while (BlockStatement.firstContains(token.type)) {
-            var ast = parseStatement(anchors.add(BlockStatement.first(), RightCurlyBracket));
+            var ast = parseStatement(anchors.add(BLOCK_STATEMENT_OR_CLOSING_CURLY));
             statements.add(ast);
 
-            expectResult = expectNoConsume(anchors, BlockStatement.first(), RightCurlyBracket);
+            expectResult = expectNoConsume(anchors, BLOCK_STATEMENT_OR_CLOSING_CURLY);
             error |= expectResult.isError;
         }
 
@@ -423,16 +489,7 @@ public class Parser {
 
     private Statement parseStatement(TokenSet anchors) {
 
-        var expectResult = expectNoConsume(
-                anchors,
-                Block.first(),
-                EmptyStatement.first(),
-                IfStatement.first(),
-                ExpressionStatement.first(),
-                WhileStatement.first(),
-                ReturnStatement.first(),
-                LocalVariableDeclarationStatement.first()
-        );
+        var expectResult = expectNoConsume(anchors, STATEMENT_START);
         var error = expectResult.isError;
 
         Statement result;
@@ -470,21 +527,21 @@ public class Parser {
     }
 
     private IfStatement parseIfStatement(TokenSet anchors) {
-        var expectResult = expect(anchors.add(LeftParen, Expression.first(), RightParen, Statement.first(), Else), If);
+        var expectResult = expect(anchors.add(IF_AFTER_KEYWORD_ANCHORS), If);
         var ifToken = expectResult.token;
         var error = expectResult.isError;
 
-        expectResult = expect(anchors.add(Expression.first(), RightParen, Statement.first(), Else), LeftParen);
+        expectResult = expect(anchors.add(IF_AFTER_PAREN_ANCHORS), LeftParen);
         var openParen = expectResult.token;
         error |= expectResult.isError;
 
-        expectResult = expectNoConsume(anchors.add(RightParen, Statement.first(), Else), Expression.first());
+        expectResult = expectNoConsume(anchors.add(IF_AFTER_CONDITION_ANCHORS), Expression.first());
         error |= expectResult.isError;
-        var expressionResult = parseExpression(anchors.add(RightParen, Statement.first(), Else), 0);
+        var expressionResult = parseExpression(anchors.add(IF_AFTER_CONDITION_ANCHORS), 0);
         error |= expressionResult.parentError;
         var condition = expressionResult.expression;
 
-        expectResult = expect(anchors.add(Statement.first(), Else), RightParen);
+        expectResult = expect(anchors.add(IF_AFTER_CLOSING_PAREN_ANCHORS), RightParen);
         var closeParen = expectResult.token;
         error |= expectResult.isError;
 
@@ -499,7 +556,7 @@ public class Parser {
 
         Optional<Statement> elseStatement = Optional.empty();
 
-        expectNoConsume(anchors, Else, IfStatement.follow());
+        expectNoConsume(anchors, ELSE_OR_END);
 
         if (token.type == TokenType.Else) {
             assertExpect(Else);
@@ -532,17 +589,17 @@ public class Parser {
     }
 
     private WhileStatement parseWhileStatement(TokenSet anchors) {
-        var expectResult = expect(anchors.add(LeftParen, Expression.first(), RightParen, Statement.first()), While);
+        var expectResult = expect(anchors.add(WHILE_AFTER_KEYWORD_ANCHORS), While);
         var whileToken = expectResult.token;
         var error = expectResult.isError;
 
-        expectResult = expect(anchors.add(Expression.first(), RightParen, Statement.first()), LeftParen);
+        expectResult = expect(anchors.add(WHILE_AFTER_PAREN_ANCHORS), LeftParen);
         var openParen = expectResult.token;
         error |= expectResult.isError;
 
-        expectResult = expectNoConsume(anchors.add(RightParen, Statement.first()), Expression.first());
+        expectResult = expectNoConsume(anchors.add(WHILE_AFTER_CONDITION_ANCHORS), Expression.first());
         error |= expectResult.isError;
-        var expressionResult = parseExpression(anchors.add(RightParen, Statement.first()), 0);
+        var expressionResult = parseExpression(anchors.add(WHILE_AFTER_CONDITION_ANCHORS), 0);
         error |= expectResult.isError;
         var condition = expressionResult.expression;
 
@@ -563,13 +620,13 @@ public class Parser {
     }
 
     private ReturnStatement parseReturnStatement(TokenSet anchors) {
-        var expectResult = expect(anchors.add(Expression.first(), SemiColon), Return);
+        var expectResult = expect(anchors.add(EXPRESSION_OR_SEMICOLON), Return);
         var returnToken = expectResult.token;
         var error = expectResult.isError;
 
         Optional<Expression> expression = Optional.empty();
 
-        expectResult = expectNoConsume(anchors, Expression.first(), SemiColon);
+        expectResult = expectNoConsume(anchors, EXPRESSION_OR_SEMICOLON);
         error |= expectResult.isError;
 
         if (Expression.firstContains(token.type)) {
@@ -589,15 +646,15 @@ public class Parser {
 
     private LocalVariableDeclarationStatement parseLocalVariableDeclarationStatement(TokenSet anchors) {
 
-        var parseTypeResult = parseType(anchors.add(Identifier, Assign, SemiColon));
+        var parseTypeResult = parseType(anchors.add(LOCAL_VARIABLE_AFTER_TYPE_ANCHORS));
         var error = parseTypeResult.parentError;
         var type = parseTypeResult.type;
 
-        var expectResult = expect(anchors.add(Assign, SemiColon), Identifier);
+        var expectResult = expect(anchors.add(ASSIGN_OR_SEMICOLON), Identifier);
         var identToken = expectResult.token;
         error |= expectResult.isError;
 
-        expectResult = expectNoConsume(anchors, Assign, SemiColon);
+        expectResult = expectNoConsume(anchors, ASSIGN_OR_SEMICOLON);
         error |= expectResult.isError;
 
         Optional<Expression> initializer = Optional.empty();
@@ -622,26 +679,18 @@ public class Parser {
         return new LocalVariableDeclarationStatement(type, identToken, assignToken, initializer, semicolon).makeError(error);
     }
 
-    private static final TokenSet EXPRESSION_TOKEN_FOLLOWED_BY_IDENT = TokenSet.of(
-            BINARY_OPERATORS, LeftParen, LeftSquareBracket, Dot, Expression.follow()
-    );
-
-    private static final TokenSet EXPRESSION_TOKEN_FOLLOWED_BY_IDENT_LEFTSQUAREBRACKET = TokenSet.of(
-            Expression.first()
-    );
-
     private Statement parseExpressionStatementOrLocalVariableDeclarationStatement(TokenSet anchors) {
         var savedIdentifier = assertExpect(Identifier);
 
         // Discard tokens that can not be the second token of an Expression or Type (beginning with an identifier).
-        var expectResult = expectNoConsume(anchors, EXPRESSION_TOKEN_FOLLOWED_BY_IDENT, LeftSquareBracket, Identifier);
+        var expectResult = expectNoConsume(anchors, SECOND_TOKEN_AFTER_IDENT);
         var error = expectResult.isError;
 
         if (token.type == LeftSquareBracket) {
             var savedLeftSquareBracket = assertExpect(LeftSquareBracket);
 
             // Discard tokens that can not be the third token of an Expression or Type (beginning with an identifier and LeftSquareBracket).
-            expectResult = expectNoConsume(anchors, EXPRESSION_TOKEN_FOLLOWED_BY_IDENT_LEFTSQUAREBRACKET, RightSquareBracket, Identifier);
+            expectResult = expectNoConsume(anchors, THIRD_TOKEN_AFTER_IDENT_LEFTSQUAREBRACKET);
             error = expectResult.isError;
 
             if (token.type == RightSquareBracket) {
@@ -682,40 +731,152 @@ public class Parser {
     record ParseExpressionResult(Expression expression, boolean parentError) {
     }
 
+    // The expression parser doesn't recurse for nested binary operators, unary operators and parenthesized
+    // expressions. Instead, the pending work for each of these is kept on an explicit stack of frames,
+    // so that arbitrarily deep expressions can be parsed without overflowing the Java stack.
+    private sealed interface ExpressionFrame permits BinaryFrame, UnaryFrame, ParenFrame {
+    }
+
+    // A precedence climbing loop, that is parsing all operators with a precedence of at least minPrec.
+    private static final class BinaryFrame implements ExpressionFrame {
+        private final TokenSet anchors;
+        private final int minPrec;
+        private Expression lhs;
+        private boolean parentError;
+        // The operator and error of the binary expression, whose right hand side is currently parsed.
+        private Token operator;
+        private boolean operatorError;
+
+        private BinaryFrame(TokenSet anchors, int minPrec) {
+            this.anchors = anchors;
+            this.minPrec = minPrec;
+        }
+    }
+
+    // A unary operator waiting for its operand.
+    private record UnaryFrame(Token operator, boolean error) implements ExpressionFrame {
+    }
+
+    // A parenthesized expression waiting for its inner expression.
+    // postfixAnchors are the anchors of the postfix expression, that has the parenthesized expression as its primary expression.
+    private record ParenFrame(TokenSet anchors, TokenSet postfixAnchors, boolean unaryError) implements ExpressionFrame {
+    }
+
     private ParseExpressionResult parseExpression(TokenSet anchors, int minPrec) {
-        var expressionResult = this.parseUnaryExpression(anchors.add(getTokensWithHigherPrecendence(minPrec)));
-        var result = expressionResult.expression;
-        var parentError = expressionResult.parentError;
+        var frames = new ArrayDeque<ExpressionFrame>();
+        var value = this.descendExpression(frames, anchors, minPrec);
 
-        var expectResult = expectNoConsume(anchors, BINARY_OPERATORS, Expression.follow());
-        parentError |= expectResult.isError;
+        while (true) {
+            switch (frames.pop()) {
+                case UnaryFrame unary -> {
+                    Expression expr = new UnaryExpression(value.expression, unary.operator).makeError(unary.error);
+                    value = new ParseExpressionResult(expr, value.parentError);
+                }
+                case ParenFrame paren -> {
+                    var expression = value.expression;
+                    var error = value.parentError;
 
-        while (getBinOpPrecedence(token.type) >= minPrec) {
-            var error = parentError;
+                    var expectResult = expect(paren.anchors, RightParen);
+                    error |= expectResult.isError;
 
-            var tokenPrec = getBinOpPrecedence(token.type);
+                    if (expression != null) {
+                        expression.makeError(error);
+                    }
 
-            if (token.type != Assign) {
-                tokenPrec += 1; // Every binary operator is left associative except assign.
-            }
+                    var result = this.parsePostfixOperators(paren.postfixAnchors, new ParseExpressionResult(expression, false));
+                    value = new ParseExpressionResult(result.expression, result.parentError || paren.unaryError);
+                }
+                case BinaryFrame binary -> {
+                    if (binary.operator == null) {
+                        binary.lhs = value.expression;
+                        binary.parentError = value.parentError;
+
+                        var expectResult = expectNoConsume(binary.anchors, BINARY_OPERATOR_OR_END);
+                        binary.parentError |= expectResult.isError;
+                    } else {
+                        var error = binary.operatorError | value.parentError;
+                        binary.lhs = constructBinOpExpression(binary.lhs, binary.operator, value.expression).makeError(error);
+                        binary.operator = null;
+
+                        var expectResult = expectNoConsume(binary.anchors, BINARY_OPERATOR_OR_END);
+                        binary.parentError = expectResult.isError; // not |= because the error might need to be handled by the parent.
+                    }
 
-            expectResult = expect(anchors, getTokensWithHigherPrecendence(minPrec));
-            error |= expectResult.isError;
-            var oldToken = expectResult.token;
+                    if (getBinOpPrecedence(token.type) >= binary.minPrec) {
+                        var error = binary.parentError;
 
-            expectResult = expectNoConsume(anchors.add(getTokensWithLowerPrecendence(minPrec)), Expression.first());
-            error |= expectResult.isError;
-            expressionResult = this.parseExpression(anchors.add(getTokensWithLowerPrecendence(minPrec)), tokenPrec);
-            error |= expressionResult.parentError;
-            var rhs = expressionResult.expression;
+                        var tokenPrec = getBinOpPrecedence(token.type);
+
+                        if (token.type != Assign) {
+                            tokenPrec += 1; // Every binary operator is left associative except assign.
+                        }
 
-            result = constructBinOpExpression(result, oldToken, rhs).makeError(error);
+                        var expectResult = expect(binary.anchors, getTokensWithHigherPrecendence(binary.minPrec));
+                        error |= expectResult.isError;
+                        binary.operator = expectResult.token;
 
-            expectResult = expectNoConsume(anchors, BINARY_OPERATORS, Expression.follow());
-            parentError = expectResult.isError; // not |= because the error might need to be handled by the parent.
+                        var rhsAnchors = binary.anchors.add(getTokensWithLowerPrecendence(binary.minPrec));
+                        expectResult = expectNoConsume(rhsAnchors, Expression.first());
+                        error |= expectResult.isError;
+                        binary.operatorError = error;
+
+                        frames.push(binary);
+                        value = this.descendExpression(frames, rhsAnchors, tokenPrec);
+                    } else {
+                        value = new ParseExpressionResult(binary.lhs, binary.parentError);
+                        if (frames.isEmpty()) {
+                            return value;
+                        }
+                    }
+                }
+            }
         }
+    }
+
+    /**
+     * Parses the beginning of an expression until the first operand, which doesn't start with a unary
+     * operator or a parenthesis, is parsed.
+     * For every unary operator and parenthesis on the way, a frame is pushed, which completes the expression later.
+     */
+    private ParseExpressionResult descendExpression(ArrayDeque<ExpressionFrame> frames, TokenSet anchors, int minPrec) {
+        while (true) {
+            frames.push(new BinaryFrame(anchors, minPrec));
+            var unaryAnchors = anchors.add(getTokensWithHigherPrecendence(minPrec));
+
+            while (token.type == TokenType.Not || token.type == TokenType.Subtract) {
+                var operatorToken = assertExpect(Not, Subtract);
+
+                var expectResult = expectNoConsume(unaryAnchors, UnaryExpression.first());
+                var error = expectResult.isError;
+
+                if (operatorToken.type == Subtract && token.type == IntLiteral) {
+                    // Parse as negative int literal in parsePrimaryExpression
+                    addToLexer(operatorToken);
+
+                    return parsePostfixExpression(unaryAnchors);
+                }
 
-        return new ParseExpressionResult(result, parentError);
+                frames.push(new UnaryFrame(operatorToken, error));
+            }
+
+            var expectResult = expectNoConsume(unaryAnchors, PostfixExpression.first());
+            var error = expectResult.isError;
+
+            if (token.type == LeftParen) {
+                assertExpect(LeftParen);
+
+                var primaryAnchors = unaryAnchors.add(PostfixOp.first());
+                frames.push(new ParenFrame(primaryAnchors, unaryAnchors, error));
+
+                anchors = primaryAnchors.add(RightParen);
+                minPrec = 0;
+                continue;
+            }
+
+            ParseExpressionResult result = parsePostfixExpression(unaryAnchors);
+
+            return new ParseExpressionResult(result.expression, result.parentError || error);
+        }
     }
 
     private static Expression constructBinOpExpression(Expression lhs, Token token, Expression rhs) {
@@ -726,20 +887,33 @@ public class Parser {
         }
     }
 
+    // The highest precedence is 70, but the minimal precedence may be one higher for left associative operators.
+    private static final int MAX_MIN_PRECEDENCE = 71;
+    private static final TokenSet[] TOKENS_WITH_HIGHER_PRECEDENCE = new TokenSet[MAX_MIN_PRECEDENCE + 1];
+    private static final TokenSet[] TOKENS_WITH_LOWER_PRECEDENCE = new TokenSet[MAX_MIN_PRECEDENCE + 1];
+
+    static {
+        for (int prec = 0; prec <= MAX_MIN_PRECEDENCE; prec++) {
+            var higher = TokenSet.empty();
+            var lower = TokenSet.empty();
+            for (var tokenType : BINARY_OPERATORS.stream().toList()) {
+                if (getBinOpPrecedence(tokenType) >= prec) {
+                    higher = higher.add(tokenType);
+                } else {
+                    lower = lower.add(tokenType);
+                }
+            }
+            TOKENS_WITH_HIGHER_PRECEDENCE[prec] = higher;
+            TOKENS_WITH_LOWER_PRECEDENCE[prec] = lower;
+        }
+    }
+
     private static TokenSet getTokensWithHigherPrecendence(int prec) {
-        EnumSet<TokenType> set = BINARY_OPERATORS.getSet()
-                .stream()
-                .filter(tokenType -> getBinOpPrecedence(tokenType) >= prec)
-                .collect(Collectors.toCollection(() -> EnumSet.noneOf(TokenType.class)));
-        return new TokenSet(set);
+        return TOKENS_WITH_HIGHER_PRECEDENCE[prec];
     }
 
     private static TokenSet getTokensWithLowerPrecendence(int prec) {
-        EnumSet<TokenType> set = BINARY_OPERATORS.getSet()
-                .stream()
-                .filter(tokenType -> getBinOpPrecedence(tokenType) < prec)
-                .collect(Collectors.toCollection(() -> EnumSet.noneOf(TokenType.class)));
-        return new TokenSet(set);
+        return TOKENS_WITH_LOWER_PRECEDENCE[prec];
     }
 
     private static int getBinOpPrecedence(TokenType type) {
@@ -755,58 +929,16 @@ public class Parser {
         };
     }
 
-    private ParseExpressionResult parseUnaryExpression(TokenSet anchors) {
-
-        if (token.type == TokenType.Not) {
-            var notToken = assertExpect(Not);
-
-            var expectResult = expectNoConsume(anchors, UnaryExpression.first());
-            var error = expectResult.isError;
-
-            var parseExpressionResult = parseUnaryExpression(anchors);
-            var child = parseExpressionResult.expression;
-            var parentError = parseExpressionResult.parentError;
-
-            Expression expr = new UnaryExpression(child, notToken).makeError(error);
-
-            return new ParseExpressionResult(expr, parentError);
-        } else if (token.type == TokenType.Subtract) {
-            var minusToken = assertExpect(Subtract);
-
-            var expectResult = expectNoConsume(anchors, UnaryExpression.first());
-            var error = expectResult.isError;
-
-            if (token.type == IntLiteral){
-                // Parse as negative int literal in parsePrimaryExpression
-                addToLexer(minusToken);
-
-                return parsePostfixExpression(anchors);
-            } else {
-                var parseExpressionResult = parseUnaryExpression(anchors);
-                var child = parseExpressionResult.expression;
-                var parentError = parseExpressionResult.parentError;
-
-                Expression expr = new UnaryExpression(child, minusToken).makeError(error);
-
-                return new ParseExpressionResult(expr, parentError);
-            }
-        } else {
-            var expectResult = expectNoConsume(anchors, PostfixExpression.first());
-            var error = expectResult.isError;
-
-            ParseExpressionResult result = parsePostfixExpression(anchors);
-
-            return new ParseExpressionResult(result.expression, result.parentError || error);
-        }
-    }
-
     private ParseExpressionResult parsePostfixExpression(TokenSet anchors) {
+        var expressionResult = parsePrimaryExpression(anchors.add(PostfixOp.first()));
+        return parsePostfixOperators(anchors, expressionResult);
+    }
 
-        var expressionResult = parsePrimaryExpression(anchors.add(Dot, LeftSquareBracket));
+    private ParseExpressionResult parsePostfixOperators(TokenSet anchors, ParseExpressionResult expressionResult) {
         var error = expressionResult.parentError;
         var expression = expressionResult.expression;
 
-        var expectResult = expectNoConsume(anchors, Dot, LeftSquareBracket, PostfixExpression.follow());
+        var expectResult = expectNoConsume(anchors, POSTFIX_OPERATOR_OR_END);
         error |= expectResult.isError;
 
         while (true) {
@@ -820,7 +952,7 @@ public class Parser {
                 if (token.type == LeftParen) {
                     var openParen = assertExpect(LeftParen);
 
-                    expectResult = expectNoConsume(anchors.add(RightParen), Arguments.first(), RightParen); // We might consume no tokens and still parse successfully.
+                    expectResult = expectNoConsume(anchors.add(RightParen), ARGUMENTS_OR_CLOSING_PAREN); // We might consume no tokens and still parse successfully.
                     error |= expectResult.isError;
                     var arguments = parseArguments(anchors.add(RightParen));
                     error |= arguments.error;
@@ -850,7 +982,7 @@ public class Parser {
                 return new ParseExpressionResult(expression, error);
             }
 
-            expectResult = expectNoConsume(anchors, Dot, LeftSquareBracket, PostfixExpression.follow());
+            expectResult = expectNoConsume(anchors, POSTFIX_OPERATOR_OR_END);
             error = expectResult.isError;
         }
     }
@@ -869,7 +1001,7 @@ public class Parser {
 
             arguments.add(expr);
 
-            var expectResult = expectNoConsume(anchors.add(Expression.first()), Comma, Arguments.follow());
+            var expectResult = expectNoConsume(anchors.add(Expression.first()), COMMA_OR_ARGUMENTS_END);
             error |= expectResult.isError;
 
             while (token.type == Comma || Expression.firstContains(token.type)) {
@@ -882,7 +1014,7 @@ public class Parser {
 
                 arguments.add(expr);
 
-                expectResult = expectNoConsume(anchors.add(Expression.first()), Comma, Arguments.follow());
+                expectResult = expectNoConsume(anchors.add(Expression.first()), COMMA_OR_ARGUMENTS_END);
                 error |= expectResult.isError;
             }
         }
@@ -903,7 +1035,7 @@ public class Parser {
             case Subtract -> {
                 var minusToken = assertExpect(Subtract);
 
-                // parseUnaryExpression ensures that if this method encounters a minus token, that the following token
+                // descendExpression ensures that if this method encounters a minus token, that the following token
                 // will be an integer literal.
                 var literal = assertExpect(IntLiteral);
 
@@ -916,7 +1048,7 @@ public class Parser {
             case Identifier -> {
                 var identToken = assertExpect(Identifier);
 
-                var expectResult = expectNoConsume(anchors, LeftParen, PrimaryExpression.follow());
+                var expectResult = expectNoConsume(anchors, METHOD_CALL_OR_END);
                 var error = expectResult.isError;
 
                 if (token.type == LeftParen) {
@@ -939,27 +1071,10 @@ public class Parser {
                 var thisToken = assertExpect(This);
                 return new ParseExpressionResult(new ThisExpression(thisToken), false);
             }
-            case LeftParen -> {
-                assertExpect(LeftParen);
-                var parseExpressionResult = parseExpression(anchors.add(RightParen), 0);
-                var expression = parseExpressionResult.expression;
-                var error = parseExpressionResult.parentError;
-
-                var expectResult = expect(anchors, RightParen);
-                error |= expectResult.isError;
-
-                expression = expression;
-
-                if (expression != null) {
-                    expression.makeError(error);
-                }
-
-                return new ParseExpressionResult(expression, false);
-            }
             case New -> {
                 var newToken = assertExpect(New);
 
-                var expectResult = expectNoConsume(anchors, BasicType.first(), Identifier);
+                var expectResult = expectNoConsume(anchors, BASIC_TYPE_OR_IDENT);
                 var error = expectResult.isError;
 
                 var expressionResult = parseNewObjectOrArrayExpression(anchors, newToken);
@@ -972,6 +1087,7 @@ public class Parser {
 
                 return new ParseExpressionResult(expression, parentError);
             }
+            // Parenthesized expressions are handled by parseExpression.
             case null, default -> {
                 // This should never happen, first set further up prevents it
                 return new ParseExpressionResult(null, true); // Token is in anchor set.
@@ -985,7 +1101,7 @@ public class Parser {
         if (token.type == Identifier) {
             var identToken = assertExpect(Identifier);
 
-            var expectResult = expectNoConsume(anchors, LeftParen, LeftSquareBracket);
+            var expectResult = expectNoConsume(anchors, NEW_OBJECT_OR_ARRAY);
             var error = expectResult.isError;
 
             switch (token.type) {
@@ -1046,7 +1162,7 @@ public class Parser {
 
         int dimensions = 1;
 
-        var expectResult = expect(anchors.add(Expression.first(), RightSquareBracket), LeftSquareBracket);
+        var expectResult = expect(anchors.add(NEW_ARRAY_AFTER_TYPE_ANCHORS), LeftSquareBracket);
         var lastOpenBracket = expectResult.token;
         var error = expectResult.isError;
 
@@ -1060,7 +1176,7 @@ public class Parser {
         var lastCloseBracket = expectResult.token;
         error |= expectResult.isError;
 
-        expectResult = expectNoConsume(anchors, LeftSquareBracket, NewArrayExpression.follow());
+        expectResult = expectNoConsume(anchors, NEW_ARRAY_DIMENSION_OR_END);
         var parentError = expectResult.isError;
 
         while (token.type == LeftSquareBracket) {
@@ -1069,7 +1185,7 @@ public class Parser {
             error |= parentError;
 
             // Expressions are not allowed here, but a user might write them anyway.
-            expectResult = expectNoConsume(anchors.add(LeftSquareBracket, NewArrayExpression.follow()), RightSquareBracket, Expression.first());
+            expectResult = expectNoConsume(anchors.add(NEW_ARRAY_DIMENSION_OR_END), CLOSING_SQUARE_OR_EXPRESSION);
             error |= expectResult.isError;
 
             if (Expression.firstContains(token.type)) {
@@ -1077,12 +1193,12 @@ public class Parser {
                 break;
             }
 
-            expectResult = expect(anchors.add(LeftSquareBracket, NewArrayExpression.follow()), RightSquareBracket);
+            expectResult = expect(anchors.add(NEW_ARRAY_DIMENSION_OR_END), RightSquareBracket);
             error |= expectResult.isError;
             lastCloseBracket = expectResult.token;
             dimensions++;
 
-            expectResult = expectNoConsume(anchors, LeftSquareBracket, NewArrayExpression.follow());
+            expectResult = expectNoConsume(anchors, NEW_ARRAY_DIMENSION_OR_END);
             parentError = expectResult.isError;
         }
 
@@ -0,0 +1,208 @@
+package compiler.syntax;
+
+import java.util.ArrayDeque;
+
+/**
+ * Lexes the input on a separate producer thread while the consumer (usually the parser) reads the tokens.
+ * <p>
+ * The producer writes tokens into a bounded single-producer/single-consumer ring buffer which stores
+ * the token type, span and payload in separate arrays. The consumer reassembles {@link Token}s when reading them.
+ */
+public class PipelinedLexer implements TokenSource, AutoCloseable {
+
+    public static final int DEFAULT_CAPACITY = 1 << 14;
+
+    private static final TokenType[] TOKEN_TYPES = TokenType.values();
+
+    // Spins before the waiting thread starts yielding.
+    private static final int SPIN_LIMIT = 128;
+
+    private final char[] input;
+
+    // The ring buffer. Identifier and error payloads are stored in payloads,
+    // int literal payloads are recovered from the input.
+    private final int mask;
+    private final byte[] types;
+    private final int[] starts;
+    private final int[] lengths;
+    private final int[] identIds;
+    private final String[] payloads;
+
+    // Number of tokens written by the producer / read by the consumer.
+    // The volatile writes publish the buffer contents to the other thread.
+    private volatile long writeIndex = 0;
+    private volatile long readIndex = 0;
+    private volatile Throwable failure = null;
+
+    private final Thread producer;
+
+    // Consumer state
+    private final ArrayDeque<Token> syntheticTokens = new ArrayDeque<>();
+    private Token peekedToken = null;
+    private Token eofToken = null;
+
+    public PipelinedLexer(char[] input, int length, int capacity) {
+        assert TOKEN_TYPES.length <= Byte.MAX_VALUE;
+        assert Integer.bitCount(capacity) == 1 : "capacity must be a power of two";
+
+        this.input = input;
+        this.mask = capacity - 1;
+        this.types = new byte[capacity];
+        this.starts = new int[capacity];
+        this.lengths = new int[capacity];
+        this.identIds = new int[capacity];
+        this.payloads = new String[capacity];
+
+        var lexer = new Lexer(input, length);
+        this.producer = new Thread(() -> this.produce(lexer), "lexer");
+        this.producer.setDaemon(true);
+        this.producer.setUncaughtExceptionHandler((thread, e) -> this.failure = e);
+        this.producer.start();
+    }
+
+    public PipelinedLexer(char[] input) {
+        this(input, input.length, DEFAULT_CAPACITY);
+    }
+
+    public PipelinedLexer(String fileContent) {
+        this(fileContent.toCharArray());
+    }
+
+    private static void backoff(int attempt) {
+        if (attempt < SPIN_LIMIT) {
+            Thread.onSpinWait();
+        } else {
+            Thread.yield();
+        }
+    }
+
+    private void produce(Lexer lexer) {
+        long written = 0;
+        while (true) {
+            // The consumer may stop reading early, e.g. after a syntax error, so don't lex the rest of the input.
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            Token t = lexer.nextToken();
+
+            int attempt = 0;
+            while (written - this.readIndex > this.mask) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                backoff(attempt++);
+            }
+
+            int slot = (int) (written & this.mask);
+            this.types[slot] = (byte) t.type.ordinal();
+            this.starts[slot] = t.span.start();
+            this.lengths[slot] = t.span.length();
+            switch (t.type) {
+                case Identifier -> {
+                    this.payloads[slot] = t.getIdentContent();
+                    this.identIds[slot] = t.getIdentId();
+                }
+                case Error -> this.payloads[slot] = t.getErrorContent();
+                default -> this.payloads[slot] = null;
+            }
+
+            written += 1;
+            this.writeIndex = written;
+
+            if (t.type == TokenType.EOF) {
+                return;
+            }
+        }
+    }
+
+    private Token take() {
+        if (this.eofToken != null) {
+            return this.eofToken;
+        }
+
+        long read = this.readIndex;
+        int attempt = 0;
+        while (read == this.writeIndex) {
+            if (this.failure != null) {
+                throw new IllegalStateException("Lexer thread failed", this.failure);
+            }
+            backoff(attempt++);
+        }
+
+        int slot = (int) (read & this.mask);
+        TokenType type = TOKEN_TYPES[this.types[slot]];
+        Span span = new Span(this.starts[slot], this.lengths[slot]);
+        Token t = switch (type) {
+            case Identifier -> Token.identifier(this.payloads[slot], this.identIds[slot], span);
+            case IntLiteral -> Token.intLiteral(this.input, span);
+            case Error -> Token.error(this.payloads[slot], span);
+            case EOF -> Token.eof(span);
+            // Keywords and operators carry no content.
+            default -> Token.operator(type, span);
+        };
+        this.payloads[slot] = null;
+
+        this.readIndex = read + 1;
+
+        if (type == TokenType.EOF) {
+            this.eofToken = t;
+        }
+        return t;
+    }
+
+    @Override
+    public Token nextToken() {
+        if (!this.syntheticTokens.isEmpty()) {
+            return this.syntheticTokens.removeFirst();
+        }
+        if (this.peekedToken != null) {
+            Token next = this.peekedToken;
+            this.peekedToken = null;
+            return next;
+        }
+        return this.take();
+    }
+
+    @Override
+    public Token peekToken() {
+        if (!this.syntheticTokens.isEmpty()) {
+            return this.syntheticTokens.getFirst();
+        }
+        if (this.peekedToken == null) {
+            this.peekedToken = this.take();
+        }
+        return this.peekedToken;
+    }
+
+    @Override
+    public void addSyntheticToken(Token t) {
+        this.syntheticTokens.add(t);
+    }
+
+    /**
+     * Stops the producer thread if it hasn't finished lexing yet and waits until it has stopped.
+     */
+    @Override
+    public void close() {
+        this.producer.interrupt();
+        try {
+            this.producer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return The number of tokens the producer has written into the buffer so far.
+     */
+    public long producedTokenCount() {
+        return this.writeIndex;
+    }
+
+    /**
+     * @return Whether the producer thread is still lexing or waiting for space in the buffer.
+     */
+    public boolean isProducing() {
+        return this.producer.isAlive();
+    }
+}
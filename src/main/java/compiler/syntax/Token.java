@@ -13,15 +13,33 @@ public class Token implements HasSpan {
     }
 
     public static Token identifier(String name, Span span) {
-        //noinspection ResultOfMethodCallIgnored
-        name.intern();
         return new Token(TokenType.Identifier, new IdentifierContent(name), span);
     }
 
+    /**
+     * Creates an identifier token whose name is stored in an identifier pool.
+     * The pool is expected to already contain the canonical String instance for the name.
+     */
+    public static Token identifier(IdentifierPool pool, int id, Span span) {
+        return identifier(pool.get(id), id, span);
+    }
+
+    static Token identifier(String name, int id, Span span) {
+        return new Token(TokenType.Identifier, new IdentifierContent(name, id), span);
+    }
+
     public static Token intLiteral(String value, Span span) {
         return new Token(TokenType.IntLiteral, new IntLiteralContent(value), span);
     }
 
+    /**
+     * Creates an integer literal token from its digits in the source buffer.
+     * Only the digits are copied, so the token doesn't keep the whole buffer alive.
+     */
+    public static Token intLiteral(char[] source, Span span) {
+        return intLiteral(new String(source, span.start(), span.length()), span);
+    }
+
     // TODO: Remove one of these when we've decided what to do with integer literals
     // semantically
     public static Token intLiteral(long value, Span span) {
@@ -54,9 +72,16 @@ public class Token implements HasSpan {
 
     private static final class IdentifierContent extends Content {
         private final String content;
+        // The id of the name in the identifier pool of the lexer or -1 if the name wasn't pooled.
+        private final int id;
 
-        private IdentifierContent(String content) {
+        private IdentifierContent(String content, int id) {
             this.content = content;
+            this.id = id;
+        }
+
+        private IdentifierContent(String content) {
+            this(content, -1);
         }
     }
 
@@ -84,6 +109,17 @@ public class Token implements HasSpan {
         return ((IdentifierContent) this.content).content;
     }
 
+    /**
+     * @return The id of the identifier in the identifier pool of the lexer or -1 if the identifier isn't pooled.
+     */
+    public int getIdentId() {
+        assert this.type == TokenType.Identifier;
+        assert this.content != null;
+        assert this.content instanceof IdentifierContent;
+
+        return ((IdentifierContent) this.content).id;
+    }
+
     public String getIntLiteralContent() {
         assert this.type == TokenType.IntLiteral;
         assert this.content != null;
@@ -0,0 +1,101 @@
+package compiler.syntax;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A deterministic finite automaton recognizing a fixed set of token representations.
+ * <p>
+ * The transition table is generated once from the token reprs. It is a trie over ascii characters,
+ * stored as a flat array with one row of {@link #ALPHABET_SIZE} entries per state.
+ */
+final class TokenDfa {
+
+    static final TokenDfa KEYWORDS = new TokenDfa(TokenType.KEYWORDS);
+    static final TokenDfa OPERATORS = new TokenDfa(TokenType.OPERATORS);
+
+    private static final int ALPHABET_SIZE = 128;
+    private static final int START_STATE = 0;
+    private static final int DEAD_STATE = -1;
+
+    private final int[] transitions;
+    // For each state the token type which is recognized when stopping in it, null if the state isn't accepting.
+    private final TokenType[] accepting;
+
+    private TokenDfa(List<TokenType> tokens) {
+        List<int[]> rows = new ArrayList<>();
+        List<TokenType> accepting = new ArrayList<>();
+        rows.add(newRow());
+        accepting.add(null);
+
+        for (TokenType token : tokens) {
+            int state = START_STATE;
+            for (char c : token.repr.toCharArray()) {
+                assert c < ALPHABET_SIZE;
+                int next = rows.get(state)[c];
+                if (next == DEAD_STATE) {
+                    next = rows.size();
+                    rows.add(newRow());
+                    accepting.add(null);
+                    rows.get(state)[c] = next;
+                }
+                state = next;
+            }
+            assert accepting.get(state) == null;
+            accepting.set(state, token);
+        }
+
+        this.transitions = new int[rows.size() * ALPHABET_SIZE];
+        for (int i = 0; i < rows.size(); i++) {
+            System.arraycopy(rows.get(i), 0, this.transitions, i * ALPHABET_SIZE, ALPHABET_SIZE);
+        }
+        this.accepting = accepting.toArray(new TokenType[0]);
+    }
+
+    private static int[] newRow() {
+        int[] row = new int[ALPHABET_SIZE];
+        Arrays.fill(row, DEAD_STATE);
+        return row;
+    }
+
+    private int step(int state, char c) {
+        return c < ALPHABET_SIZE ? this.transitions[state * ALPHABET_SIZE + c] : DEAD_STATE;
+    }
+
+    /**
+     * Runs the automaton over exactly the given slice.
+     *
+     * @return The token type whose repr equals the slice, or null if there is none.
+     */
+    TokenType matchExact(char[] input, int offset, int length) {
+        int state = START_STATE;
+        for (int i = offset; i < offset + length; i++) {
+            state = step(state, input[i]);
+            if (state == DEAD_STATE) {
+                return null;
+            }
+        }
+        return this.accepting[state];
+    }
+
+    /**
+     * Finds the longest token repr that is a prefix of {@code input[offset..end)}.
+     *
+     * @return The matched token type, or null if no repr matches. The length of the match is the length of its repr.
+     */
+    TokenType matchLongest(char[] input, int offset, int end) {
+        int state = START_STATE;
+        TokenType match = null;
+        for (int i = offset; i < end; i++) {
+            state = step(state, input[i]);
+            if (state == DEAD_STATE) {
+                break;
+            }
+            if (this.accepting[state] != null) {
+                match = this.accepting[state];
+            }
+        }
+        return match;
+    }
+}
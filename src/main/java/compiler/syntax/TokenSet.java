@@ -1,58 +1,143 @@
 package compiler.syntax;
 
-import java.util.EnumSet;
+import java.util.Arrays;
 import java.util.stream.Stream;
 
-@SuppressWarnings("ClassCanBeRecord")
-public class TokenSet implements TokenSetLike {
+/**
+ * An immutable set of token types.
+ * <p>
+ * The set is stored as a bitmask over the ordinals of the token types. As there are more than 64 token types
+ * the mask is split into two longs.
+ */
+public final class TokenSet implements TokenSetLike {
 
-    private final EnumSet<TokenType> set;
+    private static final TokenType[] TOKEN_TYPES = TokenType.values();
 
-    TokenSet(EnumSet<TokenType> set) {
-        this.set = set;
+    private static final TokenSet EMPTY = new TokenSet(0, 0);
+
+    // Recently built sets by a hash of their bits. The parser builds the same unions of anchors over and over,
+    // so they are looked up here instead of allocated again. The sets are immutable, so threads racing on a slot
+    // at worst build the same set twice.
+    private static final int CACHE_SIZE = 1024;
+    private static final TokenSet[] CACHE = new TokenSet[CACHE_SIZE];
+
+    static {
+        assert TOKEN_TYPES.length <= 2 * Long.SIZE;
     }
 
-    public static TokenSet empty() {
-        return new TokenSet(EnumSet.noneOf(TokenType.class));
+    // Bits for token types with ordinals [0, 64) and [64, 128).
+    private final long low;
+    private final long high;
+
+    private TokenSet(long low, long high) {
+        this.low = low;
+        this.high = high;
     }
 
-    public static TokenSet of(TokenSetLike... tokens) {
-        var result = new TokenSet(EnumSet.noneOf(TokenType.class));
+    static TokenSet singleton(TokenType token) {
+        int ordinal = token.ordinal();
+        return ordinal < Long.SIZE
+                ? new TokenSet(1L << ordinal, 0)
+                : new TokenSet(0, 1L << (ordinal - Long.SIZE));
+    }
 
-        for (var t : tokens) {
-            t.addToTokenSet(result);
-        }
+    public static TokenSet empty() {
+        return EMPTY;
+    }
 
-        return result;
+    public static TokenSet of(TokenSetLike... tokens) {
+        // Doesn't use EMPTY, as this is called during the initialization of TokenType,
+        // which may happen during the initialization of this class.
+        return new TokenSet(0, 0).add(tokens);
     }
 
     public Stream<TokenType> stream() {
-        return this.set.stream();
+        return Arrays.stream(TOKEN_TYPES).filter(this::contains);
     }
 
+    /**
+     * @return The union of this set and the others. If the others are already contained in this set,
+     * this set is returned without allocating a new one.
+     */
     public TokenSet add(TokenSetLike... others) {
-        var res = new TokenSet(this.set.clone());
+        long low = this.low;
+        long high = this.high;
         for (var other : others) {
-            other.addToTokenSet(res);
+            var set = other.asTokenSet();
+            low |= set.low;
+            high |= set.high;
+        }
+        return this.withBits(low, high);
+    }
+
+    public TokenSet add(TokenSetLike other) {
+        var set = other.asTokenSet();
+        return this.withBits(this.low | set.low, this.high | set.high);
+    }
+
+    private TokenSet withBits(long low, long high) {
+        if (low == this.low && high == this.high) {
+            return this;
+        }
+        return cached(low, high);
+    }
+
+    private static TokenSet cached(long low, long high) {
+        var cache = CACHE;
+        // The cache doesn't exist yet while TokenType builds its sets during the initialization of this class.
+        if (cache == null) {
+            return new TokenSet(low, high);
         }
-        return res;
+
+        int hash = Long.hashCode(low * 31 + high);
+        int slot = (hash ^ (hash >>> 16)) & (CACHE_SIZE - 1);
+        var set = cache[slot];
+        if (set == null || set.low != low || set.high != high) {
+            set = new TokenSet(low, high);
+            cache[slot] = set;
+        }
+        return set;
     }
 
     public boolean contains(TokenType token) {
-        return this.set.contains(token);
+        int ordinal = token.ordinal();
+        return ordinal < Long.SIZE
+                ? (this.low & (1L << ordinal)) != 0
+                : (this.high & (1L << (ordinal - Long.SIZE))) != 0;
     }
 
-    public void addToken(TokenType token) {
-        this.set.add(token);
+    /**
+     * @return Whether any token of the given sets is contained in this set.
+     */
+    public boolean containsAny(TokenSetLike... tokens) {
+        for (var t : tokens) {
+            var set = t.asTokenSet();
+            if ((this.low & set.low) != 0 || (this.high & set.high) != 0) {
+                return true;
+            }
+        }
+        return false;
     }
 
-    public EnumSet<TokenType> getSet() {
-        return this.set;
+    public boolean isEmpty() {
+        return this.low == 0 && this.high == 0;
     }
 
     @Override
-    public void addToTokenSet(TokenSet set) {
-        set.set.addAll(this.set);
+    public TokenSet asTokenSet() {
+        return this;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TokenSet other)) return false;
+        return this.low == other.low && this.high == other.high;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(this.low) * 31 + Long.hashCode(this.high);
     }
 
     @Override
@@ -61,16 +146,20 @@ public class TokenSet implements TokenSetLike {
 
         s.append("TokenSet[");
 
-        for (var token : this.set) {
-            s.append(token);
-            s.append(", ");
+        for (var token : TOKEN_TYPES) {
+            if (this.contains(token)) {
+                s.append(token);
+                s.append(", ");
+            }
         }
 
-        s.deleteCharAt(s.length() - 1);
-        s.deleteCharAt(s.length() - 1);
+        if (!this.isEmpty()) {
+            s.deleteCharAt(s.length() - 1);
+            s.deleteCharAt(s.length() - 1);
+        }
 
         s.append("]");
 
         return s.toString();
     }
-}
\ No newline at end of file
+}
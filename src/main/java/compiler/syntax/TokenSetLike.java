@@ -1,5 +1,5 @@
 package compiler.syntax;
 
 public interface TokenSetLike {
-    void addToTokenSet(TokenSet set);
+    TokenSet asTokenSet();
 }
@@ -0,0 +1,26 @@
+package compiler.syntax;
+
+/**
+ * A stream of tokens the parser consumes.
+ */
+public interface TokenSource {
+    /**
+     * Advances token stream.
+     *
+     * @return The next token.
+     */
+    Token nextToken();
+
+    /**
+     * Doesn't advance token stream.
+     *
+     * @return The next token.
+     */
+    Token peekToken();
+
+    /**
+     * Inserts a token in front of the remaining tokens of the underlying source.
+     * Synthetic tokens are returned in the order they were added.
+     */
+    void addSyntheticToken(Token t);
+}
@@ -0,0 +1,173 @@
+package compiler.syntax;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The complete token sequence of an input in a compact struct-of-arrays layout.
+ * <p>
+ * Token types are stored as bytes and spans as pairs of ints. Identifiers are stored as ids into the
+ * identifier pool of the lexer, error messages as indices into a list and int literals are recovered from the input.
+ * The stream can be read any number of times through {@link #reader()}, so re-parsing doesn't need to lex again.
+ */
+public class TokenStream {
+
+    private static final TokenType[] TOKEN_TYPES = TokenType.values();
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final char[] input;
+    private final IdentifierPool identifiers;
+    private final List<String> errorMessages = new ArrayList<>();
+
+    private byte[] types;
+    // Start and length of the i-th token at index 2 * i and 2 * i + 1.
+    private int[] spans;
+    // Identifier id for identifiers, index into errorMessages for errors and unused otherwise.
+    private int[] payloads;
+    private int size;
+
+    private TokenStream(char[] input, IdentifierPool identifiers) {
+        assert TOKEN_TYPES.length <= Byte.MAX_VALUE;
+
+        this.input = input;
+        this.identifiers = identifiers;
+        this.types = new byte[INITIAL_CAPACITY];
+        this.spans = new int[2 * INITIAL_CAPACITY];
+        this.payloads = new int[INITIAL_CAPACITY];
+        this.size = 0;
+    }
+
+    public static TokenStream lex(char[] input, int length) {
+        var lexer = new Lexer(input, length);
+        var stream = new TokenStream(input, lexer.getIdentifierPool());
+
+        Token t;
+        do {
+            t = lexer.nextToken();
+            stream.append(t);
+        } while (t.type != TokenType.EOF);
+
+        stream.trim();
+        return stream;
+    }
+
+    public static TokenStream lex(char[] input) {
+        return lex(input, input.length);
+    }
+
+    public static TokenStream lex(String fileContent) {
+        return lex(fileContent.toCharArray());
+    }
+
+    private void append(Token t) {
+        if (this.size == this.types.length) {
+            int capacity = 2 * this.types.length;
+            this.types = Arrays.copyOf(this.types, capacity);
+            this.spans = Arrays.copyOf(this.spans, 2 * capacity);
+            this.payloads = Arrays.copyOf(this.payloads, capacity);
+        }
+
+        int i = this.size++;
+        this.types[i] = (byte) t.type.ordinal();
+        this.spans[2 * i] = t.span.start();
+        this.spans[2 * i + 1] = t.span.length();
+        this.payloads[i] = switch (t.type) {
+            case Identifier -> t.getIdentId();
+            case Error -> {
+                this.errorMessages.add(t.getErrorContent());
+                yield this.errorMessages.size() - 1;
+            }
+            default -> 0;
+        };
+    }
+
+    private void trim() {
+        this.types = Arrays.copyOf(this.types, this.size);
+        this.spans = Arrays.copyOf(this.spans, 2 * this.size);
+        this.payloads = Arrays.copyOf(this.payloads, this.size);
+    }
+
+    /**
+     * @return The number of tokens including the final EOF token.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    public TokenType getType(int i) {
+        return TOKEN_TYPES[this.types[i]];
+    }
+
+    public Span getSpan(int i) {
+        return new Span(this.spans[2 * i], this.spans[2 * i + 1]);
+    }
+
+    public IdentifierPool getIdentifierPool() {
+        return this.identifiers;
+    }
+
+    /**
+     * Creates the token object of the i-th token.
+     */
+    public Token getToken(int i) {
+        TokenType type = getType(i);
+        Span span = getSpan(i);
+        return switch (type) {
+            case Identifier -> Token.identifier(this.identifiers, this.payloads[i], span);
+            case IntLiteral -> Token.intLiteral(this.input, span);
+            case Error -> Token.error(this.errorMessages.get(this.payloads[i]), span);
+            case EOF -> Token.eof(span);
+            // Keywords and operators carry no content.
+            default -> Token.operator(type, span);
+        };
+    }
+
+    /**
+     * @return A new token source starting at the beginning of this stream.
+     */
+    public Reader reader() {
+        return new Reader();
+    }
+
+    public class Reader implements TokenSource {
+        private final ArrayDeque<Token> syntheticTokens = new ArrayDeque<>();
+        private int position = 0;
+        private Token peekedToken = null;
+
+        private Token current() {
+            if (this.peekedToken == null) {
+                this.peekedToken = getToken(this.position);
+            }
+            return this.peekedToken;
+        }
+
+        @Override
+        public Token nextToken() {
+            if (!this.syntheticTokens.isEmpty()) {
+                return this.syntheticTokens.removeFirst();
+            }
+            Token next = this.current();
+            // The last token is EOF, which is returned repeatedly.
+            if (this.position < size - 1) {
+                this.position += 1;
+                this.peekedToken = null;
+            }
+            return next;
+        }
+
+        @Override
+        public Token peekToken() {
+            if (!this.syntheticTokens.isEmpty()) {
+                return this.syntheticTokens.getFirst();
+            }
+            return this.current();
+        }
+
+        @Override
+        public void addSyntheticToken(Token t) {
+            this.syntheticTokens.add(t);
+        }
+    }
+}
@@ -155,8 +155,14 @@ public enum TokenType implements TokenSetLike {
         this.repr = repr;
     }
 
+    // Lazily initialized, as TokenSet needs all token types to be initialized.
+    private TokenSet singletonSet;
+
     @Override
-    public void addToTokenSet(TokenSet set) {
-        set.addToken(this);
+    public TokenSet asTokenSet() {
+        if (this.singletonSet == null) {
+            this.singletonSet = TokenSet.singleton(this);
+        }
+        return this.singletonSet;
     }
 }
\ No newline at end of file
@@ -5,17 +5,19 @@ import compiler.ast.Field;
 import compiler.semantic.resolution.MethodDefinition;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
 
 public final class DefinedClassTy extends ClassTy {
     private final Class klass;
+    // In declaration order.
     private final Map<String, MethodDefinition> methods;
     private final Map<String, Field> fields;
 
     public DefinedClassTy(Class klass) {
         this.klass = klass;
-        this.methods = new HashMap<>();
+        this.methods = new LinkedHashMap<>();
         this.fields = new HashMap<>();
     }
 
@@ -0,0 +1,126 @@
+package compiler.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * The threads the compiler works on besides the main thread.
+ * <p>
+ * The parser, the semantic analysis and the translation still recurse over nested blocks, argument lists and
+ * array indices. The start script runs the main thread with {@code -Xss35m} and every worker thread gets a stack of
+ * the same size, so that a program, which compiles on the main thread, compiles on a worker as well.
+ */
+public final class CompilerThreads {
+
+    public static final long STACK_SIZE = 35L << 20;
+
+    private static final ThreadLocal<Boolean> SHARED_WORKER = ThreadLocal.withInitial(() -> false);
+
+    // Created when first used, a compilation without parallel phases doesn't start any threads.
+    private static final class SharedPool {
+        private static final ExecutorService POOL = createSharedPool();
+
+        private static ExecutorService createSharedPool() {
+            var factory = threadFactory("compiler-worker");
+            return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                    runnable -> factory.newThread(() -> {
+                        SHARED_WORKER.set(true);
+                        runnable.run();
+                    }));
+        }
+    }
+
+    private CompilerThreads() {
+    }
+
+    /**
+     * @return A factory for daemon threads with a stack of {@link #STACK_SIZE}, which are numbered after the name.
+     */
+    public static ThreadFactory threadFactory(String name) {
+        var count = new AtomicInteger();
+        return runnable -> {
+            var thread = new Thread(null, runnable, name + "-" + count.incrementAndGet(), STACK_SIZE);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public static ExecutorService newPool(int threads, String name) {
+        return Executors.newFixedThreadPool(threads, threadFactory(name));
+    }
+
+    /**
+     * Runs the task on the workers shared by all parallel phases of the compiler.
+     */
+    public static <R> Future<R> submit(Callable<R> task) {
+        return SharedPool.POOL.submit(task);
+    }
+
+    /**
+     * Applies the function to every item on the shared workers. On a shared worker itself, the items are processed
+     * one after the other on the calling thread, so that the workers never wait for each other.
+     *
+     * @return The results in the order of the items.
+     */
+    public static <T, R> List<R> mapInParallel(List<T> items, Function<? super T, ? extends R> function) {
+        if (SHARED_WORKER.get()) {
+            return items.stream().<R>map(function).toList();
+        }
+
+        var tasks = new ArrayList<Future<? extends R>>(items.size());
+        for (var item : items) {
+            tasks.add(submit(() -> function.apply(item)));
+        }
+        return joinAll(tasks);
+    }
+
+    /**
+     * Waits for the tasks in their order. If a task fails, the remaining ones are cancelled.
+     *
+     * @return The results in the order of the tasks.
+     */
+    public static <R> List<R> joinAll(List<? extends Future<? extends R>> tasks) {
+        var results = new ArrayList<R>(tasks.size());
+        try {
+            for (var task : tasks) {
+                results.add(join(task));
+            }
+        } catch (RuntimeException | Error e) {
+            tasks.forEach(task -> task.cancel(true));
+            throw e;
+        }
+        return results;
+    }
+
+    /**
+     * Waits for the task and rethrows the exception it failed with.
+     *
+     * @throws CompletionException If the task failed with a checked exception.
+     */
+    public static <R> R join(Future<? extends R> task) {
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new CompletionException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for a worker");
+        }
+    }
+}
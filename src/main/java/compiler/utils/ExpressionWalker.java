@@ -0,0 +1,99 @@
+package compiler.utils;
+
+import compiler.ast.*;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Walks expression trees with an explicit stack instead of recursion,
+ * so that arbitrarily deeply nested expressions don't overflow the Java stack.
+ */
+public class ExpressionWalker {
+
+    public interface Visitor {
+        /**
+         * Called before the sub-expressions of an expression are visited.
+         *
+         * @return The sub-expressions that are visited next, in the order they are visited.
+         */
+        default List<Expression> enter(Expression expression) {
+            return children(expression);
+        }
+
+        /**
+         * Called after all sub-expressions returned by enter have been visited.
+         */
+        default void exit(Expression expression) {
+        }
+    }
+
+    /**
+     * @return The non-null sub-expressions of the expression in evaluation order.
+     */
+    public static List<Expression> children(Expression expression) {
+        return switch (expression) {
+            case AssignmentExpression assign -> nonNull(assign.getLvalue(), assign.getRvalue());
+            case BinaryOpExpression binaryOp -> nonNull(binaryOp.getLhs(), binaryOp.getRhs());
+            case UnaryExpression unary -> nonNull(unary.getExpression());
+            case MethodCallExpression methodCall -> {
+                var result = new ArrayList<Expression>(methodCall.getArguments().size() + 1);
+                methodCall.getTarget().ifPresent(result::add);
+                result.addAll(methodCall.getArguments());
+                result.removeIf(Objects::isNull);
+                yield result;
+            }
+            case FieldAccessExpression fieldAccess -> nonNull(fieldAccess.getTarget());
+            case ArrayAccessExpression arrayAccess -> nonNull(arrayAccess.getTarget(), arrayAccess.getIndexExpression());
+            case NewArrayExpression newArray -> nonNull(newArray.getFirstDimensionSize());
+            case BoolLiteral ignored -> List.of();
+            case IntLiteral ignored -> List.of();
+            case ThisExpression ignored -> List.of();
+            case NewObjectExpression ignored -> List.of();
+            case Reference ignored -> List.of();
+            case NullExpression ignored -> List.of();
+        };
+    }
+
+    private static List<Expression> nonNull(Expression... expressions) {
+        var result = new ArrayList<Expression>(expressions.length);
+        for (var e : expressions) {
+            if (e != null) {
+                result.add(e);
+            }
+        }
+        return result;
+    }
+
+    private static final class Frame {
+        private final Expression expression;
+        private final List<Expression> children;
+        private int next;
+
+        private Frame(Expression expression, List<Expression> children) {
+            this.expression = expression;
+            this.children = children;
+            this.next = 0;
+        }
+    }
+
+    public static void walk(Expression root, Visitor visitor) {
+        var stack = new ArrayDeque<Frame>();
+        stack.push(new Frame(root, visitor.enter(root)));
+
+        while (!stack.isEmpty()) {
+            var frame = stack.peek();
+
+            if (frame.next < frame.children.size()) {
+                var child = frame.children.get(frame.next);
+                frame.next += 1;
+                stack.push(new Frame(child, visitor.enter(child)));
+            } else {
+                stack.pop();
+                visitor.exit(frame.expression);
+            }
+        }
+    }
+}
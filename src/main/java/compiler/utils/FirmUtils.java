@@ -1,6 +1,7 @@
 package compiler.utils;
 
 import firm.BackEdges;
+import firm.Graph;
 import firm.Mode;
 import firm.bindings.binding_irnode;
 import firm.nodes.*;
@@ -19,6 +20,15 @@ public class FirmUtils {
         return result;
     }
 
+    /**
+     * @return The number of nodes reachable from the end of the graph.
+     */
+    public static long countNodes(Graph graph) {
+        long[] count = {0};
+        GenericNodeWalker.walkNodes(graph, node -> count[0] += 1);
+        return count[0];
+    }
+
     public static List<BackEdges.Edge> backEdges(Node n) {
         return toList(BackEdges.getOuts(n));
     }
@@ -0,0 +1,116 @@
+package compiler;
+
+import compiler.diagnostics.CompilerMessageReporter;
+import compiler.syntax.Lexer;
+import compiler.syntax.Parser;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The programs in src/test/resources/testcases/runtime, which are compiled, linked with the runtime and run.
+ * The expected output of every program is in a file next to it with the extension .out instead of .java.
+ * Compiling needs libFirm and running needs gcc.
+ */
+final class RuntimeTestcases {
+
+    private static final File RUNTIME_TEST_DIR = new File("src/test/resources/testcases/runtime");
+    static final File RUNTIME_FILE = new File("src/main/dist/libruntime.c");
+
+    private RuntimeTestcases() {
+    }
+
+    record Testcase(File file, String source, String expectedOutput) {
+        public String name() {
+            return this.file.getName();
+        }
+    }
+
+    /**
+     * @param assembly The generated assembly of the program.
+     * @param output   What the program printed. The program has to exit successfully.
+     */
+    record CompiledProgram(String assembly, String output) {
+    }
+
+    static List<Testcase> all() throws IOException {
+        var files = RUNTIME_TEST_DIR.listFiles((dir, name) -> name.endsWith(".java"));
+        assertNotNull(files, "No test files found");
+        Arrays.sort(files, Comparator.comparing(File::getName));
+
+        var testcases = new ArrayList<Testcase>();
+        for (var file : files) {
+            var outFile = new File(RUNTIME_TEST_DIR, file.getName().replaceFirst("\\.java$", ".out"));
+            testcases.add(new Testcase(file, Files.readString(file.toPath()), Files.readString(outFile.toPath())));
+        }
+        return testcases;
+    }
+
+    /**
+     * Parses and checks the program, which has to be correct.
+     */
+    static FrontendResult check(File file, String source) {
+        var reporter = new CompilerMessageReporter(new PrintWriter(System.err), source);
+        var parser = new Parser(new Lexer(source), reporter);
+        var ast = parser.parse();
+        assertTrue(parser.successfulParse, file + " doesn't parse");
+
+        var result = MainCommand.checkProgram(file, ast, reporter);
+        assertTrue(result.isPresent(), file + " isn't semantically correct");
+        return result.get();
+    }
+
+    /**
+     * Compiles the program in this process, like --compile does, and runs it.
+     *
+     * @param parallel Run the backend of the methods in parallel.
+     */
+    static CompiledProgram compileAndRun(FrontendResult frontend, OptimizationPipeline pipeline, boolean parallel)
+            throws IOException, InterruptedException {
+        var dir = Files.createTempDirectory("runtime-testcase");
+        var asmFile = dir.resolve("a.s").toFile();
+        var execFile = dir.resolve("a.out").toFile();
+
+        try {
+            CodeGenerator.generateAssembly(frontend, asmFile, false, pipeline, parallel, Optional.empty(),
+                    PassTimings.DISABLED, PassStatistics.DISABLED);
+
+            var link = CodeGenerator.linkCommand(asmFile, RUNTIME_FILE, execFile.getAbsolutePath())
+                    .redirectErrorStream(true)
+                    .start();
+            var linkOutput = new String(link.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            assertEquals(0, link.waitFor(), linkOutput);
+
+            return new CompiledProgram(Files.readString(asmFile.toPath()), run(execFile));
+        } finally {
+            Files.deleteIfExists(asmFile.toPath());
+            Files.deleteIfExists(execFile.toPath());
+            Files.delete(dir);
+        }
+    }
+
+    /**
+     * Runs a compiled program, which has to exit successfully.
+     *
+     * @return What the program printed.
+     */
+    static String run(File executable) throws IOException, InterruptedException {
+        var process = new ProcessBuilder(executable.getAbsolutePath())
+                .redirectInput(ProcessBuilder.Redirect.from(new File("/dev/null")))
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        var output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertEquals(0, process.waitFor(), executable + " didn't exit successfully");
+        return output;
+    }
+}
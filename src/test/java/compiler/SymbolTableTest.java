@@ -3,26 +3,61 @@ package compiler;
 import compiler.semantic.resolution.SymbolTable;
 import org.junit.jupiter.api.Test;
 
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
 public class SymbolTableTest {
+    private static final int A = 0;
+    private static final int B = 1;
+    private static final int C = 2;
+    private static final int D = 3;
+
     @Test
     public void symbolTableTest() {
         var symTable = new SymbolTable<Integer>();
 
-        symTable.insert("a", 1);
-        symTable.insert("b", 2);
-        symTable.insert("c", 3);
+        symTable.insert(A, 1);
+        symTable.insert(B, 2);
+        symTable.insert(C, 3);
 
         System.out.println(symTable);
 
         symTable.enterScope();
 
-        symTable.insert("b", 100);
-        symTable.insert("d", 4);
+        symTable.insert(B, 100);
+        symTable.insert(D, 4);
 
         System.out.println(symTable);
 
+        assertEquals(Optional.of(100), symTable.lookupDefinition(B));
+        assertEquals(Optional.of(4), symTable.lookupDefinition(D));
+
         symTable.leaveScope();
 
         System.out.println(symTable);
+
+        assertEquals(Optional.of(2), symTable.lookupDefinition(B));
+        assertEquals(Optional.empty(), symTable.lookupDefinition(D));
+    }
+
+    @Test
+    public void deeplyNestedScopes() {
+        var symTable = new SymbolTable<Integer>();
+
+        for (int depth = 0; depth < 1000; depth++) {
+            symTable.enterScope();
+            symTable.insert(A, depth);
+            symTable.insert(1000 + depth, depth);
+        }
+
+        for (int depth = 999; depth >= 0; depth--) {
+            assertEquals(Optional.of(depth), symTable.lookupDefinition(A));
+            assertEquals(Optional.of(depth), symTable.lookupDefinition(1000 + depth));
+            symTable.leaveScope();
+            assertEquals(Optional.empty(), symTable.lookupDefinition(1000 + depth));
+        }
+
+        assertEquals(Optional.empty(), symTable.lookupDefinition(A));
     }
 }
@@ -0,0 +1,57 @@
+package compiler;
+
+import compiler.ast.Program;
+import compiler.syntax.Lexer;
+import compiler.syntax.Parser;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TestAstIds {
+
+    private static final String PROGRAM = """
+            class A {
+                public int x;
+                public int f(int a) { return a * 2 + x; }
+                public static void main(String[] args) { System.out.println(new A().f(3)); }
+            }
+            """;
+
+    private static Program parse(String in) {
+        return new Parser(new Lexer(in)).parse();
+    }
+
+    @Test
+    public void testIdsStartAtZeroForEveryProgram() {
+        var first = parse(PROGRAM);
+        var second = parse(PROGRAM);
+
+        assertEquals(first.getIdBound(), second.getIdBound());
+        assertEquals(first.getID(), second.getID());
+        // The program is created last, so it has the largest id.
+        assertEquals(second.getIdBound() - 1, second.getID());
+    }
+
+    @Test
+    public void testConcurrentParses() throws Exception {
+        var expected = parse(PROGRAM).getIdBound();
+
+        var pool = Executors.newFixedThreadPool(4);
+        try {
+            var results = new ArrayList<Future<Program>>();
+            for (int i = 0; i < 32; i++) {
+                results.add(pool.submit(() -> parse(PROGRAM)));
+            }
+
+            for (var result : results) {
+                assertEquals(expected, result.get().getIdBound());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -1,12 +1,24 @@
 package compiler;
 
 import compiler.ast.Program;
+import compiler.diagnostics.CompilerMessageReporter;
+import compiler.semantic.ConstantFolding;
+import compiler.semantic.WellFormed;
+import compiler.semantic.resolution.NameResolution;
 import compiler.syntax.Lexer;
 import compiler.syntax.Parser;
+import compiler.utils.CompilerThreads;
 import org.junit.jupiter.api.Test;
 
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
 
 public class TestAstPrinter {
 
@@ -59,4 +71,108 @@ public class TestAstPrinter {
         assertEquals(expected, pretty);
     }
 
+    // Deep enough to overflow the default stack size of the JVM, if expressions were handled recursively.
+    private static final int DEEP_NESTING = 100_000;
+
+    private static Program parseAndCheck(String in) {
+        return parseAndCheck(in, false);
+    }
+
+    private static Program parseAndCheck(String in, boolean parallel) {
+        var reporter = new CompilerMessageReporter(new PrintWriter(System.err), in);
+        Parser parser = new Parser(new Lexer(in), reporter);
+        Program p = parser.parse();
+        assertTrue(parser.successfulParse);
+
+        var names = NameResolution.performNameResolution(p, reporter, parallel);
+        var constantFolding = ConstantFolding.performConstantFolding(p, Optional.of(reporter), parallel);
+        var wellFormed = WellFormed.checkWellFormdness(p, names, Optional.of(reporter), parallel);
+        assertTrue(names.successful() && constantFolding.successful() && wellFormed.correct());
+
+        new DumpAst(new PrintWriter(Writer.nullWriter()), names.definitions()).dump(p);
+        return p;
+    }
+
+    private static void testDeepStatement(String statement) {
+        String in = "class Deep { public static void main(String[] args) { int x; boolean b; " + statement + " } }";
+        String pretty = AstPrinter.program(parseAndCheck(in));
+
+        String reprinted = AstPrinter.program(parseAndCheck(pretty));
+        assertEquals(pretty, reprinted);
+    }
+
+    @Test
+    public void testDeeplyNestedParentheses() {
+        testDeepStatement("x = " + "(".repeat(DEEP_NESTING) + "1" + ")".repeat(DEEP_NESTING) + ";");
+    }
+
+    @Test
+    public void testDeeplyNestedUnaryExpressions() {
+        testDeepStatement("x = " + "- ".repeat(DEEP_NESTING) + "x;");
+        testDeepStatement("b = " + "!".repeat(DEEP_NESTING) + "true;");
+    }
+
+    @Test
+    public void testLongBinaryChains() {
+        testDeepStatement("x = " + "x + ".repeat(DEEP_NESTING) + "1;");
+        testDeepStatement("b = " + "b && ".repeat(DEEP_NESTING) + "true;");
+    }
+
+    @Test
+    public void testLongAssignmentChain() {
+        testDeepStatement("x = ".repeat(DEEP_NESTING) + "1;");
+    }
+
+    // Argument lists, array indices, array sizes and blocks are still handled recursively. Deep enough to overflow
+    // the default stack size of the JVM, but the compiler runs with the large stack of CompilerThreads.
+    private static final int DEEP_RECURSION = 10_000;
+
+    /**
+     * Parses, checks, dumps and compares the statement on a thread with the stack size of the start script. It isn't
+     * printed, the indentation of the nested blocks alone would be quadratic in the depth.
+     * With parallel, the method bodies are checked on the workers of CompilerThreads, which need the same stack size.
+     */
+    private static void testRecursiveStatement(String statement) throws InterruptedException {
+        String in = """
+                class Deep {
+                    public int f(int x) { return x; }
+                    public int g(int[] a) { return a[0]; }
+                    public static void main(String[] args) { Deep m = new Deep(); int[] a = new int[1]; int x; %s }
+                }""".formatted(statement);
+
+        for (var parallel : List.of(false, true)) {
+            var failure = new AtomicReference<Throwable>();
+            var thread = new Thread(null, () -> {
+                try {
+                    assertTrue(parseAndCheck(in, parallel).syntacticEq(parseAndCheck(in, parallel)));
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            }, "deep", CompilerThreads.STACK_SIZE);
+            thread.start();
+            thread.join();
+
+            if (failure.get() != null) {
+                fail(failure.get());
+            }
+        }
+    }
+
+    @Test
+    public void testDeeplyNestedCalls() throws InterruptedException {
+        testRecursiveStatement("x = " + "m.f(".repeat(DEEP_RECURSION) + "1" + ")".repeat(DEEP_RECURSION) + ";");
+    }
+
+    @Test
+    public void testDeeplyNestedIndices() throws InterruptedException {
+        testRecursiveStatement("x = " + "a[".repeat(DEEP_RECURSION) + "0" + "]".repeat(DEEP_RECURSION) + ";");
+        testRecursiveStatement("x = " + "m.g(new int[".repeat(DEEP_RECURSION) + "1" + "])".repeat(DEEP_RECURSION) + ";");
+    }
+
+    @Test
+    public void testDeeplyNestedBlocks() throws InterruptedException {
+        testRecursiveStatement("{".repeat(DEEP_RECURSION) + "x = 1;" + "}".repeat(DEEP_RECURSION));
+        testRecursiveStatement("if (x == 0) ".repeat(DEEP_RECURSION) + "x = 1;");
+        testRecursiveStatement("while (x == 0) ".repeat(DEEP_RECURSION) + "x = 1;");
+    }
 }
@@ -0,0 +1,40 @@
+package compiler;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compiles several programs concurrently in the same JVM, like --compile-batch does.
+ */
+public class TestBatchCompilation {
+
+    @Test
+    public void testBatch() throws Exception {
+        var dir = Files.createTempDirectory("batch-compilation");
+        var testcases = RuntimeTestcases.all();
+
+        var inputFiles = new ArrayList<File>();
+        for (var testcase : testcases) {
+            var file = dir.resolve(testcase.name()).toFile();
+            Files.writeString(file.toPath(), testcase.source());
+            inputFiles.add(file);
+        }
+
+        var batch = new BatchCompilation(inputFiles, RuntimeTestcases.RUNTIME_FILE, OptimizationPipeline.O1, 2);
+        var results = batch.run();
+        assertEquals(testcases.size(), results.size());
+
+        for (int i = 0; i < testcases.size(); i++) {
+            var testcase = testcases.get(i);
+            assertTrue(results.get(i).successful(), results.get(i).messages());
+
+            var executable = dir.resolve(testcase.name().replaceFirst("\\.java$", "")).toFile();
+            assertEquals(testcase.expectedOutput(), RuntimeTestcases.run(executable), testcase.name());
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package compiler;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestCompileServer {
+
+    private static String request(Path socket, String request) throws IOException {
+        try (var channel = SocketChannel.open(UnixDomainSocketAddress.of(socket))) {
+            channel.write(ByteBuffer.wrap(request.getBytes(StandardCharsets.UTF_8)));
+            return new String(Channels.newInputStream(channel).readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String lastLine(String response) {
+        var lines = response.strip().split("\n");
+        return lines[lines.length - 1];
+    }
+
+    @Test
+    public void testCheckRequests() throws Exception {
+        var dir = Files.createTempDirectory("compile-server");
+        var socket = dir.resolve("server.sock");
+
+        var correct = dir.resolve("Correct.java");
+        Files.writeString(correct, "class Correct { public static void main(String[] args) { System.out.println(42); } }");
+        var incorrect = dir.resolve("Incorrect.java");
+        Files.writeString(incorrect, "class Incorrect { public static void main(String[] args) { int x = true; } }");
+
+        var server = new CompileServer(socket, new File("libruntime.c"), 2);
+        var serverThread = new Thread(() -> {
+            try {
+                server.serve();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        serverThread.setDaemon(true);
+        serverThread.start();
+
+        // Wait until the server answers requests.
+        while (true) {
+            try {
+                assertEquals("exit 0", request(socket, "command=ping\n\n").strip());
+                break;
+            } catch (IOException e) {
+                Thread.sleep(10);
+            }
+        }
+
+        assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(socket)));
+        try (var files = Files.list(dir)) {
+            // Only the socket and the sources, the directory the socket was bound in is gone.
+            assertEquals(3, files.count());
+        }
+
+        assertEquals("exit 0", lastLine(request(socket, "command=check\nsource=" + correct + "\n\n")));
+
+        var response = request(socket, "command=check\nsource=" + incorrect + "\n\n");
+        assertEquals("exit 1", lastLine(response));
+        assertTrue(response.contains("error"));
+
+        assertEquals("exit 1", lastLine(request(socket, "command=check\n\n")));
+
+        assertEquals("exit 0", lastLine(request(socket, "command=shutdown\n\n")));
+        serverThread.join();
+        assertFalse(Files.exists(socket));
+    }
+
+    @Test
+    public void testRefusesToReplaceOtherFiles() throws Exception {
+        var dir = Files.createTempDirectory("compile-server");
+        var file = dir.resolve("server.sock");
+        Files.writeString(file, "not a socket");
+
+        var server = new CompileServer(file, new File("libruntime.c"), 1);
+        assertThrows(IOException.class, server::serve);
+        assertEquals("not a socket", Files.readString(file));
+    }
+}
@@ -0,0 +1,343 @@
+package compiler;
+
+import compiler.semantic.resolution.DefinedMethod;
+import compiler.semantic.resolution.MethodDefinition;
+import compiler.types.Ty;
+import compiler.utils.FirmUtils;
+import firm.*;
+import firm.bindings.binding_irdom;
+import firm.nodes.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the memory analyses with the straightforward solvers they replaced, on the graphs of the semantic and
+ * runtime testcases, and checks the constant propagation on a graph built by hand.
+ */
+public class TestDataFlow {
+
+    private static final File SEMANTIC_TEST_DIR = new File("src/test/resources/testcases/semantic");
+    private static final String PASSING_TEST_PREFIX = "/* OK";
+
+    private interface GraphCheck {
+        void check(String name, Graph graph, TranslationResult translation);
+    }
+
+    /**
+     * Translates every correct testcase with the pipeline and passes each of its graphs to the check.
+     */
+    private static void forAllGraphs(OptimizationPipeline pipeline, GraphCheck check) throws IOException {
+        var programs = new ArrayList<RuntimeTestcases.Testcase>();
+        var semanticTestFiles = SEMANTIC_TEST_DIR.listFiles();
+        assertNotNull(semanticTestFiles, "No test files found");
+        Arrays.sort(semanticTestFiles, Comparator.comparing(File::getName));
+        for (var file : semanticTestFiles) {
+            var content = Files.readString(file.toPath());
+            if (content.startsWith(PASSING_TEST_PREFIX)) {
+                programs.add(new RuntimeTestcases.Testcase(file, content, ""));
+            }
+        }
+        programs.addAll(RuntimeTestcases.all());
+
+        for (var program : programs) {
+            var frontend = RuntimeTestcases.check(program.file(), program.source());
+            try {
+                var translation = new Translation(frontend).translate(false, pipeline);
+                for (var entry : translation.methodGraphs().entrySet()) {
+                    check.check(program.name() + ": " + entry.getKey().getLinkerName(), entry.getValue(), translation);
+                }
+            } finally {
+                Firm.finish();
+            }
+        }
+    }
+
+    private static Map<Block, List<Phi>> blockPhis(Graph g) {
+        var blockPhis = new HashMap<Block, List<Phi>>();
+        for (var n : NodeCollector.run(g)) {
+            if (n instanceof Block b) {
+                blockPhis.putIfAbsent(b, new ArrayList<>());
+            } else if (n instanceof Phi p) {
+                blockPhis.computeIfAbsent((Block) p.getBlock(), b -> new ArrayList<>()).add(p);
+            }
+        }
+        return blockPhis;
+    }
+
+    private static boolean isMemNode(Node n) {
+        return n instanceof Proj p && p.getMode().isValuesInMode(Mode.getM())
+                || n instanceof Phi phi && phi.getMode().isValuesInMode(Mode.getM())
+                || n instanceof Store || n instanceof Load || n instanceof Call
+                || n instanceof Div || n instanceof Mod;
+    }
+
+    /**
+     * The solver of the load-load and store-load analyses before the memory nodes were numbered densely: a HashSet for
+     * every memory node and a worklist in the order of the back edges. The transfer function computes the set of a
+     * load, store or call from a copy of the set of its memory predecessor.
+     */
+    private static <T> Map<Node, Set<T>> hashSetSolver(Graph g, Set<T> allElements, BiFunction<Node, Set<T>, Set<T>> transfer) {
+        ArrayDeque<Node> memNodes = new ArrayDeque<>();
+        NodeCollector.run(g).stream().filter(TestDataFlow::isMemNode).forEach(memNodes::add);
+        Map<Node, Set<T>> sets = memNodes.stream()
+                .collect(Collectors.toMap(n -> n, n -> new HashSet<>(allElements)));
+        sets.put(g.getStart(), new HashSet<>());
+        BiConsumer<Node, Node> forward = (from, to) -> sets.put(to, new HashSet<>(sets.get(from)));
+
+        BackEdges.enable(g);
+        ArrayDeque<Node> worklist = FirmUtils.backEdgeTargets(g.getStart()).stream()
+                .filter(sets::containsKey)
+                .collect(Collectors.toCollection(ArrayDeque::new));
+        HashSet<Node> visited = new HashSet<>();
+        while (!worklist.isEmpty()) {
+            Node n = worklist.removeFirst();
+            Set<T> previous = sets.get(n);
+            switch (n) {
+                case Proj p -> forward.accept(p.getPred(), p);
+                case Div d -> forward.accept(d.getMem(), d);
+                case Mod m -> forward.accept(m.getMem(), m);
+                case Phi phi -> {
+                    Set<T> intersection = new HashSet<>(sets.get(phi.getPred(0)));
+                    for (var pred : FirmUtils.preds(phi)) {
+                        intersection.retainAll(sets.get(pred));
+                    }
+                    sets.put(phi, intersection);
+                }
+                case Store s -> sets.put(s, transfer.apply(s, new HashSet<>(sets.get(s.getMem()))));
+                case Load l -> sets.put(l, transfer.apply(l, new HashSet<>(sets.get(l.getMem()))));
+                case Call c -> sets.put(c, transfer.apply(c, new HashSet<>(sets.get(c.getMem()))));
+                default -> throw new AssertionError("Ran into non-memory-node case on nodes that are only memory nodes");
+            }
+            if (!previous.equals(sets.get(n)) || !visited.contains(n)) {
+                FirmUtils.backEdgeTargets(n).stream().filter(sets::containsKey).forEach(worklist::add);
+                visited.add(n);
+            }
+        }
+        BackEdges.disable(g);
+        return sets;
+    }
+
+    private static <T> Set<T> nodesOfType(Graph g, Class<T> type) {
+        return NodeCollector.run(g).stream().filter(type::isInstance).map(type::cast).collect(Collectors.toSet());
+    }
+
+    /**
+     * @return Every load with the other loads of the same pointer, which are available before it.
+     */
+    private static Map<Load, List<Load>> hashSetAvailableLoadsOfSamePointer(Graph g, Map<Node, Ty> nodeAstTypes,
+                                                                           Map<Call, MethodDefinition> methodReferences) {
+        AliasAnalysis aa = new AliasAnalysis(nodeAstTypes);
+        var allLoads = nodesOfType(g, Load.class);
+        var availableLoads = hashSetSolver(g, allLoads, (n, loads) -> {
+            switch (n) {
+                case Store s -> loads.removeIf(load -> !aa.guaranteedNotAliased(load.getPtr(), s.getPtr()));
+                case Load l -> loads.add(l);
+                case Call c -> {
+                    if (methodReferences.get(c) instanceof DefinedMethod) {
+                        loads.clear();
+                    }
+                }
+                default -> throw new AssertionError(n);
+            }
+            return loads;
+        });
+
+        // Like DataFlow, in the order of the memory nodes, which pairLoads needs.
+        var orderedLoads = NodeCollector.run(g).stream()
+                .filter(Load.class::isInstance)
+                .map(Load.class::cast)
+                .toList();
+        var candidates = new LinkedHashMap<Load, List<Load>>();
+        for (var l : orderedLoads) {
+            candidates.put(l, orderedLoads.stream()
+                    .filter(aLoad -> !l.equals(aLoad) && l.getPtr().equals(aLoad.getPtr()))
+                    .filter(availableLoads.get(l)::contains)
+                    .collect(Collectors.toList()));
+        }
+        return candidates;
+    }
+
+    /**
+     * @return Every load paired with the available stores to the same pointer.
+     */
+    private static Set<DataFlow.StoreLoad> hashSetStoreLoadPairs(Graph g, Map<Node, Ty> nodeAstTypes,
+                                                                 Map<Call, MethodDefinition> methodReferences) {
+        AliasAnalysis aa = new AliasAnalysis(nodeAstTypes);
+        var availableStores = hashSetSolver(g, nodesOfType(g, Store.class), (n, stores) -> {
+            switch (n) {
+                case Store s -> {
+                    stores.removeIf(store -> !aa.guaranteedNotAliased(store.getPtr(), s.getPtr()));
+                    stores.add(s);
+                }
+                case Load ignored -> {
+                }
+                case Call c -> {
+                    if (methodReferences.get(c) instanceof DefinedMethod) {
+                        stores.clear();
+                    }
+                }
+                default -> throw new AssertionError(n);
+            }
+            return stores;
+        });
+
+        var pairs = new HashSet<DataFlow.StoreLoad>();
+        for (var l : nodesOfType(g, Load.class)) {
+            for (var store : availableStores.get(l)) {
+                if (l.getPtr().equals(store.getPtr())) {
+                    pairs.add(new DataFlow.StoreLoad(store, l));
+                }
+            }
+        }
+        return pairs;
+    }
+
+    private static Map<Load, Set<Load>> asSets(Map<Load, List<Load>> candidates) {
+        return candidates.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, e -> Set.copyOf(e.getValue())));
+    }
+
+    private static Set<Load> eliminatedLoads(List<DataFlow.LoadLoad> pairs) {
+        return pairs.stream().map(DataFlow.LoadLoad::secondLoad).collect(Collectors.toSet());
+    }
+
+    @Test
+    public void testLoadLoadMatchesHashSetSolver() throws IOException {
+        var eliminated = new int[1];
+        for (var pipeline : List.of(OptimizationPipeline.O0, OptimizationPipeline.O1)) {
+            forAllGraphs(pipeline, (name, graph, translation) -> {
+                binding_irdom.compute_doms(graph.ptr);
+
+                var expected = hashSetAvailableLoadsOfSamePointer(graph, translation.nodeAstTypes(),
+                        translation.methodReferences());
+                var actual = DataFlow.availableLoadsOfSamePointer(graph, translation.nodeAstTypes(),
+                        translation.methodReferences());
+                assertEquals(asSets(expected), asSets(actual), name);
+
+                var pairs = DataFlow.analyzeLoadLoad(graph, translation.nodeAstTypes(), translation.methodReferences());
+                assertEquals(eliminatedLoads(DataFlow.pairLoads(expected)), eliminatedLoads(pairs), name);
+                eliminated[0] += pairs.size();
+            });
+        }
+
+        // The testcases read fields and array elements repeatedly, so the comparison isn't vacuous.
+        assertTrue(eliminated[0] > 0);
+    }
+
+    @Test
+    public void testStoreLoadMatchesHashSetSolver() throws IOException {
+        var forwarded = new int[1];
+        for (var pipeline : List.of(OptimizationPipeline.O0, OptimizationPipeline.O1)) {
+            forAllGraphs(pipeline, (name, graph, translation) -> {
+                var expected = hashSetStoreLoadPairs(graph, translation.nodeAstTypes(), translation.methodReferences());
+                var actual = DataFlow.analyzeStoreLoad(graph, translation.nodeAstTypes(), translation.methodReferences());
+                assertEquals(expected, Set.copyOf(actual), name);
+                // A store kills all other stores to the same pointer, so a load is paired at most once.
+                assertEquals(expected.size(), actual.size(), name);
+                forwarded[0] += actual.size();
+            });
+        }
+
+        // The testcases read fields and array elements after writing them, so the comparison isn't vacuous.
+        assertTrue(forwarded[0] > 0);
+    }
+
+    private static final int X = 0;
+    private static final int I = 1;
+
+    /**
+     * The loop
+     * <pre>
+     *   x = 1; i = 0;
+     *   while (i < p) { if (x == 1) { y = 1; } else { y = 2; } x = y; i = i + 1; }
+     * </pre>
+     * x stays 1, since the else branch is never executed. Only propagating along executable edges finds this, a
+     * solver, which evaluates the else branch as well, merges 1 and 2 in y.
+     */
+    @Test
+    public void testConstantPropagationInLoop() {
+        Firm.init("x86_64-linux-gnu", new String[]{"pic=1"});
+        try {
+            var intType = new PrimitiveType(Mode.getIs());
+            var type = new MethodType(new Type[]{intType}, new Type[]{});
+            var graph = new Graph(new Entity(Program.getGlobalType(), "test", type), 2);
+            var construction = new Construction(graph);
+
+            var p = construction.newProj(graph.getArgs(), Mode.getIs(), 0);
+            var one = construction.newConst(1, Mode.getIs());
+            var two = construction.newConst(2, Mode.getIs());
+            construction.setVariable(X, one);
+            construction.setVariable(I, construction.newConst(0, Mode.getIs()));
+
+            var header = construction.newBlock();
+            header.addPred(construction.newJmp());
+            construction.setCurrentBlock(header);
+            var x = construction.getVariable(X, Mode.getIs());
+            var i = construction.getVariable(I, Mode.getIs());
+            var loop = construction.newCond(construction.newCmp(i, p, Relation.Less));
+            var body = construction.newBlock();
+            body.addPred(construction.newProj(loop, Mode.getX(), 1));
+            var exit = construction.newBlock();
+            exit.addPred(construction.newProj(loop, Mode.getX(), 0));
+
+            body.mature();
+            construction.setCurrentBlock(body);
+            var equal = construction.newCmp(x, one, Relation.Equal);
+            var branch = construction.newCond(equal);
+            var thenBlock = construction.newBlock();
+            thenBlock.addPred(construction.newProj(branch, Mode.getX(), 1));
+            var elseBlock = construction.newBlock();
+            elseBlock.addPred(construction.newProj(branch, Mode.getX(), 0));
+
+            var join = construction.newBlock();
+            thenBlock.mature();
+            construction.setCurrentBlock(thenBlock);
+            join.addPred(construction.newJmp());
+            elseBlock.mature();
+            construction.setCurrentBlock(elseBlock);
+            var elseJmp = construction.newJmp();
+            join.addPred(elseJmp);
+
+            join.mature();
+            construction.setCurrentBlock(join);
+            var y = construction.newPhi(new Node[]{one, two}, Mode.getIs());
+            construction.setVariable(X, y);
+            var next = construction.newAdd(i, one);
+            construction.setVariable(I, next);
+            header.addPred(construction.newJmp());
+            header.mature();
+
+            exit.mature();
+            construction.setCurrentBlock(exit);
+            graph.getEndBlock().addPred(construction.newReturn(construction.getCurrentMem(), new Node[]{}));
+            construction.finish();
+
+            var propagation = DataFlow.analyzeConstantFolding(graph, blockPhis(graph));
+
+            var constantOne = new DataFlow.Constant(new TargetValue(1, Mode.getIs()));
+            assertEquals(constantOne, propagation.value(x));
+            assertEquals(constantOne, propagation.value(y));
+            assertEquals(new DataFlow.Constant(TargetValue.getBTrue()), propagation.value(equal));
+            assertEquals(DataFlow.Variable.value, propagation.value(i));
+            assertEquals(DataFlow.Variable.value, propagation.value(next));
+
+            assertTrue(propagation.isExecutable(join, 0));
+            assertFalse(propagation.isExecutable(join, 1));
+            assertFalse(propagation.isExecutable(elseJmp));
+            assertNull(propagation.value(elseJmp));
+            assertFalse(propagation.reachableNodes().contains(elseBlock));
+            assertTrue(propagation.isExecutable(exit, 0));
+            assertTrue(propagation.isExecutable(header, 1));
+        } finally {
+            Firm.finish();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package compiler;
+
+import compiler.codegen.*;
+import compiler.codegen.sir.BasicBlock;
+import compiler.codegen.sir.SirGraph;
+import compiler.codegen.sir.instructions.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestEmitter {
+
+    private static SirGraph singleBlock(List<Instruction> instructions) {
+        var block = new BasicBlock("BB0", new ArrayList<>(instructions));
+        return new SirGraph(block, List.of(block));
+    }
+
+    @Test
+    public void testOperandsAreFormattedLikeATTSyntax() throws IOException {
+        var location = new MemoryLocation(Optional.of(HardwareRegister.RAX), -16, Optional.of(HardwareRegister.R13), 8);
+        var instructions = List.<Instruction>of(
+                new MovInstruction(Register.Width.BIT32, new MemoryLocation(HardwareRegister.RBP, -8), HardwareRegister.EDI),
+                new MovInstruction(Register.Width.BIT64, HardwareRegister.RAX, new Constant(Long.MIN_VALUE)),
+                new AddInstruction(HardwareRegister.ESI, HardwareRegister.ESI, new Constant(-42)),
+                new LoadEffectiveAddressInstruction(HardwareRegister.RDI, location),
+                new CmpInstruction(HardwareRegister.R8B, new MemoryLocation(HardwareRegister.RSP)),
+                new ReturnInstruction(Optional.empty()));
+
+        var output = new ByteArrayOutputStream();
+        var emitter = new Emitter(Channels.newChannel(output));
+        emitter.emitFunction("f", singleBlock(instructions));
+        emitter.flush();
+
+        var expected = """
+                .globl\tf
+                .type\tf, @function
+                f:
+                fBB0:
+                \tmovl %edi, -8(%rbp)
+                \tmovq $-9223372036854775808, %rax
+                \tadd $-42, %esi
+                \tlea -16(%rax,%r13,8), %rdi
+                \tcmp (%rsp), %r8b
+                \tret
+                """;
+        assertEquals(expected, emitter.getFunctionAssembly());
+        assertEquals(".text\n\n" + expected, output.toString(StandardCharsets.US_ASCII));
+        assertEquals(location.formatATTSyntax(), "-16(%rax,%r13,8)");
+    }
+
+    @Test
+    public void testFunctionsLargerThanTheBufferAreWrittenCompletely() throws IOException {
+        var instructions = new ArrayList<Instruction>();
+        for (int i = 0; i < 20000; i++) {
+            instructions.add(new AddInstruction(HardwareRegister.EAX, HardwareRegister.EAX, new Constant(i)));
+        }
+        instructions.add(new ReturnInstruction(Optional.empty()));
+
+        var output = new ByteArrayOutputStream();
+        var emitter = new Emitter(Channels.newChannel(output));
+        emitter.emitFunction("f", singleBlock(instructions));
+        emitter.appendFunction("g:\n\tret\n");
+        emitter.flush();
+
+        var assembly = output.toString(StandardCharsets.US_ASCII);
+        assertTrue(assembly.contains("\tadd $19999, %eax\n\tret\ng:\n\tret\n"));
+        assertEquals(20000, assembly.lines().filter(line -> line.startsWith("\tadd")).count());
+    }
+}
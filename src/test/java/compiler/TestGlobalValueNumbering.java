@@ -0,0 +1,256 @@
+package compiler;
+
+import firm.*;
+import firm.bindings.binding_irdom;
+import firm.nodes.Block;
+import firm.nodes.Node;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestGlobalValueNumbering {
+
+    /**
+     * A method with the int parameters p and q and the control flow
+     * <pre>
+     *   s -> b, c    b -> b1, b2    b1, b2 -> bj -> bk -> j    c -> j
+     * </pre>
+     * So b1, b2 and bj are siblings in the dominator tree below b, and bk is the only child of bj. The block u isn't
+     * reachable. The value nodes are created in the blocks, whose names they end with.
+     */
+    private static final class TestGraph {
+        private final Construction construction;
+        private final Graph graph;
+        // All nodes in the order they were created, which is a topological order.
+        private final List<Node> nodes = new ArrayList<>();
+
+        private final Block start, s, b, c, b1, b2, bj, bk, j, u;
+
+        private final Node p, q;
+        private final Node mulPQs, lessPQs;
+        private final Node subPQb, equalPQb;
+        private final Node addPQb1, subPQb1;
+        private final Node addPQb2;
+        private final Node collapsingPhiBj, mergingPhiBj, addQPbj;
+        private final Node addPQbk, equalQPbk, lessQPbk, subQPbk;
+        private final Node mulQPc;
+        private final Node lessPQj;
+
+        private TestGraph() {
+            var intType = new PrimitiveType(Mode.getIs());
+            var type = new MethodType(new Type[]{intType, intType}, new Type[]{});
+            this.graph = new Graph(new Entity(Program.getGlobalType(), "test", type), 0);
+            this.construction = new Construction(this.graph);
+            this.start = this.graph.getStartBlock();
+            this.s = (Block) this.construction.getCurrentBlock();
+
+            var args = this.graph.getArgs();
+            this.p = this.add(this.construction.newProj(args, Mode.getIs(), 0));
+            this.q = this.add(this.construction.newProj(args, Mode.getIs(), 1));
+            this.mulPQs = this.add(this.construction.newMul(this.p, this.q));
+            this.lessPQs = this.add(this.construction.newCmp(this.p, this.q, Relation.Less));
+            this.b = this.construction.newBlock();
+            this.c = this.construction.newBlock();
+            this.branch(this.lessPQs, this.b, this.c);
+
+            this.enter(this.b);
+            this.subPQb = this.add(this.construction.newSub(this.p, this.q));
+            this.equalPQb = this.add(this.construction.newCmp(this.p, this.q, Relation.Equal));
+            this.b1 = this.construction.newBlock();
+            this.b2 = this.construction.newBlock();
+            this.branch(this.equalPQb, this.b1, this.b2);
+
+            this.bj = this.construction.newBlock();
+            this.enter(this.b1);
+            this.addPQb1 = this.add(this.construction.newAdd(this.p, this.q));
+            this.subPQb1 = this.add(this.construction.newSub(this.p, this.q));
+            this.bj.addPred(this.add(this.construction.newJmp()));
+
+            this.enter(this.b2);
+            this.addPQb2 = this.add(this.construction.newAdd(this.p, this.q));
+            this.bj.addPred(this.add(this.construction.newJmp()));
+
+            this.enter(this.bj);
+            this.collapsingPhiBj = this.add(this.construction.newPhi(new Node[]{this.subPQb1, this.subPQb}, Mode.getIs()));
+            this.mergingPhiBj = this.add(this.construction.newPhi(new Node[]{this.addPQb1, this.addPQb2}, Mode.getIs()));
+            this.addQPbj = this.add(this.construction.newAdd(this.q, this.p));
+            this.bk = this.construction.newBlock();
+            this.bk.addPred(this.add(this.construction.newJmp()));
+
+            this.enter(this.bk);
+            this.addPQbk = this.add(this.construction.newAdd(this.p, this.q));
+            this.equalQPbk = this.add(this.construction.newCmp(this.q, this.p, Relation.Equal));
+            this.lessQPbk = this.add(this.construction.newCmp(this.q, this.p, Relation.Less));
+            this.subQPbk = this.add(this.construction.newSub(this.q, this.p));
+            this.j = this.construction.newBlock();
+            this.j.addPred(this.add(this.construction.newJmp()));
+
+            this.enter(this.c);
+            this.mulQPc = this.add(this.construction.newMul(this.q, this.p));
+            this.j.addPred(this.add(this.construction.newJmp()));
+
+            this.enter(this.j);
+            this.lessPQj = this.add(this.construction.newCmp(this.p, this.q, Relation.Less));
+            var ret = this.add(this.construction.newReturn(this.construction.getCurrentMem(), new Node[]{}));
+            this.graph.getEndBlock().addPred(ret);
+
+            this.u = this.construction.newBlock();
+            this.u.mature();
+
+            this.construction.finish();
+            binding_irdom.compute_doms(this.graph.ptr);
+        }
+
+        private Node add(Node node) {
+            this.nodes.add(node);
+            return node;
+        }
+
+        private void branch(Node cmp, Block trueBlock, Block falseBlock) {
+            var cond = this.add(this.construction.newCond(cmp));
+            trueBlock.addPred(this.add(this.construction.newProj(cond, Mode.getX(), 1)));
+            falseBlock.addPred(this.add(this.construction.newProj(cond, Mode.getX(), 0)));
+        }
+
+        private void enter(Block block) {
+            block.mature();
+            this.construction.setCurrentBlock(block);
+        }
+
+        private List<Block> reachableBlocks() {
+            return List.of(this.start, this.s, this.b, this.c, this.b1, this.b2, this.bj, this.bk, this.j);
+        }
+    }
+
+    private interface GraphTest {
+        void run(TestGraph graph);
+    }
+
+    private static void withTestGraph(GraphTest test) {
+        Firm.init("x86_64-linux-gnu", new String[]{"pic=1"});
+        try {
+            test.run(new TestGraph());
+        } finally {
+            Firm.finish();
+        }
+    }
+
+    @Test
+    public void testDominance() {
+        withTestGraph(g -> {
+            var tree = new DominatorTree(g.graph);
+
+            assertTrue(tree.dominates(g.s, g.j));
+            assertTrue(tree.dominates(g.b, g.bk));
+            assertTrue(tree.dominates(g.bj, g.bj));
+            assertFalse(tree.dominates(g.b, g.j));
+            assertFalse(tree.dominates(g.b1, g.b2));
+            assertFalse(tree.dominates(g.b1, g.bj));
+            assertFalse(tree.dominates(g.c, g.j));
+            assertFalse(tree.dominates(g.bk, g.bj));
+
+            for (var a : g.reachableBlocks()) {
+                for (var b : g.reachableBlocks()) {
+                    assertEquals(binding_irdom.block_dominates(a.ptr, b.ptr) != 0, tree.dominates(a, b), a + " " + b);
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testUnreachableBlock() {
+        withTestGraph(g -> {
+            var tree = new DominatorTree(g.graph);
+
+            assertEquals(-1, tree.preorderNumber(g.u));
+            assertFalse(tree.preorder().contains(g.u));
+            assertFalse(tree.dominates(g.u, g.u));
+            assertFalse(tree.dominates(g.start, g.u));
+            assertFalse(tree.dominates(g.u, g.j));
+        });
+    }
+
+    @Test
+    public void testPreorderIntervals() {
+        withTestGraph(g -> {
+            var tree = new DominatorTree(g.graph);
+            var preorder = tree.preorder();
+
+            assertEquals(new HashSet<>(g.reachableBlocks()), new HashSet<>(preorder));
+            for (int i = 0; i < preorder.size(); i++) {
+                assertEquals(i, tree.preorderNumber(preorder.get(i)));
+            }
+
+            // The blocks dominated by a block are numbered right after it, without gaps.
+            for (var a : preorder) {
+                var dominated = preorder.stream()
+                        .filter(b -> tree.dominates(a, b))
+                        .map(tree::preorderNumber)
+                        .collect(Collectors.toSet());
+                var first = tree.preorderNumber(a);
+                var interval = IntStream.range(first, first + dominated.size()).boxed().collect(Collectors.toSet());
+                assertEquals(interval, dominated, a.toString());
+            }
+
+            assertEquals(0, tree.preorderNumber(g.start));
+            assertEquals(tree.preorderNumber(g.bj) + 1, tree.preorderNumber(g.bk));
+        });
+    }
+
+    @Test
+    public void testCommutativeOperands() {
+        withTestGraph(g -> {
+            var gvn = new GlobalValueNumbering(g.graph, g.nodes);
+
+            assertEquals(g.mulPQs, gvn.leader(g.mulQPc));
+            assertEquals(g.addQPbj, gvn.leader(g.addPQbk));
+            // Subtraction isn't commutative.
+            assertEquals(g.subQPbk, gvn.leader(g.subQPbk));
+        });
+    }
+
+    @Test
+    public void testCmpOperands() {
+        withTestGraph(g -> {
+            var gvn = new GlobalValueNumbering(g.graph, g.nodes);
+
+            // Only (in)equality may swap its operands, q < p is p > q.
+            assertEquals(g.equalPQb, gvn.leader(g.equalQPbk));
+            assertEquals(g.lessQPbk, gvn.leader(g.lessQPbk));
+            assertEquals(g.lessPQs, gvn.leader(g.lessPQj));
+        });
+    }
+
+    @Test
+    public void testPhiSingleValue() {
+        withTestGraph(g -> {
+            var gvn = new GlobalValueNumbering(g.graph, g.nodes);
+
+            assertEquals(g.subPQb, gvn.leader(g.subPQb1));
+            // Both operands are congruent to the Sub in b, which dominates the Phi.
+            assertEquals(g.subPQb, gvn.leader(g.collapsingPhiBj));
+            // The Adds in b1 and b2 compute the same, but neither dominates the other.
+            assertEquals(g.mergingPhiBj, gvn.leader(g.mergingPhiBj));
+        });
+    }
+
+    @Test
+    public void testLeadersOfSiblingBlocks() {
+        withTestGraph(g -> {
+            var gvn = new GlobalValueNumbering(g.graph, g.nodes);
+
+            // The Adds of the siblings b1, b2 and bj don't dominate each other, whatever order they are visited in,
+            // so each replaces the previous one as the leader. The one in bj is still the leader when bk is visited.
+            assertEquals(g.addPQb1, gvn.leader(g.addPQb1));
+            assertEquals(g.addPQb2, gvn.leader(g.addPQb2));
+            assertEquals(g.addQPbj, gvn.leader(g.addQPbj));
+            assertEquals(g.addQPbj, gvn.leader(g.addPQbk));
+        });
+    }
+}
@@ -1,9 +1,13 @@
 package compiler;
 
 import compiler.syntax.Lexer;
+import compiler.syntax.Parser;
+import compiler.syntax.PipelinedLexer;
 import compiler.syntax.Token;
+import compiler.syntax.TokenStream;
 import org.junit.jupiter.api.Test;
 
+import java.nio.CharBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -11,6 +15,10 @@ import java.util.stream.Collectors;
 
 import static compiler.syntax.TokenType.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class TestLexer {
     private static List<Token> lexAll(String input) {
@@ -349,4 +357,130 @@ public class TestLexer {
     public void basicProgramTest() {
         assertEquals(expectedBasicProgram, formatLexedWithSpans(basicProgram));
     }
+
+    @Test
+    public void identifiersAreInternedTest() {
+        var tokens = lexAll("foo bar foo bar2 foo");
+        assertSame(tokens.get(0).getIdentContent(), tokens.get(2).getIdentContent());
+        assertSame(tokens.get(0).getIdentContent(), tokens.get(4).getIdentContent());
+        assertEquals(tokens.get(0).getIdentId(), tokens.get(4).getIdentId());
+        assertNotEquals(tokens.get(1).getIdentId(), tokens.get(3).getIdentId());
+    }
+
+    @Test
+    public void charBufferTest() {
+        var buffer = CharBuffer.wrap(basicProgram.toCharArray());
+        Lexer l = new Lexer(buffer);
+        List<String> lexed = new ArrayList<>();
+        Token t;
+        do {
+            t = l.nextToken();
+            lexed.add(t.type.repr);
+        } while (t.type != EOF);
+        assertEquals(formatLexed(basicProgram).stream().map(s -> s.split(" ")[0]).collect(Collectors.toList()), lexed);
+    }
+
+    @Test
+    public void pipelinedLexerTest() {
+        String input = basicProgram.repeat(100) + invalidComment;
+        var expected = lexAll(input);
+
+        // Use a small capacity so the ring buffer wraps around several times.
+        try (var pipelined = new PipelinedLexer(input.toCharArray(), input.length(), 16)) {
+            for (Token e : expected) {
+                Token peeked = pipelined.peekToken();
+                Token t = pipelined.nextToken();
+                assertSame(peeked, t);
+                assertEquals(e.type, t.type);
+                assertEquals(e.getSpan(), t.getSpan());
+                if (e.type == Identifier) {
+                    assertEquals(e.getIdentContent(), t.getIdentContent());
+                } else if (e.type == IntLiteral) {
+                    assertEquals(e.getIntLiteralContent(), t.getIntLiteralContent());
+                }
+            }
+            assertEquals(EOF, pipelined.nextToken().type);
+        }
+    }
+
+    @Test
+    public void pipelinedLexerSyntheticTokenTest() {
+        try (var pipelined = new PipelinedLexer("a b")) {
+            Token a = pipelined.nextToken();
+            pipelined.addSyntheticToken(a);
+            assertSame(a, pipelined.peekToken());
+            assertSame(a, pipelined.nextToken());
+            assertEquals("b", pipelined.nextToken().getIdentContent());
+            assertEquals(EOF, pipelined.nextToken().type);
+        }
+    }
+
+    @Test
+    public void pipelinedLexerStopsEarlyTest() {
+        var lines = 100000;
+        var input = "class a { int b; }\n".repeat(lines);
+        var pipelined = new PipelinedLexer(input);
+        assertEquals(Class, pipelined.nextToken().type);
+
+        // The consumer stops after the first token, the rest of the input must not be lexed.
+        pipelined.close();
+        assertFalse(pipelined.isProducing());
+        // At most one buffer ahead of the consumer, far from the 7 tokens of every line and the EOF token.
+        assertTrue(pipelined.producedTokenCount() <= 1 + PipelinedLexer.DEFAULT_CAPACITY);
+        assertTrue(pipelined.producedTokenCount() < 7L * lines + 1);
+    }
+
+    @Test
+    public void identifiersAreSharedTest() {
+        String input = "a b a c b a";
+        var stream = TokenStream.lex(input);
+        var reader = stream.reader();
+
+        // Equal identifiers are the same instance from the identifier pool, in the stream and in every reader.
+        Token a = reader.nextToken();
+        Token b = reader.nextToken();
+        assertSame(a.getIdentContent(), reader.nextToken().getIdentContent());
+        reader.nextToken();
+        assertSame(b.getIdentContent(), reader.nextToken().getIdentContent());
+        assertSame(a.getIdentContent(), stream.reader().nextToken().getIdentContent());
+        assertSame(a.getIdentContent(), stream.getToken(5).getIdentContent());
+
+        var lexer = new Lexer(input);
+        var first = lexer.nextToken().getIdentContent();
+        lexer.nextToken();
+        assertSame(first, lexer.nextToken().getIdentContent());
+    }
+
+    @Test
+    public void tokenStreamTest() {
+        String input = basicProgram + invalidComment;
+        var expected = lexAll(input);
+        var stream = TokenStream.lex(input);
+        assertEquals(expected.size(), stream.size());
+
+        // Read twice to make sure readers are independent of each other.
+        for (int round = 0; round < 2; round++) {
+            var reader = stream.reader();
+            for (Token e : expected) {
+                Token t = reader.nextToken();
+                assertEquals(e.type, t.type);
+                assertEquals(e.getSpan(), t.getSpan());
+                if (e.type == Identifier) {
+                    assertEquals(e.getIdentContent(), t.getIdentContent());
+                } else if (e.type == Error) {
+                    assertEquals(e.getErrorContent(), t.getErrorContent());
+                }
+            }
+            assertEquals(EOF, reader.nextToken().type);
+        }
+    }
+
+    @Test
+    public void parseTokenStreamTest() {
+        var stream = TokenStream.lex(basicProgram);
+        var first = AstPrinter.print(new Parser(stream.reader()).parse());
+        var second = AstPrinter.print(new Parser(stream.reader()).parse());
+        assertEquals(AstPrinter.print(new Parser(new Lexer(basicProgram)).parse()), first);
+        assertEquals(first, second);
+    }
 }
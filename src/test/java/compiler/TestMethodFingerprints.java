@@ -0,0 +1,104 @@
+package compiler;
+
+import compiler.diagnostics.CompilerMessageReporter;
+import compiler.semantic.resolution.DefinedMethod;
+import compiler.syntax.Lexer;
+import compiler.syntax.Parser;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+public class TestMethodFingerprints {
+
+    private static final String PROGRAM = """
+            class A {
+                public int x;
+                public int f(int a) { return g(a) + 1; }
+                public int g(int a) { return a * 2; }
+                public int h() { return 3; }
+                public static void main(String[] args) { System.out.println(new A().f(3)); }
+            }
+            """;
+
+    private static Map<String, String> fingerprints(String program, boolean optimize) {
+        var reporter = new CompilerMessageReporter(new PrintWriter(new StringWriter()), program);
+        var parser = new Parser(new Lexer(program), reporter);
+        var frontend = MainCommand.checkProgram(new File("A.java"), parser.parse(), reporter).orElseThrow();
+
+        var fingerprints = new MethodFingerprints(frontend, optimize);
+        var result = new HashMap<String, String>();
+        for (var method : fingerprints.getMethods()) {
+            result.put(fingerprints.getEmittedName(method), fingerprints.getFingerprint(method));
+        }
+        return result;
+    }
+
+    @Test
+    public void testSyntacticallyEqualProgram() {
+        var changed = PROGRAM.replace("return a * 2;", "return ((a)) *    2;");
+        assertEquals(fingerprints(PROGRAM, true), fingerprints(changed, true));
+    }
+
+    @Test
+    public void testChangedCalleeWithoutOptimization() {
+        var before = fingerprints(PROGRAM, false);
+        var after = fingerprints(PROGRAM.replace("a * 2", "a * 3"), false);
+
+        assertNotEquals(before.get("_A_g"), after.get("_A_g"));
+        assertEquals(before.get("_A_f"), after.get("_A_f"));
+        assertEquals(before.get("_A_h"), after.get("_A_h"));
+        assertEquals(before.get("__MiniJava_Main__"), after.get("__MiniJava_Main__"));
+    }
+
+    @Test
+    public void testChangedCalleeWithOptimization() {
+        var before = fingerprints(PROGRAM, true);
+        var after = fingerprints(PROGRAM.replace("a * 2", "a * 3"), true);
+
+        // f and main may inline g.
+        assertNotEquals(before.get("_A_g"), after.get("_A_g"));
+        assertNotEquals(before.get("_A_f"), after.get("_A_f"));
+        assertNotEquals(before.get("__MiniJava_Main__"), after.get("__MiniJava_Main__"));
+        assertEquals(before.get("_A_h"), after.get("_A_h"));
+    }
+
+    @Test
+    public void testChangedDeclarations() {
+        var before = fingerprints(PROGRAM, false);
+        var after = fingerprints(PROGRAM.replace("public int x;", "public int x; public int y;"), false);
+
+        assertNotEquals(before.get("_A_h"), after.get("_A_h"));
+    }
+
+    @Test
+    public void testDeclarationOrder() {
+        var program = """
+                class Z {
+                    public int zz() { return 1; }
+                    public int a() { return 2; }
+                }
+                class B {
+                    public static void main(String[] args) { }
+                    public int m() { return 3; }
+                    public int c() { return 4; }
+                }
+                """;
+        var reporter = new CompilerMessageReporter(new PrintWriter(new StringWriter()), program);
+        var parser = new Parser(new Lexer(program), reporter);
+        var frontend = MainCommand.checkProgram(new File("B.java"), parser.parse(), reporter).orElseThrow();
+
+        var names = new MethodFingerprints(frontend, false).getMethods().stream()
+                .map(DefinedMethod::getLinkerName)
+                .toList();
+        assertEquals(List.of("_Z_zz", "_Z_a", "_B_main", "_B_m", "_B_c"), names);
+        assertEquals(names, frontend.definedMethods().stream().map(DefinedMethod::getLinkerName).toList());
+    }
+}
@@ -0,0 +1,101 @@
+package compiler;
+
+import compiler.codegen.*;
+import compiler.codegen.sir.BasicBlock;
+import compiler.codegen.sir.SirGraph;
+import compiler.codegen.sir.instructions.*;
+import compiler.semantic.resolution.IntrinsicMethod;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestObjectEmitter {
+
+    private static byte[] bytes(int... values) {
+        var result = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = (byte) values[i];
+        }
+        return result;
+    }
+
+    @Test
+    public void testEncodingMatchesAssembler() {
+        var encoder = new X86Encoder();
+
+        // The expected bytes are the output of the GNU assembler.
+        encoder.alu(X86Encoder.AluOperation.ADD, HardwareRegister.EAX, HardwareRegister.R9D);
+        encoder.alu(X86Encoder.AluOperation.SUB, HardwareRegister.RBX, new Constant(1000));
+        encoder.alu(X86Encoder.AluOperation.CMP, HardwareRegister.R12D, new MemoryLocation(HardwareRegister.RBP, -8));
+        encoder.mov(Register.Width.BIT8, new MemoryLocation(HardwareRegister.RSP), HardwareRegister.SIL);
+        encoder.mov(Register.Width.BIT64, HardwareRegister.R10, new Constant(0x123456789L));
+        encoder.lea(HardwareRegister.RDI, new MemoryLocation(Optional.of(HardwareRegister.RAX), 16, Optional.of(HardwareRegister.R13), 8));
+        encoder.imul(HardwareRegister.ECX, new Constant(5));
+        encoder.shift(X86Encoder.ShiftOperation.SAR, HardwareRegister.R15D, HardwareRegister.CL);
+        encoder.movsx(HardwareRegister.RDX, HardwareRegister.EAX);
+        encoder.push(HardwareRegister.R14);
+
+        assertArrayEquals(bytes(
+                0x44, 0x01, 0xc8,
+                0x48, 0x81, 0xeb, 0xe8, 0x03, 0x00, 0x00,
+                0x44, 0x3b, 0x65, 0xf8,
+                0x40, 0x88, 0x34, 0x24,
+                0x49, 0xba, 0x89, 0x67, 0x45, 0x23, 0x01, 0x00, 0x00, 0x00,
+                0x4a, 0x8d, 0x7c, 0xe8, 0x10,
+                0x6b, 0xc9, 0x05,
+                0x41, 0xd3, 0xff,
+                0x48, 0x63, 0xd0,
+                0x41, 0x56
+        ), encoder.toByteArray());
+    }
+
+    @Test
+    public void testVirtualRegistersCanNotBeEncoded() {
+        var register = new VirtualRegister.Generator().nextRegister(Register.Width.BIT32);
+
+        assertThrows(IllegalArgumentException.class, () -> new X86Encoder().alu(X86Encoder.AluOperation.ADD, register, new Constant(1)));
+    }
+
+    @Test
+    public void testBranchesAreResolvedAndCallsRelocated() {
+        var loop = new BasicBlock("BB0", new ArrayList<>());
+        var exit = new BasicBlock("BB1", new ArrayList<>());
+        loop.getInstructions().addAll(List.of(
+                new MethodCallInstruction(HardwareRegister.EAX, IntrinsicMethod.SYSTEM_OUT_PRINTLN, List.of()),
+                new CmpInstruction(HardwareRegister.EBX, new Constant(0)),
+                new BranchInstruction(Predicate.NOT_EQUAL, loop, exit)));
+        exit.getInstructions().add(new ReturnInstruction(Optional.empty()));
+
+        var emitter = new ObjectEmitter();
+        emitter.emitFunction("__MiniJava_Main__", new SirGraph(loop, List.of(loop, exit)));
+        var object = ByteBuffer.wrap(emitter.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+
+        assertEquals(0x464c457f, object.getInt(0));
+        // Relocatable x86-64 object
+        assertEquals(1, object.getShort(16));
+        assertEquals(62, object.getShort(18));
+
+        // The text section directly follows the header.
+        var text = new byte[15];
+        object.get(64, text);
+        assertArrayEquals(bytes(
+                // The displacement of the call is filled in by the linker.
+                0xe8, 0x00, 0x00, 0x00, 0x00,
+                0x83, 0xfb, 0x00,
+                // Jumps back to the start of the block, the exit block is the fall through.
+                0x0f, 0x85, 0xf2, 0xff, 0xff, 0xff,
+                0xc3
+        ), text);
+
+        // The relocation of the call follows the text section.
+        assertEquals(1, object.getLong(80));
+        assertEquals(4, object.getInt(88)); // R_X86_64_PLT32
+        assertEquals(-4, object.getLong(96));
+    }
+}
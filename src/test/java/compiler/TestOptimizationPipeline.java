@@ -0,0 +1,167 @@
+package compiler;
+
+import firm.Firm;
+import firm.Graph;
+import firm.nodes.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestOptimizationPipeline {
+
+    @Test
+    public void testLevels() {
+        assertEquals(OptimizationPipeline.O0, OptimizationPipeline.forLevel(-1));
+        assertEquals(OptimizationPipeline.O0, OptimizationPipeline.forLevel(0));
+        assertEquals(OptimizationPipeline.O1, OptimizationPipeline.forLevel(1));
+        assertEquals(OptimizationPipeline.O3, OptimizationPipeline.forLevel(7));
+
+        assertFalse(OptimizationPipeline.O0.inline());
+        assertFalse(OptimizationPipeline.O0.optimizesBackend());
+        assertTrue(OptimizationPipeline.O2.inline());
+        assertTrue(OptimizationPipeline.O2.optimizesBackend());
+
+        // Every pass of the levels can also be given with --passes.
+        for (var pipeline : List.of(OptimizationPipeline.O1, OptimizationPipeline.O2, OptimizationPipeline.O3)) {
+            for (var stage : pipeline.stages()) {
+                assertTrue(Optimization.passNames().containsAll(stage.passes()));
+            }
+        }
+    }
+
+    @Test
+    public void testCustomPasses() {
+        var pipeline = OptimizationPipeline.parse("const, gvn,inline,const");
+
+        assertTrue(pipeline.inline());
+        assertTrue(pipeline.optimizesBackend());
+        assertEquals("--passes=inline,const,gvn,const", pipeline.name());
+        assertEquals(List.of(new OptimizationPipeline.Stage(List.of("const", "gvn", "const"), OptimizationPipeline.CUSTOM_ROUNDS)),
+                pipeline.stages());
+
+        assertFalse(OptimizationPipeline.parse("arithmetic").inline());
+    }
+
+    @Test
+    public void testInvalidPasses() {
+        var e = assertThrows(IllegalArgumentException.class, () -> OptimizationPipeline.parse("const,unroll"));
+        assertTrue(e.getMessage().contains("'unroll'"));
+
+        assertThrows(IllegalArgumentException.class, () -> OptimizationPipeline.parse(""));
+        assertThrows(IllegalArgumentException.class, () -> OptimizationPipeline.parse(" , "));
+    }
+
+    // Enough rounds for every method of the runtime testcases to reach a fixpoint.
+    private static final int FIXPOINT_ROUNDS = 100;
+
+    // Translates and inlines, but doesn't run any passes.
+    private static final OptimizationPipeline UNOPTIMIZED = new OptimizationPipeline("unoptimized", true, List.of());
+
+    /**
+     * Describes the graph independently of the node numbers: the nodes are numbered in the order of a depth first
+     * search from the end node and every node is listed with its block, its predecessors and its attributes.
+     * Isomorphic graphs have the same description.
+     */
+    private static String canonicalForm(Graph g) {
+        var ids = new HashMap<Node, Integer>();
+        var order = new ArrayList<Node>();
+        var stack = new ArrayDeque<Node>();
+        stack.push(g.getEnd());
+        while (!stack.isEmpty()) {
+            var n = stack.pop();
+            if (ids.containsKey(n)) {
+                continue;
+            }
+            ids.put(n, order.size());
+            order.add(n);
+
+            for (int i = n.getPredCount() - 1; i >= 0; i--) {
+                stack.push(n.getPred(i));
+            }
+            if (!(n instanceof Block)) {
+                stack.push(n.getBlock());
+            }
+        }
+
+        var result = new StringBuilder();
+        for (var n : order) {
+            result.append(ids.get(n)).append(": ").append(n.getClass().getSimpleName()).append(' ')
+                    .append(n.getMode().getName());
+            if (!(n instanceof Block)) {
+                result.append(" in ").append(ids.get(n.getBlock()));
+            }
+            switch (n) {
+                case Const c -> result.append(" value ").append(c.getTarval().asLong());
+                case Proj p -> result.append(" num ").append(p.getNum());
+                case Cmp cmp -> result.append(" relation ").append(cmp.getRelation());
+                case Address a -> result.append(" entity ").append(a.getEntity().getLdName());
+                case Member m -> result.append(" entity ").append(m.getEntity().getLdName());
+                default -> {
+                }
+            }
+            result.append(" preds");
+            for (int i = 0; i < n.getPredCount(); i++) {
+                result.append(' ').append(ids.get(n.getPred(i)));
+            }
+            result.append('\n');
+        }
+        return result.toString();
+    }
+
+    private interface GraphOptimizer {
+        void optimize(String name, Graph graph, TranslationResult translation);
+    }
+
+    /**
+     * Translates the runtime testcases, optimizes every graph and describes the results.
+     */
+    private static List<String> optimizeTestcases(GraphOptimizer optimizer) throws Exception {
+        var results = new ArrayList<String>();
+        for (var testcase : RuntimeTestcases.all()) {
+            var frontend = RuntimeTestcases.check(testcase.file(), testcase.source());
+            try {
+                var translation = new Translation(frontend).translate(false, UNOPTIMIZED);
+                for (var entry : translation.methodGraphs().entrySet()) {
+                    var name = testcase.name() + ": " + entry.getKey().getLinkerName();
+                    optimizer.optimize(name, entry.getValue(), translation);
+                    results.add(name + "\n" + canonicalForm(entry.getValue()));
+                }
+            } finally {
+                Firm.finish();
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Skipping the passes, which would see a graph again that they didn't change, has to end up with the same graphs
+     * as running every pass of every round until a round doesn't change anything.
+     */
+    @Test
+    public void testFixpointMatchesRunningEveryPass() throws Exception {
+        for (var stage : OptimizationPipeline.O3.stages()) {
+            var passes = stage.passes();
+            var fixpoint = new OptimizationPipeline("fixpoint", false, List.of(new OptimizationPipeline.Stage(passes,
+                    FIXPOINT_ROUNDS)));
+
+            var expected = optimizeTestcases((name, graph, translation) -> {
+                var optimization = new Optimization(graph, translation.nodeAstTypes(), translation.methodReferences());
+                var changed = true;
+                for (int round = 0; round < FIXPOINT_ROUNDS && changed; round++) {
+                    changed = false;
+                    for (var pass : passes) {
+                        changed |= optimization.runPass(pass);
+                    }
+                }
+                assertFalse(changed, name + " doesn't reach a fixpoint");
+            });
+            var actual = optimizeTestcases((name, graph, translation) -> Optimization.optimize(graph,
+                    translation.nodeAstTypes(), translation.methodReferences(), fixpoint, false, PassTimings.DISABLED,
+                    PassStatistics.DISABLED, name));
+
+            assertEquals(expected, actual);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package compiler;
+
+import compiler.diagnostics.CompilerMessageReporter;
+import compiler.syntax.Lexer;
+import compiler.syntax.Parser;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestParallelCheck {
+
+    private static final File SEMANTIC_TEST_DIR = new File("src/test/resources/testcases/semantic");
+
+    private record CheckOutput(boolean correct, String messages) {
+    }
+
+    private static CheckOutput check(String content, boolean parallel) {
+        var output = new StringWriter();
+        var reporter = new CompilerMessageReporter(new PrintWriter(output), content);
+        var parser = new Parser(new Lexer(content), reporter);
+
+        var result = MainCommand.checkProgram(new File("Test.java"), parser.parse(), reporter, parallel);
+        reporter.finish();
+
+        return new CheckOutput(result.isPresent(), output.toString());
+    }
+
+    @TestFactory
+    public Stream<DynamicTest> generateParallelCheckTests() {
+        var semanticTestFiles = SEMANTIC_TEST_DIR.listFiles();
+        assertNotNull(semanticTestFiles, "No test files found");
+
+        return Arrays.stream(semanticTestFiles)
+                .map(file -> {
+                    try {
+                        String content = Files.readString(file.toPath());
+
+                        return DynamicTest.dynamicTest(file.getName(), () -> {
+                            // The messages must be the same and in the same order as in a sequential check.
+                            assertEquals(check(content, false), check(content, true));
+                        });
+                    } catch (IOException e) {
+                        fail(e);
+                        return null;
+                    }
+                });
+    }
+}
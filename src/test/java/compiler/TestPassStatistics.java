@@ -0,0 +1,64 @@
+package compiler;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestPassStatistics {
+
+    @Test
+    public void testDisabledStatisticsCountNothing() {
+        PassStatistics.DISABLED.count(PassStatistics.NODES_FOLDED, "f", 3);
+
+        assertTrue(PassStatistics.DISABLED.programTotals().isEmpty());
+        assertTrue(PassStatistics.DISABLED.methodTotals("f").isEmpty());
+    }
+
+    @Test
+    public void testMethodAndProgramTotals() {
+        var statistics = new PassStatistics();
+
+        statistics.count(PassStatistics.NODES_FOLDED, "f", 3);
+        statistics.count(PassStatistics.CALLS_INLINED, "f");
+        statistics.count(PassStatistics.NODES_FOLDED, "g", 2);
+        statistics.count(PassStatistics.SPILLS, "g", 0);
+
+        assertEquals(Map.of(PassStatistics.NODES_FOLDED, 3L, PassStatistics.CALLS_INLINED, 1L), statistics.methodTotals("f"));
+        // Counters which were never incremented are missing.
+        assertEquals(Map.of(PassStatistics.NODES_FOLDED, 2L), statistics.methodTotals("g"));
+
+        assertEquals(List.of(PassStatistics.NODES_FOLDED, PassStatistics.CALLS_INLINED),
+                List.copyOf(statistics.programTotals().keySet()));
+        assertEquals(5, statistics.programTotal(PassStatistics.NODES_FOLDED));
+        assertEquals(0, statistics.programTotal(PassStatistics.SPILLS));
+    }
+
+    @Test
+    public void testConcurrentCounting() {
+        var statistics = new PassStatistics();
+
+        IntStream.range(0, 10_000).parallel().forEach(i -> statistics.count(PassStatistics.RELOADS, "m" + i % 7));
+
+        assertEquals(10_000, statistics.programTotal(PassStatistics.RELOADS));
+    }
+
+    @Test
+    public void testReport() {
+        var statistics = new PassStatistics();
+        statistics.count(PassStatistics.LOADS_ELIMINATED, "_M1A_f", 4);
+
+        var out = new ByteArrayOutputStream();
+        statistics.report(new PrintStream(out));
+        var report = out.toString();
+
+        assertTrue(report.startsWith("Program\n"), report);
+        assertTrue(report.contains("_M1A_f\n"), report);
+        assertTrue(report.contains(PassStatistics.LOADS_ELIMINATED), report);
+    }
+}
@@ -0,0 +1,83 @@
+package compiler;
+
+import compiler.diagnostics.CompilerMessageReporter;
+import compiler.syntax.Lexer;
+import compiler.syntax.Parser;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestPassTimings {
+
+    private static final String PROGRAM = """
+            class A {
+                public int f(int a) { return a * 2; }
+                public static void main(String[] args) { System.out.println(new A().f(3)); }
+            }
+            """;
+
+    @Test
+    public void testDisabledTimingsComputeNoSizes() {
+        var timer = PassTimings.DISABLED.start("phase", "method", () -> fail("size computed"));
+        timer.stop(() -> fail("size computed"));
+
+        assertTrue(PassTimings.DISABLED.getMeasurements().isEmpty());
+    }
+
+    @Test
+    public void testPhaseAndMethodTotals() {
+        var timings = new PassTimings();
+
+        timings.start("lowering", "f", () -> 10).stop(() -> 20);
+        timings.start("lowering", "g", () -> 1).stop(() -> 2);
+        timings.start("emit", "f").stop();
+        timings.start("write").stop();
+
+        var phases = timings.phaseTotals();
+        assertEquals(List.of("lowering", "emit", "write"), phases.stream().map(PassTimings.Measurement::phase).toList());
+        assertEquals(11, phases.get(0).sizeBefore());
+        assertEquals(22, phases.get(0).sizeAfter());
+        assertEquals(PassTimings.UNKNOWN_SIZE, phases.get(1).sizeBefore());
+
+        var methods = timings.methodTotals().stream().map(m -> m.method().orElseThrow()).sorted().toList();
+        assertEquals(List.of("f", "g"), methods);
+    }
+
+    @Test
+    public void testFrontendPhases() {
+        var reporter = new CompilerMessageReporter(new PrintWriter(new StringWriter()), PROGRAM);
+        var ast = new Parser(new Lexer(PROGRAM), reporter).parse();
+
+        var timings = new PassTimings();
+        assertTrue(MainCommand.checkProgram(new File("A.java"), ast, reporter, false, timings).isPresent());
+
+        var phases = timings.phaseTotals().stream().map(PassTimings.Measurement::phase).toList();
+        assertEquals(List.of("name-resolution", "constant-folding", "well-formed"), phases);
+        for (var phase : timings.phaseTotals()) {
+            assertEquals(ast.getIdBound(), phase.sizeAfter());
+            assertTrue(phase.wallNanos() >= 0);
+        }
+    }
+
+    @Test
+    public void testJson() {
+        var timings = new PassTimings();
+        timings.start("lowering", "method \"quoted\"", () -> 3).stop(() -> 4);
+
+        var out = new StringWriter();
+        timings.writeJson(new PrintWriter(out));
+        var json = out.toString();
+
+        assertTrue(json.contains("\"method\": \"method \\\"quoted\\\"\""), json);
+        assertTrue(json.contains("\"ir_size_before\": 3, \"ir_size_after\": 4"), json);
+        // The phase totals have no method.
+        assertTrue(json.contains("{\"phase\": \"lowering\", \"method\": null"), json);
+        assertEquals(Optional.of("method \"quoted\""), timings.getMeasurements().get(0).method());
+    }
+}
@@ -0,0 +1,57 @@
+package compiler;
+
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compiles every runtime testcase with each of the pipelines, once with the serial and once with the parallel
+ * backend, and checks what the programs print.
+ * <p>
+ * All programs are compiled one after the other in the same JVM, like --compile-batch and the compile server do,
+ * so state libFirm keeps from one compilation must not change the code of the next one.
+ */
+public class TestRuntimeOutput {
+
+    private static final List<OptimizationPipeline> PIPELINES = List.of(
+            OptimizationPipeline.O0,
+            OptimizationPipeline.O1,
+            OptimizationPipeline.O3,
+            // Constant folding as the only pass, O1 and O3 also fold the results of the other passes.
+            OptimizationPipeline.parse("const"),
+            // Global value numbering must not change the output of O1.
+            without(OptimizationPipeline.O1, "gvn")
+    );
+
+    private static OptimizationPipeline without(OptimizationPipeline pipeline, String pass) {
+        var stages = pipeline.stages().stream()
+                .map(stage -> new OptimizationPipeline.Stage(
+                        stage.passes().stream().filter(p -> !p.equals(pass)).toList(),
+                        stage.maxRounds()))
+                .toList();
+        return new OptimizationPipeline(pipeline.name() + " without " + pass, pipeline.inline(), stages);
+    }
+
+    @TestFactory
+    public Stream<DynamicTest> generateOutputTests() throws IOException {
+        var testcases = RuntimeTestcases.all();
+
+        return PIPELINES.stream().flatMap(pipeline -> testcases.stream().map(testcase ->
+                DynamicTest.dynamicTest(testcase.name() + " with " + pipeline.name(), () -> {
+                    var serial = RuntimeTestcases.compileAndRun(
+                            RuntimeTestcases.check(testcase.file(), testcase.source()), pipeline, false);
+                    assertEquals(testcase.expectedOutput(), serial.output());
+
+                    // The methods are lowered concurrently, but emitted in the same order.
+                    var parallel = RuntimeTestcases.compileAndRun(
+                            RuntimeTestcases.check(testcase.file(), testcase.source()), pipeline, true);
+                    assertEquals(serial.assembly(), parallel.assembly());
+                    assertEquals(testcase.expectedOutput(), parallel.output());
+                })));
+    }
+}
@@ -0,0 +1,112 @@
+package compiler;
+
+import firm.Firm;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestTranslation {
+
+    // Deep enough to overflow a thread with the default stack size of the JVM, if conditions were translated recursively.
+    // Every operand of a chain adds a block, so the FIRM graphs get large, which keeps this lower than in TestAstPrinter.
+    private static final int DEEP_NESTING = 10_000;
+    private static final long DEFAULT_STACK_SIZE = 1 << 20;
+
+    /**
+     * Translates the program without optimizations on a thread with the default stack size of the JVM on x86-64.
+     */
+    private static void translateWithDefaultStack(String in) throws InterruptedException {
+        var frontend = RuntimeTestcases.check(new File("Deep.java"), in);
+
+        var failure = new AtomicReference<Throwable>();
+        var thread = new Thread(null, () -> {
+            try {
+                var result = new Translation(frontend).translate(false, OptimizationPipeline.O0);
+                assertEquals(1, result.methodGraphs().size());
+            } catch (Throwable e) {
+                failure.set(e);
+            } finally {
+                Firm.finish();
+            }
+        }, "translation", DEFAULT_STACK_SIZE);
+        thread.start();
+        thread.join();
+
+        if (failure.get() != null) {
+            fail(failure.get());
+        }
+    }
+
+    private static void testDeepStatement(String statement) throws InterruptedException {
+        translateWithDefaultStack("class Deep { public static void main(String[] args) { boolean b = true; int x = 0; "
+                + statement + " } }");
+    }
+
+    @Test
+    public void testLongAndChain() throws InterruptedException {
+        var chain = "b && ".repeat(DEEP_NESTING) + "true";
+        testDeepStatement("if (" + chain + ") x = 1;");
+        testDeepStatement("b = " + chain + ";");
+        testDeepStatement("while (" + chain + ") b = false;");
+    }
+
+    @Test
+    public void testLongOrChain() throws InterruptedException {
+        var chain = "b || ".repeat(DEEP_NESTING) + "x == 0";
+        testDeepStatement("if (" + chain + ") x = 1;");
+        testDeepStatement("b = " + chain + ";");
+    }
+
+    @Test
+    public void testDeeplyNestedConditions() throws InterruptedException {
+        testDeepStatement("if (" + "(b || !(x < 1 && ".repeat(DEEP_NESTING) + "b" + "))".repeat(DEEP_NESTING) + ") x = 1;");
+        testDeepStatement("b = " + "!".repeat(DEEP_NESTING) + "b;");
+    }
+
+    /**
+     * A long chain of calls with side effects, to check that the operands are still evaluated from left to right
+     * and only until the result is known.
+     */
+    @Test
+    public void testShortcircuitEvaluation() throws Exception {
+        var length = 1000;
+        var stop = 600;
+
+        var andChain = new StringBuilder("m.differs(0)");
+        var orChain = new StringBuilder("m.matches(0)");
+        for (int i = 1; i < length; i++) {
+            andChain.append(" && m.differs(").append(i).append(")");
+            orChain.append(" || m.matches(").append(i).append(")");
+        }
+
+        var in = """
+                class Main {
+                    public int stop;
+                    public int calls;
+
+                    public boolean differs(int i) { calls = calls + 1; return i != stop; }
+                    public boolean matches(int i) { calls = calls + 1; return i == stop; }
+
+                    public static void main(String[] args) {
+                        Main m = new Main();
+                        m.stop = %d;
+                        if (%s) System.out.println(1); else System.out.println(0);
+                        System.out.println(m.calls);
+                        m.calls = 0;
+                        boolean b = %s;
+                        if (b) System.out.println(1); else System.out.println(0);
+                        System.out.println(m.calls);
+                    }
+                }
+                """.formatted(stop, andChain, orChain);
+        var expected = "0\n" + (stop + 1) + "\n1\n" + (stop + 1) + "\n";
+
+        for (var pipeline : new OptimizationPipeline[]{OptimizationPipeline.O0, OptimizationPipeline.O1}) {
+            var frontend = RuntimeTestcases.check(new File("Main.java"), in);
+            assertEquals(expected, RuntimeTestcases.compileAndRun(frontend, pipeline, false).output(), pipeline.name());
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/* Integer arithmetic with constant and variable operands, including division and modulo by constants. */
+
+class Main {
+	public static void main(String[] args) {
+		Arithmetic a = new Arithmetic();
+		int i = -20;
+		while (i <= 20) {
+			System.out.println(a.mix(i, 7));
+			System.out.println(a.divisions(i * 123457));
+			i = i + 3;
+		}
+		System.out.println(a.divisions(2147483647));
+		System.out.println(a.divisions(-2147483648));
+		System.out.println(a.commuted(12, -5));
+		System.out.println(a.folded());
+	}
+}
+
+class Arithmetic {
+	public int mix(int x, int y) {
+		int a = x * y + y * x;
+		int b = (x + y) * (x - y);
+		int c = x + y - y;
+		return a - b + c * 3 - -x;
+	}
+
+	public int divisions(int x) {
+		return x / 3 + x % 3 + x / 8 + x % 8 + x / -7 + x % -7 + x / 1 + x % 1 + x / 1000 + x % 1024;
+	}
+
+	public int commuted(int x, int y) {
+		int a = x + y;
+		int b = y + x;
+		int c = x * y;
+		int d = y * x;
+		int e = x - y;
+		int f = y - x;
+		return a * 1000 + b * 100 + c + d + e * 10 + f;
+	}
+
+	public int folded() {
+		int x = 6;
+		int y = x * 7;
+		int z = y / 5 + y % 5 - (3 - 10);
+		return z * z - 2147483647 - 2;
+	}
+}
@@ -0,0 +1,51 @@
+/* Recursive and small methods, which the optimizer may inline, and output with System.out.write. */
+
+class Main {
+	public int depth;
+
+	public int fib(int n) {
+		if (n < 2) return n;
+		return fib(n - 1) + fib(n - 2);
+	}
+
+	public int ackermann(int m, int n) {
+		if (m == 0) return n + 1;
+		if (n == 0) return ackermann(m - 1, 1);
+		return ackermann(m - 1, ackermann(m, n - 1));
+	}
+
+	public int square(int x) {
+		return x * x;
+	}
+
+	public int many(int a, int b, int c, int d, int e, int f, int g, int h) {
+		return a - b + c * d - e + f * g - h;
+	}
+
+	public boolean isEven(int n) {
+		if (n == 0) return true;
+		return isOdd(n - 1);
+	}
+
+	public boolean isOdd(int n) {
+		if (n == 0) return false;
+		return isEven(n - 1);
+	}
+
+	public void printDigits(int n) {
+		if (n >= 10) printDigits(n / 10);
+		System.out.write(48 + n % 10);
+	}
+
+	public static void main(String[] args) {
+		Main m = new Main();
+		System.out.println(m.fib(20));
+		System.out.println(m.ackermann(2, 3));
+		System.out.println(m.square(m.square(7)) + m.square(-3));
+		System.out.println(m.many(1, 2, 3, 4, 5, 6, 7, 8));
+		if (m.isEven(10) && m.isOdd(7) && !m.isEven(3)) System.out.println(1);
+		m.printDigits(9081726);
+		System.out.write(10);
+		System.out.flush();
+	}
+}
@@ -0,0 +1,59 @@
+/* Short-circuit conditions and comparisons in branches and as values. */
+
+class Main {
+	public boolean flag;
+	public int calls;
+
+	public boolean record(boolean value) {
+		calls = calls + 1;
+		return value;
+	}
+
+	public int compare(int x, int y) {
+		int result = 0;
+		if (x == y) result = result + 1;
+		if (y == x) result = result + 2;
+		if (x != y) result = result + 4;
+		if (y != x) result = result + 8;
+		if (x < y) result = result + 16;
+		if (y > x) result = result + 32;
+		if (x <= y) result = result + 64;
+		if (y >= x) result = result + 128;
+		return result;
+	}
+
+	public int logic(int x) {
+		boolean a = x > 2;
+		boolean b = x % 2 == 0;
+		boolean c = !(a && b) || (x == 7 && !b);
+		boolean[] values = new boolean[3];
+		values[0] = a || b;
+		values[1] = a && !b;
+		values[2] = c;
+		flag = values[0] && (values[1] || values[2]);
+
+		int result = 0;
+		if (values[0]) result = result + 1;
+		if (values[1]) result = result + 2;
+		if (values[2]) result = result + 4;
+		if (flag) result = result + 8;
+		if (!flag && !values[2]) result = result + 16;
+		return result;
+	}
+
+	public static void main(String[] args) {
+		Main m = new Main();
+		int x = -1;
+		while (x < 10) {
+			System.out.println(m.compare(x, 4));
+			System.out.println(m.logic(x));
+			x = x + 1;
+		}
+
+		if (m.record(false) && m.record(true)) System.out.println(1);
+		if (m.record(true) || m.record(false)) System.out.println(2);
+		boolean b = m.record(true) && (m.record(false) || m.record(true)) && !m.record(false);
+		if (b) System.out.println(3);
+		System.out.println(m.calls);
+	}
+}
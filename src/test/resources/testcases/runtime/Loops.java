@@ -0,0 +1,92 @@
+/* Nested loops with loop-invariant values and values that are the same on every path. */
+
+class Main {
+	public static void main(String[] args) {
+		Loops l = new Loops();
+		System.out.println(l.triangle(100));
+		System.out.println(l.invariant(50, 3));
+		System.out.println(l.sameOnAllPaths(30));
+		System.out.println(l.collatz(27));
+		System.out.println(l.gcd(1071, 462));
+		System.out.println(l.nested(12));
+	}
+}
+
+class Loops {
+	public int triangle(int n) {
+		int sum = 0;
+		int i = 0;
+		while (i <= n) {
+			sum = sum + i;
+			i = i + 1;
+		}
+		return sum;
+	}
+
+	public int invariant(int n, int k) {
+		int sum = 0;
+		int i = 0;
+		while (i < n) {
+			int scale = k * k + 1;
+			sum = sum + i * scale - (k + 2) / 3;
+			i = i + 1;
+		}
+		return sum;
+	}
+
+	public int sameOnAllPaths(int n) {
+		int x = 5;
+		int y = 0;
+		int i = 0;
+		while (i < n) {
+			if (i % 3 == 0) {
+				x = 5;
+			} else {
+				x = x;
+			}
+			y = y + x;
+			i = i + 1;
+		}
+		return y + x;
+	}
+
+	public int collatz(int n) {
+		int steps = 0;
+		while (n != 1) {
+			if (n % 2 == 0) {
+				n = n / 2;
+			} else {
+				n = 3 * n + 1;
+			}
+			steps = steps + 1;
+		}
+		return steps;
+	}
+
+	public int gcd(int a, int b) {
+		while (b != 0) {
+			int t = a % b;
+			a = b;
+			b = t;
+		}
+		return a;
+	}
+
+	public int nested(int n) {
+		int count = 0;
+		int i = 0;
+		while (i < n) {
+			int j = i;
+			while (j < n) {
+				if ((i + j) % 3 == 1) {
+					count = count + i * j;
+				} else if (i == j) {
+					count = count - 1;
+				}
+				j = j + 1;
+			}
+			i = i + 1;
+		}
+		return count;
+	}
+}
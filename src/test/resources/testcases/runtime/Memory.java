@@ -0,0 +1,76 @@
+/* Loads and stores of fields and array elements, through aliased references and across calls. */
+
+class Main {
+	public static void main(String[] args) {
+		Cell a = new Cell();
+		Cell b = a;
+		Cell c = new Cell();
+		a.value = 1;
+		c.value = 2;
+		int x = a.value;
+		b.value = 10;
+		int y = a.value;
+		c.value = c.value + a.value;
+		System.out.println(x);
+		System.out.println(y);
+		System.out.println(a.value + a.value + c.value);
+
+		int[] array = new int[10];
+		int[] alias = array;
+		int i = 0;
+		while (i < 10) {
+			array[i] = i * i;
+			i = i + 1;
+		}
+		int first = array[3];
+		alias[3] = 100;
+		int second = array[3];
+		System.out.println(first);
+		System.out.println(second);
+		System.out.println(array[3] + array[3] + alias[4]);
+
+		a.value = 5;
+		int before = a.value;
+		a.increment();
+		int after = a.value;
+		System.out.println(before);
+		System.out.println(after);
+
+		Cell[] cells = new Cell[4];
+		i = 0;
+		while (i < 4) {
+			cells[i] = new Cell();
+			cells[i].value = i;
+			i = i + 1;
+		}
+		i = 0;
+		while (i < 4) {
+			cells[i].next = cells[(i + 3) % 4];
+			i = i + 1;
+		}
+		System.out.println(cells[0].next.value);
+		cells[3].value = 42;
+		System.out.println(cells[0].next.value + cells[1].next.next.value);
+		System.out.println(cells[2].sum(10));
+	}
+}
+
+class Cell {
+	public int value;
+	public Cell next;
+
+	public void increment() {
+		value = value + 1;
+	}
+
+	public int sum(int n) {
+		int total = 0;
+		Cell cell = this;
+		while (n > 0) {
+			total = total + cell.value;
+			cell = cell.next;
+			n = n - 1;
+		}
+		return total;
+	}
+}